@@ -16,6 +16,10 @@
 
 package com.dopsun.msg4j.activemq.transport;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Enumeration;
@@ -26,15 +30,16 @@ import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.jms.JMSException;
 import javax.jms.Session;
 
+import com.dopsun.msg4j.core.messages.FieldCursor;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.MessageCodec;
 import com.dopsun.msg4j.core.messages.MessageReader;
-import com.dopsun.msg4j.core.messages.MessageVisitor;
 import com.dopsun.msg4j.core.messages.Messages;
-import com.dopsun.msg4j.core.messages.WritableMessage;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.common.collect.ImmutableMap;
@@ -48,10 +53,24 @@ final class ActiveMQSerializer {
 
     private final ImmutableMap<FieldType, ConcurrentHashMap<String, FieldKey>> fieldKeyByTypeName;
 
+    @Nullable
+    private final MessageCodec codec;
+
     /**
      * 
      */
     public ActiveMQSerializer() {
+        this(null);
+    }
+
+    /**
+     * @param codec
+     *            codec to send messages as bytes messages, or <code>null</code> to send them as map
+     *            messages.
+     */
+    public ActiveMQSerializer(@Nullable MessageCodec codec) {
+        this.codec = codec;
+
         ImmutableMap.Builder<FieldType, ConcurrentHashMap<String, FieldKey>> builder = ImmutableMap
                 .builder();
 
@@ -73,204 +92,147 @@ final class ActiveMQSerializer {
         Objects.requireNonNull(session);
         Objects.requireNonNull(message);
 
-        final javax.jms.MapMessage jmsMessage = session.createMapMessage();
-        message.accept(new MessageVisitor() {
-            @Override
-            public void visit(String fieldName, FieldType fieldType, boolean value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setBoolean(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, byte value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setByte(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, char value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setChar(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, short value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setShort(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, int value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setInt(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        if (codec != null) {
+            return toJmsBytes(session, message, codec);
+        }
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, long value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setLong(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        javax.jms.MapMessage jmsMessage = session.createMapMessage();
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, float value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setFloat(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, double value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setDouble(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        FieldCursor cursor = message.cursor();
+        while (cursor.next()) {
+            FieldKey fieldKey = resolveFieldKeyFromNameAndType(cursor.name(), cursor.type());
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, String value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    jmsMessage.setString(fieldKey.jmsKeyName, value);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
+            switch (cursor.type()) {
+            case BOOLEAN:
+                jmsMessage.setBoolean(fieldKey.jmsKeyName, cursor.booleanValue());
+                break;
+            case BYTE:
+                jmsMessage.setByte(fieldKey.jmsKeyName, cursor.byteValue());
+                break;
+            case CHAR:
+                jmsMessage.setChar(fieldKey.jmsKeyName, cursor.charValue());
+                break;
+            case SHORT:
+                jmsMessage.setShort(fieldKey.jmsKeyName, cursor.shortValue());
+                break;
+            case INT:
+                jmsMessage.setInt(fieldKey.jmsKeyName, cursor.intValue());
+                break;
+            case LONG:
+                jmsMessage.setLong(fieldKey.jmsKeyName, cursor.longValue());
+                break;
+            case FLOAT:
+                jmsMessage.setFloat(fieldKey.jmsKeyName, cursor.floatValue());
+                break;
+            case DOUBLE:
+                jmsMessage.setDouble(fieldKey.jmsKeyName, cursor.doubleValue());
+                break;
+            case STRING:
+                jmsMessage.setString(fieldKey.jmsKeyName, cursor.stringValue());
+                break;
+            case MESSAGE:
+                jmsMessage.setObject(fieldKey.jmsKeyName, messageToMap(cursor.messageValue()));
+                break;
+            case MESSAGE_LIST:
+                jmsMessage.setObject(fieldKey.jmsKeyName,
+                        messageListToMaps(cursor.messageListValue()));
+                break;
+            case INT_ARRAY:
+                jmsMessage.setBytes(fieldKey.jmsKeyName, toBytes(cursor.intArrayValue()));
+                break;
+            case LONG_ARRAY:
+                jmsMessage.setBytes(fieldKey.jmsKeyName, toBytes(cursor.longArrayValue()));
+                break;
+            case DOUBLE_ARRAY:
+                jmsMessage.setBytes(fieldKey.jmsKeyName, toBytes(cursor.doubleArrayValue()));
+                break;
+            case BYTES:
+                jmsMessage.setBytes(fieldKey.jmsKeyName, toBytes(cursor.bytesValue()));
+                break;
             }
+        }
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, ImmutableMessage value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    Map<String, Object> mapMessage = messageToMap(value);
-                    jmsMessage.setObject(fieldKey.jmsKeyName, mapMessage);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        return jmsMessage;
+    }
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, List<ImmutableMessage> value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                try {
-                    List<Map<String, Object>> jmsMessageList = new ArrayList<>();
-                    for (ImmutableMessage message : value) {
-                        jmsMessageList.add(messageToMap(message));
-                    }
-                    jmsMessage.setObject(fieldKey.jmsKeyName, jmsMessageList);
-                } catch (JMSException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        });
+    private static javax.jms.Message toJmsBytes(Session session, MessageReader message,
+            MessageCodec codec) throws JMSException {
+        javax.jms.BytesMessage jmsMessage = session.createBytesMessage();
+        if (message instanceof ImmutableMessage) {
+            ((ImmutableMessage) message).writeEncoded(codec, jmsMessage::writeBytes);
+        } else {
+            jmsMessage.writeBytes(codec.encode(message));
+        }
 
         return jmsMessage;
     }
 
     private Map<String, Object> messageToMap(MessageReader message) {
-        final Map<String, Object> map = new HashMap<>();
-
-        message.accept(new MessageVisitor() {
-            @Override
-            public void visit(String fieldName, FieldType fieldType, boolean value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, byte value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, char value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, short value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, int value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, long value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
+        Map<String, Object> map = new HashMap<>();
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, float value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
+        FieldCursor cursor = message.cursor();
+        while (cursor.next()) {
+            FieldKey fieldKey = resolveFieldKeyFromNameAndType(cursor.name(), cursor.type());
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, double value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
-            }
-
-            @Override
-            public void visit(String fieldName, FieldType fieldType, String value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                map.put(fieldKey.jmsKeyName, value);
+            switch (cursor.type()) {
+            case BOOLEAN:
+                map.put(fieldKey.jmsKeyName, cursor.booleanValue());
+                break;
+            case BYTE:
+                map.put(fieldKey.jmsKeyName, cursor.byteValue());
+                break;
+            case CHAR:
+                map.put(fieldKey.jmsKeyName, cursor.charValue());
+                break;
+            case SHORT:
+                map.put(fieldKey.jmsKeyName, cursor.shortValue());
+                break;
+            case INT:
+                map.put(fieldKey.jmsKeyName, cursor.intValue());
+                break;
+            case LONG:
+                map.put(fieldKey.jmsKeyName, cursor.longValue());
+                break;
+            case FLOAT:
+                map.put(fieldKey.jmsKeyName, cursor.floatValue());
+                break;
+            case DOUBLE:
+                map.put(fieldKey.jmsKeyName, cursor.doubleValue());
+                break;
+            case STRING:
+                map.put(fieldKey.jmsKeyName, cursor.stringValue());
+                break;
+            case MESSAGE:
+                map.put(fieldKey.jmsKeyName, messageToMap(cursor.messageValue()));
+                break;
+            case MESSAGE_LIST:
+                map.put(fieldKey.jmsKeyName, messageListToMaps(cursor.messageListValue()));
+                break;
+            case INT_ARRAY:
+                map.put(fieldKey.jmsKeyName, toBytes(cursor.intArrayValue()));
+                break;
+            case LONG_ARRAY:
+                map.put(fieldKey.jmsKeyName, toBytes(cursor.longArrayValue()));
+                break;
+            case DOUBLE_ARRAY:
+                map.put(fieldKey.jmsKeyName, toBytes(cursor.doubleArrayValue()));
+                break;
+            case BYTES:
+                map.put(fieldKey.jmsKeyName, toBytes(cursor.bytesValue()));
+                break;
             }
+        }
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, ImmutableMessage value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                Map<String, Object> mapMessage = messageToMap(value);
-                map.put(fieldKey.jmsKeyName, mapMessage);
-            }
+        return map;
+    }
 
-            @Override
-            public void visit(String fieldName, FieldType fieldType, List<ImmutableMessage> value) {
-                FieldKey fieldKey = resolveFieldKeyFromNameAndType(fieldName, fieldType);
-                List<Map<String, Object>> jmsMessageList = new ArrayList<>();
-                for (ImmutableMessage message : value) {
-                    jmsMessageList.add(messageToMap(message));
-                }
-                map.put(fieldKey.jmsKeyName, jmsMessageList);
-            }
-        });
+    private List<Map<String, Object>> messageListToMaps(List<ImmutableMessage> messages) {
+        List<Map<String, Object>> jmsMessageList = new ArrayList<>(messages.size());
+        for (ImmutableMessage message : messages) {
+            jmsMessageList.add(messageToMap(message));
+        }
 
-        return map;
+        return jmsMessageList;
     }
 
     /**
@@ -278,15 +240,23 @@ final class ActiveMQSerializer {
      * @return
      * @throws JMSException
      */
-    public WritableMessage fromJms(@Nonnull javax.jms.Message jmsMessage) throws JMSException {
+    public ImmutableMessage fromJms(@Nonnull javax.jms.Message jmsMessage) throws JMSException {
         Objects.requireNonNull(jmsMessage);
+        if (codec != null && jmsMessage instanceof javax.jms.BytesMessage) {
+            javax.jms.BytesMessage jmsBytesMessage = (javax.jms.BytesMessage) jmsMessage;
+
+            byte[] bytes = new byte[(int) jmsBytesMessage.getBodyLength()];
+            jmsBytesMessage.readBytes(bytes);
+            return codec.view(ByteBuffer.wrap(bytes));
+        }
+
         if (!(jmsMessage instanceof javax.jms.MapMessage)) {
             throw new IllegalArgumentException("javax.jms.MapMessage expected.");
         }
 
         javax.jms.MapMessage jmsMapMessage = (javax.jms.MapMessage) jmsMessage;
 
-        WritableMessage message = Messages.create();
+        ImmutableMessage.Builder message = Messages.builder();
 
         Enumeration<?> mapNames = jmsMapMessage.getMapNames();
         while (mapNames.hasMoreElements()) {
@@ -339,14 +309,30 @@ final class ActiveMQSerializer {
 
                 message.putMessageList(fieldKey.fieldName, listBuilder.build());
                 break;
+            case INT_ARRAY:
+                message.putIntArray(fieldKey.fieldName,
+                        toIntArray(jmsMapMessage.getBytes(jmsFieldName)));
+                break;
+            case LONG_ARRAY:
+                message.putLongArray(fieldKey.fieldName,
+                        toLongArray(jmsMapMessage.getBytes(jmsFieldName)));
+                break;
+            case DOUBLE_ARRAY:
+                message.putDoubleArray(fieldKey.fieldName,
+                        toDoubleArray(jmsMapMessage.getBytes(jmsFieldName)));
+                break;
+            case BYTES:
+                message.putBytes(fieldKey.fieldName,
+                        ByteBuffer.wrap(jmsMapMessage.getBytes(jmsFieldName)));
+                break;
             }
         }
 
-        return message;
+        return message.build();
     }
 
     private ImmutableMessage mapToMesssage(Map<String, Object> map) {
-        WritableMessage message = Messages.create();
+        ImmutableMessage.Builder message = Messages.builder(map.size());
 
         for (Map.Entry<String, Object> entry : map.entrySet()) {
             String jmsFieldName = entry.getKey();
@@ -400,10 +386,74 @@ final class ActiveMQSerializer {
 
                 message.putMessageList(fieldKey.fieldName, listBuilder.build());
                 break;
+            case INT_ARRAY:
+                message.putIntArray(fieldKey.fieldName,
+                        toIntArray((byte[]) map.get(jmsFieldName)));
+                break;
+            case LONG_ARRAY:
+                message.putLongArray(fieldKey.fieldName,
+                        toLongArray((byte[]) map.get(jmsFieldName)));
+                break;
+            case DOUBLE_ARRAY:
+                message.putDoubleArray(fieldKey.fieldName,
+                        toDoubleArray((byte[]) map.get(jmsFieldName)));
+                break;
+            case BYTES:
+                message.putBytes(fieldKey.fieldName,
+                        ByteBuffer.wrap((byte[]) map.get(jmsFieldName)));
+                break;
             }
         }
 
-        return message.toImmutable();
+        return message.build();
+    }
+
+    private static byte[] toBytes(ByteBuffer value) {
+        byte[] bytes = new byte[value.remaining()];
+        value.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] toBytes(IntBuffer values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.remaining() * 4);
+        bytes.asIntBuffer().put(values);
+        return bytes.array();
+    }
+
+    private static int[] toIntArray(byte[] bytes) {
+        IntBuffer buffer = ByteBuffer.wrap(bytes).asIntBuffer();
+
+        int[] values = new int[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+    private static byte[] toBytes(LongBuffer values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.remaining() * 8);
+        bytes.asLongBuffer().put(values);
+        return bytes.array();
+    }
+
+    private static long[] toLongArray(byte[] bytes) {
+        LongBuffer buffer = ByteBuffer.wrap(bytes).asLongBuffer();
+
+        long[] values = new long[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+    private static byte[] toBytes(DoubleBuffer values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.remaining() * 8);
+        bytes.asDoubleBuffer().put(values);
+        return bytes.array();
+    }
+
+    private static double[] toDoubleArray(byte[] bytes) {
+        DoubleBuffer buffer = ByteBuffer.wrap(bytes).asDoubleBuffer();
+
+        double[] values = new double[buffer.remaining()];
+        buffer.get(values);
+        return values;
     }
 
     private FieldKey resolveFieldKeyFromJmsKey(String jmsKey) {
@@ -475,6 +525,18 @@ final class ActiveMQSerializer {
             case MESSAGE_LIST:
                 this.jmsKeyName = fieldName + ".L";
                 break;
+            case INT_ARRAY:
+                this.jmsKeyName = fieldName + ".I";
+                break;
+            case LONG_ARRAY:
+                this.jmsKeyName = fieldName + ".J";
+                break;
+            case DOUBLE_ARRAY:
+                this.jmsKeyName = fieldName + ".D";
+                break;
+            case BYTES:
+                this.jmsKeyName = fieldName + ".R";
+                break;
             default:
                 throw new RuntimeException("Unrecognized type: " + fieldType);
             }
@@ -524,6 +586,18 @@ final class ActiveMQSerializer {
             case 'L':
                 this.fieldType = FieldType.MESSAGE_LIST;
                 break;
+            case 'I':
+                this.fieldType = FieldType.INT_ARRAY;
+                break;
+            case 'J':
+                this.fieldType = FieldType.LONG_ARRAY;
+                break;
+            case 'D':
+                this.fieldType = FieldType.DOUBLE_ARRAY;
+                break;
+            case 'R':
+                this.fieldType = FieldType.BYTES;
+                break;
             default:
                 throw new RuntimeException("Unrecognized JMS key: " + jmsKey);
             }
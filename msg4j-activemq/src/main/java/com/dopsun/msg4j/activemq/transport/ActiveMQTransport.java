@@ -16,11 +16,19 @@
 
 package com.dopsun.msg4j.activemq.transport;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
 import javax.jms.DeliveryMode;
 import javax.jms.JMSException;
 import javax.jms.MessageConsumer;
@@ -30,10 +38,13 @@ import org.apache.activemq.ActiveMQConnection;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.apache.activemq.ActiveMQMessageProducer;
 import org.apache.activemq.ActiveMQSession;
+import org.apache.activemq.AsyncCallback;
 import org.apache.activemq.command.ActiveMQQueue;
 import org.apache.activemq.command.ActiveMQTopic;
 
 import com.dopsun.msg4j.core.delivery.transports.ConsumerMode;
+import com.dopsun.msg4j.core.delivery.transports.DeliveryExecutor;
+import com.dopsun.msg4j.core.delivery.transports.InFlightWindow;
 import com.dopsun.msg4j.core.delivery.transports.ProducerMode;
 import com.dopsun.msg4j.core.delivery.transports.Transport;
 import com.dopsun.msg4j.core.delivery.transports.TransportCapability;
@@ -44,9 +55,12 @@ import com.dopsun.msg4j.core.delivery.transports.TransportException;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscriberSettings;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscription;
 import com.dopsun.msg4j.core.delivery.transports.TransportTopic;
+import com.dopsun.msg4j.core.delivery.transports.Transports;
 import com.dopsun.msg4j.core.messages.ImmutableMessage;
 import com.dopsun.msg4j.core.messages.Message;
+import com.dopsun.msg4j.core.messages.MessageCodec;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 
 /**
  * Transport implementation based on ActiveMQ.
@@ -60,6 +74,9 @@ import com.google.common.collect.ImmutableList;
  * configuration.</li>
  * <li>Transaction is a passed in parameters. Session for producer will be configured for the
  * transaction.</li>
+ * <li>Batch subscriptions have their own sessions and receiver threads, which are closed with
+ * transport. They are not supported by transacted transport, as their sessions would be out of
+ * its transaction.</li>
  * </ul>
  * </p>
  * 
@@ -83,6 +100,10 @@ public class ActiveMQTransport implements Transport {
     private final ActiveMQSerializer serializer;
     private final boolean isTransacted;
 
+    @Nullable
+    private final MessageCodec codec;
+    private final InFlightWindow inFlightWindow;
+
     private final EnumSet<TransportCapability> capabilities;
 
     private final ConcurrentHashMap<ActiveMQTransportDestination, ActiveMQMessageProducer> producerBySubject = new ConcurrentHashMap<>();
@@ -103,6 +124,12 @@ public class ActiveMQTransport implements Transport {
      */
     private final ActiveMQSession producerSession;
 
+    /**
+     * Batch subscriptions not closed yet, which own their sessions.
+     */
+    private final Set<ActiveMQTransportSubscription> batchSubscriptions = Sets
+            .newConcurrentHashSet();
+
     /**
      * Listers is volatile and immutable. It can be replaced as a whole. See
      * <code>trigerTransportEvent</code> to see how this field to be used.
@@ -119,7 +146,10 @@ public class ActiveMQTransport implements Transport {
         Objects.requireNonNull(config.getConsumerMode());
 
         this.isTransacted = config.isTransacted();
-        this.serializer = new ActiveMQSerializer();
+        this.serializer = new ActiveMQSerializer(config.getCodec());
+        this.codec = config.getCodec();
+        this.inFlightWindow = new InFlightWindow(config.getMaxInFlightMessages(),
+                config.getMaxInFlightBytes(), config.isBlockWhenInFlightFull());
 
         this.capabilities = EnumSet.copyOf(DEFAULT_CAPABILITIES);
         if (isTransacted) {
@@ -151,6 +181,11 @@ public class ActiveMQTransport implements Transport {
     @Override
     public void close() throws Exception {
         try {
+            for (ActiveMQTransportSubscription subscription : ImmutableList
+                    .copyOf(batchSubscriptions)) {
+                subscription.close();
+            }
+
             for (ActiveMQMessageProducer producer : producerBySubject.values()) {
                 producer.close();
             }
@@ -244,6 +279,102 @@ public class ActiveMQTransport implements Transport {
         Objects.requireNonNull(destination);
         Objects.requireNonNull(message);
 
+        ActiveMQMessageProducer producer = getOrCreateProducer(destination);
+
+        try {
+            javax.jms.Message jmsMessage = serializer.toJms(producerSession, message);
+            producer.send(jmsMessage);
+        } catch (JMSException e) {
+            throw new TransportException(e);
+        }
+    }
+
+    /**
+     * Message is sent with an {@link AsyncCallback}, which completes the future on a thread of
+     * connection when broker accepted it.
+     */
+    @Override
+    public CompletableFuture<Void> publishAsync(TransportDestination destination,
+            Message message) throws TransportException {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(message);
+
+        ActiveMQMessageProducer producer = getOrCreateProducer(destination);
+
+        final long bytes = codec != null ? message.encodedSize(codec)
+                : message.estimatedRetainedSize();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        inFlightWindow.acquire(bytes);
+        try {
+            producer.send(serializer.toJms(producerSession, message), new AsyncCallback() {
+                @Override
+                public void onSuccess() {
+                    inFlightWindow.release(bytes);
+                    future.complete(null);
+                }
+
+                @Override
+                public void onException(JMSException exception) {
+                    inFlightWindow.release(bytes);
+                    future.completeExceptionally(new TransportException(exception));
+                }
+            });
+        } catch (JMSException e) {
+            inFlightWindow.release(bytes);
+            throw new TransportException(e);
+        } catch (RuntimeException e) {
+            inFlightWindow.release(bytes);
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * Sends all messages without waiting for each of them, and waits once for broker to accept
+     * them all. In a transacted transport, messages are sent within current transaction.
+     */
+    @Override
+    public void publishBatch(TransportDestination destination, List<? extends Message> messages)
+            throws TransportException {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(messages);
+
+        ActiveMQMessageProducer producer = getOrCreateProducer(destination);
+
+        BatchCompletion completion = new BatchCompletion(messages.size());
+        try {
+            for (Message message : messages) {
+                producer.send(serializer.toJms(producerSession, message), completion);
+            }
+        } catch (JMSException e) {
+            throw new TransportException(e);
+        }
+
+        completion.await();
+    }
+
+    @Override
+    public void publishBatch(List<? extends TransportDestination> destinations,
+            List<? extends Message> messages) throws TransportException {
+        Transports.checkBatch(destinations, messages);
+
+        BatchCompletion completion = new BatchCompletion(messages.size());
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                ActiveMQMessageProducer producer = getOrCreateProducer(destinations.get(i));
+                producer.send(serializer.toJms(producerSession, messages.get(i)), completion);
+            }
+        } catch (JMSException e) {
+            throw new TransportException(e);
+        }
+
+        completion.await();
+    }
+
+    private ActiveMQMessageProducer getOrCreateProducer(TransportDestination destination)
+            throws TransportException {
         if (!(destination instanceof ActiveMQTransportDestination)) {
             throw new IllegalArgumentException();
         }
@@ -265,21 +396,203 @@ public class ActiveMQTransport implements Transport {
             producerBySubject.put(amqDestination, producer);
         }
 
+        return producer;
+    }
+
+    @Override
+    public TransportSubscription subscribe(TransportDestination destination,
+            TransportSubscriberSettings settings, Consumer<Message> consumer)
+            throws TransportException {
+        Objects.requireNonNull(consumer);
+        checkSubscription(destination, settings);
+
+        ActiveMQTransportDestination amqDestination = (ActiveMQTransportDestination) destination;
+        ActiveMQSession session = getOrCreateSession(destination.getConsumerMode());
+
+        DeliveryExecutor deliveryExecutor = DeliveryExecutor.of(settings,
+                destination.getConsumerMode(), amqDestination.toString());
+        Consumer<Message> delivery = deliveryExecutor.wrap(consumer);
         try {
-            javax.jms.Message jmsMessage = serializer.toJms(producerSession, message);
-            producer.send(jmsMessage);
+            MessageConsumer amqConsumer = createConsumer(session, amqDestination, settings);
+
+            amqConsumer.setMessageListener(jmsMessage -> {
+                ImmutableMessage localMessage = fromJms(jmsMessage);
+                if (localMessage != null) {
+                    delivery.accept(localMessage);
+                }
+            });
+
+            return new ActiveMQTransportSubscription(session, amqConsumer, settings.getName(),
+                    false, deliveryExecutor);
         } catch (JMSException e) {
+            deliveryExecutor.close();
             throw new TransportException(e);
         }
     }
 
+    /**
+     * Batch subscription has its own session, and a receiver thread which receives a message,
+     * then drains messages already prefetched by consumer without waiting, or waits up to max
+     * linger for more if batch is not full. Batch is delivered on receiver thread. Receiver
+     * thread stops, and session closed, when subscription or transport closed.
+     * 
+     * <p>
+     * Unless destination is {@link ConsumerMode#NO_ACK}, session is client acknowledged, and a
+     * batch is acknowledged after consumer returns. If consumer fails, session is recovered, so
+     * the batch is delivered again.
+     * </p>
+     * 
+     * @throws UnsupportedOperationException
+     *             if this transport is transacted, as session of batch subscription would not be in
+     *             transaction of this transport.
+     */
     @Override
-    public TransportSubscription subscribe(TransportDestination destination,
-            TransportSubscriberSettings settings, Consumer<Message> consumer)
-            throws TransportException {
+    public TransportSubscription subscribeBatch(TransportDestination destination,
+            TransportSubscriberSettings settings, Consumer<List<Message>> consumer)
+            throws TransportException, UnsupportedOperationException {
+        Objects.requireNonNull(consumer);
+        if (isTransacted) {
+            throw new UnsupportedOperationException(
+                    "Batch subscription is not supported by transacted transport.");
+        }
+        checkSubscription(destination, settings);
+
+        ActiveMQTransportDestination amqDestination = (ActiveMQTransportDestination) destination;
+
+        DeliveryExecutor deliveryExecutor = DeliveryExecutor.of(settings,
+                destination.getConsumerMode(), amqDestination.toString());
+        Consumer<List<Message>> delivery = deliveryExecutor.wrap(consumer);
+
+        boolean acknowledged = destination.getConsumerMode() != ConsumerMode.NO_ACK;
+
+        ActiveMQSession session = null;
+        try {
+            if (acknowledged) {
+                session = (ActiveMQSession) connection.createSession(false,
+                        Session.CLIENT_ACKNOWLEDGE);
+            } else {
+                session = createSession(destination.getConsumerMode());
+            }
+            MessageConsumer amqConsumer = createConsumer(session, amqDestination, settings);
+
+            ActiveMQSession batchSession = acknowledged ? session : null;
+            int maxBatchSize = settings.getMaxBatchSize();
+            long maxLingerNanos = settings.getMaxLinger(TimeUnit.NANOSECONDS);
+
+            Thread receiver = new Thread(() -> receiveBatches(batchSession, amqConsumer,
+                    maxBatchSize, maxLingerNanos, delivery), "msg4j-batch-" + amqDestination);
+            receiver.setDaemon(true);
+
+            ActiveMQTransportSubscription subscription = new ActiveMQTransportSubscription(
+                    session, amqConsumer, settings.getName(), true, deliveryExecutor, receiver,
+                    batchSubscriptions::remove);
+            batchSubscriptions.add(subscription);
+            receiver.start();
+
+            return subscription;
+        } catch (JMSException e) {
+            deliveryExecutor.close();
+            if (session != null) {
+                try {
+                    session.close();
+                } catch (JMSException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+
+            throw new TransportException(e);
+        }
+    }
+
+    /**
+     * Runs until consumer closed.
+     * 
+     * @param session
+     *            client acknowledged session of <code>amqConsumer</code>, or <code>null</code> if
+     *            messages are not acknowledged.
+     */
+    private void receiveBatches(@Nullable ActiveMQSession session, MessageConsumer amqConsumer,
+            int maxBatchSize, long maxLingerNanos, Consumer<List<Message>> consumer) {
+        try {
+            while (true) {
+                javax.jms.Message jmsMessage = amqConsumer.receive();
+                if (jmsMessage == null) {
+                    return; // consumer closed
+                }
+
+                List<Message> batch = new ArrayList<>();
+                javax.jms.Message lastMessage;
+                long deadline = System.nanoTime() + maxLingerNanos;
+                do {
+                    lastMessage = jmsMessage;
+                    ImmutableMessage localMessage = fromJms(jmsMessage);
+                    if (localMessage != null) {
+                        batch.add(localMessage);
+                    }
+
+                    if (batch.size() >= maxBatchSize) {
+                        break;
+                    }
+
+                    long remainingMillis = TimeUnit.NANOSECONDS
+                            .toMillis(deadline - System.nanoTime());
+                    if (remainingMillis > 0) {
+                        jmsMessage = amqConsumer.receive(remainingMillis);
+                    } else {
+                        jmsMessage = amqConsumer.receiveNoWait();
+                    }
+                } while (jmsMessage != null);
+
+                try {
+                    if (!batch.isEmpty()) {
+                        consumer.accept(Collections.unmodifiableList(batch));
+                    }
+                } catch (RuntimeException e) {
+                    TransportEventArgs eventArgs = new TransportEventArgs(
+                            TransportEventArgs.EXCEPTION_EVENT_ID, "Batch consumer failed.", e);
+
+                    trigerTransportEvent(eventArgs);
+
+                    if (session != null) {
+                        session.recover(); // delivered again
+                    }
+                    continue;
+                }
+
+                if (session != null) {
+                    lastMessage.acknowledge(); // all messages received by session
+                }
+            }
+        } catch (JMSException e) {
+            TransportEventArgs eventArgs = new TransportEventArgs(
+                    TransportEventArgs.EXCEPTION_EVENT_ID, "Failed to receive batch.", e);
+
+            trigerTransportEvent(eventArgs);
+        }
+    }
+
+    /**
+     * @return converted message, or <code>null</code> if failed, which is reported as transport
+     *         event.
+     */
+    @Nullable
+    private ImmutableMessage fromJms(javax.jms.Message jmsMessage) {
+        try {
+            return serializer.fromJms(jmsMessage);
+        } catch (JMSException e) {
+            TransportEventArgs eventArgs = new TransportEventArgs(
+                    TransportEventArgs.EXCEPTION_EVENT_ID,
+                    "Failed to convert received message.", e);
+
+            trigerTransportEvent(eventArgs);
+            return null;
+        }
+    }
+
+    private static void checkSubscription(TransportDestination destination,
+            TransportSubscriberSettings settings) {
         Objects.requireNonNull(destination);
         Objects.requireNonNull(settings);
-        Objects.requireNonNull(consumer);
 
         if (!(destination instanceof ActiveMQTransportDestination)) {
             throw new IllegalArgumentException();
@@ -297,51 +610,27 @@ public class ActiveMQTransport implements Transport {
                 throw new UnsupportedOperationException("Durable subscription only for topic.");
             }
         }
+    }
 
-        ActiveMQTransportDestination amqDestination = (ActiveMQTransportDestination) destination;
-        ActiveMQSession session = getOrCreateSession(destination.getConsumerMode());
+    private static MessageConsumer createConsumer(ActiveMQSession session,
+            ActiveMQTransportDestination amqDestination, TransportSubscriberSettings settings)
+            throws JMSException {
+        if (settings.isDurable()) {
+            ActiveMQTransportTopic amqTopic = (ActiveMQTransportTopic) amqDestination;
 
-        try {
-            MessageConsumer amqConsumer;
-            if (settings.isDurable()) {
-                ActiveMQTransportTopic amqTopic = (ActiveMQTransportTopic) amqDestination;
-
-                if (settings.getSelector() != null) {
-                    amqConsumer = session.createDurableSubscriber(amqTopic.getTopic(),
-                            settings.getName(), settings.getSelector(), false);
-                } else {
-                    amqConsumer = session.createDurableSubscriber(amqTopic.getTopic(),
-                            settings.getName());
-                }
+            if (settings.getSelector() != null) {
+                return session.createDurableSubscriber(amqTopic.getTopic(), settings.getName(),
+                        settings.getSelector(), false);
             } else {
-                if (settings.getSelector() != null) {
-                    amqConsumer = session.createConsumer(amqDestination.getDestination(),
-                            settings.getSelector(), false);
-                } else {
-                    amqConsumer = session.createConsumer(amqDestination.getDestination());
-                }
+                return session.createDurableSubscriber(amqTopic.getTopic(), settings.getName());
+            }
+        } else {
+            if (settings.getSelector() != null) {
+                return session.createConsumer(amqDestination.getDestination(),
+                        settings.getSelector(), false);
+            } else {
+                return session.createConsumer(amqDestination.getDestination());
             }
-
-            amqConsumer.setMessageListener(jmsMessage -> {
-                ImmutableMessage localMessage = null;
-                try {
-                    localMessage = serializer.fromJms(jmsMessage).toImmutable();
-                } catch (JMSException e) {
-                    TransportEventArgs eventArgs = new TransportEventArgs(
-                            TransportEventArgs.EXCEPTION_EVENT_ID,
-                            "Failed to close subscription while onMessage failed.", e);
-
-                    trigerTransportEvent(eventArgs);
-                }
-
-                if (localMessage != null) {
-                    consumer.accept(localMessage);
-                }
-            });
-
-            return new ActiveMQTransportSubscription(session, amqConsumer, settings.getName());
-        } catch (JMSException e) {
-            throw new TransportException(e);
         }
     }
 
@@ -371,6 +660,48 @@ public class ActiveMQTransport implements Transport {
         }
     }
 
+    /**
+     * Completion of messages sent asynchronously, which keeps the first failure.
+     */
+    private static final class BatchCompletion implements AsyncCallback {
+        private final CountDownLatch pending;
+
+        @Nullable
+        private volatile JMSException failure;
+
+        BatchCompletion(int count) {
+            this.pending = new CountDownLatch(count);
+        }
+
+        @Override
+        public void onSuccess() {
+            pending.countDown();
+        }
+
+        @Override
+        public void onException(JMSException exception) {
+            if (failure == null) {
+                failure = exception;
+            }
+
+            pending.countDown();
+        }
+
+        void await() throws TransportException {
+            try {
+                pending.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransportException("Interrupted while waiting for batch sent.", e);
+            }
+
+            JMSException exception = failure;
+            if (exception != null) {
+                throw new TransportException(exception);
+            }
+        }
+    }
+
     private void trigerTransportEvent(TransportEventArgs eventArgs) {
         ImmutableList<TransportEventListener> listeners = eventListeners;
         for (TransportEventListener listener : listeners) {
@@ -381,28 +712,32 @@ public class ActiveMQTransport implements Transport {
     private ActiveMQSession getOrCreateSession(ConsumerMode consumerMode) {
         return sessionByConsumerMode.computeIfAbsent(consumerMode, mode -> {
             try {
-                int ackMode = Session.AUTO_ACKNOWLEDGE;
-                switch (mode) {
-                case AUTO:
-                    ackMode = Session.AUTO_ACKNOWLEDGE;
-                    break;
-                case CLIENT:
-                    ackMode = Session.CLIENT_ACKNOWLEDGE;
-                    break;
-                case DUPS_OK:
-                    ackMode = Session.DUPS_OK_ACKNOWLEDGE;
-                    break;
-                case NO_ACK:
-                    ackMode = Session.DUPS_OK_ACKNOWLEDGE;
-                    break;
-                default:
-                    throw new RuntimeException("Unrecognized acknowledge mode: " + mode);
-                }
-
-                return (ActiveMQSession) connection.createSession(isTransacted, ackMode);
+                return createSession(mode);
             } catch (JMSException e) {
                 throw new RuntimeException("Failed to create session.", e);
             }
         });
     }
+
+    private ActiveMQSession createSession(ConsumerMode consumerMode) throws JMSException {
+        int ackMode = Session.AUTO_ACKNOWLEDGE;
+        switch (consumerMode) {
+        case AUTO:
+            ackMode = Session.AUTO_ACKNOWLEDGE;
+            break;
+        case CLIENT:
+            ackMode = Session.CLIENT_ACKNOWLEDGE;
+            break;
+        case DUPS_OK:
+            ackMode = Session.DUPS_OK_ACKNOWLEDGE;
+            break;
+        case NO_ACK:
+            ackMode = Session.DUPS_OK_ACKNOWLEDGE;
+            break;
+        default:
+            throw new RuntimeException("Unrecognized acknowledge mode: " + consumerMode);
+        }
+
+        return (ActiveMQSession) connection.createSession(isTransacted, ackMode);
+    }
 }
@@ -16,7 +16,11 @@
 
 package com.dopsun.msg4j.activemq.transport;
 
+import javax.annotation.Nullable;
+
 import com.dopsun.msg4j.core.delivery.transports.ConsumerMode;
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.MessageCodec;
 
 /**
  * @author Dop Sun
@@ -29,6 +33,15 @@ public class ActiveMQTransportConfiguration {
 
     private boolean isTransacted;
 
+    @Nullable
+    private MessageCodec codec;
+
+    private int maxInFlightMessages = Integer.MAX_VALUE;
+
+    private long maxInFlightBytes = Long.MAX_VALUE;
+
+    private boolean blockWhenInFlightFull = true;
+
     /**
      * @return the brokerUrl
      */
@@ -73,4 +86,73 @@ public class ActiveMQTransportConfiguration {
     public void setConsumerMode(ConsumerMode consumerMode) {
         this.consumerMode = consumerMode;
     }
+
+    /**
+     * @return the codec, or <code>null</code> if messages are sent as JMS map messages.
+     */
+    @Nullable
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Sets codec to send messages as JMS bytes messages. Immutable messages are encoded once by
+     * {@link ImmutableMessage#encoded(MessageCodec)}, however many destinations they are published
+     * to. Publishers and subscribers should be configured with same codec.
+     * 
+     * @param codec
+     *            the codec to set, or <code>null</code> to send messages as JMS map messages.
+     */
+    public void setCodec(@Nullable MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * @return max number of messages published asynchronously but not yet accepted by broker.
+     */
+    public int getMaxInFlightMessages() {
+        return maxInFlightMessages;
+    }
+
+    /**
+     * @param maxInFlightMessages
+     *            the maxInFlightMessages to set
+     */
+    public void setMaxInFlightMessages(int maxInFlightMessages) {
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
+    /**
+     * Bytes of a message are its encoded size if {@link #getCodec() codec} is set, otherwise its
+     * estimated retained size.
+     * 
+     * @return max bytes of messages published asynchronously but not yet accepted by broker.
+     */
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    /**
+     * @param maxInFlightBytes
+     *            the maxInFlightBytes to set
+     */
+    public void setMaxInFlightBytes(long maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    /**
+     * @return <code>true</code> if asynchronous publishing waits when in-flight window is full;
+     *         <code>false</code> if it fails fast.
+     */
+    public boolean isBlockWhenInFlightFull() {
+        return blockWhenInFlightFull;
+    }
+
+    /**
+     * @param blockWhenInFlightFull
+     *            the blockWhenInFlightFull to set
+     */
+    public void setBlockWhenInFlightFull(boolean blockWhenInFlightFull) {
+        this.blockWhenInFlightFull = blockWhenInFlightFull;
+    }
 }
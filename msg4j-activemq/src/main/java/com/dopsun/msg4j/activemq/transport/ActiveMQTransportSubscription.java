@@ -17,6 +17,8 @@
 package com.dopsun.msg4j.activemq.transport;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
 import javax.jms.JMSException;
@@ -24,6 +26,7 @@ import javax.jms.MessageConsumer;
 
 import org.apache.activemq.ActiveMQSession;
 
+import com.dopsun.msg4j.core.delivery.transports.DeliveryExecutor;
 import com.dopsun.msg4j.core.delivery.transports.TransportException;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscription;
 
@@ -41,33 +44,107 @@ final class ActiveMQTransportSubscription implements TransportSubscription {
     @Nullable
     private final String durableSubscriberName;
 
+    /**
+     * If this is <code>true</code>, session is only for this subscription, and closed with it.
+     */
+    private final boolean ownsSession;
+
+    private final DeliveryExecutor deliveryExecutor;
+
+    /**
+     * Thread receiving messages of this subscription, if it has its own, which is joined on close.
+     */
+    @Nullable
+    private final Thread receiver;
+
+    private final Consumer<ActiveMQTransportSubscription> onClosed;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     /**
      * @param session
      * @param consumer
      * @param durableSubscriberName
      *            not <code>null</code> if this is durable subscription.
+     * @param ownsSession
+     *            <code>true</code> if session to be closed with this subscription.
+     * @param deliveryExecutor
+     *            executor of deliveries, closed with this subscription.
      */
     ActiveMQTransportSubscription(ActiveMQSession session, MessageConsumer consumer,
-            String durableSubscriberName) {
+            String durableSubscriberName, boolean ownsSession, DeliveryExecutor deliveryExecutor) {
+        this(session, consumer, durableSubscriberName, ownsSession, deliveryExecutor, null,
+                subscription -> {
+                });
+    }
+
+    /**
+     * @param session
+     * @param consumer
+     * @param durableSubscriberName
+     *            not <code>null</code> if this is durable subscription.
+     * @param ownsSession
+     *            <code>true</code> if session to be closed with this subscription.
+     * @param deliveryExecutor
+     *            executor of deliveries, closed with this subscription.
+     * @param receiver
+     *            thread receiving messages from <code>consumer</code>, which stops when consumer
+     *            closed.
+     * @param onClosed
+     *            called with this subscription once when it closed.
+     */
+    ActiveMQTransportSubscription(ActiveMQSession session, MessageConsumer consumer,
+            String durableSubscriberName, boolean ownsSession, DeliveryExecutor deliveryExecutor,
+            @Nullable Thread receiver, Consumer<ActiveMQTransportSubscription> onClosed) {
         Objects.requireNonNull(session);
         Objects.requireNonNull(consumer);
+        Objects.requireNonNull(deliveryExecutor);
+        Objects.requireNonNull(onClosed);
 
         this.session = session;
         this.consumer = consumer;
 
         this.durableSubscriberName = durableSubscriberName;
+        this.ownsSession = ownsSession;
+        this.deliveryExecutor = deliveryExecutor;
+        this.receiver = receiver;
+        this.onClosed = onClosed;
     }
 
     @Override
     public void close() throws Exception {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
         try {
             if (durableSubscriberName != null) {
                 session.unsubscribe(durableSubscriberName);
             }
 
             consumer.close();
+            joinReceiver();
+
+            if (ownsSession) {
+                session.close();
+            }
         } catch (JMSException e) {
             throw new TransportException("Failed to close transport.", e);
+        } finally {
+            deliveryExecutor.close();
+            onClosed.accept(this);
+        }
+    }
+
+    private void joinReceiver() {
+        if (receiver == null || receiver == Thread.currentThread()) {
+            return;
+        }
+
+        try {
+            receiver.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 }
@@ -16,7 +16,12 @@
 
 package com.dopsun.msg4j.activemq.transport;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.apache.activemq.broker.BrokerService;
 import org.junit.AfterClass;
@@ -26,9 +31,11 @@ import org.junit.Test;
 
 import com.dopsun.msg4j.core.delivery.transports.ConsumerMode;
 import com.dopsun.msg4j.core.delivery.transports.ProducerMode;
+import com.dopsun.msg4j.core.delivery.transports.TransportQueue;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscriberSettings;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscription;
 import com.dopsun.msg4j.core.delivery.transports.TransportTopic;
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
 import com.dopsun.msg4j.core.messages.Message;
 import com.dopsun.msg4j.core.messages.Messages;
 import com.dopsun.msg4j.core.messages.WritableMessage;
@@ -86,6 +93,12 @@ public class ActiveMQTransportTest {
             try {
                 WritableMessage msg = Messages.create();
                 msg.putString("MSG", "Hello Transport!");
+                msg.putDoubleArray("CURVE", new double[] { 1.5, 2.5 });
+
+                WritableMessage nested = Messages.create();
+                nested.putLongArray("IDS", new long[] { 3L, Long.MAX_VALUE });
+                nested.putBytes("RAW", ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+                msg.putMessage("NESTED", nested.toImmutable());
                 transport.publish(topic, msg);
 
                 synchronized (list) {
@@ -97,9 +110,340 @@ public class ActiveMQTransportTest {
                 Assert.assertTrue(list.size() == 1);
                 Message msgReceived = list.get(0);
                 Assert.assertEquals(msg.getString("MSG"), msgReceived.getString("MSG"));
+                Assert.assertEquals(msg.getDoubleArray("CURVE"),
+                        msgReceived.getDoubleArray("CURVE"));
+                Assert.assertEquals(Long.MAX_VALUE,
+                        msgReceived.getMessage("NESTED").getLongArray("IDS").get(1));
+                Assert.assertEquals(ByteBuffer.wrap(new byte[] { 1, 2, 3 }),
+                        msgReceived.getMessage("NESTED").getBytes("RAW"));
+            } finally {
+                subscription.close();
+            }
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testCodec() throws Exception {
+        ActiveMQTransportConfiguration config = new ActiveMQTransportConfiguration();
+        config.setBrokerUrl("vm://" + BROKER_NAME);
+        config.setCodec(Messages.binaryCodec());
+
+        final List<Message> list = Lists.newArrayList();
+
+        try (ActiveMQTransport transport = new ActiveMQTransport(config)) {
+            TransportTopic topic = transport.createTopic("TEST_CODEC", ProducerMode.NON_PERSISTENT,
+                    ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create();
+
+            TransportSubscription subscription = transport.subscribe(topic, settings, (m) -> {
+                synchronized (list) {
+                    list.add(m);
+                    list.notifyAll();
+                }
+            });
+
+            try {
+                WritableMessage msg = Messages.create();
+                msg.putString("MSG", "Hello Codec!");
+                msg.putLong("SEQ", 1L);
+                ImmutableMessage immutable = msg.toImmutable();
+
+                transport.publish(topic, immutable);
+                transport.publish(topic, immutable);
+
+                long deadline = System.currentTimeMillis() + 3000;
+                synchronized (list) {
+                    while (list.size() < 2 && System.currentTimeMillis() < deadline) {
+                        list.wait(100);
+                    }
+                }
+
+                Assert.assertEquals(2, list.size());
+                for (Message msgReceived : list) {
+                    Assert.assertEquals("Hello Codec!", msgReceived.getString("MSG"));
+                    Assert.assertEquals(1L, msgReceived.getLong("SEQ"));
+                }
+            } finally {
+                subscription.close();
+            }
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testSubscribeBatch() throws Exception {
+        ActiveMQTransportConfiguration config = new ActiveMQTransportConfiguration();
+        config.setBrokerUrl("vm://" + BROKER_NAME);
+
+        final List<List<Message>> batches = Lists.newArrayList();
+
+        try (ActiveMQTransport transport = new ActiveMQTransport(config)) {
+            TransportTopic topic = transport.createTopic("TEST_SUBSCRIBE_BATCH",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create()
+                    .maxBatchSize(4).maxLinger(200, TimeUnit.MILLISECONDS);
+
+            TransportSubscription subscription = transport.subscribeBatch(topic, settings,
+                    (batch) -> {
+                        synchronized (batches) {
+                            batches.add(batch);
+                            batches.notifyAll();
+                        }
+                    });
+
+            try {
+                List<Message> messages = Lists.newArrayList();
+                for (long i = 0; i < 10; i++) {
+                    WritableMessage msg = Messages.create();
+                    msg.putLong("SEQ", i);
+                    messages.add(msg);
+                }
+
+                transport.publishBatch(topic, messages);
+
+                int received = 0;
+                long deadline = System.currentTimeMillis() + 3000;
+                synchronized (batches) {
+                    while (received < 10 && System.currentTimeMillis() < deadline) {
+                        batches.wait(100);
+                        received = batches.stream().mapToInt(List::size).sum();
+                    }
+                }
+
+                Assert.assertEquals(10, received);
+
+                long seq = 0;
+                for (List<Message> batch : batches) {
+                    Assert.assertTrue(batch.size() > 0 && batch.size() <= 4);
+                    for (Message message : batch) {
+                        Assert.assertEquals(seq++, message.getLong("SEQ"));
+                    }
+                }
+                Assert.assertTrue(batches.size() < 10);
+            } finally {
+                subscription.close();
+            }
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testPublishBatch() throws Exception {
+        ActiveMQTransportConfiguration config = new ActiveMQTransportConfiguration();
+        config.setBrokerUrl("vm://" + BROKER_NAME);
+
+        final List<Message> list = Lists.newArrayList();
+
+        try (ActiveMQTransport transport = new ActiveMQTransport(config)) {
+            TransportTopic topic = transport.createTopic("TEST_BATCH", ProducerMode.PERSISTENT,
+                    ConsumerMode.NO_ACK);
+            TransportTopic other = transport.createTopic("TEST_BATCH_OTHER",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create();
+
+            Consumer<Message> consumer = (m) -> {
+                synchronized (list) {
+                    list.add(m);
+                    list.notifyAll();
+                }
+            };
+            TransportSubscription subscription = transport.subscribe(topic, settings, consumer);
+            TransportSubscription otherSubscription = transport.subscribe(other, settings,
+                    consumer);
+
+            try {
+                List<Message> batch = Lists.newArrayList();
+                for (long i = 0; i < 10; i++) {
+                    WritableMessage msg = Messages.create();
+                    msg.putLong("SEQ", i);
+                    batch.add(msg);
+                }
+
+                transport.publishBatch(topic, batch);
+                transport.publishBatch(Arrays.asList(other, topic), batch.subList(0, 2));
+
+                long deadline = System.currentTimeMillis() + 3000;
+                synchronized (list) {
+                    while (list.size() < 12 && System.currentTimeMillis() < deadline) {
+                        list.wait(100);
+                    }
+                }
+
+                Assert.assertEquals(12, list.size());
+                for (int i = 0; i < 10; i++) {
+                    Assert.assertEquals(i, list.get(i).getLong("SEQ"));
+                }
+            } finally {
+                subscription.close();
+                otherSubscription.close();
+            }
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testPublishAsync() throws Exception {
+        ActiveMQTransportConfiguration config = new ActiveMQTransportConfiguration();
+        config.setBrokerUrl("vm://" + BROKER_NAME);
+        config.setCodec(Messages.binaryCodec());
+        config.setMaxInFlightMessages(4);
+
+        final List<Message> list = Lists.newArrayList();
+
+        try (ActiveMQTransport transport = new ActiveMQTransport(config)) {
+            TransportTopic topic = transport.createTopic("TEST_ASYNC", ProducerMode.PERSISTENT,
+                    ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create();
+
+            TransportSubscription subscription = transport.subscribe(topic, settings, (m) -> {
+                synchronized (list) {
+                    list.add(m);
+                    list.notifyAll();
+                }
+            });
+
+            try {
+                List<CompletableFuture<Void>> futures = Lists.newArrayList();
+                WritableMessage msg = Messages.create();
+                for (long i = 0; i < 20; i++) {
+                    msg.putLong("SEQ", i);
+                    futures.add(transport.publishAsync(topic, msg));
+                }
+
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(3,
+                        TimeUnit.SECONDS);
+
+                long deadline = System.currentTimeMillis() + 3000;
+                synchronized (list) {
+                    while (list.size() < 20 && System.currentTimeMillis() < deadline) {
+                        list.wait(100);
+                    }
+                }
+
+                Assert.assertEquals(20, list.size());
+                for (int i = 0; i < 20; i++) {
+                    Assert.assertEquals(i, list.get(i).getLong("SEQ"));
+                }
             } finally {
                 subscription.close();
             }
         }
     }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testSubscribeBatchRedeliveredWhenConsumerFails() throws Exception {
+        ActiveMQTransportConfiguration config = new ActiveMQTransportConfiguration();
+        config.setBrokerUrl("vm://" + BROKER_NAME);
+
+        final List<List<Message>> batches = Lists.newArrayList();
+
+        try (ActiveMQTransport transport = new ActiveMQTransport(config)) {
+            TransportQueue queue = transport.createQueue("TEST_SUBSCRIBE_BATCH_REDELIVERY",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.AUTO);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create()
+                    .maxBatchSize(4).maxLinger(200, TimeUnit.MILLISECONDS);
+
+            TransportSubscription subscription = transport.subscribeBatch(queue, settings,
+                    (batch) -> {
+                        synchronized (batches) {
+                            batches.add(batch);
+                            batches.notifyAll();
+                            if (batches.size() == 1) {
+                                throw new IllegalStateException("Expected failure.");
+                            }
+                        }
+                    });
+
+            try {
+                List<Message> messages = Lists.newArrayList();
+                for (long i = 0; i < 3; i++) {
+                    WritableMessage msg = Messages.create();
+                    msg.putLong("SEQ", i);
+                    messages.add(msg);
+                }
+
+                transport.publishBatch(queue, messages);
+
+                long deadline = System.currentTimeMillis() + 5000;
+                synchronized (batches) {
+                    while (batches.size() < 2 && System.currentTimeMillis() < deadline) {
+                        batches.wait(100);
+                    }
+                }
+
+                Assert.assertEquals(2, batches.size());
+                for (List<Message> batch : batches) {
+                    Assert.assertEquals(3, batch.size());
+                    for (int i = 0; i < 3; i++) {
+                        Assert.assertEquals(i, batch.get(i).getLong("SEQ"));
+                    }
+                }
+            } finally {
+                subscription.close();
+            }
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testSubscribeBatchClosedWithTransport() throws Exception {
+        ActiveMQTransportConfiguration config = new ActiveMQTransportConfiguration();
+        config.setBrokerUrl("vm://" + BROKER_NAME);
+
+        String receiverName;
+        try (ActiveMQTransport transport = new ActiveMQTransport(config)) {
+            TransportTopic topic = transport.createTopic("TEST_SUBSCRIBE_BATCH_CLOSE",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+            receiverName = "msg4j-batch-" + topic;
+
+            transport.subscribeBatch(topic, TransportSubscriberSettings.create(), (batch) -> {
+            });
+
+            Assert.assertTrue(isThreadAlive(receiverName));
+        }
+
+        Assert.assertFalse(isThreadAlive(receiverName));
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSubscribeBatchNotSupportedWhenTransacted() throws Exception {
+        ActiveMQTransportConfiguration config = new ActiveMQTransportConfiguration();
+        config.setBrokerUrl("vm://" + BROKER_NAME);
+        config.setTransacted(true);
+
+        try (ActiveMQTransport transport = new ActiveMQTransport(config)) {
+            TransportTopic topic = transport.createTopic("TEST_SUBSCRIBE_BATCH_TRANSACTED",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.AUTO);
+
+            transport.subscribeBatch(topic, TransportSubscriberSettings.create(), (batch) -> {
+            });
+        }
+    }
+
+    private static boolean isThreadAlive(String name) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name) && thread.isAlive()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.MessageCodec;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
+import com.dopsun.msg4j.o2m.impl.O2mMessages;
+import com.dopsun.msg4j.o2m.impl.O2mMessages.Consts;
+import com.dopsun.msg4j.o2m.impl.O2mMessages.Fields;
+
+/**
+ * Cost of reading an O2m reply envelope, as reply handlers do: present error code, absent error
+ * text, and sequence numbers.
+ * 
+ * <p>
+ * {@link #containsThenGet(Blackhole)} is the <code>contains</code> then <code>get</code> path,
+ * which <code>tryGet</code> methods took before, as baseline.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnvelopeReadBenchmark {
+    /**
+     * <code>DICTIONARY</code>: created by {@link O2mMessages#DICTIONARY}; <code>HASH_MAP</code>:
+     * created by {@link Messages#create()}; <code>BINARY_VIEW</code>: view of encoded envelope.
+     */
+    @Param({ "DICTIONARY", "HASH_MAP", "BINARY_VIEW" })
+    private String envelope;
+
+    private ImmutableMessage message;
+
+    /**
+     * Creates a client connect reply envelope.
+     */
+    @Setup
+    public void setup() {
+        WritableMessage writable;
+        if (envelope.equals("DICTIONARY")) {
+            writable = O2mMessages.DICTIONARY.createMessage();
+        } else {
+            writable = Messages.create();
+        }
+
+        Fields.MessageType.put(writable, O2mMessages.Messages.CLIENT_CONNECT_REPLY);
+        Fields.SeqNum.put(writable, 1_000_001L);
+        Fields.Timestamp.put(writable, System.currentTimeMillis());
+        Fields.RequestSeqNum.put(writable, 1_000_000L);
+        Fields.ServerSessionId.put(writable, "server-session");
+        Fields.ErrorCode.put(writable, Consts.E_OK);
+
+        message = writable.toImmutable();
+        if (envelope.equals("BINARY_VIEW")) {
+            MessageCodec codec = Messages.binaryCodec();
+            message = codec.view(ByteBuffer.wrap(codec.encode(message)));
+        }
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void fieldInfoTryGet(Blackhole blackhole) {
+        blackhole.consume(Fields.ErrorCode.tryGet(message, Consts.E_OK));
+        blackhole.consume(Fields.ErrorText.tryGet(message, ""));
+        blackhole.consume(Fields.SeqNum.tryGet(message, 0L));
+        blackhole.consume(Fields.RequestSeqNum.tryGet(message, 0L));
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void fieldInfoTryGetOptional(Blackhole blackhole) {
+        blackhole.consume(Fields.ErrorCode.tryGet(message));
+        blackhole.consume(Fields.ErrorText.tryGet(message));
+        blackhole.consume(Fields.SeqNum.tryGet(message));
+        blackhole.consume(Fields.RequestSeqNum.tryGet(message));
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void readerTryGet(Blackhole blackhole) {
+        blackhole.consume(message.tryGetInt(Fields.ERROR_CODE, Consts.E_OK));
+        blackhole.consume(message.tryGetString(Fields.ERROR_TEXT, ""));
+        blackhole.consume(message.tryGetLong(Fields.SEQ_NUM, 0L));
+        blackhole.consume(message.tryGetLong(Fields.REQUEST_SEQ_NUM, 0L));
+    }
+
+    /**
+     * @param blackhole
+     */
+    @Benchmark
+    public void containsThenGet(Blackhole blackhole) {
+        blackhole.consume(message.contains(Fields.ERROR_CODE)
+                ? message.getInt(Fields.ERROR_CODE) : Consts.E_OK);
+        blackhole.consume(message.contains(Fields.ERROR_TEXT)
+                ? message.getString(Fields.ERROR_TEXT) : "");
+        blackhole.consume(message.contains(Fields.SEQ_NUM)
+                ? message.getLong(Fields.SEQ_NUM) : 0L);
+        blackhole.consume(message.contains(Fields.REQUEST_SEQ_NUM)
+                ? message.getLong(Fields.REQUEST_SEQ_NUM) : 0L);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dopsun.msg4j.core.messages.FieldStorage;
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
+
+/**
+ * Cost of "take last value, change two fields, republish", for each {@link FieldStorage}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageCopyBenchmark {
+    @Param({ "10", "50", "200" })
+    private int fieldCount;
+
+    @Param({ "HASH_MAP", "PRIMITIVE_SLOTS", "PERSISTENT_TRIE" })
+    private FieldStorage storage;
+
+    private ImmutableMessage last;
+
+    private long seq;
+
+    /**
+     * Creates the last value, half of fields are <code>long</code>, and others are
+     * <code>String</code>.
+     */
+    @Setup
+    public void setup() {
+        WritableMessage message = Messages.create(storage);
+        for (int i = 0; i < fieldCount; i++) {
+            if (i % 2 == 0) {
+                message.putLong("field" + i, i);
+            } else {
+                message.putString("field" + i, "value" + i);
+            }
+        }
+
+        last = message.toImmutable();
+    }
+
+    /**
+     * @return writable copy of last value
+     */
+    @Benchmark
+    public WritableMessage toWritable() {
+        return last.toWritable();
+    }
+
+    /**
+     * @return updated message, which becomes last value.
+     */
+    @Benchmark
+    public ImmutableMessage updateTwoFields() {
+        WritableMessage message = last.toWritable();
+        message.putLong("field0", ++seq);
+        message.putString("field1", "updated");
+
+        last = message.toImmutable();
+        return last;
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.delivery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.dopsun.msg4j.core.delivery.transports.ConsumerMode;
+import com.dopsun.msg4j.core.delivery.transports.Transport;
+import com.dopsun.msg4j.core.delivery.transports.TransportDestination;
+import com.dopsun.msg4j.core.delivery.transports.TransportException;
+import com.dopsun.msg4j.core.delivery.transports.TransportSubscriberSettings;
+import com.dopsun.msg4j.core.delivery.transports.TransportSubscription;
+import com.dopsun.msg4j.core.messages.Message;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.schema.IntFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.LongFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.StringFieldInfo;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Delivers messages to a consumer on several threads, keeping order of messages with same key,
+ * e.g. per instrument or per account, but not across keys. Subscribes by
+ * {@link #subscribe(Transport, TransportDestination, TransportSubscriberSettings)}, so one
+ * subscription scales over cores.
+ * 
+ * <p>
+ * A message is acknowledged by transport once accepted here, before a worker delivers it, so
+ * only destinations of {@link ConsumerMode#NO_ACK} are supported, as for
+ * {@link TransportSubscriberSettings#deliverOn(java.util.concurrent.Executor)}.
+ * </p>
+ * 
+ * <p>
+ * Messages are routed by hash of key to one of stripes. Each stripe has a bounded queue and a
+ * worker thread, so messages with same key are delivered in order they are accepted, one at a
+ * time. When queue of a stripe is full, {@link #accept(Message)} waits, which holds up the
+ * caller, e.g. thread of transport, as backpressure. Depth of each queue is exposed by
+ * {@link #queueDepth(int)}.
+ * </p>
+ * 
+ * <p>
+ * Exceptions and errors thrown by consumer are passed to uncaught exception handler of worker
+ * thread, and the next message is delivered, so a worker only stops when this is closed. If key
+ * of a message cannot be extracted, e.g. field of key has another type, it is passed to uncaught
+ * exception handler of accepting thread, and message is delivered on stripe <code>0</code>.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+public final class KeyedDispatcher implements Consumer<Message>, AutoCloseable {
+    /**
+     * Default of {@link Builder#queueCapacity(int)}.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Put to queue of each stripe on close, after messages already queued.
+     */
+    private static final Message STOP = Messages.create().toImmutable();
+
+    /**
+     * @param consumer
+     *            consumer to deliver messages to, called by several threads
+     * @return a builder of dispatcher.
+     */
+    public static Builder builder(Consumer<? super Message> consumer) {
+        return new Builder(consumer);
+    }
+
+    private final Consumer<? super Message> consumer;
+    private final ToIntFunction<Message> keyHash;
+
+    private final List<BlockingQueue<Message>> queues;
+    private final List<Thread> workers;
+    private final int queueCapacity;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private KeyedDispatcher(Builder builder) {
+        this.consumer = builder.consumer;
+        this.keyHash = builder.keyHash;
+        this.queueCapacity = builder.queueCapacity;
+
+        this.queues = new ArrayList<>(builder.stripes);
+        this.workers = new ArrayList<>(builder.stripes);
+        for (int i = 0; i < builder.stripes; i++) {
+            BlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues.add(queue);
+
+            Thread worker = new Thread(() -> work(queue), builder.threadName + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Subscribes to <code>destination</code> with this as consumer.
+     * 
+     * @param transport
+     *            transport to subscribe
+     * @param destination
+     *            destination of {@link ConsumerMode#NO_ACK}
+     * @param settings
+     *            settings for subscription
+     * @return subscription, which should be closed before this.
+     * @throws TransportException
+     *             transport exception, e.g. transport has closed.
+     * @throws UnsupportedOperationException
+     *             if consumer mode of <code>destination</code> is not {@link ConsumerMode#NO_ACK},
+     *             or type of subscription is not supported.
+     */
+    public TransportSubscription subscribe(Transport transport, TransportDestination destination,
+            TransportSubscriberSettings settings)
+            throws TransportException, UnsupportedOperationException {
+        Objects.requireNonNull(transport);
+        Objects.requireNonNull(destination);
+
+        if (destination.getConsumerMode() != ConsumerMode.NO_ACK) {
+            throw new UnsupportedOperationException(
+                    "Keyed dispatcher is only supported for NO_ACK, not "
+                    + destination.getConsumerMode() + ".");
+        }
+
+        return transport.subscribe(destination, settings, this);
+    }
+
+    /**
+     * Queues <code>message</code> to stripe of its key, and waits if queue is full.
+     * 
+     * @throws IllegalStateException
+     *             if this dispatcher is closed.
+     * @throws RuntimeException
+     *             if interrupted while waiting, with interrupt status kept.
+     */
+    @Override
+    public void accept(Message message) {
+        BlockingQueue<Message> queue = queueOf(message);
+
+        try {
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for stripe queue.", e);
+        }
+    }
+
+    /**
+     * Queues <code>message</code> to stripe of its key, and waits up to <code>timeout</code> if
+     * queue is full.
+     * 
+     * @param message
+     *            message to deliver
+     * @param timeout
+     *            time to wait
+     * @param unit
+     *            unit of <code>timeout</code>
+     * @return <code>true</code> if queued; <code>false</code> if queue is still full after
+     *         <code>timeout</code>.
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     * @throws IllegalStateException
+     *             if this dispatcher is closed.
+     */
+    public boolean offer(Message message, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Objects.requireNonNull(unit);
+
+        return queueOf(message).offer(message, timeout, unit);
+    }
+
+    private BlockingQueue<Message> queueOf(Message message) {
+        Objects.requireNonNull(message);
+
+        if (closed.get()) {
+            throw new IllegalStateException("Dispatcher is closed.");
+        }
+
+        return queues.get(stripeOf(message));
+    }
+
+    /**
+     * @param message
+     *            message
+     * @return stripe <code>message</code> is delivered on; <code>0</code> if its key cannot be
+     *         extracted.
+     */
+    public int stripeOf(Message message) {
+        int hash;
+        try {
+            hash = keyHash.applyAsInt(message);
+        } catch (RuntimeException e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            return 0;
+        }
+
+        return Math.floorMod(hash ^ (hash >>> 16), queues.size());
+    }
+
+    /**
+     * @return number of stripes.
+     */
+    public int stripes() {
+        return queues.size();
+    }
+
+    /**
+     * @return capacity of queue of each stripe.
+     */
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @param stripe
+     *            stripe, from <code>0</code> to {@link #stripes()} exclusive
+     * @return number of messages waiting in queue of <code>stripe</code>, not including one being
+     *         delivered.
+     */
+    public int queueDepth(int stripe) {
+        return queues.get(stripe).size();
+    }
+
+    /**
+     * @return {@link #queueDepth(int)} of each stripe.
+     */
+    public int[] queueDepths() {
+        int[] depths = new int[queues.size()];
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = queues.get(i).size();
+        }
+
+        return depths;
+    }
+
+    /**
+     * Runs until {@link #STOP} taken. Interrupts are ignored, as only {@link #close()} stops a
+     * worker; otherwise callers waiting for a full queue would wait forever.
+     */
+    private void work(BlockingQueue<Message> queue) {
+        while (true) {
+            Message message = Uninterruptibles.takeUninterruptibly(queue);
+            if (message == STOP) {
+                return;
+            }
+
+            try {
+                consumer.accept(message);
+            } catch (Throwable e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting messages, waits for messages already queued delivered, then stops worker
+     * threads. Waits even if interrupted, with interrupt status kept. Messages should not be
+     * accepted concurrently, e.g. close subscription first; if they are, they may be dropped.
+     * Only first call waits; later calls return immediately.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        for (BlockingQueue<Message> queue : queues) {
+            Uninterruptibles.putUninterruptibly(queue, STOP);
+        }
+
+        for (Thread worker : workers) {
+            Uninterruptibles.joinUninterruptibly(worker);
+        }
+
+        // Releases callers still waiting for a full queue.
+        for (BlockingQueue<Message> queue : queues) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * Builder of {@link KeyedDispatcher}.
+     * 
+     * @author Dop Sun
+     * @since 1.0.0
+     */
+    public static class Builder {
+        private final Consumer<? super Message> consumer;
+
+        @Nullable
+        private ToIntFunction<Message> keyHash;
+
+        private int stripes = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private String threadName = "msg4j-dispatcher";
+
+        Builder(Consumer<? super Message> consumer) {
+            this.consumer = Objects.requireNonNull(consumer);
+        }
+
+        /**
+         * @param key
+         *            extracts key of message, which may be <code>null</code>. Keys are compared
+         *            by {@link Object#hashCode()} only.
+         * @return
+         */
+        public Builder key(Function<? super Message, ?> key) {
+            Objects.requireNonNull(key);
+
+            this.keyHash = message -> Objects.hashCode(key.apply(message));
+            return this;
+        }
+
+        /**
+         * @param field
+         *            field of key; messages without it are on same stripe.
+         * @return
+         */
+        public Builder key(StringFieldInfo field) {
+            Objects.requireNonNull(field);
+
+            this.keyHash = message -> field.tryGet(message, "").hashCode();
+            return this;
+        }
+
+        /**
+         * @param field
+         *            field of key; messages without it are on stripe of <code>0</code>.
+         * @return
+         */
+        public Builder key(LongFieldInfo field) {
+            Objects.requireNonNull(field);
+
+            this.keyHash = message -> Long.hashCode(field.tryGet(message, 0L));
+            return this;
+        }
+
+        /**
+         * @param field
+         *            field of key; messages without it are on stripe of <code>0</code>.
+         * @return
+         */
+        public Builder key(IntFieldInfo field) {
+            Objects.requireNonNull(field);
+
+            this.keyHash = message -> field.tryGet(message, 0);
+            return this;
+        }
+
+        /**
+         * @param stripes
+         *            number of stripes, each with a worker thread; number of processors by
+         *            default
+         * @return
+         * 
+         * @throws IllegalArgumentException
+         *             if <code>stripes</code> is not positive.
+         */
+        public Builder stripes(int stripes) {
+            if (stripes <= 0) {
+                throw new IllegalArgumentException("Invalid stripes: " + stripes);
+            }
+
+            this.stripes = stripes;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity
+         *            capacity of queue of each stripe, {@link #DEFAULT_QUEUE_CAPACITY} by default
+         * @return
+         * 
+         * @throws IllegalArgumentException
+         *             if <code>queueCapacity</code> is not positive.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+            }
+
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param threadName
+         *            prefix of worker thread names, followed by stripe
+         * @return
+         */
+        public Builder threadName(String threadName) {
+            this.threadName = Objects.requireNonNull(threadName);
+
+            return this;
+        }
+
+        /**
+         * @return a new dispatcher, with worker threads started.
+         * 
+         * @throws IllegalStateException
+         *             if key is not set.
+         */
+        public KeyedDispatcher build() {
+            if (keyHash == null) {
+                throw new IllegalStateException("Key is not set.");
+            }
+
+            return new KeyedDispatcher(this);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.delivery.transports;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Runs deliveries of one subscription, on thread chosen by
+ * {@link TransportSubscriberSettings#deliverOn(Executor)} or
+ * {@link TransportSubscriberSettings#deliverOnDedicatedThread()}. Used by {@link Transport}
+ * implementations.
+ * 
+ * <p>
+ * Deliveries run one at a time, in order they are submitted, even if the executor is a shared
+ * pool. On a shared pool, a subscription runs at most {@link #MAX_RUNS_PER_TURN} deliveries
+ * before yielding its thread, so one busy subscription does not hold a pool thread forever.
+ * </p>
+ * 
+ * <p>
+ * Without an executor, deliveries run on calling thread, and exceptions are thrown to caller.
+ * Otherwise, exceptions and errors are passed to uncaught exception handler of running thread, and
+ * the next delivery runs.
+ * </p>
+ * 
+ * <p>
+ * At most {@link TransportSubscriberSettings#getMaxPendingDeliveries()} deliveries wait to run;
+ * when reached, {@link #execute(Runnable)} waits, which holds up thread of transport as
+ * backpressure. So a consumer should not deliver to its own subscription. Deliveries dropped, as
+ * this is closed or executor rejected them, are counted by {@link #dropped()}.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+public final class DeliveryExecutor implements Executor, AutoCloseable {
+    /**
+     * Most deliveries run before yielding thread of executor.
+     */
+    static final int MAX_RUNS_PER_TURN = 64;
+
+    /**
+     * @param settings
+     *            settings of subscription
+     * @param consumerMode
+     *            consumer mode of destination subscribed
+     * @param name
+     *            name of subscription, used to name dedicated thread.
+     * @return executor for deliveries of a subscription, which should be closed with subscription.
+     * @throws UnsupportedOperationException
+     *             if deliveries are not on calling thread, and <code>consumerMode</code> is not
+     *             {@link ConsumerMode#NO_ACK}, as messages would be acknowledged before consumer
+     *             runs.
+     */
+    public static DeliveryExecutor of(TransportSubscriberSettings settings,
+            ConsumerMode consumerMode, String name) throws UnsupportedOperationException {
+        Objects.requireNonNull(settings);
+        Objects.requireNonNull(consumerMode);
+        Objects.requireNonNull(name);
+
+        boolean callerThread = settings.getDeliveryExecutor() == null
+                && !settings.isDeliveryOnDedicatedThread();
+        if (!callerThread && consumerMode != ConsumerMode.NO_ACK) {
+            throw new UnsupportedOperationException(
+                    "Delivery executor is only supported for NO_ACK, not " + consumerMode + ".");
+        }
+
+        int maxPending = settings.getMaxPendingDeliveries();
+        if (settings.isDeliveryOnDedicatedThread()) {
+            ExecutorService dedicated = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "msg4j-delivery-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            return new DeliveryExecutor(dedicated, dedicated, maxPending);
+        }
+
+        return new DeliveryExecutor(settings.getDeliveryExecutor(), null, maxPending);
+    }
+
+    /**
+     * <code>null</code> to run on calling thread.
+     */
+    @Nullable
+    private final Executor executor;
+
+    /**
+     * Executor created for this, and shutdown when this closed.
+     */
+    @Nullable
+    private final ExecutorService owned;
+
+    private final int maxPending;
+
+    /**
+     * Deliveries waiting to run, at most <code>maxPending</code>. This is also the lock of fields
+     * below, and is notified when it is no longer full.
+     */
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+    /**
+     * <code>true</code> if a turn has been submitted to executor and not finished yet.
+     */
+    private boolean scheduled;
+
+    private boolean closed;
+
+    private long dropped;
+
+    private DeliveryExecutor(@Nullable Executor executor, @Nullable ExecutorService owned,
+            int maxPending) {
+        this.executor = executor;
+        this.owned = owned;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * @return <code>true</code> if deliveries run on calling thread.
+     */
+    public boolean isCallerThread() {
+        return executor == null;
+    }
+
+    /**
+     * @param consumer
+     *            consumer of subscription
+     * @return consumer which delivers to <code>consumer</code> by this executor, or
+     *         <code>consumer</code> itself if deliveries run on calling thread.
+     */
+    public <T> Consumer<T> wrap(Consumer<T> consumer) {
+        Objects.requireNonNull(consumer);
+
+        if (isCallerThread()) {
+            return consumer;
+        }
+
+        return value -> execute(() -> consumer.accept(value));
+    }
+
+    /**
+     * @return number of deliveries waiting to run.
+     */
+    public int pending() {
+        synchronized (tasks) {
+            return tasks.size();
+        }
+    }
+
+    /**
+     * @return number of deliveries dropped, as this is closed or executor rejected them.
+     */
+    public long dropped() {
+        synchronized (tasks) {
+            return dropped;
+        }
+    }
+
+    /**
+     * Runs <code>task</code> after deliveries submitted before, and waits if
+     * {@link TransportSubscriberSettings#getMaxPendingDeliveries()} are waiting. Dropped if this is
+     * closed.
+     * 
+     * @throws RuntimeException
+     *             if interrupted while waiting, with interrupt status kept.
+     */
+    @Override
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task);
+
+        if (executor == null) {
+            task.run();
+            return;
+        }
+
+        synchronized (tasks) {
+            while (!closed && tasks.size() >= maxPending) {
+                try {
+                    tasks.wait();
+                } catch (InterruptedException e) {
+                    dropped++;
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for pending deliveries.",
+                            e);
+                }
+            }
+
+            if (closed) {
+                dropped++;
+                return;
+            }
+
+            tasks.add(task);
+            if (scheduled) {
+                return;
+            }
+
+            scheduled = true;
+        }
+
+        schedule();
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::runTurn);
+        } catch (RejectedExecutionException e) {
+            boolean wasClosed;
+            synchronized (tasks) {
+                wasClosed = closed;
+                scheduled = false;
+                dropDeliveries();
+            }
+
+            if (!wasClosed) {
+                report(e); // dedicated thread is only shutdown on close
+            }
+        }
+    }
+
+    private void runTurn() {
+        for (int i = 0; i < MAX_RUNS_PER_TURN; i++) {
+            Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    scheduled = false;
+                    return;
+                }
+
+                if (tasks.size() == maxPending - 1) {
+                    tasks.notifyAll();
+                }
+            }
+
+            try {
+                task.run();
+            } catch (Throwable e) {
+                report(e);
+            }
+        }
+
+        synchronized (tasks) {
+            if (closed) {
+                scheduled = false;
+                return;
+            }
+        }
+
+        // Still scheduled, so deliveries submitted meanwhile do not run on another thread.
+        schedule();
+    }
+
+    private static void report(Throwable e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    private void dropDeliveries() {
+        dropped += tasks.size();
+        tasks.clear();
+        tasks.notifyAll();
+    }
+
+    /**
+     * Stops dedicated thread if any. Deliveries not yet run, or submitted after this, are dropped
+     * and counted by {@link #dropped()}. A shared executor is not closed, as it is owned by caller.
+     */
+    @Override
+    public void close() {
+        synchronized (tasks) {
+            closed = true;
+            dropDeliveries();
+        }
+
+        if (owned != null) {
+            owned.shutdown();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.delivery.transports;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Bounds number and bytes of messages published by
+ * {@link Transport#publishAsync(TransportDestination, com.dopsun.msg4j.core.messages.Message)}
+ * but not yet accepted by transport. When window is full, publisher either waits for messages
+ * accepted, or fails fast.
+ * 
+ * <p>
+ * A message bigger than {@link #maxBytes()} is still allowed when window is empty, so it does not
+ * wait forever.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+public final class InFlightWindow {
+    /**
+     * @return a window without bounds.
+     */
+    public static InFlightWindow unbounded() {
+        return new InFlightWindow(Integer.MAX_VALUE, Long.MAX_VALUE, true);
+    }
+
+    private final int maxMessages;
+    private final long maxBytes;
+    private final boolean blockWhenFull;
+
+    private int messages;
+    private long bytes;
+
+    /**
+     * @param maxMessages
+     *            max number of messages in flight
+     * @param maxBytes
+     *            max bytes of messages in flight
+     * @param blockWhenFull
+     *            <code>true</code> to wait when window is full; <code>false</code> to fail fast.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>maxMessages</code> or <code>maxBytes</code> is not positive.
+     */
+    public InFlightWindow(int maxMessages, long maxBytes, boolean blockWhenFull) {
+        if (maxMessages <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException(
+                    "Invalid window: " + maxMessages + " messages, " + maxBytes + " bytes.");
+        }
+
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.blockWhenFull = blockWhenFull;
+    }
+
+    /**
+     * @return max number of messages in flight.
+     */
+    public int maxMessages() {
+        return maxMessages;
+    }
+
+    /**
+     * @return max bytes of messages in flight.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return <code>true</code> if number and bytes of messages are not bounded, so window need
+     *         not be acquired.
+     */
+    public boolean isUnbounded() {
+        return maxMessages == Integer.MAX_VALUE && !isBytesBounded();
+    }
+
+    /**
+     * @return <code>true</code> if bytes of messages are bounded, so size of messages is needed
+     *         to acquire; otherwise <code>0</code> can be acquired as size.
+     */
+    public boolean isBytesBounded() {
+        return maxBytes != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return <code>true</code> to wait when window is full; <code>false</code> to fail fast.
+     */
+    public boolean isBlockWhenFull() {
+        return blockWhenFull;
+    }
+
+    /**
+     * @return number of messages in flight.
+     */
+    public synchronized int inFlightMessages() {
+        return messages;
+    }
+
+    /**
+     * @return bytes of messages in flight.
+     */
+    public synchronized long inFlightBytes() {
+        return bytes;
+    }
+
+    /**
+     * Takes room of a message from window, which should be {@link #release(long) released} when
+     * message accepted or failed.
+     * 
+     * @param messageBytes
+     *            bytes of message
+     * @throws TransportException
+     *             if window is full and not to wait, or interrupted while waiting.
+     */
+    public synchronized void acquire(long messageBytes) throws TransportException {
+        while (!fits(messageBytes)) {
+            if (!blockWhenFull) {
+                throw new TransportException("In-flight window is full: " + messages
+                        + " messages, " + bytes + " bytes.");
+            }
+
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransportException("Interrupted while waiting for in-flight window.",
+                        e);
+            }
+        }
+
+        messages++;
+        bytes += messageBytes;
+    }
+
+    /**
+     * Returns room of a message {@link #acquire(long) acquired}.
+     * 
+     * @param messageBytes
+     *            bytes of message, same as acquired
+     */
+    public synchronized void release(long messageBytes) {
+        messages--;
+        bytes -= messageBytes;
+
+        notifyAll();
+    }
+
+    private boolean fits(long messageBytes) {
+        if (messages == 0) {
+            return true;
+        }
+
+        return messages < maxMessages && messageBytes <= maxBytes - bytes;
+    }
+}
@@ -16,12 +16,17 @@
 
 package com.dopsun.msg4j.core.delivery.transports;
 
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import javax.annotation.concurrent.ThreadSafe;
 
 import com.dopsun.msg4j.core.messages.Message;
+import com.dopsun.msg4j.core.messages.WritableMessage;
 
 /**
  * A transport for message delivery. This is an API abstraction of underlying messaging delivery
@@ -104,6 +109,11 @@ public interface Transport extends AutoCloseable {
     /**
      * Publishes message to destination.
      * 
+     * <p>
+     * Implementations do not keep <code>message</code> after this method returns if it is a
+     * {@link WritableMessage}, so caller can modify or recycle it afterwards.
+     * </p>
+     * 
      * @param destination
      *            destination where message to publish, {@link TransportQueue queue} or
      *            {@link TransportTopic topic}.
@@ -115,6 +125,94 @@ public interface Transport extends AutoCloseable {
      */
     void publish(TransportDestination destination, Message message) throws TransportException;
 
+    /**
+     * Publishes message to destination without waiting for transport to accept it. Messages
+     * published to same destination are accepted in order of publishing.
+     * 
+     * <p>
+     * Implementations bound messages in flight by an {@link InFlightWindow}, and this method waits
+     * or fails when window is full. Returned future completes when transport has accepted the
+     * message, as {@link #publish(TransportDestination, Message)} does when it returns, or
+     * completes exceptionally with a {@link TransportException} if it failed. Dependent stages
+     * without an executor may run on a thread of transport, so they should not block.
+     * </p>
+     * 
+     * <p>
+     * As {@link #publish(TransportDestination, Message)}, <code>message</code> is not kept after
+     * this method returns if it is a {@link WritableMessage}. Default implementation publishes
+     * synchronously, and returns a completed future.
+     * </p>
+     * 
+     * @param destination
+     *            destination where message to publish, {@link TransportQueue queue} or
+     *            {@link TransportTopic topic}.
+     * @param message
+     *            message to deliver
+     * @return future completes when message accepted.
+     * 
+     * @throws TransportException
+     *             transport exception, e.g. transport has closed, or in-flight window is full and
+     *             not to wait.
+     */
+    default CompletableFuture<Void> publishAsync(TransportDestination destination,
+            Message message) throws TransportException {
+        publish(destination, message);
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Publishes messages to destination, in order of <code>messages</code>. Implementations may
+     * pipeline the batch instead of waiting for each message; when this method returns, all
+     * messages are accepted as {@link #publish(TransportDestination, Message)} does.
+     * 
+     * <p>
+     * If publishing fails, messages before the failed one may have been published. Default
+     * implementation publishes messages one by one.
+     * </p>
+     * 
+     * @param destination
+     *            destination where messages to publish, {@link TransportQueue queue} or
+     *            {@link TransportTopic topic}.
+     * @param messages
+     *            messages to deliver
+     * 
+     * @throws TransportException
+     *             transport exception, e.g. transport has closed.
+     */
+    default void publishBatch(TransportDestination destination, List<? extends Message> messages)
+            throws TransportException {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(messages);
+
+        for (Message message : messages) {
+            publish(destination, message);
+        }
+    }
+
+    /**
+     * Publishes each message to destination of same index, in order of <code>messages</code> for
+     * each destination. See {@link #publishBatch(TransportDestination, List)}.
+     * 
+     * @param destinations
+     *            destination of each message
+     * @param messages
+     *            messages to deliver
+     * 
+     * @throws TransportException
+     *             transport exception, e.g. transport has closed.
+     * @throws IllegalArgumentException
+     *             if <code>destinations</code> and <code>messages</code> are of different sizes.
+     */
+    default void publishBatch(List<? extends TransportDestination> destinations,
+            List<? extends Message> messages) throws TransportException {
+        Transports.checkBatch(destinations, messages);
+
+        for (int i = 0; i < messages.size(); i++) {
+            publish(destinations.get(i), messages.get(i));
+        }
+    }
+
     /**
      * Subscribes message from the transport. Messages will be delivered to <code>consumer</code>.
      * 
@@ -180,6 +278,41 @@ public interface Transport extends AutoCloseable {
             TransportSubscriberSettings settings, Consumer<Message> consumer)
             throws TransportException, UnsupportedOperationException;
 
+    /**
+     * Subscribes to destination as {@link #subscribe}, but delivers messages in batches, in order
+     * they are received.
+     * 
+     * <p>
+     * A batch holds at most {@link TransportSubscriberSettings#getMaxBatchSize()} messages.
+     * Implementations drain messages already received in one go, and when a batch is not full,
+     * may wait {@link TransportSubscriberSettings#getMaxLinger(java.util.concurrent.TimeUnit)}
+     * for more. Batches are not empty, and are not kept or modified by transport after
+     * <code>consumer</code> returns. Default implementation delivers each message as a batch of
+     * one.
+     * </p>
+     * 
+     * @param destination
+     *            destination to subscribe
+     * @param settings
+     *            settings for subscription.
+     * @param consumer
+     *            batches of messages delivered to this consumer.
+     * @return subscription
+     * 
+     * @throws TransportException
+     *             transport exception, e.g. transport has closed.
+     * @throws UnsupportedOperationException
+     *             if type of subscription is not supported.
+     */
+    default TransportSubscription subscribeBatch(TransportDestination destination,
+            TransportSubscriberSettings settings, Consumer<List<Message>> consumer)
+            throws TransportException, UnsupportedOperationException {
+        Objects.requireNonNull(consumer);
+
+        return subscribe(destination, settings,
+                message -> consumer.accept(Collections.singletonList(message)));
+    }
+
     /**
      * Commits transaction.
      * 
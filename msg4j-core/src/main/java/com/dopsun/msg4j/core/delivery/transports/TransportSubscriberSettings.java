@@ -17,6 +17,8 @@
 package com.dopsun.msg4j.core.delivery.transports;
 
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -25,6 +27,16 @@ import javax.annotation.Nullable;
  * @since 1.0.0
  */
 public final class TransportSubscriberSettings {
+    /**
+     * Default of {@link #maxBatchSize(int)}.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    /**
+     * Default of {@link #maxPendingDeliveries(int)}.
+     */
+    public static final int DEFAULT_MAX_PENDING_DELIVERIES = 1024;
+
     /**
      * @return creates a settings
      */
@@ -42,6 +54,17 @@ public final class TransportSubscriberSettings {
     @Nullable
     private String selector;
 
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    private long maxLingerNanos;
+
+    @Nullable
+    private Executor deliveryExecutor;
+
+    private boolean deliveryOnDedicatedThread;
+
+    private int maxPendingDeliveries = DEFAULT_MAX_PENDING_DELIVERIES;
+
     TransportSubscriberSettings() {
     }
 
@@ -98,6 +121,100 @@ public final class TransportSubscriberSettings {
         return this;
     }
 
+    /**
+     * Most messages delivered in one batch, for {@link Transport#subscribeBatch}.
+     * 
+     * @param maxBatchSize
+     *            positive number of messages
+     * @return this settings
+     */
+    public TransportSubscriberSettings maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive.");
+        }
+
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Most time to wait for more messages when a batch is not full, for
+     * {@link Transport#subscribeBatch}. Default is <code>0</code>, which delivers whatever messages
+     * are available without waiting.
+     * 
+     * @param maxLinger
+     *            time to wait, not negative
+     * @param unit
+     *            unit of <code>maxLinger</code>
+     * @return this settings
+     */
+    public TransportSubscriberSettings maxLinger(long maxLinger, TimeUnit unit) {
+        Objects.requireNonNull(unit);
+        if (maxLinger < 0) {
+            throw new IllegalArgumentException("maxLinger must not be negative.");
+        }
+
+        this.maxLingerNanos = unit.toNanos(maxLinger);
+        return this;
+    }
+
+    /**
+     * Delivers messages on <code>executor</code>, instead of thread of transport, so a slow
+     * consumer does not hold up other subscriptions sharing that thread. <code>executor</code> can
+     * be shared by subscriptions, e.g. a pool, or an executor of virtual threads on Java 21;
+     * deliveries of this subscription still run one at a time in order (see
+     * {@link DeliveryExecutor}). <code>executor</code> is not shutdown by transport.
+     * 
+     * <p>
+     * A message is acknowledged once handed to <code>executor</code>, before consumer runs, so
+     * this is only supported for destinations of {@link ConsumerMode#NO_ACK}; subscribing to other
+     * destinations throws {@link UnsupportedOperationException}. At most
+     * {@link #maxPendingDeliveries(int)} deliveries wait for <code>executor</code>, after which
+     * thread of transport waits.
+     * </p>
+     * 
+     * @param executor
+     *            executor to run deliveries
+     * @return this settings
+     */
+    public TransportSubscriberSettings deliverOn(Executor executor) {
+        Objects.requireNonNull(executor);
+
+        this.deliveryExecutor = executor;
+        this.deliveryOnDedicatedThread = false;
+        return this;
+    }
+
+    /**
+     * Delivers messages on a thread created for this subscription, and stopped when subscription
+     * closed. Acknowledged as {@link #deliverOn(Executor)}.
+     * 
+     * @return this settings
+     */
+    public TransportSubscriberSettings deliverOnDedicatedThread() {
+        this.deliveryExecutor = null;
+        this.deliveryOnDedicatedThread = true;
+        return this;
+    }
+
+    /**
+     * Most deliveries waiting to run on executor of {@link #deliverOn(Executor)} or
+     * {@link #deliverOnDedicatedThread()}; when reached, thread of transport waits, as
+     * backpressure.
+     * 
+     * @param maxPendingDeliveries
+     *            positive number of deliveries, {@link #DEFAULT_MAX_PENDING_DELIVERIES} by default
+     * @return this settings
+     */
+    public TransportSubscriberSettings maxPendingDeliveries(int maxPendingDeliveries) {
+        if (maxPendingDeliveries <= 0) {
+            throw new IllegalArgumentException("maxPendingDeliveries must be positive.");
+        }
+
+        this.maxPendingDeliveries = maxPendingDeliveries;
+        return this;
+    }
+
     /**
      * @return the browsingOnly
      */
@@ -127,4 +244,45 @@ public final class TransportSubscriberSettings {
     public String getSelector() {
         return selector;
     }
+
+    /**
+     * @return most messages delivered in one batch.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return executor to deliver messages, or <code>null</code> to deliver on thread of transport
+     *         or a {@link #isDeliveryOnDedicatedThread() dedicated thread}.
+     */
+    @Nullable
+    public Executor getDeliveryExecutor() {
+        return deliveryExecutor;
+    }
+
+    /**
+     * @return <code>true</code> if messages delivered on a thread created for subscription.
+     */
+    public boolean isDeliveryOnDedicatedThread() {
+        return deliveryOnDedicatedThread;
+    }
+
+    /**
+     * @return most deliveries waiting to run on executor.
+     */
+    public int getMaxPendingDeliveries() {
+        return maxPendingDeliveries;
+    }
+
+    /**
+     * @param unit
+     *            unit of returned value
+     * @return most time to wait for more messages when a batch is not full.
+     */
+    public long getMaxLinger(TimeUnit unit) {
+        Objects.requireNonNull(unit);
+
+        return unit.convert(maxLingerNanos, TimeUnit.NANOSECONDS);
+    }
 }
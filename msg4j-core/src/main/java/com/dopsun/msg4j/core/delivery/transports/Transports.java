@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.delivery.transports;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.dopsun.msg4j.core.messages.Message;
+
+/**
+ * Helpers shared by {@link Transport} implementations.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class Transports {
+    private Transports() {
+    }
+
+    /**
+     * Checks arguments of {@link Transport#publishBatch(List, List)}.
+     * 
+     * @param destinations
+     *            destination of each message
+     * @param messages
+     *            messages to deliver
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>destinations</code> and <code>messages</code> are of different sizes.
+     */
+    public static void checkBatch(List<? extends TransportDestination> destinations,
+            List<? extends Message> messages) {
+        Objects.requireNonNull(destinations);
+        Objects.requireNonNull(messages);
+
+        if (destinations.size() != messages.size()) {
+            throw new IllegalArgumentException("Expected a destination per message, but "
+                    + destinations.size() + " destinations for " + messages.size() + " messages.");
+        }
+    }
+}
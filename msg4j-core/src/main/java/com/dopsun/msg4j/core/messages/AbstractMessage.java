@@ -16,8 +16,6 @@
 
 package com.dopsun.msg4j.core.messages;
 
-import java.util.Map;
-
 /**
  * Base class for message.
  * 
@@ -26,9 +24,9 @@ import java.util.Map;
  */
 abstract class AbstractMessage extends AbstractMessageReader implements Message {
     /**
-     * @param fields
+     * @param store
      */
-    protected AbstractMessage(Map<String, Field> fields) {
-        super(fields);
+    protected AbstractMessage(FieldStore store) {
+        super(store);
     }
 }
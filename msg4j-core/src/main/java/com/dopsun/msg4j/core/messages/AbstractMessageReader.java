@@ -16,10 +16,18 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 
 /**
  * Base class for {@link MessageReader}.
@@ -28,21 +36,26 @@ import java.util.Objects;
  * @since 1.0.0
  */
 abstract class AbstractMessageReader implements MessageReader {
-    private final Map<String, Field> fields;
+    private final FieldStore store;
 
-    protected AbstractMessageReader(Map<String, Field> fields) {
-        Objects.requireNonNull(fields);
+    protected AbstractMessageReader(FieldStore store) {
+        Objects.requireNonNull(store);
 
-        this.fields = fields;
+        this.store = store;
     }
 
     /**
      * This is used internal only.
      * 
-     * @return fields for this message
+     * @return fields store for this message
      */
-    final Map<String, Field> fields() {
-        return fields;
+    final FieldStore store() {
+        return store;
+    }
+
+    @Override
+    public long estimatedRetainedSize() {
+        return MessageSizes.MESSAGE + store.retainedSize();
     }
 
     @Override
@@ -55,65 +68,128 @@ abstract class AbstractMessageReader implements MessageReader {
     private void toString(StringBuilder stringBuilder) {
         stringBuilder.append("{");
 
-        boolean first = true;
-        for (Map.Entry<String, Field> entry : fields.entrySet()) {
-            if (first) {
-                first = false;
-            } else {
-                stringBuilder.append(", ");
+        store.accept(new MessageVisitor() {
+            private boolean first = true;
+
+            private void appendName(String fieldName, FieldType fieldType) {
+                if (first) {
+                    first = false;
+                } else {
+                    stringBuilder.append(", ");
+                }
+
+                stringBuilder.append(fieldName);
+                stringBuilder.append(".");
+                stringBuilder.append(fieldType.name());
+                stringBuilder.append("=");
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, boolean value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, byte value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, char value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, short value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
             }
 
-            String name = entry.getKey();
-            Field field = entry.getValue();
-
-            stringBuilder.append(name);
-            stringBuilder.append(".");
-            stringBuilder.append(field.type().name());
-            stringBuilder.append("=");
-
-            switch (entry.getValue().type()) {
-            case BOOLEAN:
-                stringBuilder.append(((Field.BooleanField) field).value());
-                break;
-            case BYTE:
-                stringBuilder.append(((Field.ByteField) field).value());
-                break;
-            case CHAR:
-                stringBuilder.append(((Field.CharField) field).value());
-                break;
-            case SHORT:
-                stringBuilder.append(((Field.ShortField) field).value());
-                break;
-            case INT:
-                stringBuilder.append(((Field.IntField) field).value());
-                break;
-            case LONG:
-                stringBuilder.append(((Field.LongField) field).value());
-                break;
-            case FLOAT:
-                stringBuilder.append(((Field.FloatField) field).value());
-                break;
-            case DOUBLE:
-                stringBuilder.append(((Field.DoubleField) field).value());
-                break;
-            case STRING:
-                stringBuilder.append(((Field.StringField) field).value());
-                break;
-            case MESSAGE:
-                ImmutableMessage msg = ((Field.MessageField) field).value();
-                if (msg instanceof AbstractMessageReader) {
-                    ((AbstractMessageReader) msg).toString(stringBuilder);
+            @Override
+            public void visit(String fieldName, FieldType fieldType, int value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, long value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, float value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, double value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, String value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, ImmutableMessage value) {
+                appendName(fieldName, fieldType);
+                if (value instanceof AbstractMessageReader) {
+                    ((AbstractMessageReader) value).toString(stringBuilder);
                 } else {
-                    stringBuilder.append(((Field.MessageField) field).value());
+                    stringBuilder.append(value);
                 }
-                break;
-            case MESSAGE_LIST:
-                stringBuilder.append(((Field.MessageListField) field).value());
-                break;
-            default:
-                break;
             }
-        }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType,
+                    List<ImmutableMessage> value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append(value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, IntBuffer value) {
+                int[] values = new int[value.remaining()];
+                value.get(values);
+
+                appendName(fieldName, fieldType);
+                stringBuilder.append(Arrays.toString(values));
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, LongBuffer value) {
+                long[] values = new long[value.remaining()];
+                value.get(values);
+
+                appendName(fieldName, fieldType);
+                stringBuilder.append(Arrays.toString(values));
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, DoubleBuffer value) {
+                double[] values = new double[value.remaining()];
+                value.get(values);
+
+                appendName(fieldName, fieldType);
+                stringBuilder.append(Arrays.toString(values));
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, ByteBuffer value) {
+                appendName(fieldName, fieldType);
+                stringBuilder.append("[");
+                stringBuilder.append(value.remaining());
+                stringBuilder.append(" bytes]");
+            }
+        });
 
         stringBuilder.append("}");
     }
@@ -122,77 +198,36 @@ abstract class AbstractMessageReader implements MessageReader {
     public void accept(MessageVisitor visitor) {
         Objects.requireNonNull(visitor);
 
-        for (Map.Entry<String, Field> entry : fields.entrySet()) {
-            Field field = entry.getValue();
-
-            switch (field.type()) {
-            case BOOLEAN:
-                visitor.visit(entry.getKey(), field.type(), ((Field.BooleanField) field).value());
-                break;
-            case BYTE:
-                visitor.visit(entry.getKey(), field.type(), ((Field.ByteField) field).value());
-                break;
-            case CHAR:
-                visitor.visit(entry.getKey(), field.type(), ((Field.CharField) field).value());
-                break;
-            case SHORT:
-                visitor.visit(entry.getKey(), field.type(), ((Field.ShortField) field).value());
-                break;
-            case INT:
-                visitor.visit(entry.getKey(), field.type(), ((Field.IntField) field).value());
-                break;
-            case LONG:
-                visitor.visit(entry.getKey(), field.type(), ((Field.LongField) field).value());
-                break;
-            case FLOAT:
-                visitor.visit(entry.getKey(), field.type(), ((Field.FloatField) field).value());
-                break;
-            case DOUBLE:
-                visitor.visit(entry.getKey(), field.type(), ((Field.DoubleField) field).value());
-                break;
-            case STRING:
-                visitor.visit(entry.getKey(), field.type(), ((Field.StringField) field).value());
-                break;
-            case MESSAGE:
-                visitor.visit(entry.getKey(), field.type(), ((Field.MessageField) field).value());
-                break;
-            case MESSAGE_LIST:
-                visitor.visit(entry.getKey(), field.type(),
-                        ((Field.MessageListField) field).value());
-                break;
-            default:
-                break;
-            }
-        }
+        store.accept(visitor);
     }
 
     @Override
     public Collection<String> fieldNames() {
-        return fields.keySet();
+        return store.names();
     }
 
     @Override
     public int size() {
-        return fields.size();
+        return store.size();
     }
 
     @Override
     public boolean contains(String fieldName) {
         Objects.requireNonNull(fieldName);
 
-        return fields.containsKey(fieldName);
+        return store.contains(fieldName);
     }
 
     @Override
     public FieldType getFieldType(String fieldName) throws FieldNotFoundException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
+        FieldType type = store.typeOf(fieldName);
+        if (type == null) {
             throw new FieldNotFoundException(fieldName);
         }
 
-        return field.type();
+        return type;
     }
 
     @Override
@@ -200,177 +235,355 @@ abstract class AbstractMessageReader implements MessageReader {
             throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        long bits = store.getBits(fieldName, FieldType.BOOLEAN);
+        return bits != 0;
+    }
 
-        if (field instanceof Field.BooleanField) {
-            return ((Field.BooleanField) field).value();
-        }
+    @Override
+    public byte getByte(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.BOOLEAN, field.type());
+        long bits = store.getBits(fieldName, FieldType.BYTE);
+        return (byte) bits;
     }
 
     @Override
-    public byte getByte(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public char getChar(String fieldName) throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        long bits = store.getBits(fieldName, FieldType.CHAR);
+        return (char) bits;
+    }
 
-        if (field instanceof Field.ByteField) {
-            return ((Field.ByteField) field).value();
-        }
+    @Override
+    public short getShort(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.BYTE, field.type());
+        long bits = store.getBits(fieldName, FieldType.SHORT);
+        return (short) bits;
     }
 
     @Override
-    public char getChar(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public int getInt(String fieldName) throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        long bits = store.getBits(fieldName, FieldType.INT);
+        return (int) bits;
+    }
 
-        if (field instanceof Field.CharField) {
-            return ((Field.CharField) field).value();
-        }
+    @Override
+    public long getLong(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.CHAR, field.type());
+        long bits = store.getBits(fieldName, FieldType.LONG);
+        return bits;
     }
 
     @Override
-    public short getShort(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public float getFloat(String fieldName) throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        long bits = store.getBits(fieldName, FieldType.FLOAT);
+        return Float.intBitsToFloat((int) bits);
+    }
 
-        if (field instanceof Field.ShortField) {
-            return ((Field.ShortField) field).value();
-        }
+    @Override
+    public double getDouble(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.SHORT, field.type());
+        long bits = store.getBits(fieldName, FieldType.DOUBLE);
+        return Double.longBitsToDouble(bits);
     }
 
     @Override
-    public int getInt(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public String getString(String fieldName) throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        return (String) store.getRef(fieldName, FieldType.STRING);
+    }
 
-        if (field instanceof Field.IntField) {
-            return ((Field.IntField) field).value();
-        }
+    @Override
+    public ImmutableMessage getMessage(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.INT, field.type());
+        return (ImmutableMessage) store.getRef(fieldName, FieldType.MESSAGE);
     }
 
+    @SuppressWarnings("unchecked")
     @Override
-    public long getLong(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public List<ImmutableMessage> getMessageList(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        return (List<ImmutableMessage>) store.getRef(fieldName, FieldType.MESSAGE_LIST);
+    }
 
-        if (field instanceof Field.LongField) {
-            return ((Field.LongField) field).value();
-        }
+    @Override
+    public IntBuffer getIntArray(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.LONG, field.type());
+        return ((IntBuffer) store.getRef(fieldName, FieldType.INT_ARRAY)).duplicate();
     }
 
     @Override
-    public float getFloat(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public LongBuffer getLongArray(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        return ((LongBuffer) store.getRef(fieldName, FieldType.LONG_ARRAY)).duplicate();
+    }
 
-        if (field instanceof Field.FloatField) {
-            return ((Field.FloatField) field).value();
-        }
+    @Override
+    public DoubleBuffer getDoubleArray(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.FLOAT, field.type());
+        return ((DoubleBuffer) store.getRef(fieldName, FieldType.DOUBLE_ARRAY)).duplicate();
     }
 
     @Override
-    public double getDouble(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public ByteBuffer getBytes(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        return ((ByteBuffer) store.getRef(fieldName, FieldType.BYTES)).duplicate();
+    }
 
-        if (field instanceof Field.DoubleField) {
-            return ((Field.DoubleField) field).value();
-        }
+    @Override
+    public Optional<FieldType> tryGetFieldType(String fieldName) {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.DOUBLE, field.type());
+        return OptionalValues.ofFieldType(store.typeOf(fieldName));
     }
 
     @Override
-    public String getString(String fieldName) throws FieldNotFoundException, InvalidTypeException {
+    public boolean tryGetBoolean(String fieldName, boolean defaultValue)
+            throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        long bits = store.tryGetBits(fieldName, FieldType.BOOLEAN, defaultValue ? 1L : 0L);
+        return bits != 0;
+    }
 
-        if (field instanceof Field.StringField) {
-            return ((Field.StringField) field).value();
-        }
+    @Override
+    public byte tryGetByte(String fieldName, byte defaultValue) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        throw new InvalidTypeException(fieldName, FieldType.STRING, field.type());
+        long bits = store.tryGetBits(fieldName, FieldType.BYTE, defaultValue);
+        return (byte) bits;
     }
 
     @Override
-    public ImmutableMessage getMessage(String fieldName)
-            throws FieldNotFoundException, InvalidTypeException {
+    public char tryGetChar(String fieldName, char defaultValue) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
-        }
+        long bits = store.tryGetBits(fieldName, FieldType.CHAR, defaultValue);
+        return (char) bits;
+    }
+
+    @Override
+    public short tryGetShort(String fieldName, short defaultValue) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
 
-        if (field instanceof Field.MessageField) {
-            return ((Field.MessageField) field).value();
+        long bits = store.tryGetBits(fieldName, FieldType.SHORT, defaultValue);
+        return (short) bits;
+    }
+
+    @Override
+    public int tryGetInt(String fieldName, int defaultValue) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        long bits = store.tryGetBits(fieldName, FieldType.INT, defaultValue);
+        return (int) bits;
+    }
+
+    @Override
+    public OptionalInt tryGetInt(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        long bits = store.tryGetBits(fieldName, FieldType.INT, FieldStore.ABSENT_BITS);
+        if (bits == FieldStore.ABSENT_BITS) {
+            return OptionalInt.empty();
         }
 
-        throw new InvalidTypeException(fieldName, FieldType.MESSAGE, field.type());
+        return OptionalValues.ofInt((int) bits);
     }
 
     @Override
-    public List<ImmutableMessage> getMessageList(String fieldName)
-            throws FieldNotFoundException, InvalidTypeException {
+    public long tryGetLong(String fieldName, long defaultValue) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields.get(fieldName);
-        if (field == null) {
-            throw new FieldNotFoundException(fieldName);
+        return store.tryGetBits(fieldName, FieldType.LONG, defaultValue);
+    }
+
+    @Override
+    public OptionalLong tryGetLong(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        long bits = store.tryGetBits(fieldName, FieldType.LONG, FieldStore.ABSENT_BITS);
+        if (bits == FieldStore.ABSENT_BITS && !store.contains(fieldName)) {
+            return OptionalLong.empty();
         }
 
-        if (field instanceof Field.MessageListField) {
-            return ((Field.MessageListField) field).value();
+        return OptionalValues.ofLong(bits);
+    }
+
+    @Override
+    public float tryGetFloat(String fieldName, float defaultValue) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        long defaultBits = Float.floatToRawIntBits(defaultValue);
+        long bits = store.tryGetBits(fieldName, FieldType.FLOAT, defaultBits);
+        return Float.intBitsToFloat((int) bits);
+    }
+
+    @Override
+    public double tryGetDouble(String fieldName, double defaultValue) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        long defaultBits = Double.doubleToRawLongBits(defaultValue);
+        long bits = store.tryGetBits(fieldName, FieldType.DOUBLE, defaultBits);
+        return Double.longBitsToDouble(bits);
+    }
+
+    @Override
+    public OptionalDouble tryGetDouble(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        long bits = store.tryGetBits(fieldName, FieldType.DOUBLE, FieldStore.ABSENT_BITS);
+        if (bits == FieldStore.ABSENT_BITS && !store.contains(fieldName)) {
+            return OptionalDouble.empty();
         }
 
-        throw new InvalidTypeException(fieldName, FieldType.MESSAGE_LIST, field.type());
+        return OptionalDouble.of(Double.longBitsToDouble(bits));
+    }
+
+    @Override
+    public String tryGetString(String fieldName, String defaultValue) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        String value = (String) store.tryGetRef(fieldName, FieldType.STRING);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public Optional<String> tryGetString(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        return Optional.ofNullable((String) store.tryGetRef(fieldName, FieldType.STRING));
+    }
+
+    @Override
+    public ImmutableMessage tryGetMessage(String fieldName, ImmutableMessage defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        ImmutableMessage value = (ImmutableMessage) store.tryGetRef(fieldName, FieldType.MESSAGE);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public Optional<ImmutableMessage> tryGetMessage(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        Object value = store.tryGetRef(fieldName, FieldType.MESSAGE);
+        return Optional.ofNullable((ImmutableMessage) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<ImmutableMessage> tryGetMessageList(String fieldName,
+            List<ImmutableMessage> defaultValue) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        Object value = store.tryGetRef(fieldName, FieldType.MESSAGE_LIST);
+        return value == null ? defaultValue : (List<ImmutableMessage>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Optional<List<ImmutableMessage>> tryGetMessageList(String fieldName)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        Object value = store.tryGetRef(fieldName, FieldType.MESSAGE_LIST);
+        return Optional.ofNullable((List<ImmutableMessage>) value);
+    }
+
+    @Override
+    public IntBuffer tryGetIntArray(String fieldName, IntBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        IntBuffer value = (IntBuffer) store.tryGetRef(fieldName, FieldType.INT_ARRAY);
+        return value == null ? defaultValue : value.duplicate();
+    }
+
+    @Override
+    public Optional<IntBuffer> tryGetIntArray(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        IntBuffer value = (IntBuffer) store.tryGetRef(fieldName, FieldType.INT_ARRAY);
+        return value == null ? Optional.empty() : Optional.of(value.duplicate());
+    }
+
+    @Override
+    public LongBuffer tryGetLongArray(String fieldName, LongBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        LongBuffer value = (LongBuffer) store.tryGetRef(fieldName, FieldType.LONG_ARRAY);
+        return value == null ? defaultValue : value.duplicate();
+    }
+
+    @Override
+    public Optional<LongBuffer> tryGetLongArray(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        LongBuffer value = (LongBuffer) store.tryGetRef(fieldName, FieldType.LONG_ARRAY);
+        return value == null ? Optional.empty() : Optional.of(value.duplicate());
+    }
+
+    @Override
+    public DoubleBuffer tryGetDoubleArray(String fieldName, DoubleBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        DoubleBuffer value = (DoubleBuffer) store.tryGetRef(fieldName, FieldType.DOUBLE_ARRAY);
+        return value == null ? defaultValue : value.duplicate();
+    }
+
+    @Override
+    public Optional<DoubleBuffer> tryGetDoubleArray(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        DoubleBuffer value = (DoubleBuffer) store.tryGetRef(fieldName, FieldType.DOUBLE_ARRAY);
+        return value == null ? Optional.empty() : Optional.of(value.duplicate());
+    }
+
+    @Override
+    public ByteBuffer tryGetBytes(String fieldName, ByteBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        ByteBuffer value = (ByteBuffer) store.tryGetRef(fieldName, FieldType.BYTES);
+        return value == null ? defaultValue : value.duplicate();
+    }
+
+    @Override
+    public Optional<ByteBuffer> tryGetBytes(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        ByteBuffer value = (ByteBuffer) store.tryGetRef(fieldName, FieldType.BYTES);
+        return value == null ? Optional.empty() : Optional.of(value.duplicate());
     }
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * Values of one field in all rows of a {@link MessageBatch}, kept in an array of its type.
+ * Booleans and presence are kept as bitmaps; strings as codes into a dictionary of distinct
+ * values.
+ * 
+ * <p>
+ * A column is written by {@link MessageBatch.Builder} only, and trimmed to a copy when batch
+ * built, which is not modified anymore.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class BatchColumn {
+    private final String name;
+    private final FieldType type;
+
+    private int capacity;
+    private long[] presence;
+
+    /**
+     * Array of values: <code>long[]</code> bitmap for {@link FieldType#BOOLEAN},
+     * <code>int[]</code> of codes for {@link FieldType#STRING}, <code>Object[]</code> for other
+     * non-primitive types, and array of primitive type for others.
+     */
+    private Object values;
+
+    private String[] dictionary;
+    private int dictionarySize;
+
+    /**
+     * Codes of strings in {@link #dictionary}, only while building.
+     */
+    @Nullable
+    private final Map<String, Integer> codes;
+
+    BatchColumn(String name, FieldType type, int capacity) {
+        this.name = Objects.requireNonNull(name);
+        this.type = Objects.requireNonNull(type);
+
+        this.capacity = capacity;
+        this.presence = new long[words(capacity)];
+        this.values = newValues(type, capacity);
+        this.dictionary = new String[type == FieldType.STRING ? 16 : 0];
+        this.codes = type == FieldType.STRING ? new HashMap<>() : null;
+    }
+
+    private BatchColumn(BatchColumn source, int size) {
+        this.name = source.name;
+        this.type = source.type;
+
+        this.capacity = size;
+        this.presence = Arrays.copyOf(source.presence, words(size));
+        this.values = copyOf(source.values, type, size);
+        this.dictionary = Arrays.copyOf(source.dictionary, source.dictionarySize);
+        this.dictionarySize = source.dictionarySize;
+        this.codes = null;
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static Object newValues(FieldType type, int capacity) {
+        switch (type) {
+        case BOOLEAN:
+            return new long[words(capacity)];
+        case BYTE:
+            return new byte[capacity];
+        case CHAR:
+            return new char[capacity];
+        case SHORT:
+            return new short[capacity];
+        case INT:
+        case STRING:
+            return new int[capacity];
+        case LONG:
+            return new long[capacity];
+        case FLOAT:
+            return new float[capacity];
+        case DOUBLE:
+            return new double[capacity];
+        default:
+            return new Object[capacity];
+        }
+    }
+
+    private static Object copyOf(Object values, FieldType type, int size) {
+        switch (type) {
+        case BOOLEAN:
+            return Arrays.copyOf((long[]) values, words(size));
+        case BYTE:
+            return Arrays.copyOf((byte[]) values, size);
+        case CHAR:
+            return Arrays.copyOf((char[]) values, size);
+        case SHORT:
+            return Arrays.copyOf((short[]) values, size);
+        case INT:
+        case STRING:
+            return Arrays.copyOf((int[]) values, size);
+        case LONG:
+            return Arrays.copyOf((long[]) values, size);
+        case FLOAT:
+            return Arrays.copyOf((float[]) values, size);
+        case DOUBLE:
+            return Arrays.copyOf((double[]) values, size);
+        default:
+            return Arrays.copyOf((Object[]) values, size);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    FieldType type() {
+        return type;
+    }
+
+    /**
+     * @param size
+     *            number of rows
+     * @return a trimmed copy, which is not modified anymore.
+     */
+    BatchColumn trimmedCopy(int size) {
+        return new BatchColumn(this, size);
+    }
+
+    /**
+     * @param required
+     *            number of rows to keep
+     */
+    void ensureCapacity(int required) {
+        if (required > capacity) {
+            int newCapacity = Math.max(required, capacity * 2);
+            presence = Arrays.copyOf(presence, words(newCapacity));
+            values = copyOf(values, type, newCapacity);
+            capacity = newCapacity;
+        }
+    }
+
+    /**
+     * @param row
+     * @return <code>true</code> if field exists in <code>row</code>.
+     */
+    boolean isPresent(int row) {
+        return (presence[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @param row
+     * @param bits
+     *            value encoded as {@link Field#bits()}
+     */
+    void setBits(int row, long bits) {
+        presence[row >>> 6] |= 1L << row;
+
+        switch (type) {
+        case BOOLEAN:
+            if (bits != 0L) {
+                ((long[]) values)[row >>> 6] |= 1L << row;
+            }
+            break;
+        case BYTE:
+            ((byte[]) values)[row] = (byte) bits;
+            break;
+        case CHAR:
+            ((char[]) values)[row] = (char) bits;
+            break;
+        case SHORT:
+            ((short[]) values)[row] = (short) bits;
+            break;
+        case INT:
+            ((int[]) values)[row] = (int) bits;
+            break;
+        case LONG:
+            ((long[]) values)[row] = bits;
+            break;
+        case FLOAT:
+            ((float[]) values)[row] = Float.intBitsToFloat((int) bits);
+            break;
+        case DOUBLE:
+            ((double[]) values)[row] = Double.longBitsToDouble(bits);
+            break;
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    /**
+     * @param row
+     * @param ref
+     *            value of non-primitive type
+     */
+    void setRef(int row, Object ref) {
+        presence[row >>> 6] |= 1L << row;
+
+        if (type == FieldType.STRING) {
+            ((int[]) values)[row] = code((String) ref);
+        } else {
+            ((Object[]) values)[row] = ref;
+        }
+    }
+
+    private int code(String value) {
+        Map<String, Integer> codes = Objects.requireNonNull(this.codes);
+
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code.intValue();
+        }
+
+        if (dictionarySize == dictionary.length) {
+            dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        }
+
+        dictionary[dictionarySize] = value;
+        codes.put(value, Integer.valueOf(dictionarySize));
+        return dictionarySize++;
+    }
+
+    /**
+     * @param row
+     * @return value in <code>row</code> encoded as {@link Field#bits()}, <code>0</code> if absent.
+     */
+    long bits(int row) {
+        switch (type) {
+        case BOOLEAN:
+            return (((long[]) values)[row >>> 6] & (1L << row)) != 0 ? 1L : 0L;
+        case BYTE:
+            return ((byte[]) values)[row];
+        case CHAR:
+            return ((char[]) values)[row];
+        case SHORT:
+            return ((short[]) values)[row];
+        case INT:
+            return ((int[]) values)[row];
+        case LONG:
+            return ((long[]) values)[row];
+        case FLOAT:
+            return Float.floatToRawIntBits(((float[]) values)[row]);
+        case DOUBLE:
+            return Double.doubleToRawLongBits(((double[]) values)[row]);
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    /**
+     * @param row
+     * @return value in <code>row</code>, <code>null</code> if absent.
+     */
+    @Nullable
+    Object ref(int row) {
+        if (!isPresent(row)) {
+            return null;
+        }
+
+        if (type == FieldType.STRING) {
+            return dictionary[((int[]) values)[row]];
+        }
+
+        return ((Object[]) values)[row];
+    }
+
+    long[] presence() {
+        return presence;
+    }
+
+    /**
+     * @return array of values, see {@link #values}.
+     */
+    Object values() {
+        return values;
+    }
+
+    /**
+     * @return distinct strings, indexed by codes.
+     */
+    String[] dictionary() {
+        return dictionary;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Read only field store of one row in a {@link MessageBatch}, which reads values from columns.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class BatchRowFieldStore extends FieldStore {
+    private final MessageBatch batch;
+    private final int row;
+
+    BatchRowFieldStore(MessageBatch batch, int row) {
+        this.batch = batch;
+        this.row = row;
+    }
+
+    /**
+     * @return column of field, or <code>null</code> if field not exists.
+     */
+    @Nullable
+    private BatchColumn present(String name) {
+        int index = batch.columnIndex(name);
+        if (index < 0) {
+            return null;
+        }
+
+        BatchColumn column = batch.column(index);
+        return column.isPresent(row) ? column : null;
+    }
+
+    /**
+     * @return column of field, or <code>null</code> if field not exists.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    @Nullable
+    private BatchColumn present(String name, FieldType type) {
+        BatchColumn column = present(name);
+        if (column != null && column.type() != type) {
+            throw new InvalidTypeException(name, type, column.type());
+        }
+
+        return column;
+    }
+
+    private BatchColumn checked(String name, FieldType type) {
+        BatchColumn column = present(name, type);
+        if (column == null) {
+            throw new FieldNotFoundException(name);
+        }
+
+        return column;
+    }
+
+    /**
+     * @param from
+     *            index of column to search from
+     * @return index of next column present, or <code>-1</code> if no more.
+     */
+    private int nextPresent(int from) {
+        int count = batch.columnCount();
+        for (int index = from; index < count; index++) {
+            if (batch.column(index).isPresent(row)) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    int size() {
+        int size = 0;
+        for (int index = nextPresent(0); index >= 0; index = nextPresent(index + 1)) {
+            size++;
+        }
+
+        return size;
+    }
+
+    @Override
+    Collection<String> names() {
+        return new AbstractCollection<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next = nextPresent(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+
+                        String name = batch.column(next).name();
+                        next = nextPresent(next + 1);
+                        return name;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return BatchRowFieldStore.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return (o instanceof String) && present((String) o) != null;
+            }
+        };
+    }
+
+    @Override
+    boolean contains(String name) {
+        return present(name) != null;
+    }
+
+    @Override
+    @Nullable
+    FieldType typeOf(String name) {
+        BatchColumn column = present(name);
+        return column == null ? null : column.type();
+    }
+
+    @Override
+    long getBits(String name, FieldType type) {
+        return checked(name, type).bits(row);
+    }
+
+    @Override
+    Object getRef(String name, FieldType type) {
+        return checked(name, type).ref(row);
+    }
+
+    @Override
+    long tryGetBits(String name, FieldType type, long defaultBits) {
+        BatchColumn column = present(name, type);
+        return column == null ? defaultBits : column.bits(row);
+    }
+
+    @Override
+    @Nullable
+    Object tryGetRef(String name, FieldType type) {
+        BatchColumn column = present(name, type);
+        return column == null ? null : column.ref(row);
+    }
+
+    @Override
+    void putBits(String name, FieldType type, long bits) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void putRef(String name, FieldType type, Object ref) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    boolean remove(String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void accept(MessageVisitor visitor) {
+        for (int index = nextPresent(0); index >= 0; index = nextPresent(index + 1)) {
+            BatchColumn column = batch.column(index);
+            visit(visitor, column.name(), column.type(), bits(column), ref(column));
+        }
+    }
+
+    private long bits(BatchColumn column) {
+        return Field.isPrimitive(column.type()) ? column.bits(row) : 0L;
+    }
+
+    @Nullable
+    private Object ref(BatchColumn column) {
+        return Field.isPrimitive(column.type()) ? null : column.ref(row);
+    }
+
+    @Override
+    boolean advance(FieldCursorImpl cursor) {
+        int index = nextPresent(cursor.position);
+        if (index < 0) {
+            cursor.position = batch.columnCount();
+            return false;
+        }
+
+        BatchColumn column = batch.column(index);
+        cursor.set(column.name(), column.type(), bits(column), ref(column));
+        cursor.position = index + 1;
+        return true;
+    }
+
+    /**
+     * Values are kept by columns of batch, and shared by all rows, so only row itself is counted.
+     */
+    @Override
+    long retainedSize() {
+        return MessageSizes.object(MessageSizes.REFERENCE + 4);
+    }
+
+    @Override
+    FieldStore mutableCopy() {
+        SlotFieldStore copy = new SlotFieldStore(batch.columnCount());
+        for (int index = nextPresent(0); index >= 0; index = nextPresent(index + 1)) {
+            BatchColumn column = batch.column(index);
+            if (Field.isPrimitive(column.type())) {
+                copy.putBits(column.name(), column.type(), column.bits(row));
+            } else {
+                copy.putRef(column.name(), column.type(), column.ref(row));
+            }
+        }
+
+        return copy;
+    }
+
+    @Override
+    FieldStore immutableCopy() {
+        return this;
+    }
+}
@@ -0,0 +1,464 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Read only field store over a buffer encoded by {@link BinaryMessageCodec}.
+ * 
+ * <p>
+ * Nothing is decoded until first access, which scans field headers and builds an index of value
+ * offsets. Primitive values are read from buffer on each access; strings, nested messages and
+ * message lists are decoded on first access and cached. Nested messages, arrays and bytes are
+ * views over the same buffer.
+ * </p>
+ * 
+ * <p>
+ * Index and cached values may be built by more than one thread at the same time. Index is
+ * published through a volatile field, and cached values through an {@link AtomicReferenceArray},
+ * where the first published is kept for both, so other threads always see them fully built, and
+ * share the same instance. Cached buffers are never handed out, but duplicated, so their
+ * positions are not changed after published.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class BinaryFieldStore extends FieldStore {
+    private static final AtomicReferenceFieldUpdater<BinaryFieldStore, Index> INDEX_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(BinaryFieldStore.class, Index.class, "index");
+
+    /**
+     * Big endian, from position <code>0</code>. Only absolute methods are used, or on duplicates.
+     */
+    private final ByteBuffer buffer;
+
+    @Nullable
+    private volatile Index index;
+
+    /**
+     * @param buffer
+     *            remaining bytes are exactly one encoded message, which should not be modified
+     *            anymore.
+     */
+    BinaryFieldStore(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private Index index() {
+        Index index = this.index;
+        if (index == null) {
+            INDEX_UPDATER.compareAndSet(this, null, new Index(reader(0)));
+            index = this.index;
+        }
+
+        return index;
+    }
+
+    private ByteBuffer reader(int offset) {
+        ByteBuffer reader = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        reader.position(offset);
+        return reader;
+    }
+
+    @Override
+    int size() {
+        return index().names.size();
+    }
+
+    @Override
+    Collection<String> names() {
+        FieldNameTable names = index().names;
+
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return names.name(index);
+            }
+
+            @Override
+            public int size() {
+                return names.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return (o instanceof String) && names.indexOf((String) o) >= 0;
+            }
+        };
+    }
+
+    @Override
+    boolean contains(String name) {
+        return index().names.indexOf(name) >= 0;
+    }
+
+    @Override
+    @Nullable
+    FieldType typeOf(String name) {
+        Index index = index();
+
+        int slot = index.names.indexOf(name);
+        return slot < 0 ? null : index.types[slot];
+    }
+
+    @Override
+    long getBits(String name, FieldType type) {
+        Index index = index();
+        return bits(type, index.offsets[index.checkedSlot(name, type)]);
+    }
+
+    @Override
+    Object getRef(String name, FieldType type) {
+        Index index = index();
+        return ref(index, index.checkedSlot(name, type));
+    }
+
+    @Override
+    long tryGetBits(String name, FieldType type, long defaultBits) {
+        Index index = index();
+
+        int slot = index.presentSlot(name, type);
+        return slot < 0 ? defaultBits : bits(type, index.offsets[slot]);
+    }
+
+    @Override
+    @Nullable
+    Object tryGetRef(String name, FieldType type) {
+        Index index = index();
+
+        int slot = index.presentSlot(name, type);
+        return slot < 0 ? null : ref(index, slot);
+    }
+
+    private long bits(FieldType type, int offset) {
+        switch (type) {
+        case BOOLEAN:
+            return buffer.get(offset) != 0 ? 1L : 0L;
+        case BYTE:
+            return buffer.get(offset);
+        case CHAR:
+            return buffer.getChar(offset);
+        case SHORT:
+            return buffer.getShort(offset);
+        case INT:
+        case FLOAT:
+            return buffer.getInt(offset);
+        case LONG:
+        case DOUBLE:
+            return buffer.getLong(offset);
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    private Object ref(Index index, int slot) {
+        Object ref = index.refs.get(slot);
+        if (ref == null) {
+            index.refs.compareAndSet(slot, null,
+                    decodeRef(index.types[slot], index.offsets[slot]));
+            ref = index.refs.get(slot);
+        }
+
+        return ref;
+    }
+
+    private Object decodeRef(FieldType type, int offset) {
+        ByteBuffer reader = reader(offset);
+
+        switch (type) {
+        case STRING:
+            return BinaryMessageCodec.readString(reader);
+        case MESSAGE:
+            return view(reader);
+        case MESSAGE_LIST:
+            int count = BinaryMessageCodec.readLength(reader);
+            ImmutableList.Builder<ImmutableMessage> builder = ImmutableList.builder();
+            for (int i = 0; i < count; i++) {
+                builder.add(view(reader));
+            }
+            return builder.build();
+        case INT_ARRAY:
+        case LONG_ARRAY:
+        case DOUBLE_ARRAY:
+            return BinaryMessageCodec.readArray(reader, type);
+        case BYTES:
+            return BinaryMessageCodec.readBytes(reader);
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    /**
+     * @param reader
+     *            positioned at a length prefixed message, and will be moved over it.
+     * @return view of the message
+     */
+    private static ImmutableMessage view(ByteBuffer reader) {
+        int length = BinaryMessageCodec.readLength(reader);
+
+        ByteBuffer slice = reader.slice();
+        slice.limit(length);
+        reader.position(reader.position() + length);
+
+        return new ImmutableMessageImpl(new BinaryFieldStore(slice));
+    }
+
+    @Override
+    void putBits(String name, FieldType type, long bits) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void putRef(String name, FieldType type, Object ref) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    boolean remove(String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    void accept(MessageVisitor visitor) {
+        Index index = index();
+
+        int size = index.names.size();
+        for (int slot = 0; slot < size; slot++) {
+            FieldType type = index.types[slot];
+            String name = index.names.name(slot);
+
+            if (Field.isPrimitive(type)) {
+                visit(visitor, name, type, bits(type, index.offsets[slot]), null);
+            } else {
+                visit(visitor, name, type, 0L, ref(index, slot));
+            }
+        }
+    }
+
+    @Override
+    boolean advance(FieldCursorImpl cursor) {
+        Index index = index();
+
+        int slot = cursor.position;
+        if (slot >= index.names.size()) {
+            return false;
+        }
+
+        FieldType type = index.types[slot];
+        String name = index.names.name(slot);
+        if (Field.isPrimitive(type)) {
+            cursor.set(name, type, bits(type, index.offsets[slot]), null);
+        } else {
+            cursor.set(name, type, 0L, ref(index, slot));
+        }
+
+        cursor.position = slot + 1;
+        return true;
+    }
+
+    @Override
+    @Nullable
+    ByteBuffer encodedBy(MessageCodec codec) {
+        return codec == BinaryMessageCodec.INSTANCE ? buffer.duplicate() : null;
+    }
+
+    @Override
+    int encodedSizeBy(MessageCodec codec) {
+        return codec == BinaryMessageCodec.INSTANCE ? buffer.remaining() : -1;
+    }
+
+    @Override
+    long retainedSize() {
+        return MessageSizes.BUFFER + MessageSizes.array(buffer.remaining(), 1) + decodedSize();
+    }
+
+    /**
+     * Field names are not counted, as {@link MessageReader#estimatedRetainedSize()}. Nested
+     * messages, arrays and bytes are views over the same buffer, so their bytes are not counted
+     * again.
+     * 
+     * @return size of this store without encoded bytes.
+     */
+    private long decodedSize() {
+        long size = MessageSizes.object(2 * MessageSizes.REFERENCE);
+
+        Index index = this.index;
+        if (index == null) {
+            return size;
+        }
+
+        int length = index.names.size();
+        size += MessageSizes.object(4 * MessageSizes.REFERENCE) + index.names.retainedSize()
+                + MessageSizes.array(length, MessageSizes.REFERENCE) + MessageSizes.array(length, 4)
+                + MessageSizes.object(MessageSizes.REFERENCE)
+                + MessageSizes.array(length, MessageSizes.REFERENCE);
+
+        for (int slot = 0; slot < length; slot++) {
+            Object ref = index.refs.get(slot);
+            if (ref == null) {
+                continue;
+            }
+
+            switch (index.types[slot]) {
+            case STRING:
+                size += MessageSizes.string((String) ref);
+                break;
+            case MESSAGE:
+                size += viewSize(ref);
+                break;
+            case MESSAGE_LIST:
+                List<?> list = (List<?>) ref;
+                size += MessageSizes.LIST
+                        + MessageSizes.array(list.size(), MessageSizes.REFERENCE);
+                for (int i = 0; i < list.size(); i++) {
+                    size += viewSize(list.get(i));
+                }
+                break;
+            default:
+                size += MessageSizes.BUFFER;
+                break;
+            }
+        }
+
+        return size;
+    }
+
+    private static long viewSize(Object message) {
+        if (message instanceof ImmutableMessageImpl) {
+            FieldStore store = ((ImmutableMessageImpl) message).store();
+            if (store instanceof BinaryFieldStore) {
+                return MessageSizes.IMMUTABLE_MESSAGE + MessageSizes.BUFFER
+                        + ((BinaryFieldStore) store).decodedSize();
+            }
+        }
+
+        return ((MessageReader) message).estimatedRetainedSize();
+    }
+
+    @Override
+    FieldStore mutableCopy() {
+        Index index = index();
+
+        int size = index.names.size();
+        SlotFieldStore copy = new SlotFieldStore(size);
+        for (int slot = 0; slot < size; slot++) {
+            FieldType type = index.types[slot];
+            String name = index.names.name(slot);
+
+            if (Field.isPrimitive(type)) {
+                copy.putBits(name, type, bits(type, index.offsets[slot]));
+            } else {
+                copy.putRef(name, type, ref(index, slot));
+            }
+        }
+
+        return copy;
+    }
+
+    @Override
+    FieldStore immutableCopy() {
+        return this;
+    }
+
+    private static final class Index {
+        private final FieldNameTable names;
+        private final FieldType[] types;
+
+        /**
+         * Offset of value in buffer.
+         */
+        private final int[] offsets;
+
+        /**
+         * Decoded reference values, <code>null</code> if not decoded yet.
+         */
+        private final AtomicReferenceArray<Object> refs;
+
+        Index(ByteBuffer reader) {
+            try {
+                int fieldCount = BinaryMessageCodec.readLength(reader);
+
+                this.names = new FieldNameTable(fieldCount);
+                this.types = new FieldType[fieldCount];
+                this.offsets = new int[fieldCount];
+                this.refs = new AtomicReferenceArray<>(fieldCount);
+
+                for (int i = 0; i < fieldCount; i++) {
+                    FieldType type = BinaryMessageCodec.readType(reader);
+                    String name = BinaryMessageCodec.readString(reader);
+                    if (names.indexOf(name) >= 0) {
+                        throw new MalformedMessageException("Duplicated field: " + name);
+                    }
+
+                    int slot = names.add(name);
+                    types[slot] = type;
+                    offsets[slot] = reader.position();
+
+                    BinaryMessageCodec.skipValue(reader, type);
+                }
+            } catch (BufferUnderflowException e) {
+                throw new MalformedMessageException("Encoded message is truncated.", e);
+            }
+
+            if (reader.hasRemaining()) {
+                throw new MalformedMessageException("Unexpected bytes after encoded message.");
+            }
+        }
+
+        /**
+         * @return slot of field, or <code>-1</code> if field not exists.
+         */
+        int presentSlot(String name, FieldType type) {
+            int slot = names.indexOf(name);
+            if (slot >= 0 && types[slot] != type) {
+                throw new InvalidTypeException(name, type, types[slot]);
+            }
+
+            return slot;
+        }
+
+        int checkedSlot(String name, FieldType type) {
+            int slot = names.indexOf(name);
+            if (slot < 0) {
+                throw new FieldNotFoundException(name);
+            }
+
+            if (types[slot] != type) {
+                throw new InvalidTypeException(name, type, types[slot]);
+            }
+
+            return slot;
+        }
+    }
+}
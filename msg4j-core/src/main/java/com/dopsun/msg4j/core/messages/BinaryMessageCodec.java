@@ -0,0 +1,851 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compact binary codec.
+ * 
+ * <p>
+ * A message is encoded as number of fields, followed by each field:
+ * </p>
+ * <ul>
+ * <li>one byte type tag, which is {@link FieldType#ordinal()};</li>
+ * <li>name, as UTF-8 bytes prefixed by length;</li>
+ * <li>value: fixed width big endian primitives, UTF-8 bytes prefixed by length for
+ * {@link FieldType#STRING}, encoded message prefixed by length for {@link FieldType#MESSAGE}, and
+ * number of messages followed by each message prefixed by length for
+ * {@link FieldType#MESSAGE_LIST}, and number of elements followed by fixed width big endian
+ * elements for {@link FieldType#INT_ARRAY}, {@link FieldType#LONG_ARRAY} and
+ * {@link FieldType#DOUBLE_ARRAY}, and bytes prefixed by length for {@link FieldType#BYTES}.</li>
+ * </ul>
+ * <p>
+ * All counts and lengths are unsigned varints, 7 bits per byte, low bits first.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class BinaryMessageCodec implements MessageCodec {
+    static final BinaryMessageCodec INSTANCE = new BinaryMessageCodec();
+
+    private static final FieldType[] FIELD_TYPES = FieldType.values();
+
+    /**
+     * Visitor of sizes is reentrant, so one is kept per thread for nested messages as well.
+     */
+    private static final ThreadLocal<SizeVisitor> SIZE_VISITOR = ThreadLocal
+            .withInitial(SizeVisitor::new);
+
+    private BinaryMessageCodec() {
+    }
+
+    @Override
+    public int encodedSize(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        if (message instanceof ImmutableMessageImpl) {
+            int cached = ((ImmutableMessageImpl) message).cachedEncodedSize(INSTANCE);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        return SIZE_VISITOR.get().sizeOf(message);
+    }
+
+    @Override
+    public void encode(MessageReader message, ByteBuffer buffer) {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(buffer);
+
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            write(message, buffer);
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    private static void write(MessageReader message, ByteBuffer buffer) {
+        ByteBuffer cached = cachedEncoded(message);
+        if (cached != null) {
+            buffer.put(cached);
+            return;
+        }
+
+        writeVarint(buffer, message.size());
+        message.accept(new EncodeVisitor(buffer));
+    }
+
+    /**
+     * Encoded bytes already kept by <code>message</code>, such as a view or a message encoded
+     * before, are copied instead of encoding fields again.
+     * 
+     * @param message
+     * @return a new buffer over encoded bytes of <code>message</code>, or <code>null</code>.
+     */
+    @Nullable
+    private static ByteBuffer cachedEncoded(MessageReader message) {
+        if (message instanceof ImmutableMessageImpl) {
+            return ((ImmutableMessageImpl) message).cachedEncoded(INSTANCE);
+        }
+
+        return null;
+    }
+
+    @Override
+    public ImmutableMessage decode(ByteBuffer buffer) throws MalformedMessageException {
+        Objects.requireNonNull(buffer);
+
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new MalformedMessageException("Encoded message is truncated.", e);
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    /**
+     * Fields are decoded on first access, see {@link BinaryFieldStore}.
+     */
+    @Override
+    public ImmutableMessage view(ByteBuffer buffer) throws MalformedMessageException {
+        Objects.requireNonNull(buffer);
+
+        return new ImmutableMessageImpl(new BinaryFieldStore(buffer));
+    }
+
+    private static ImmutableMessage read(ByteBuffer buffer) {
+        int fieldCount = readLength(buffer);
+
+        SlotFieldStore store = new SlotFieldStore(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            FieldType type = readType(buffer);
+            String name = readString(buffer);
+
+            if (Field.isPrimitive(type)) {
+                store.putBits(name, type, readBits(buffer, type));
+            } else {
+                store.putRef(name, type, readRef(buffer, type));
+            }
+        }
+
+        return new ImmutableMessageImpl(store);
+    }
+
+    /**
+     * @param buffer
+     *            big endian buffer
+     * @param type
+     *            primitive type
+     * @return value encoded as {@link Field#bits()}
+     */
+    static long readBits(ByteBuffer buffer, FieldType type) {
+        switch (type) {
+        case BOOLEAN:
+            return buffer.get() != 0 ? 1L : 0L;
+        case BYTE:
+            return buffer.get();
+        case CHAR:
+            return buffer.getChar();
+        case SHORT:
+            return buffer.getShort();
+        case INT:
+        case FLOAT:
+            return buffer.getInt();
+        case LONG:
+        case DOUBLE:
+            return buffer.getLong();
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    private static Object readRef(ByteBuffer buffer, FieldType type) {
+        switch (type) {
+        case STRING:
+            return readString(buffer);
+        case MESSAGE:
+            return readMessage(buffer);
+        case MESSAGE_LIST:
+            int count = readLength(buffer);
+            ImmutableList.Builder<ImmutableMessage> builder = ImmutableList.builder();
+            for (int i = 0; i < count; i++) {
+                builder.add(readMessage(buffer));
+            }
+            return builder.build();
+        case INT_ARRAY:
+            IntBuffer ints = (IntBuffer) readArray(buffer, type);
+            int[] intValues = new int[ints.remaining()];
+            ints.get(intValues);
+            return IntBuffer.wrap(intValues).asReadOnlyBuffer();
+        case LONG_ARRAY:
+            LongBuffer longs = (LongBuffer) readArray(buffer, type);
+            long[] longValues = new long[longs.remaining()];
+            longs.get(longValues);
+            return LongBuffer.wrap(longValues).asReadOnlyBuffer();
+        case DOUBLE_ARRAY:
+            DoubleBuffer doubles = (DoubleBuffer) readArray(buffer, type);
+            double[] doubleValues = new double[doubles.remaining()];
+            doubles.get(doubleValues);
+            return DoubleBuffer.wrap(doubleValues).asReadOnlyBuffer();
+        case BYTES:
+            ByteBuffer bytes = readBytes(buffer);
+            ByteBuffer copy = ByteBuffer.allocate(bytes.remaining());
+            copy.put(bytes);
+            copy.flip();
+            return copy.asReadOnlyBuffer();
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    /**
+     * @param buffer
+     *            big endian buffer, positioned at an array, and will be moved over it.
+     * @param type
+     *            array type
+     * @return read only buffer over elements in <code>buffer</code>, which is not copied.
+     */
+    static Object readArray(ByteBuffer buffer, FieldType type) {
+        int elementSize = elementSize(type);
+        int count = readVarint(buffer);
+        if (count > buffer.remaining() / elementSize) {
+            throw new MalformedMessageException("Encoded message is truncated.");
+        }
+
+        ByteBuffer elements = buffer.slice().asReadOnlyBuffer();
+        elements.limit(count * elementSize);
+        skip(buffer, count * elementSize);
+
+        switch (type) {
+        case INT_ARRAY:
+            return elements.asIntBuffer();
+        case LONG_ARRAY:
+            return elements.asLongBuffer();
+        default:
+            return elements.asDoubleBuffer();
+        }
+    }
+
+    /**
+     * @param buffer
+     *            buffer positioned at bytes prefixed by length, and will be moved over them.
+     * @return read only buffer over the bytes in <code>buffer</code>, which are not copied.
+     */
+    static ByteBuffer readBytes(ByteBuffer buffer) {
+        int length = readLength(buffer);
+
+        ByteBuffer bytes = buffer.slice().asReadOnlyBuffer();
+        bytes.limit(length);
+        skip(buffer, length);
+
+        return bytes;
+    }
+
+    private static int elementSize(FieldType type) {
+        switch (type) {
+        case INT_ARRAY:
+            return 4;
+        case LONG_ARRAY:
+        case DOUBLE_ARRAY:
+            return 8;
+        default:
+            throw new IllegalArgumentException("Not an array type: " + type);
+        }
+    }
+
+    private static ImmutableMessage readMessage(ByteBuffer buffer) {
+        int length = readLength(buffer);
+        int end = buffer.position() + length;
+
+        ImmutableMessage message = read(buffer);
+        if (buffer.position() != end) {
+            throw new MalformedMessageException("Nested message length mismatch.");
+        }
+
+        return message;
+    }
+
+    /**
+     * @param buffer
+     * @return type of next field
+     * 
+     * @throws MalformedMessageException
+     *             if type tag not recognized.
+     */
+    static FieldType readType(ByteBuffer buffer) throws MalformedMessageException {
+        int tag = buffer.get() & 0xFF;
+        if (tag >= FIELD_TYPES.length) {
+            throw new MalformedMessageException("Unrecognized type tag: " + tag);
+        }
+
+        return FIELD_TYPES[tag];
+    }
+
+    /**
+     * Moves position of <code>buffer</code> over next value of <code>type</code>.
+     * 
+     * @param buffer
+     *            big endian buffer
+     * @param type
+     *            type of value
+     */
+    static void skipValue(ByteBuffer buffer, FieldType type) {
+        switch (type) {
+        case STRING:
+        case MESSAGE:
+        case BYTES:
+            skip(buffer, readLength(buffer));
+            break;
+        case MESSAGE_LIST:
+            int count = readLength(buffer);
+            for (int i = 0; i < count; i++) {
+                skip(buffer, readLength(buffer));
+            }
+            break;
+        case INT_ARRAY:
+        case LONG_ARRAY:
+        case DOUBLE_ARRAY:
+            readArray(buffer, type);
+            break;
+        default:
+            skip(buffer, primitiveSize(type));
+            break;
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        if (length > buffer.remaining()) {
+            throw new MalformedMessageException("Encoded message is truncated.");
+        }
+
+        buffer.position(buffer.position() + length);
+    }
+
+    private static int primitiveSize(FieldType type) {
+        switch (type) {
+        case BOOLEAN:
+        case BYTE:
+            return 1;
+        case CHAR:
+        case SHORT:
+            return 2;
+        case INT:
+        case FLOAT:
+            return 4;
+        case LONG:
+        case DOUBLE:
+            return 8;
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    /**
+     * @param buffer
+     * @return next varint, as length or count, which cannot be greater than remaining bytes of
+     *         <code>buffer</code>.
+     */
+    static int readLength(ByteBuffer buffer) {
+        int length = readVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new MalformedMessageException("Encoded message is truncated.");
+        }
+
+        return length;
+    }
+
+    /**
+     * @param buffer
+     * @return next varint
+     * 
+     * @throws MalformedMessageException
+     *             if varint is not a non-negative <code>int</code>.
+     */
+    static int readVarint(ByteBuffer buffer) throws MalformedMessageException {
+        int value = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        // Only 3 bits left for a non-negative int.
+        byte b = buffer.get();
+        if ((b & 0xF8) != 0) {
+            throw new MalformedMessageException("Varint out of range.");
+        }
+
+        return value | (b << 28);
+    }
+
+    static void writeVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+
+        return size;
+    }
+
+    /**
+     * @param buffer
+     * @return next string, prefixed by length.
+     */
+    static String readString(ByteBuffer buffer) {
+        int length = readLength(buffer);
+
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            skip(buffer, length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return value;
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        writeVarint(buffer, utf8Length(value));
+
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >>> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (!Character.isSurrogate(c)) {
+                buffer.put((byte) (0xE0 | (c >>> 12)));
+                buffer.put((byte) (0x80 | ((c >>> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (isSurrogatePair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >>> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >>> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                // Same as String.getBytes(UTF_8) for malformed surrogate.
+                buffer.put((byte) '?');
+            }
+        }
+    }
+
+    private static int stringSize(String value) {
+        int utf8Length = utf8Length(value);
+        return varintSize(utf8Length) + utf8Length;
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int utf8Length = length;
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+
+            if (c < 0x800) {
+                utf8Length += 1;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            } else if (isSurrogatePair(value, i)) {
+                utf8Length += 2;
+                i++;
+            }
+        }
+
+        return utf8Length;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index)) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    private static int messageSize(MessageReader message) {
+        int size = INSTANCE.encodedSize(message);
+        return varintSize(size) + size;
+    }
+
+    private static final class SizeVisitor implements MessageVisitor {
+        private final boolean recording;
+        private int size;
+
+        /**
+         * When recording, encoded sizes of nested messages in order of encoding, and their
+         * encoded bytes if already kept, so they are not sized again by each outer level.
+         */
+        private int[] nestedSizes;
+        private ByteBuffer[] nestedEncoded;
+        private int nestedCount;
+
+        SizeVisitor() {
+            this(false);
+        }
+
+        SizeVisitor(boolean recording) {
+            this.recording = recording;
+            if (recording) {
+                this.nestedSizes = new int[8];
+                this.nestedEncoded = new ByteBuffer[8];
+            }
+        }
+
+        /**
+         * @return encoded size of <code>message</code>; size of outer message being visited is
+         *         kept.
+         */
+        int sizeOf(MessageReader message) {
+            int outer = size;
+            size = 0;
+            try {
+                message.accept(this);
+                return varintSize(message.size()) + size;
+            } finally {
+                size = outer;
+            }
+        }
+
+        /**
+         * Clears nested messages recorded, and records <code>message</code> and messages nested
+         * in it.
+         */
+        void record(ImmutableMessage message) {
+            Arrays.fill(nestedEncoded, 0, nestedCount, null);
+            nestedCount = 0;
+
+            nestedSize(message);
+        }
+
+        int nestedSize(int index) {
+            return nestedSizes[index];
+        }
+
+        @Nullable
+        ByteBuffer nestedEncoded(int index) {
+            return nestedEncoded[index];
+        }
+
+        /**
+         * @return encoded size of <code>message</code>, prefixed by its length; recorded with
+         *         its nested messages if recording.
+         */
+        private int nestedSize(ImmutableMessage message) {
+            if (!recording) {
+                return messageSize(message);
+            }
+
+            int index = nestedCount++;
+            if (index == nestedSizes.length) {
+                nestedSizes = Arrays.copyOf(nestedSizes, index * 2);
+                nestedEncoded = Arrays.copyOf(nestedEncoded, index * 2);
+            }
+
+            ByteBuffer cached = cachedEncoded(message);
+            int messageSize = cached != null ? cached.remaining() : sizeOf(message);
+            nestedSizes[index] = messageSize;
+            nestedEncoded[index] = cached;
+
+            return varintSize(messageSize) + messageSize;
+        }
+
+        private void field(String fieldName, int valueSize) {
+            size += 1 + stringSize(fieldName) + valueSize;
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, boolean value) {
+            field(fieldName, 1);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, byte value) {
+            field(fieldName, 1);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, char value) {
+            field(fieldName, 2);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, short value) {
+            field(fieldName, 2);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, int value) {
+            field(fieldName, 4);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, long value) {
+            field(fieldName, 8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, float value) {
+            field(fieldName, 4);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, double value) {
+            field(fieldName, 8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, String value) {
+            field(fieldName, stringSize(value));
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, ImmutableMessage value) {
+            field(fieldName, nestedSize(value));
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, List<ImmutableMessage> value) {
+            int valueSize = varintSize(value.size());
+            for (ImmutableMessage message : value) {
+                valueSize += nestedSize(message);
+            }
+
+            field(fieldName, valueSize);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, IntBuffer value) {
+            field(fieldName, varintSize(value.remaining()) + value.remaining() * 4);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, LongBuffer value) {
+            field(fieldName, varintSize(value.remaining()) + value.remaining() * 8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, DoubleBuffer value) {
+            field(fieldName, varintSize(value.remaining()) + value.remaining() * 8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, ByteBuffer value) {
+            field(fieldName, varintSize(value.remaining()) + value.remaining());
+        }
+    }
+
+    private static final class EncodeVisitor implements MessageVisitor {
+        private final ByteBuffer buffer;
+
+        /**
+         * Sizes of nested messages, recorded for each one of top level, which is at
+         * <code>depth</code> <code>0</code>.
+         */
+        @Nullable
+        private SizeVisitor sizes;
+        private int nextNested;
+        private int depth;
+
+        EncodeVisitor(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void header(String fieldName, FieldType fieldType) {
+            buffer.put((byte) fieldType.ordinal());
+            writeString(buffer, fieldName);
+        }
+
+        private void message(ImmutableMessage message) {
+            SizeVisitor sizes = this.sizes;
+            if (depth == 0) {
+                if (sizes == null) {
+                    sizes = new SizeVisitor(true);
+                    this.sizes = sizes;
+                }
+
+                sizes.record(message);
+                nextNested = 0;
+            }
+
+            int index = nextNested++;
+            writeVarint(buffer, sizes.nestedSize(index));
+
+            ByteBuffer cached = sizes.nestedEncoded(index);
+            if (cached != null) {
+                buffer.put(cached);
+                return;
+            }
+
+            depth++;
+            try {
+                writeVarint(buffer, message.size());
+                message.accept(this);
+            } finally {
+                depth--;
+            }
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, boolean value) {
+            header(fieldName, fieldType);
+            buffer.put(value ? (byte) 1 : (byte) 0);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, byte value) {
+            header(fieldName, fieldType);
+            buffer.put(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, char value) {
+            header(fieldName, fieldType);
+            buffer.putChar(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, short value) {
+            header(fieldName, fieldType);
+            buffer.putShort(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, int value) {
+            header(fieldName, fieldType);
+            buffer.putInt(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, long value) {
+            header(fieldName, fieldType);
+            buffer.putLong(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, float value) {
+            header(fieldName, fieldType);
+            buffer.putFloat(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, double value) {
+            header(fieldName, fieldType);
+            buffer.putDouble(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, String value) {
+            header(fieldName, fieldType);
+            writeString(buffer, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, ImmutableMessage value) {
+            header(fieldName, fieldType);
+            message(value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, List<ImmutableMessage> value) {
+            header(fieldName, fieldType);
+
+            writeVarint(buffer, value.size());
+            for (ImmutableMessage message : value) {
+                message(message);
+            }
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, IntBuffer value) {
+            header(fieldName, fieldType);
+
+            int count = value.remaining();
+            writeVarint(buffer, count);
+            buffer.asIntBuffer().put(value);
+            buffer.position(buffer.position() + count * 4);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, LongBuffer value) {
+            header(fieldName, fieldType);
+
+            int count = value.remaining();
+            writeVarint(buffer, count);
+            buffer.asLongBuffer().put(value);
+            buffer.position(buffer.position() + count * 8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, DoubleBuffer value) {
+            header(fieldName, fieldType);
+
+            int count = value.remaining();
+            writeVarint(buffer, count);
+            buffer.asDoubleBuffer().put(value);
+            buffer.position(buffer.position() + count * 8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, ByteBuffer value) {
+            header(fieldName, fieldType);
+
+            writeVarint(buffer, value.remaining());
+            buffer.put(value);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+/**
+ * Writes a range of bytes, e.g. to a stream or a transport message, without keeping the array.
+ * 
+ * @param <E>
+ *            exception thrown by writing
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface BytesWriter<E extends Exception> {
+    /**
+     * @param bytes
+     *            array of bytes, which should not be modified or kept
+     * @param offset
+     *            offset of first byte in <code>bytes</code>
+     * @param length
+     *            number of bytes
+     * @throws E
+     *             if failed to write
+     */
+    void write(byte[] bytes, int offset, int length) throws E;
+}
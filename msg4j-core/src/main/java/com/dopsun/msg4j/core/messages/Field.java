@@ -16,6 +16,10 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.List;
 import java.util.Objects;
 
@@ -24,8 +28,131 @@ import java.util.Objects;
  * @since 1.0.0
  */
 abstract class Field {
+    /**
+     * @param type
+     *            type of field, must be primitive.
+     * @param bits
+     *            value encoded by {@link #bits()}.
+     * @return a field wraps the value.
+     */
+    static Field ofBits(FieldType type, long bits) {
+        switch (type) {
+        case BOOLEAN:
+            return new BooleanField(bits != 0);
+        case BYTE:
+            return new ByteField((byte) bits);
+        case CHAR:
+            return new CharField((char) bits);
+        case SHORT:
+            return new ShortField((short) bits);
+        case INT:
+            return new IntField((int) bits);
+        case LONG:
+            return new LongField(bits);
+        case FLOAT:
+            return new FloatField(Float.intBitsToFloat((int) bits));
+        case DOUBLE:
+            return new DoubleField(Double.longBitsToDouble(bits));
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    /**
+     * @param type
+     *            type of field, must be non-primitive.
+     * @param ref
+     *            value of field.
+     * @return a field wraps the value.
+     */
+    @SuppressWarnings("unchecked")
+    static Field ofRef(FieldType type, Object ref) {
+        switch (type) {
+        case STRING:
+            return new StringField((String) ref);
+        case MESSAGE:
+            return new MessageField((ImmutableMessage) ref);
+        case MESSAGE_LIST:
+            return new MessageListField((List<ImmutableMessage>) ref);
+        case INT_ARRAY:
+            return new IntArrayField((IntBuffer) ref);
+        case LONG_ARRAY:
+            return new LongArrayField((LongBuffer) ref);
+        case DOUBLE_ARRAY:
+            return new DoubleArrayField((DoubleBuffer) ref);
+        case BYTES:
+            return new BytesField((ByteBuffer) ref);
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    /**
+     * @param type
+     *            type of field
+     * @return <code>true</code> if value of <code>type</code> is stored as bits.
+     */
+    static boolean isPrimitive(FieldType type) {
+        return type.ordinal() <= FieldType.DOUBLE.ordinal();
+    }
+
+    /**
+     * @param values
+     *            values to copy
+     * @return a read only buffer over a copy of <code>values</code>.
+     */
+    static IntBuffer readOnlyCopy(int[] values) {
+        return IntBuffer.wrap(values.clone()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param values
+     *            values to copy
+     * @return a read only buffer over a copy of <code>values</code>.
+     */
+    static LongBuffer readOnlyCopy(long[] values) {
+        return LongBuffer.wrap(values.clone()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param values
+     *            values to copy
+     * @return a read only buffer over a copy of <code>values</code>.
+     */
+    static DoubleBuffer readOnlyCopy(double[] values) {
+        return DoubleBuffer.wrap(values.clone()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param value
+     *            bytes to share
+     * @return a read only buffer over remaining bytes of <code>value</code>, which are shared, not
+     *         copied.
+     */
+    static ByteBuffer readOnlySlice(ByteBuffer value) {
+        return value.slice().asReadOnlyBuffer();
+    }
+
     public abstract FieldType type();
 
+    /**
+     * Primitive value encoded as <code>long</code>. Integral types are sign extended,
+     * <code>boolean</code> is <code>1</code> or <code>0</code>, and floating point types are
+     * encoded as raw bits.
+     * 
+     * @return value encoded as <code>long</code>.
+     */
+    long bits() {
+        throw new UnsupportedOperationException("Not a primitive field: " + type());
+    }
+
+    /**
+     * @return value of non-primitive field.
+     */
+    Object ref() {
+        throw new UnsupportedOperationException("Not a reference field: " + type());
+    }
+
     public static class BooleanField extends Field {
         private final boolean value;
 
@@ -41,6 +168,11 @@ abstract class Field {
         public boolean value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return value ? 1L : 0L;
+        }
     }
 
     public static class ByteField extends Field {
@@ -58,6 +190,11 @@ abstract class Field {
         public byte value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return value;
+        }
     }
 
     public static class CharField extends Field {
@@ -75,6 +212,11 @@ abstract class Field {
         public char value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return value;
+        }
     }
 
     public static class ShortField extends Field {
@@ -92,6 +234,11 @@ abstract class Field {
         public short value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return value;
+        }
     }
 
     public static class IntField extends Field {
@@ -109,6 +256,11 @@ abstract class Field {
         public int value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return value;
+        }
     }
 
     public static class LongField extends Field {
@@ -126,6 +278,11 @@ abstract class Field {
         public long value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return value;
+        }
     }
 
     public static class FloatField extends Field {
@@ -143,6 +300,11 @@ abstract class Field {
         public float value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return Float.floatToRawIntBits(value);
+        }
     }
 
     public static class DoubleField extends Field {
@@ -160,6 +322,11 @@ abstract class Field {
         public double value() {
             return value;
         }
+
+        @Override
+        long bits() {
+            return Double.doubleToRawLongBits(value);
+        }
     }
 
     public static class StringField extends Field {
@@ -179,6 +346,11 @@ abstract class Field {
         public String value() {
             return value;
         }
+
+        @Override
+        Object ref() {
+            return value;
+        }
     }
 
     public static class MessageField extends Field {
@@ -198,6 +370,11 @@ abstract class Field {
         public ImmutableMessage value() {
             return value;
         }
+
+        @Override
+        Object ref() {
+            return value;
+        }
     }
 
     public static class MessageListField extends Field {
@@ -217,6 +394,123 @@ abstract class Field {
         public List<ImmutableMessage> value() {
             return value;
         }
+
+        @Override
+        Object ref() {
+            return value;
+        }
+    }
+
+    public static class IntArrayField extends Field {
+        private final IntBuffer value;
+
+        /**
+         * @param value
+         *            read only buffer, from position <code>0</code> to limit.
+         */
+        public IntArrayField(IntBuffer value) {
+            Objects.requireNonNull(value);
+
+            this.value = value;
+        }
+
+        @Override
+        public FieldType type() {
+            return FieldType.INT_ARRAY;
+        }
+
+        public IntBuffer value() {
+            return value.duplicate();
+        }
+
+        @Override
+        Object ref() {
+            return value;
+        }
+    }
+
+    public static class LongArrayField extends Field {
+        private final LongBuffer value;
+
+        /**
+         * @param value
+         *            read only buffer, from position <code>0</code> to limit.
+         */
+        public LongArrayField(LongBuffer value) {
+            Objects.requireNonNull(value);
+
+            this.value = value;
+        }
+
+        @Override
+        public FieldType type() {
+            return FieldType.LONG_ARRAY;
+        }
+
+        public LongBuffer value() {
+            return value.duplicate();
+        }
+
+        @Override
+        Object ref() {
+            return value;
+        }
+    }
+
+    public static class DoubleArrayField extends Field {
+        private final DoubleBuffer value;
+
+        /**
+         * @param value
+         *            read only buffer, from position <code>0</code> to limit.
+         */
+        public DoubleArrayField(DoubleBuffer value) {
+            Objects.requireNonNull(value);
+
+            this.value = value;
+        }
+
+        @Override
+        public FieldType type() {
+            return FieldType.DOUBLE_ARRAY;
+        }
+
+        public DoubleBuffer value() {
+            return value.duplicate();
+        }
+
+        @Override
+        Object ref() {
+            return value;
+        }
+    }
+
+    public static class BytesField extends Field {
+        private final ByteBuffer value;
+
+        /**
+         * @param value
+         *            read only buffer, from position <code>0</code> to limit.
+         */
+        public BytesField(ByteBuffer value) {
+            Objects.requireNonNull(value);
+
+            this.value = value;
+        }
+
+        @Override
+        public FieldType type() {
+            return FieldType.BYTES;
+        }
+
+        public ByteBuffer value() {
+            return value.duplicate();
+        }
+
+        @Override
+        Object ref() {
+            return value;
+        }
     }
 
 }
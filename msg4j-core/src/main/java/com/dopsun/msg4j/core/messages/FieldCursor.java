@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Cursor over fields of a message, as an alternative to {@link MessageVisitor}.
+ * 
+ * <p>
+ * A cursor is owned by its caller, and can be {@link #reset(MessageReader) reset} to another
+ * message and reused, so iterating fields does not allocate per field or, in most cases, per
+ * message. Message should not be modified while a cursor is on it.
+ * </p>
+ * 
+ * <pre>
+ * FieldCursor cursor = Messages.cursor();
+ * cursor.reset(message);
+ * while (cursor.next()) {
+ *     if (cursor.type() == FieldType.INT) {
+ *         sum += cursor.intValue();
+ *     }
+ * }
+ * </pre>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@NotThreadSafe
+public interface FieldCursor {
+    /**
+     * Moves this cursor to before the first field of <code>message</code>.
+     * 
+     * @param message
+     *            message to iterate
+     */
+    void reset(MessageReader message);
+
+    /**
+     * Moves this cursor to next field.
+     * 
+     * @return <code>true</code> if moved to next field; <code>false</code> if no more fields.
+     */
+    boolean next();
+
+    /**
+     * @return name of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     */
+    String name() throws IllegalStateException;
+
+    /**
+     * @return type of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     */
+    FieldType type() throws IllegalStateException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    boolean booleanValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    byte byteValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    char charValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    short shortValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    int intValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    long longValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    float floatValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    double doubleValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    String stringValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    ImmutableMessage messageValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    List<ImmutableMessage> messageListValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field, as a read only buffer which is not shared with other
+     *         callers.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    IntBuffer intArrayValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field, as a read only buffer which is not shared with other
+     *         callers.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    LongBuffer longArrayValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field, as a read only buffer which is not shared with other
+     *         callers.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    DoubleBuffer doubleArrayValue() throws IllegalStateException, InvalidTypeException;
+
+    /**
+     * @return value of current field, as a read only buffer which is not shared with other
+     *         callers.
+     * 
+     * @throws IllegalStateException
+     *             if cursor is not on a field.
+     * @throws InvalidTypeException
+     *             if current field is not expected type.
+     */
+    ByteBuffer bytesValue() throws IllegalStateException, InvalidTypeException;
+}
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * Cursor advanced by {@link FieldStore#advance(FieldCursorImpl)} of store of current message.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class FieldCursorImpl implements FieldCursor {
+    @Nullable
+    private FieldStore store;
+
+    /**
+     * Position in store, which is maintained by store.
+     */
+    int position;
+
+    /**
+     * Iteration state of store, which is maintained by store, and may be reused after reset.
+     */
+    @Nullable
+    Object state;
+
+    @Nullable
+    private String name;
+
+    /**
+     * Type of current field, <code>null</code> if cursor is not on a field.
+     */
+    @Nullable
+    private FieldType type;
+    private long bits;
+
+    @Nullable
+    private Object ref;
+
+    @Override
+    public void reset(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        reset(storeOf(message));
+    }
+
+    /**
+     * @param store
+     *            store to iterate
+     */
+    void reset(FieldStore store) {
+        this.store = store;
+        this.position = 0;
+        clearCurrent();
+    }
+
+    /**
+     * @param message
+     * @return store of <code>message</code>, or a copy of its fields if it is not backed by a
+     *         store.
+     */
+    static FieldStore storeOf(MessageReader message) {
+        if (message instanceof AbstractMessageReader) {
+            return ((AbstractMessageReader) message).store();
+        }
+
+        return copyOf(message);
+    }
+
+    private static FieldStore copyOf(MessageReader message) {
+        SlotFieldStore store = new SlotFieldStore(message.size());
+        message.accept(new MessageVisitor() {
+            @Override
+            public void visit(String fieldName, FieldType fieldType, boolean value) {
+                store.putBits(fieldName, fieldType, value ? 1L : 0L);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, byte value) {
+                store.putBits(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, char value) {
+                store.putBits(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, short value) {
+                store.putBits(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, int value) {
+                store.putBits(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, long value) {
+                store.putBits(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, float value) {
+                store.putBits(fieldName, fieldType, Float.floatToRawIntBits(value));
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, double value) {
+                store.putBits(fieldName, fieldType, Double.doubleToRawLongBits(value));
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, String value) {
+                store.putRef(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, ImmutableMessage value) {
+                store.putRef(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, List<ImmutableMessage> value) {
+                store.putRef(fieldName, fieldType, value);
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, IntBuffer value) {
+                store.putRef(fieldName, fieldType, value.asReadOnlyBuffer().slice());
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, LongBuffer value) {
+                store.putRef(fieldName, fieldType, value.asReadOnlyBuffer().slice());
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, DoubleBuffer value) {
+                store.putRef(fieldName, fieldType, value.asReadOnlyBuffer().slice());
+            }
+
+            @Override
+            public void visit(String fieldName, FieldType fieldType, ByteBuffer value) {
+                store.putRef(fieldName, fieldType, Field.readOnlySlice(value));
+            }
+        });
+
+        return store;
+    }
+
+    private void clearCurrent() {
+        this.name = null;
+        this.type = null;
+        this.bits = 0L;
+        this.ref = null;
+    }
+
+    /**
+     * Sets current field, called by store.
+     * 
+     * @param name
+     * @param type
+     * @param bits
+     *            value if <code>type</code> is primitive
+     * @param ref
+     *            value if <code>type</code> is not primitive
+     */
+    void set(String name, FieldType type, long bits, @Nullable Object ref) {
+        this.name = name;
+        this.type = type;
+        this.bits = bits;
+        this.ref = ref;
+    }
+
+    /**
+     * Sets current field, called by store.
+     * 
+     * @param name
+     * @param field
+     */
+    void set(String name, Field field) {
+        FieldType fieldType = field.type();
+
+        if (Field.isPrimitive(fieldType)) {
+            set(name, fieldType, field.bits(), null);
+        } else {
+            set(name, fieldType, 0L, field.ref());
+        }
+    }
+
+    /**
+     * @return value of current field if its type is primitive.
+     */
+    long bits() {
+        return bits;
+    }
+
+    /**
+     * @return value of current field if its type is not primitive.
+     */
+    @Nullable
+    Object ref() {
+        return ref;
+    }
+
+    @Override
+    public boolean next() {
+        FieldStore current = store;
+        if (current == null) {
+            return false;
+        }
+
+        if (current.advance(this)) {
+            return true;
+        }
+
+        clearCurrent();
+        return false;
+    }
+
+    @Override
+    public String name() {
+        checkOnField();
+        return name;
+    }
+
+    @Override
+    public FieldType type() {
+        checkOnField();
+        return type;
+    }
+
+    private void checkOnField() {
+        if (type == null) {
+            throw new IllegalStateException("Cursor is not on a field.");
+        }
+    }
+
+    private void checkType(FieldType expected) {
+        checkOnField();
+
+        if (type != expected) {
+            throw new InvalidTypeException(name, expected, type);
+        }
+    }
+
+    @Override
+    public boolean booleanValue() {
+        checkType(FieldType.BOOLEAN);
+        return bits != 0;
+    }
+
+    @Override
+    public byte byteValue() {
+        checkType(FieldType.BYTE);
+        return (byte) bits;
+    }
+
+    @Override
+    public char charValue() {
+        checkType(FieldType.CHAR);
+        return (char) bits;
+    }
+
+    @Override
+    public short shortValue() {
+        checkType(FieldType.SHORT);
+        return (short) bits;
+    }
+
+    @Override
+    public int intValue() {
+        checkType(FieldType.INT);
+        return (int) bits;
+    }
+
+    @Override
+    public long longValue() {
+        checkType(FieldType.LONG);
+        return bits;
+    }
+
+    @Override
+    public float floatValue() {
+        checkType(FieldType.FLOAT);
+        return Float.intBitsToFloat((int) bits);
+    }
+
+    @Override
+    public double doubleValue() {
+        checkType(FieldType.DOUBLE);
+        return Double.longBitsToDouble(bits);
+    }
+
+    @Override
+    public String stringValue() {
+        checkType(FieldType.STRING);
+        return (String) ref;
+    }
+
+    @Override
+    public ImmutableMessage messageValue() {
+        checkType(FieldType.MESSAGE);
+        return (ImmutableMessage) ref;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<ImmutableMessage> messageListValue() {
+        checkType(FieldType.MESSAGE_LIST);
+        return (List<ImmutableMessage>) ref;
+    }
+
+    @Override
+    public IntBuffer intArrayValue() {
+        checkType(FieldType.INT_ARRAY);
+        return ((IntBuffer) ref).duplicate();
+    }
+
+    @Override
+    public LongBuffer longArrayValue() {
+        checkType(FieldType.LONG_ARRAY);
+        return ((LongBuffer) ref).duplicate();
+    }
+
+    @Override
+    public DoubleBuffer doubleArrayValue() {
+        checkType(FieldType.DOUBLE_ARRAY);
+        return ((DoubleBuffer) ref).duplicate();
+    }
+
+    @Override
+    public ByteBuffer bytesValue() {
+        checkType(FieldType.BYTES);
+        return ((ByteBuffer) ref).duplicate();
+    }
+}
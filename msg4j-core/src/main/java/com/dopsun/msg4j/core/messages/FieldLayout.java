@@ -0,0 +1,601 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Fixed set of field names, each of which is assigned a dense slot.
+ * 
+ * <p>
+ * Messages created by {@link Messages#create(FieldLayout)} keep fields of this layout in arrays
+ * indexed by slot, so accessing them by slot with methods of this layout does not hash or compare
+ * field names. Other messages are accessed by {@link #fieldName(int)}, so these methods work with
+ * any message.
+ * </p>
+ * 
+ * <p>
+ * Values of primitive types are accessed as <code>long</code> bits: {@link FieldType#BOOLEAN} as
+ * <code>0</code> or <code>1</code>, {@link FieldType#CHAR} zero extended, other integral types
+ * sign extended, {@link FieldType#FLOAT} as {@link Float#floatToRawIntBits(float)} sign extended
+ * and {@link FieldType#DOUBLE} as {@link Double#doubleToRawLongBits(double)}. Values of other
+ * types are accessed as references, of same classes as methods of {@link MessageReader} and
+ * {@link MessageWriter}. Typed access is by field infos of a data dictionary.
+ * </p>
+ * 
+ * <p>
+ * Messages still accept fields not in this layout, which are accessed by name as usual.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@Immutable
+public final class FieldLayout {
+    /**
+     * Bits returned by {@link #tryGetBits(MessageReader, int, FieldType, long)} as default value
+     * to tell whether field exists, which is out of range of all primitive types except
+     * {@link FieldType#LONG} and {@link FieldType#DOUBLE}, where
+     * {@link #contains(MessageReader, int)} tells.
+     */
+    public static final long ABSENT_BITS = FieldStore.ABSENT_BITS;
+
+    /**
+     * Width of bits of primitive types, by ordinal of {@link FieldType}.
+     */
+    private static final int[] WIDTHS = { 1, 8, 16, 16, 32, 64, 32, 64 };
+
+    /**
+     * @param fieldNames
+     *            field names, slots are assigned by iteration order.
+     * @return layout of fields
+     * 
+     * @throws IllegalArgumentException
+     *             if there are duplicated names.
+     */
+    public static FieldLayout of(Collection<String> fieldNames) {
+        Objects.requireNonNull(fieldNames);
+
+        return new FieldLayout(fieldNames);
+    }
+
+    /**
+     * Shared, so it will never be modified.
+     */
+    private final FieldNameTable nameTable;
+
+    private FieldLayout(Collection<String> fieldNames) {
+        FieldNameTable nameTable = new FieldNameTable(fieldNames.size());
+        for (String fieldName : fieldNames) {
+            if (nameTable.indexOf(Objects.requireNonNull(fieldName)) >= 0) {
+                throw new IllegalArgumentException("Duplicated field name: " + fieldName);
+            }
+
+            nameTable.add(fieldName);
+        }
+
+        nameTable.share();
+
+        this.nameTable = nameTable;
+    }
+
+    FieldNameTable nameTable() {
+        return nameTable;
+    }
+
+    /**
+     * @return number of fields.
+     */
+    public int size() {
+        return nameTable.size();
+    }
+
+    /**
+     * @param slot
+     *            slot of field
+     * @return name of field
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if <code>slot</code> is not in this layout.
+     */
+    public String fieldName(int slot) {
+        checkSlot(slot);
+
+        return nameTable.name(slot);
+    }
+
+    /**
+     * @param fieldName
+     *            field name
+     * @return slot of field, or <code>-1</code> if field not in this layout.
+     */
+    public int slotOf(String fieldName) {
+        Objects.requireNonNull(fieldName);
+
+        return nameTable.indexOf(fieldName);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= nameTable.size()) {
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", size: " + nameTable.size());
+        }
+    }
+
+    /**
+     * @return store of <code>message</code>, or <code>null</code> if it is not implemented by
+     *         this package.
+     */
+    @Nullable
+    private static FieldStore storeOf(MessageReader message) {
+        if (message instanceof AbstractMessageReader) {
+            return ((AbstractMessageReader) message).store();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return store of <code>message</code> if it is writable and implemented by this package,
+     *         otherwise <code>null</code>.
+     */
+    @Nullable
+    private static FieldStore writableStoreOf(MessageWriter message) {
+        if (message instanceof WritableMessageImpl) {
+            return ((WritableMessageImpl) message).store();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return <code>store</code> if it is created with this layout, otherwise <code>null</code>.
+     */
+    @Nullable
+    private SlotFieldStore slotted(@Nullable FieldStore store) {
+        if (store instanceof SlotFieldStore && ((SlotFieldStore) store).layout() == this) {
+            return (SlotFieldStore) store;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param message
+     *            message to read
+     * @param slot
+     *            slot of field
+     * @return <code>true</code> if field exists.
+     * 
+     * @see MessageReader#contains(String)
+     */
+    public boolean contains(MessageReader message, int slot) {
+        Objects.requireNonNull(message);
+        checkSlot(slot);
+
+        SlotFieldStore slotted = slotted(storeOf(message));
+        if (slotted != null) {
+            return slotted.contains(slot);
+        }
+
+        return message.contains(nameTable.name(slot));
+    }
+
+    /**
+     * @param message
+     *            message to read
+     * @param slot
+     *            slot of field
+     * @param type
+     *            primitive type of field
+     * @return bits of value of field
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     * @throws IllegalArgumentException
+     *             if <code>type</code> is not primitive.
+     */
+    public long getBits(MessageReader message, int slot, FieldType type)
+            throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(message);
+        checkSlot(slot);
+        checkPrimitive(type);
+
+        FieldStore store = storeOf(message);
+        SlotFieldStore slotted = slotted(store);
+        if (slotted != null) {
+            return slotted.getBits(slot, type);
+        }
+
+        String name = nameTable.name(slot);
+        return store != null ? store.getBits(name, type) : bitsOf(message, name, type);
+    }
+
+    /**
+     * @param message
+     *            message to read
+     * @param slot
+     *            slot of field
+     * @param type
+     *            primitive type of field
+     * @param defaultBits
+     *            bits returned if field not exist, such as {@link #ABSENT_BITS}
+     * @return bits of value of field if exist, otherwise <code>defaultBits</code>.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     * @throws IllegalArgumentException
+     *             if <code>type</code> is not primitive.
+     */
+    public long tryGetBits(MessageReader message, int slot, FieldType type, long defaultBits)
+            throws InvalidTypeException {
+        Objects.requireNonNull(message);
+        checkSlot(slot);
+        checkPrimitive(type);
+
+        FieldStore store = storeOf(message);
+        SlotFieldStore slotted = slotted(store);
+        if (slotted != null) {
+            return slotted.tryGetBits(slot, type, defaultBits);
+        }
+
+        String name = nameTable.name(slot);
+        if (store != null) {
+            return store.tryGetBits(name, type, defaultBits);
+        }
+
+        return message.contains(name) ? bitsOf(message, name, type) : defaultBits;
+    }
+
+    /**
+     * @param message
+     *            message to read
+     * @param slot
+     *            slot of field
+     * @param type
+     *            reference type of field
+     * @return value of field; buffers are not shared with other callers.
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     * @throws IllegalArgumentException
+     *             if <code>type</code> is primitive.
+     */
+    public Object getRef(MessageReader message, int slot, FieldType type)
+            throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(message);
+        checkSlot(slot);
+        checkReference(type);
+
+        FieldStore store = storeOf(message);
+        SlotFieldStore slotted = slotted(store);
+        if (slotted != null) {
+            return readable(type, slotted.getRef(slot, type));
+        }
+
+        String name = nameTable.name(slot);
+        if (store != null) {
+            return readable(type, store.getRef(name, type));
+        }
+
+        return refOf(message, name, type);
+    }
+
+    /**
+     * @param message
+     *            message to read
+     * @param slot
+     *            slot of field
+     * @param type
+     *            reference type of field
+     * @return value of field if exist, otherwise <code>null</code>; buffers are not shared with
+     *         other callers.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     * @throws IllegalArgumentException
+     *             if <code>type</code> is primitive.
+     */
+    @Nullable
+    public Object tryGetRef(MessageReader message, int slot, FieldType type)
+            throws InvalidTypeException {
+        Objects.requireNonNull(message);
+        checkSlot(slot);
+        checkReference(type);
+
+        FieldStore store = storeOf(message);
+        SlotFieldStore slotted = slotted(store);
+        if (slotted != null) {
+            return readable(type, slotted.tryGetRef(slot, type));
+        }
+
+        String name = nameTable.name(slot);
+        if (store != null) {
+            return readable(type, store.tryGetRef(name, type));
+        }
+
+        return message.contains(name) ? refOf(message, name, type) : null;
+    }
+
+    /**
+     * @param message
+     *            message to write
+     * @param slot
+     *            slot of field
+     * @param type
+     *            primitive type of field
+     * @param bits
+     *            bits of value of field
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     * @throws IllegalArgumentException
+     *             if <code>type</code> is not primitive, or <code>bits</code> out of its range.
+     */
+    public void putBits(MessageWriter message, int slot, FieldType type, long bits)
+            throws InvalidTypeException {
+        Objects.requireNonNull(message);
+        checkSlot(slot);
+        checkBits(type, bits);
+
+        FieldStore store = writableStoreOf(message);
+        SlotFieldStore slotted = slotted(store);
+        if (slotted != null) {
+            slotted.putBits(slot, type, bits);
+            return;
+        }
+
+        String name = nameTable.name(slot);
+        if (store != null) {
+            store.putBits(name, type, bits);
+            return;
+        }
+
+        putBitsOf(message, name, type, bits);
+    }
+
+    /**
+     * @param message
+     *            message to write
+     * @param slot
+     *            slot of field
+     * @param type
+     *            reference type of field
+     * @param value
+     *            value of field, of same class as methods of {@link MessageWriter}, such as
+     *            <code>int[]</code> for {@link FieldType#INT_ARRAY}; copied the same way.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     * @throws IllegalArgumentException
+     *             if <code>type</code> is primitive.
+     * @throws ClassCastException
+     *             if <code>value</code> is not of <code>type</code>.
+     */
+    public void putRef(MessageWriter message, int slot, FieldType type, Object value)
+            throws InvalidTypeException {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(value);
+        checkSlot(slot);
+        checkReference(type);
+
+        FieldStore store = writableStoreOf(message);
+        SlotFieldStore slotted = slotted(store);
+        if (slotted != null) {
+            slotted.putRef(slot, type, kept(type, value));
+            return;
+        }
+
+        String name = nameTable.name(slot);
+        if (store != null) {
+            store.putRef(name, type, kept(type, value));
+            return;
+        }
+
+        putRefOf(message, name, type, value);
+    }
+
+    private static void checkPrimitive(FieldType type) {
+        if (!Field.isPrimitive(type)) {
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    private static void checkReference(FieldType type) {
+        if (Field.isPrimitive(type)) {
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    private static void checkBits(FieldType type, long bits) {
+        checkPrimitive(type);
+
+        int shift = Long.SIZE - WIDTHS[type.ordinal()];
+        boolean unsigned = type == FieldType.BOOLEAN || type == FieldType.CHAR;
+        long narrowed = unsigned ? (bits << shift) >>> shift : (bits << shift) >> shift;
+        if (narrowed != bits) {
+            throw new IllegalArgumentException("Bits out of range of " + type + ": " + bits);
+        }
+    }
+
+    /**
+     * @return <code>ref</code> kept by a store, with buffers duplicated, so they are not shared.
+     */
+    @Nullable
+    private static Object readable(FieldType type, @Nullable Object ref) {
+        if (ref == null) {
+            return null;
+        }
+
+        switch (type) {
+        case INT_ARRAY:
+            return ((IntBuffer) ref).duplicate();
+        case LONG_ARRAY:
+            return ((LongBuffer) ref).duplicate();
+        case DOUBLE_ARRAY:
+            return ((DoubleBuffer) ref).duplicate();
+        case BYTES:
+            return ((ByteBuffer) ref).duplicate();
+        default:
+            return ref;
+        }
+    }
+
+    /**
+     * @return <code>value</code> as kept by a store, copied same as {@link WritableMessageImpl}.
+     */
+    private static Object kept(FieldType type, Object value) {
+        switch (type) {
+        case STRING:
+            return (String) value;
+        case MESSAGE:
+            return (ImmutableMessage) value;
+        case MESSAGE_LIST:
+            return ImmutableList.copyOf((List<?>) value);
+        case INT_ARRAY:
+            return Field.readOnlyCopy((int[]) value);
+        case LONG_ARRAY:
+            return Field.readOnlyCopy((long[]) value);
+        case DOUBLE_ARRAY:
+            return Field.readOnlyCopy((double[]) value);
+        case BYTES:
+            return Field.readOnlySlice((ByteBuffer) value);
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    private static long bitsOf(MessageReader message, String name, FieldType type) {
+        switch (type) {
+        case BOOLEAN:
+            return message.getBoolean(name) ? 1L : 0L;
+        case BYTE:
+            return message.getByte(name);
+        case CHAR:
+            return message.getChar(name);
+        case SHORT:
+            return message.getShort(name);
+        case INT:
+            return message.getInt(name);
+        case LONG:
+            return message.getLong(name);
+        case FLOAT:
+            return Float.floatToRawIntBits(message.getFloat(name));
+        case DOUBLE:
+            return Double.doubleToRawLongBits(message.getDouble(name));
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    private static Object refOf(MessageReader message, String name, FieldType type) {
+        switch (type) {
+        case STRING:
+            return message.getString(name);
+        case MESSAGE:
+            return message.getMessage(name);
+        case MESSAGE_LIST:
+            return message.getMessageList(name);
+        case INT_ARRAY:
+            return message.getIntArray(name);
+        case LONG_ARRAY:
+            return message.getLongArray(name);
+        case DOUBLE_ARRAY:
+            return message.getDoubleArray(name);
+        case BYTES:
+            return message.getBytes(name);
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    private static void putBitsOf(MessageWriter message, String name, FieldType type, long bits) {
+        switch (type) {
+        case BOOLEAN:
+            message.putBoolean(name, bits != 0);
+            break;
+        case BYTE:
+            message.putByte(name, (byte) bits);
+            break;
+        case CHAR:
+            message.putChar(name, (char) bits);
+            break;
+        case SHORT:
+            message.putShort(name, (short) bits);
+            break;
+        case INT:
+            message.putInt(name, (int) bits);
+            break;
+        case LONG:
+            message.putLong(name, bits);
+            break;
+        case FLOAT:
+            message.putFloat(name, Float.intBitsToFloat((int) bits));
+            break;
+        case DOUBLE:
+            message.putDouble(name, Double.longBitsToDouble(bits));
+            break;
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putRefOf(MessageWriter message, String name, FieldType type,
+            Object value) {
+        switch (type) {
+        case STRING:
+            message.putString(name, (String) value);
+            break;
+        case MESSAGE:
+            message.putMessage(name, (ImmutableMessage) value);
+            break;
+        case MESSAGE_LIST:
+            message.putMessageList(name, (List<ImmutableMessage>) value);
+            break;
+        case INT_ARRAY:
+            message.putIntArray(name, (int[]) value);
+            break;
+        case LONG_ARRAY:
+            message.putLongArray(name, (long[]) value);
+            break;
+        case DOUBLE_ARRAY:
+            message.putDoubleArray(name, (double[]) value);
+            break;
+        case BYTES:
+            message.putBytes(name, (ByteBuffer) value);
+            break;
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+}
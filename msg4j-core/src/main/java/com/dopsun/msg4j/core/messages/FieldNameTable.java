@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Maps field names to dense slot numbers, with an open addressing hash table.
+ * 
+ * <p>
+ * Names are never removed, so slot of a name never changes. Once {@link #share() shared}, table
+ * should not be modified anymore, and owner should {@link #copy()} it before adding new names.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class FieldNameTable {
+    private static final int MIN_CAPACITY = 4;
+
+    private String[] names;
+
+    /**
+     * Slot plus one, indexed by hash of name. <code>0</code> means empty.
+     */
+    private int[] index;
+
+    private int size;
+
+    private boolean shared;
+
+    /**
+     * @param expectedSize
+     *            expected number of names
+     */
+    FieldNameTable(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+
+        this.names = new String[capacity];
+        this.index = new int[tableSizeFor(capacity)];
+    }
+
+    private FieldNameTable(FieldNameTable source) {
+        this.names = Arrays.copyOf(source.names, source.names.length);
+        this.index = source.index.clone();
+        this.size = source.size;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return number of names.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of names can be added without rehashing.
+     */
+    int capacity() {
+        return names.length;
+    }
+
+    /**
+     * @param slot
+     * @return name of slot
+     */
+    String name(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * @param name
+     *            field name
+     * @return slot of name, or <code>-1</code> if not exists.
+     */
+    int indexOf(String name) {
+        int mask = index.length - 1;
+        int pos = hash(name) & mask;
+
+        while (true) {
+            int entry = index[pos];
+            if (entry == 0) {
+                return -1;
+            }
+
+            String candidate = names[entry - 1];
+            if (candidate == name || candidate.equals(name)) {
+                return entry - 1;
+            }
+
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds <code>name</code>, which should not exist in this table.
+     * 
+     * @param name
+     *            field name
+     * @return slot of name.
+     */
+    int add(String name) {
+        Objects.requireNonNull(name);
+
+        if (shared) {
+            throw new IllegalStateException("Shared name table cannot be modified.");
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            rehash(tableSizeFor(names.length));
+        }
+
+        int slot = size++;
+        names[slot] = name;
+        insert(index, name, slot);
+
+        return slot;
+    }
+
+    private void rehash(int tableSize) {
+        int[] newIndex = new int[tableSize];
+        for (int slot = 0; slot < size; slot++) {
+            insert(newIndex, names[slot], slot);
+        }
+
+        this.index = newIndex;
+    }
+
+    private static void insert(int[] index, String name, int slot) {
+        int mask = index.length - 1;
+        int pos = hash(name) & mask;
+        while (index[pos] != 0) {
+            pos = (pos + 1) & mask;
+        }
+
+        index[pos] = slot + 1;
+    }
+
+    /**
+     * @return estimated bytes retained by this table, without names.
+     */
+    long retainedSize() {
+        return MessageSizes.object(2 * MessageSizes.REFERENCE + 4 + 1)
+                + MessageSizes.array(names.length, MessageSizes.REFERENCE)
+                + MessageSizes.array(index.length, 4);
+    }
+
+    /**
+     * Marks this table as shared by more than one store.
+     */
+    void share() {
+        shared = true;
+    }
+
+    /**
+     * @return <code>true</code> if this table has been shared.
+     */
+    boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * @return a not shared copy of this table.
+     */
+    FieldNameTable copy() {
+        return new FieldNameTable(this);
+    }
+}
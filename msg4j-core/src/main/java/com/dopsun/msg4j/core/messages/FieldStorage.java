@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+/**
+ * How fields are stored inside of a message. It does not change behavior of message, but memory
+ * and CPU cost.
+ * 
+ * @see Messages#create(FieldStorage)
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public enum FieldStorage {
+    /**
+     * Fields are stored in a hash map, and every value is wrapped as an object. This is the
+     * default.
+     */
+    HASH_MAP,
+
+    /**
+     * Primitive values are stored in a <code>long[]</code>, and other values in an
+     * <code>Object[]</code>, indexed by an open addressing table of field names. Putting and
+     * getting primitive values do not allocate.
+     * 
+     * <p>
+     * Immutable message created from this keeps same storage, and shares field names with the
+     * writable message.
+     * </p>
+     */
+    PRIMITIVE_SLOTS,
+
+    /**
+     * Fields are stored in a persistent hash array mapped trie, which is shared by immutable and
+     * writable messages created from each other. {@link ImmutableMessage#toWritable()} and
+     * {@link WritableMessage#toImmutable()} do not copy fields, and a put after them only copies
+     * nodes on path of the field.
+     */
+    PERSISTENT_TRIE
+}
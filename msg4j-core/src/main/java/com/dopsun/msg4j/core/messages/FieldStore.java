@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Backing storage of fields for {@link AbstractMessageReader}.
+ * 
+ * <p>
+ * Primitive values (see {@link Field#isPrimitive(FieldType)}) are passed in and out as
+ * <code>long</code> bits, encoded as {@link Field#bits()}, so stores can keep them without
+ * boxing. Other values are passed as references. Arrays and bytes are passed as read only
+ * buffers from position <code>0</code>, which are duplicated before handed out of message, so
+ * readers never share a position.
+ * </p>
+ * 
+ * <p>
+ * Type checks are done by store, as store knows how type is kept.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+abstract class FieldStore {
+    /**
+     * Default bits passed to {@link #tryGetBits(String, FieldType, long)} to detect an absent
+     * field. It cannot be a value of types narrower than <code>long</code>; for
+     * {@link FieldType#LONG} and {@link FieldType#DOUBLE}, callers should check
+     * {@link #contains(String)} when it is returned.
+     */
+    static final long ABSENT_BITS = Long.MIN_VALUE;
+
+    /**
+     * @return number of fields.
+     */
+    abstract int size();
+
+    /**
+     * @return names of all fields.
+     */
+    abstract Collection<String> names();
+
+    /**
+     * @param name
+     *            field name
+     * @return <code>true</code> if field exists.
+     */
+    abstract boolean contains(String name);
+
+    /**
+     * @param name
+     *            field name
+     * @return type of field, or <code>null</code> if field not exists.
+     */
+    @Nullable
+    abstract FieldType typeOf(String name);
+
+    /**
+     * @param name
+     *            field name
+     * @param type
+     *            expected primitive type
+     * @return value encoded as bits
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    abstract long getBits(String name, FieldType type)
+            throws FieldNotFoundException, InvalidTypeException;
+
+    /**
+     * @param name
+     *            field name
+     * @param type
+     *            expected non-primitive type
+     * @return value of field
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    abstract Object getRef(String name, FieldType type)
+            throws FieldNotFoundException, InvalidTypeException;
+
+    /**
+     * Gets value with one lookup of <code>name</code>.
+     * 
+     * @param name
+     *            field name
+     * @param type
+     *            expected primitive type
+     * @param defaultBits
+     *            bits returned if field not exists
+     * @return value encoded as bits, or <code>defaultBits</code> if field not exists.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    abstract long tryGetBits(String name, FieldType type, long defaultBits)
+            throws InvalidTypeException;
+
+    /**
+     * Gets value with one lookup of <code>name</code>.
+     * 
+     * @param name
+     *            field name
+     * @param type
+     *            expected non-primitive type
+     * @return value of field, or <code>null</code> if field not exists.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    @Nullable
+    abstract Object tryGetRef(String name, FieldType type) throws InvalidTypeException;
+
+    /**
+     * @param name
+     *            field name
+     * @param type
+     *            primitive type
+     * @param bits
+     *            value encoded as bits
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    abstract void putBits(String name, FieldType type, long bits) throws InvalidTypeException;
+
+    /**
+     * @param name
+     *            field name
+     * @param type
+     *            non-primitive type
+     * @param ref
+     *            value of field
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    abstract void putRef(String name, FieldType type, Object ref) throws InvalidTypeException;
+
+    /**
+     * @param name
+     *            field name
+     * @return <code>true</code> if field removed.
+     */
+    abstract boolean remove(String name);
+
+    /**
+     * Removes all fields, and keeps allocated storage for reuse if possible.
+     */
+    abstract void clear();
+
+    /**
+     * Visits all fields.
+     * 
+     * @param visitor
+     *            visitor
+     */
+    abstract void accept(MessageVisitor visitor);
+
+    /**
+     * Moves <code>cursor</code> to next field. {@link FieldCursorImpl#position} is
+     * <code>0</code> for first field, and otherwise whatever this store set on last advance.
+     * 
+     * @param cursor
+     *            cursor on this store
+     * @return <code>true</code> if moved to next field; <code>false</code> if no more fields.
+     */
+    abstract boolean advance(FieldCursorImpl cursor);
+
+    /**
+     * @param codec
+     *            codec to encode with
+     * @return a new buffer over encoded bytes of this store by <code>codec</code>, if store keeps
+     *         fields that way; otherwise <code>null</code>.
+     */
+    @Nullable
+    ByteBuffer encodedBy(MessageCodec codec) {
+        return null;
+    }
+
+    /**
+     * @param codec
+     *            codec to encode with
+     * @return number of encoded bytes of this store by <code>codec</code>, if store keeps fields
+     *         that way; otherwise <code>-1</code>.
+     */
+    int encodedSizeBy(MessageCodec codec) {
+        return -1;
+    }
+
+    /**
+     * Estimates size of this store and its values, see {@link MessageSizes}. Should not allocate.
+     * 
+     * @return estimated bytes retained by this store.
+     */
+    abstract long retainedSize();
+
+    /**
+     * @return a store with same content, can be modified without affecting this store.
+     */
+    abstract FieldStore mutableCopy();
+
+    /**
+     * @return a store with same content, which will not be modified anymore.
+     */
+    abstract FieldStore immutableCopy();
+
+    /**
+     * Dispatches <code>field</code> to <code>visitor</code>, as specific <code>visit</code>
+     * overloading.
+     * 
+     * @param visitor
+     * @param name
+     * @param field
+     */
+    static void visit(MessageVisitor visitor, String name, Field field) {
+        FieldType type = field.type();
+
+        if (Field.isPrimitive(type)) {
+            visit(visitor, name, type, field.bits(), null);
+        } else {
+            visit(visitor, name, type, 0L, field.ref());
+        }
+    }
+
+    /**
+     * Dispatches a field to <code>visitor</code>, as specific <code>visit</code> overloading.
+     * 
+     * @param visitor
+     * @param name
+     * @param type
+     * @param bits
+     *            value if <code>type</code> is primitive
+     * @param ref
+     *            value if <code>type</code> is not primitive
+     */
+    @SuppressWarnings("unchecked")
+    static void visit(MessageVisitor visitor, String name, FieldType type, long bits,
+            @Nullable Object ref) {
+        switch (type) {
+        case BOOLEAN:
+            visitor.visit(name, type, bits != 0);
+            break;
+        case BYTE:
+            visitor.visit(name, type, (byte) bits);
+            break;
+        case CHAR:
+            visitor.visit(name, type, (char) bits);
+            break;
+        case SHORT:
+            visitor.visit(name, type, (short) bits);
+            break;
+        case INT:
+            visitor.visit(name, type, (int) bits);
+            break;
+        case LONG:
+            visitor.visit(name, type, bits);
+            break;
+        case FLOAT:
+            visitor.visit(name, type, Float.intBitsToFloat((int) bits));
+            break;
+        case DOUBLE:
+            visitor.visit(name, type, Double.longBitsToDouble(bits));
+            break;
+        case STRING:
+            visitor.visit(name, type, (String) ref);
+            break;
+        case MESSAGE:
+            visitor.visit(name, type, (ImmutableMessage) ref);
+            break;
+        case MESSAGE_LIST:
+            visitor.visit(name, type, (List<ImmutableMessage>) ref);
+            break;
+        case INT_ARRAY:
+            visitor.visit(name, type, ((IntBuffer) ref).duplicate());
+            break;
+        case LONG_ARRAY:
+            visitor.visit(name, type, ((LongBuffer) ref).duplicate());
+            break;
+        case DOUBLE_ARRAY:
+            visitor.visit(name, type, ((DoubleBuffer) ref).duplicate());
+            break;
+        case BYTES:
+            visitor.visit(name, type, ((ByteBuffer) ref).duplicate());
+            break;
+        default:
+            break;
+        }
+    }
+}
@@ -16,6 +16,10 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.List;
 
 /**
@@ -78,5 +82,25 @@ public enum FieldType {
     /**
      * @see List
      */
-    MESSAGE_LIST
+    MESSAGE_LIST,
+
+    /**
+     * Array of <code>int</code>, read as a read only {@link IntBuffer}.
+     */
+    INT_ARRAY,
+
+    /**
+     * Array of <code>long</code>, read as a read only {@link LongBuffer}.
+     */
+    LONG_ARRAY,
+
+    /**
+     * Array of <code>double</code>, read as a read only {@link DoubleBuffer}.
+     */
+    DOUBLE_ARRAY,
+
+    /**
+     * Opaque bytes, read as a read only {@link ByteBuffer}.
+     */
+    BYTES
 }
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Compares and fingerprints field values by content.
+ * 
+ * <p>
+ * Primitive values are compared by {@link Field#bits()}, so <code>NaN</code> equals to itself,
+ * and <code>-0.0</code> does not equal to <code>0.0</code>. Elements of
+ * {@link FieldType#DOUBLE_ARRAY} are compared by raw bits as well.
+ * </p>
+ * 
+ * <p>
+ * Fingerprint of a message is sum of mixed hashes of its fields, so it does not depend on order
+ * of fields. Hashes of strings are computed here instead of {@link String#hashCode()}, to have 64
+ * bits.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class FieldValues {
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private FieldValues() {
+    }
+
+    /**
+     * @param type
+     *            type of both values
+     * @param bits
+     *            value if <code>type</code> is primitive
+     * @param ref
+     *            value if <code>type</code> is not primitive
+     * @param otherBits
+     *            other value if <code>type</code> is primitive
+     * @param otherRef
+     *            other value if <code>type</code> is not primitive
+     * @return <code>true</code> if two values have same content.
+     */
+    @SuppressWarnings("unchecked")
+    static boolean equal(FieldType type, long bits, @Nullable Object ref, long otherBits,
+            @Nullable Object otherRef) {
+        if (Field.isPrimitive(type)) {
+            return bits == otherBits;
+        }
+
+        if (ref == otherRef) {
+            return true;
+        }
+
+        if (ref == null || otherRef == null) {
+            return false;
+        }
+
+        switch (type) {
+        case MESSAGE:
+            return equal((MessageReader) ref, (MessageReader) otherRef);
+        case MESSAGE_LIST:
+            return equal((List<ImmutableMessage>) ref, (List<ImmutableMessage>) otherRef);
+        case DOUBLE_ARRAY:
+            return equal((DoubleBuffer) ref, (DoubleBuffer) otherRef);
+        default:
+            // Strings, and int, long and byte buffers compare content by equals.
+            return ref.equals(otherRef);
+        }
+    }
+
+    /**
+     * @param message
+     * @param other
+     * @return <code>true</code> if two messages have same fields, in any order.
+     */
+    static boolean equal(MessageReader message, MessageReader other) {
+        if (message == other) {
+            return true;
+        }
+
+        if (message.size() != other.size()) {
+            return false;
+        }
+
+        if (!(message instanceof AbstractMessageReader && other instanceof AbstractMessageReader)) {
+            return equalByNames(message, other);
+        }
+
+        FieldStore otherStore = ((AbstractMessageReader) other).store();
+
+        FieldCursorImpl cursor = new FieldCursorImpl();
+        cursor.reset(((AbstractMessageReader) message).store());
+        while (cursor.next()) {
+            String name = cursor.name();
+            FieldType type = cursor.type();
+            if (otherStore.typeOf(name) != type) {
+                return false;
+            }
+
+            boolean same = Field.isPrimitive(type)
+                    ? cursor.bits() == otherStore.getBits(name, type)
+                    : equal(type, 0L, cursor.ref(), 0L, otherStore.getRef(name, type));
+            if (!same) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares messages not backed by a store through typed getters, without copying fields.
+     */
+    private static boolean equalByNames(MessageReader message, MessageReader other) {
+        for (String name : message.fieldNames()) {
+            FieldType type = message.getFieldType(name);
+            if (!other.contains(name) || other.getFieldType(name) != type) {
+                return false;
+            }
+
+            boolean same = Field.isPrimitive(type)
+                    ? bitsOf(message, name, type) == bitsOf(other, name, type)
+                    : equal(type, 0L, refOf(message, name, type), 0L, refOf(other, name, type));
+            if (!same) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long bitsOf(MessageReader message, String name, FieldType type) {
+        switch (type) {
+        case BOOLEAN:
+            return message.getBoolean(name) ? 1L : 0L;
+        case BYTE:
+            return message.getByte(name);
+        case CHAR:
+            return message.getChar(name);
+        case SHORT:
+            return message.getShort(name);
+        case INT:
+            return message.getInt(name);
+        case LONG:
+            return message.getLong(name);
+        case FLOAT:
+            return Float.floatToRawIntBits(message.getFloat(name));
+        case DOUBLE:
+            return Double.doubleToRawLongBits(message.getDouble(name));
+        default:
+            throw new IllegalArgumentException("Not a primitive type: " + type);
+        }
+    }
+
+    private static Object refOf(MessageReader message, String name, FieldType type) {
+        switch (type) {
+        case STRING:
+            return message.getString(name);
+        case MESSAGE:
+            return message.getMessage(name);
+        case MESSAGE_LIST:
+            return message.getMessageList(name);
+        case INT_ARRAY:
+            return message.getIntArray(name);
+        case LONG_ARRAY:
+            return message.getLongArray(name);
+        case DOUBLE_ARRAY:
+            return message.getDoubleArray(name);
+        case BYTES:
+            return message.getBytes(name);
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    private static boolean equal(List<ImmutableMessage> messages, List<ImmutableMessage> others) {
+        int size = messages.size();
+        if (size != others.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!equal(messages.get(i), others.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean equal(DoubleBuffer values, DoubleBuffer others) {
+        int length = values.remaining();
+        if (length != others.remaining()) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            long bits = Double.doubleToRawLongBits(values.get(values.position() + i));
+            if (bits != Double.doubleToRawLongBits(others.get(others.position() + i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param message
+     * @return fingerprint of <code>message</code>, never <code>0</code>.
+     */
+    static long fingerprint(MessageReader message) {
+        long sum = 0L;
+
+        FieldCursorImpl cursor = new FieldCursorImpl();
+        cursor.reset(FieldCursorImpl.storeOf(message));
+        while (cursor.next()) {
+            FieldType type = cursor.type();
+            long valueHash = Field.isPrimitive(type) ? cursor.bits() : hash(type, cursor.ref());
+
+            sum += mix(mix(hash(cursor.name()) + type.ordinal()) ^ valueHash);
+        }
+
+        long fingerprint = mix(sum + message.size());
+        return fingerprint == 0L ? 1L : fingerprint;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long hash(FieldType type, @Nullable Object ref) {
+        switch (type) {
+        case STRING:
+            return hash((String) ref);
+        case MESSAGE:
+            return ((ImmutableMessage) ref).fingerprint();
+        case MESSAGE_LIST:
+            long listHash = 1L;
+            for (ImmutableMessage message : (List<ImmutableMessage>) ref) {
+                listHash = mix(listHash + message.fingerprint());
+            }
+            return listHash;
+        case INT_ARRAY:
+            IntBuffer ints = (IntBuffer) ref;
+            long intsHash = 1L;
+            for (int i = ints.position(); i < ints.limit(); i++) {
+                intsHash = mix(intsHash + ints.get(i));
+            }
+            return intsHash;
+        case LONG_ARRAY:
+            LongBuffer longs = (LongBuffer) ref;
+            long longsHash = 1L;
+            for (int i = longs.position(); i < longs.limit(); i++) {
+                longsHash = mix(longsHash + longs.get(i));
+            }
+            return longsHash;
+        case DOUBLE_ARRAY:
+            DoubleBuffer doubles = (DoubleBuffer) ref;
+            long doublesHash = 1L;
+            for (int i = doubles.position(); i < doubles.limit(); i++) {
+                doublesHash = mix(doublesHash + Double.doubleToRawLongBits(doubles.get(i)));
+            }
+            return doublesHash;
+        case BYTES:
+            ByteBuffer bytes = (ByteBuffer) ref;
+            long bytesHash = FNV_OFFSET_BASIS;
+            for (int i = bytes.position(); i < bytes.limit(); i++) {
+                bytesHash = (bytesHash ^ (bytes.get(i) & 0xFF)) * FNV_PRIME;
+            }
+            return bytesHash;
+        default:
+            throw new IllegalArgumentException("Not a reference type: " + type);
+        }
+    }
+
+    /**
+     * @param value
+     * @return 64 bits FNV-1a hash of chars.
+     */
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Finalizer of SplitMix64, which spreads every input bit to all output bits.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
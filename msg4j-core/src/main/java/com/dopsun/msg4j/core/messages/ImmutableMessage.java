@@ -16,11 +16,20 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Immutable message.
  * 
+ * <p>
+ * Messages created by this library are equal if they have same fields and values, regardless of
+ * storage and order of fields, and {@link Object#hashCode()} is derived from
+ * {@link #fingerprint()}.
+ * </p>
+ * 
  * @author Dop Sun
  * @since 1.0.0
  */
@@ -31,8 +40,95 @@ public interface ImmutableMessage extends Message {
      */
     WritableMessage toWritable();
 
+    /**
+     * Returns this message encoded by <code>codec</code>, so a message published to many
+     * destinations is encoded once.
+     * 
+     * <p>
+     * Messages created by this library encode on first call and keep the result, keyed by
+     * <code>codec</code>; messages decoded as views of encoded bytes return these bytes. Result is
+     * safely published, so it can be shared by all threads.
+     * </p>
+     * 
+     * <p>
+     * Default implementation encodes on each call.
+     * </p>
+     * 
+     * @param codec
+     *            codec to encode with
+     * @return read only buffer of encoded bytes, from position <code>0</code>.
+     */
+    default ByteBuffer encoded(MessageCodec codec) {
+        Objects.requireNonNull(codec);
+
+        return ByteBuffer.wrap(codec.encode(this)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes {@link #encoded(MessageCodec) encoded bytes} to <code>writer</code>, from array they
+     * are kept in where possible, so they are not copied first.
+     * 
+     * @param codec
+     *            codec to encode with
+     * @param writer
+     *            writer of encoded bytes
+     * @throws E
+     *             if <code>writer</code> failed
+     */
+    default <E extends Exception> void writeEncoded(MessageCodec codec, BytesWriter<E> writer)
+            throws E {
+        Objects.requireNonNull(writer);
+
+        ByteBuffer encoded = encoded(codec);
+        if (encoded.hasArray()) {
+            writer.write(encoded.array(), encoded.arrayOffset() + encoded.position(),
+                    encoded.remaining());
+        } else {
+            byte[] bytes = new byte[encoded.remaining()];
+            encoded.get(bytes);
+            writer.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Content fingerprint, which depends on names, types and values of fields, but not order of
+     * fields or storage. It is same in every process, so it can be kept or sent to compare with
+     * later versions.
+     * 
+     * <p>
+     * Messages created by this library compute it on first call and keep the result. Default
+     * implementation computes on each call.
+     * </p>
+     * 
+     * @return 64 bits fingerprint of content.
+     */
+    default long fingerprint() {
+        return FieldValues.fingerprint(this);
+    }
+
     @Override
     default boolean isImmutable() {
         return true;
     }
+
+    /**
+     * Builds an {@link ImmutableMessage} by putting fields directly into its storage.
+     * 
+     * <p>
+     * Unlike {@link WritableMessage#toImmutable()}, {@link #build()} hands storage over to the
+     * message without a copy, so builder cannot be used anymore after that.
+     * </p>
+     * 
+     * @author Dop Sun
+     * @since 1.0.0
+     */
+    public interface Builder extends MessageWriter {
+        /**
+         * @return message with fields put to this builder.
+         * 
+         * @throws IllegalStateException
+         *             if message already built.
+         */
+        ImmutableMessage build() throws IllegalStateException;
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Builder puts fields to a {@link SlotFieldStore}, which is handed over to built message.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class ImmutableMessageBuilder implements ImmutableMessage.Builder {
+    /**
+     * Store of message being built, <code>null</code> once built.
+     */
+    @Nullable
+    private SlotFieldStore store;
+
+    /**
+     * @param expectedSize
+     *            expected number of fields
+     */
+    ImmutableMessageBuilder(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative: " + expectedSize);
+        }
+
+        this.store = new SlotFieldStore(expectedSize);
+    }
+
+    private SlotFieldStore store() {
+        SlotFieldStore current = store;
+        if (current == null) {
+            throw new IllegalStateException("Message already built.");
+        }
+
+        return current;
+    }
+
+    @Override
+    public boolean remove(String fieldName) {
+        Objects.requireNonNull(fieldName);
+
+        return store().remove(fieldName);
+    }
+
+    @Override
+    public void putBoolean(String fieldName, boolean value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.BOOLEAN, value ? 1L : 0L);
+    }
+
+    @Override
+    public void putByte(String fieldName, byte value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.BYTE, value);
+    }
+
+    @Override
+    public void putChar(String fieldName, char value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.CHAR, value);
+    }
+
+    @Override
+    public void putShort(String fieldName, short value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.SHORT, value);
+    }
+
+    @Override
+    public void putInt(String fieldName, int value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.INT, value);
+    }
+
+    @Override
+    public void putLong(String fieldName, long value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.LONG, value);
+    }
+
+    @Override
+    public void putFloat(String fieldName, float value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.FLOAT, Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void putDouble(String fieldName, double value) {
+        Objects.requireNonNull(fieldName);
+
+        store().putBits(fieldName, FieldType.DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putString(String fieldName, String value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.STRING, value);
+    }
+
+    @Override
+    public void putMessage(String fieldName, ImmutableMessage value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.MESSAGE, value);
+    }
+
+    @Override
+    public void putMessageList(String fieldName, List<ImmutableMessage> value)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.MESSAGE_LIST, ImmutableList.copyOf(value));
+    }
+
+    @Override
+    public void putIntArray(String fieldName, int[] value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.INT_ARRAY, Field.readOnlyCopy(value));
+    }
+
+    @Override
+    public void putLongArray(String fieldName, long[] value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.LONG_ARRAY, Field.readOnlyCopy(value));
+    }
+
+    @Override
+    public void putDoubleArray(String fieldName, double[] value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.DOUBLE_ARRAY, Field.readOnlyCopy(value));
+    }
+
+    @Override
+    public void putBytes(String fieldName, ByteBuffer value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.BYTES, Field.readOnlySlice(value));
+    }
+
+    @Override
+    public ImmutableMessage build() throws IllegalStateException {
+        SlotFieldStore built = store();
+        this.store = null;
+
+        return new ImmutableMessageImpl(built);
+    }
+}
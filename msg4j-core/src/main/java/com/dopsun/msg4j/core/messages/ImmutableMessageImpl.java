@@ -16,8 +16,10 @@
 
 package com.dopsun.msg4j.core.messages;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
 
 /**
  * @author Dop Sun
@@ -25,15 +27,202 @@ import java.util.Map;
  */
 final class ImmutableMessageImpl extends AbstractMessage implements ImmutableMessage {
     /**
-     * @param fields
+     * Most encoded forms kept, one per codec. Messages are rarely sent by more codecs than this.
+     */
+    static final int MAX_ENCODED_FORMS = 4;
+
+    private static final EncodedForm[] NO_ENCODED_FORMS = new EncodedForm[0];
+
+    /**
+     * Encoded forms by codecs asked, most recent last, replaced as a whole when a form is added.
+     * Forms are immutable, so racing threads may encode more than once, or drop a form added
+     * meanwhile, but always see complete forms.
+     */
+    private volatile EncodedForm[] encodedForms = NO_ENCODED_FORMS;
+
+    /**
+     * Fingerprint computed, or <code>0</code> if not computed yet.
+     */
+    private volatile long fingerprint;
+
+    /**
+     * @param store
+     *            store which will not be modified anymore.
      */
-    ImmutableMessageImpl(Map<String, Field> fields) {
-        super(fields);
+    ImmutableMessageImpl(FieldStore store) {
+        super(store);
     }
 
     @Override
     public WritableMessage toWritable() {
-        return new WritableMessageImpl(new HashMap<>(fields()));
+        return new WritableMessageImpl(store().mutableCopy());
+    }
+
+    @Override
+    public ByteBuffer encoded(MessageCodec codec) {
+        return encodedBuffer(codec).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes from kept array, which is not exposed by read only {@link #encoded(MessageCodec)}.
+     */
+    @Override
+    public <E extends Exception> void writeEncoded(MessageCodec codec, BytesWriter<E> writer)
+            throws E {
+        Objects.requireNonNull(writer);
+
+        ByteBuffer encoded = encodedBuffer(codec);
+        if (encoded.hasArray()) {
+            writer.write(encoded.array(), encoded.arrayOffset() + encoded.position(),
+                    encoded.remaining());
+        } else {
+            ImmutableMessage.super.writeEncoded(codec, writer);
+        }
+    }
+
+    /**
+     * @return a new buffer over encoded bytes kept, which should not be modified.
+     */
+    private ByteBuffer encodedBuffer(MessageCodec codec) {
+        Objects.requireNonNull(codec);
+
+        ByteBuffer buffer = cachedEncoded(codec);
+        if (buffer == null) {
+            byte[] bytes = codec.encode(this);
+            keep(new EncodedForm(codec, bytes));
+            buffer = ByteBuffer.wrap(bytes);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Adds <code>form</code>, dropping the oldest form if {@link #MAX_ENCODED_FORMS} are kept.
+     */
+    private void keep(EncodedForm form) {
+        EncodedForm[] forms = encodedForms;
+        int kept = Math.min(forms.length, MAX_ENCODED_FORMS - 1);
+
+        EncodedForm[] newForms = new EncodedForm[kept + 1];
+        System.arraycopy(forms, forms.length - kept, newForms, 0, kept);
+        newForms[kept] = form;
+
+        encodedForms = newForms;
+    }
+
+    @Nullable
+    private EncodedForm formOf(MessageCodec codec) {
+        for (EncodedForm form : encodedForms) {
+            if (form.codec == codec) {
+                return form;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param codec
+     * @return a new buffer over encoded bytes already kept for <code>codec</code>, or
+     *         <code>null</code>.
+     */
+    @Nullable
+    ByteBuffer cachedEncoded(MessageCodec codec) {
+        ByteBuffer buffer = store().encodedBy(codec);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        EncodedForm form = formOf(codec);
+        if (form != null) {
+            return ByteBuffer.wrap(form.bytes);
+        }
+
+        return null;
+    }
+
+    /**
+     * @param codec
+     * @return number of encoded bytes already kept for <code>codec</code>, or <code>-1</code>.
+     */
+    int cachedEncodedSize(MessageCodec codec) {
+        int size = store().encodedSizeBy(codec);
+        if (size >= 0) {
+            return size;
+        }
+
+        EncodedForm form = formOf(codec);
+        if (form != null) {
+            return form.bytes.length;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Encoded forms kept are counted as well.
+     */
+    @Override
+    public long estimatedRetainedSize() {
+        long size = MessageSizes.IMMUTABLE_MESSAGE + store().retainedSize();
+
+        EncodedForm[] forms = encodedForms;
+        if (forms.length > 0) {
+            size += MessageSizes.array(forms.length, MessageSizes.REFERENCE);
+        }
+        for (EncodedForm form : forms) {
+            size += MessageSizes.object(2 * MessageSizes.REFERENCE)
+                    + MessageSizes.array(form.bytes.length, 1);
+        }
+
+        return size;
+    }
+
+    @Override
+    public long fingerprint() {
+        long value = fingerprint;
+        if (value == 0L) {
+            value = FieldValues.fingerprint(this);
+            fingerprint = value;
+        }
+
+        return value;
+    }
+
+    @Override
+    public int hashCode() {
+        long value = fingerprint();
+        return (int) (value ^ (value >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+
+        if (!(obj instanceof ImmutableMessage)) {
+            return false;
+        }
+
+        if (obj instanceof ImmutableMessageImpl) {
+            long otherFingerprint = ((ImmutableMessageImpl) obj).fingerprint;
+            if (fingerprint != 0L && otherFingerprint != 0L && fingerprint != otherFingerprint) {
+                return false;
+            }
+        }
+
+        return FieldValues.equal(this, (ImmutableMessage) obj);
+    }
+
+    private static final class EncodedForm {
+        private final MessageCodec codec;
+        private final byte[] bytes;
+
+        EncodedForm(MessageCodec codec, byte[] bytes) {
+            this.codec = codec;
+            this.bytes = bytes;
+        }
     }
 
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Field store backed by a {@link Map}, where every value is wrapped as {@link Field}.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class MapFieldStore extends FieldStore {
+    private final Map<String, Field> fields;
+
+    MapFieldStore() {
+        this(new HashMap<>());
+    }
+
+    /**
+     * @param fields
+     */
+    MapFieldStore(Map<String, Field> fields) {
+        Objects.requireNonNull(fields);
+
+        this.fields = fields;
+    }
+
+    /**
+     * This is used internal only.
+     * 
+     * @return fields for this store
+     */
+    Map<String, Field> fields() {
+        return fields;
+    }
+
+    @Override
+    int size() {
+        return fields.size();
+    }
+
+    @Override
+    Collection<String> names() {
+        return fields.keySet();
+    }
+
+    @Override
+    boolean contains(String name) {
+        return fields.containsKey(name);
+    }
+
+    @Override
+    @Nullable
+    FieldType typeOf(String name) {
+        Field field = fields.get(name);
+        return field == null ? null : field.type();
+    }
+
+    @Override
+    long getBits(String name, FieldType type) {
+        return getField(name, type).bits();
+    }
+
+    @Override
+    Object getRef(String name, FieldType type) {
+        return getField(name, type).ref();
+    }
+
+    private Field getField(String name, FieldType type) {
+        Field field = fields.get(name);
+        if (field == null) {
+            throw new FieldNotFoundException(name);
+        }
+
+        if (field.type() != type) {
+            throw new InvalidTypeException(name, type, field.type());
+        }
+
+        return field;
+    }
+
+    @Override
+    long tryGetBits(String name, FieldType type, long defaultBits) {
+        Field field = tryGetField(name, type);
+        return field == null ? defaultBits : field.bits();
+    }
+
+    @Override
+    @Nullable
+    Object tryGetRef(String name, FieldType type) {
+        Field field = tryGetField(name, type);
+        return field == null ? null : field.ref();
+    }
+
+    @Nullable
+    private Field tryGetField(String name, FieldType type) {
+        Field field = fields.get(name);
+        if (field != null && field.type() != type) {
+            throw new InvalidTypeException(name, type, field.type());
+        }
+
+        return field;
+    }
+
+    @Override
+    void putBits(String name, FieldType type, long bits) {
+        checkPut(name, type);
+
+        fields.put(name, Field.ofBits(type, bits));
+    }
+
+    @Override
+    void putRef(String name, FieldType type, Object ref) {
+        checkPut(name, type);
+
+        fields.put(name, Field.ofRef(type, ref));
+    }
+
+    private void checkPut(String name, FieldType type) {
+        Field field = fields.get(name);
+        if (field != null && field.type() != type) {
+            throw new InvalidTypeException(name, type, field.type());
+        }
+    }
+
+    @Override
+    boolean remove(String name) {
+        return fields.remove(name) != null;
+    }
+
+    @Override
+    void clear() {
+        fields.clear();
+    }
+
+    @Override
+    void accept(MessageVisitor visitor) {
+        for (Map.Entry<String, Field> entry : fields.entrySet()) {
+            visit(visitor, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Iterator of entries is kept in {@link FieldCursorImpl#state}, which is the only allocation
+     * per message.
+     */
+    @Override
+    boolean advance(FieldCursorImpl cursor) {
+        @SuppressWarnings("unchecked")
+        Iterator<Map.Entry<String, Field>> iterator = cursor.position == 0
+                ? fields.entrySet().iterator()
+                : (Iterator<Map.Entry<String, Field>>) cursor.state;
+        cursor.state = iterator;
+
+        if (!iterator.hasNext()) {
+            return false;
+        }
+
+        Map.Entry<String, Field> entry = iterator.next();
+        cursor.position++;
+        cursor.set(entry.getKey(), entry.getValue());
+        return true;
+    }
+
+    /**
+     * Estimated as a {@link java.util.HashMap} of default load factor.
+     */
+    @Override
+    long retainedSize() {
+        int size = fields.size();
+        int tableSize = size == 0 ? 0 : Integer.highestOneBit((size * 4 / 3) * 2 - 1) * 2;
+
+        long retained = MessageSizes.object(MessageSizes.REFERENCE)
+                + MessageSizes.object(4 * MessageSizes.REFERENCE + 4 * 4)
+                + MessageSizes.array(tableSize, MessageSizes.REFERENCE)
+                + size * MessageSizes.object(3 * MessageSizes.REFERENCE + 4);
+
+        for (Field field : fields.values()) {
+            retained += MessageSizes.field(field);
+        }
+
+        return retained;
+    }
+
+    @Override
+    FieldStore mutableCopy() {
+        return new MapFieldStore(new HashMap<>(fields));
+    }
+
+    @Override
+    FieldStore immutableCopy() {
+        return new MapFieldStore(ImmutableMap.copyOf(fields));
+    }
+}
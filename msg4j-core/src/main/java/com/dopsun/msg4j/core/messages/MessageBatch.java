@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Messages of same fields, kept column-wise: an array of primitive type per primitive field, a
+ * dictionary of distinct values per string field, and a presence bitmap per field. Names and
+ * types of fields are kept once per batch, instead of once per message.
+ * 
+ * <p>
+ * Rows are read as {@link ImmutableMessage} views by {@link #row(int)}, or whole columns are read
+ * by column methods for bulk scans. Values of absent rows in primitive columns are
+ * <code>0</code>, which should be checked with {@link #presence(String)}.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@Immutable
+public final class MessageBatch {
+    /**
+     * @return
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final int size;
+    private final FieldNameTable names;
+    private final BatchColumn[] columns;
+
+    private MessageBatch(Builder builder) {
+        this.size = builder.size;
+        this.names = new FieldNameTable(builder.columns.size());
+        this.columns = new BatchColumn[builder.columns.size()];
+
+        for (BatchColumn column : builder.columns) {
+            columns[names.add(column.name())] = column.trimmedCopy(size);
+        }
+    }
+
+    /**
+     * @return number of messages.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return names of columns, in order declared.
+     */
+    public List<String> columnNames() {
+        String[] columnNames = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            columnNames[i] = columns[i].name();
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(columnNames));
+    }
+
+    /**
+     * @param name
+     * @return type of column
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     */
+    public FieldType columnType(String name) throws FieldNotFoundException {
+        return column(name).type();
+    }
+
+    /**
+     * @param row
+     *            index of message
+     * @return view of message, which reads values from columns.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             if <code>row</code> is out of range.
+     */
+    public ImmutableMessage row(int row) {
+        checkRow(row);
+
+        return new ImmutableMessageImpl(new BatchRowFieldStore(this, row));
+    }
+
+    /**
+     * @return views of all messages.
+     */
+    public List<ImmutableMessage> rows() {
+        return new AbstractList<ImmutableMessage>() {
+            @Override
+            public ImmutableMessage get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @param name
+     * @param row
+     * @return <code>true</code> if field <code>name</code> exists in message <code>row</code>.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws IndexOutOfBoundsException
+     *             if <code>row</code> is out of range.
+     */
+    public boolean isPresent(String name, int row) throws FieldNotFoundException {
+        checkRow(row);
+
+        return column(name).isPresent(row);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+        }
+    }
+
+    /**
+     * @param name
+     * @return rows in which field <code>name</code> exists.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     */
+    public BitSet presence(String name) throws FieldNotFoundException {
+        return BitSet.valueOf(column(name).presence());
+    }
+
+    /**
+     * @param name
+     * @return rows in which value of field <code>name</code> is <code>true</code>.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#BOOLEAN}.
+     */
+    public BitSet booleanColumn(String name) throws FieldNotFoundException, InvalidTypeException {
+        return BitSet.valueOf((long[]) column(name, FieldType.BOOLEAN).values());
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of values, one per row.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#BYTE}.
+     */
+    public ByteBuffer byteColumn(String name) throws FieldNotFoundException, InvalidTypeException {
+        return ByteBuffer.wrap((byte[]) column(name, FieldType.BYTE).values()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of values, one per row.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#CHAR}.
+     */
+    public CharBuffer charColumn(String name) throws FieldNotFoundException, InvalidTypeException {
+        return CharBuffer.wrap((char[]) column(name, FieldType.CHAR).values()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of values, one per row.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#SHORT}.
+     */
+    public ShortBuffer shortColumn(String name)
+            throws FieldNotFoundException, InvalidTypeException {
+        return ShortBuffer.wrap((short[]) column(name, FieldType.SHORT).values())
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of values, one per row.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#INT}.
+     */
+    public IntBuffer intColumn(String name) throws FieldNotFoundException, InvalidTypeException {
+        return IntBuffer.wrap((int[]) column(name, FieldType.INT).values()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of values, one per row.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#LONG}.
+     */
+    public LongBuffer longColumn(String name) throws FieldNotFoundException, InvalidTypeException {
+        return LongBuffer.wrap((long[]) column(name, FieldType.LONG).values()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of values, one per row.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#FLOAT}.
+     */
+    public FloatBuffer floatColumn(String name)
+            throws FieldNotFoundException, InvalidTypeException {
+        return FloatBuffer.wrap((float[]) column(name, FieldType.FLOAT).values())
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of values, one per row.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#DOUBLE}.
+     */
+    public DoubleBuffer doubleColumn(String name)
+            throws FieldNotFoundException, InvalidTypeException {
+        return DoubleBuffer.wrap((double[]) column(name, FieldType.DOUBLE).values())
+                .asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return read only buffer of codes of values, one per row, which are indexes of
+     *         {@link #stringDictionary(String)}.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#STRING}.
+     */
+    public IntBuffer stringCodes(String name) throws FieldNotFoundException, InvalidTypeException {
+        return IntBuffer.wrap((int[]) column(name, FieldType.STRING).values()).asReadOnlyBuffer();
+    }
+
+    /**
+     * @param name
+     * @return distinct values of column, indexed by codes.
+     * 
+     * @throws FieldNotFoundException
+     *             if column not exists.
+     * @throws InvalidTypeException
+     *             if column is not of {@link FieldType#STRING}.
+     */
+    public List<String> stringDictionary(String name)
+            throws FieldNotFoundException, InvalidTypeException {
+        String[] dictionary = column(name, FieldType.STRING).dictionary();
+        return Collections.unmodifiableList(Arrays.asList(dictionary));
+    }
+
+    /**
+     * @param name
+     * @return index of column, or <code>-1</code> if not exists.
+     */
+    int columnIndex(String name) {
+        return names.indexOf(name);
+    }
+
+    int columnCount() {
+        return columns.length;
+    }
+
+    BatchColumn column(int index) {
+        return columns[index];
+    }
+
+    private BatchColumn column(String name) {
+        Objects.requireNonNull(name);
+
+        int index = names.indexOf(name);
+        if (index < 0) {
+            throw new FieldNotFoundException(name);
+        }
+
+        return columns[index];
+    }
+
+    private BatchColumn column(String name, FieldType type) {
+        BatchColumn column = column(name);
+        if (column.type() != type) {
+            throw new InvalidTypeException(name, type, column.type());
+        }
+
+        return column;
+    }
+
+    /**
+     * @author Dop Sun
+     * @since 1.0.0
+     */
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final FieldNameTable names = new FieldNameTable(8);
+        private final List<BatchColumn> columns = new ArrayList<>();
+        private FieldType[] types = new FieldType[0];
+
+        private int size;
+
+        Builder() {
+        }
+
+        /**
+         * @param name
+         * @param type
+         * @return
+         * 
+         * @throws IllegalArgumentException
+         *             if column exists already.
+         * @throws IllegalStateException
+         *             if a message added already.
+         */
+        public Builder column(String name, FieldType type) {
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(type);
+
+            if (size > 0) {
+                throw new IllegalStateException("Column added after messages: " + name);
+            }
+
+            if (names.indexOf(name) >= 0) {
+                throw new IllegalArgumentException("Column exists already: " + name);
+            }
+
+            names.add(name);
+            columns.add(new BatchColumn(name, type, INITIAL_CAPACITY));
+            types = new FieldType[columns.size()];
+
+            return this;
+        }
+
+        /**
+         * Adds values of <code>message</code> as next row.
+         * 
+         * @param message
+         * @return
+         * 
+         * @throws InvalidTypeException
+         *             if a field is not of type of its column.
+         * @throws IllegalArgumentException
+         *             if a field has no column.
+         */
+        public Builder add(MessageReader message) {
+            FieldStore store = FieldCursorImpl.storeOf(message);
+
+            int present = 0;
+            for (int i = 0; i < types.length; i++) {
+                BatchColumn column = columns.get(i);
+
+                FieldType type = store.typeOf(column.name());
+                if (type != null && type != column.type()) {
+                    throw new InvalidTypeException(column.name(), column.type(), type);
+                }
+
+                types[i] = type;
+                present += type == null ? 0 : 1;
+            }
+
+            if (present != store.size()) {
+                for (String name : store.names()) {
+                    if (names.indexOf(name) < 0) {
+                        throw new IllegalArgumentException("No column of field: " + name);
+                    }
+                }
+            }
+
+            for (int i = 0; i < types.length; i++) {
+                BatchColumn column = columns.get(i);
+                column.ensureCapacity(size + 1);
+
+                FieldType type = types[i];
+                if (type == null) {
+                    continue;
+                }
+
+                if (Field.isPrimitive(type)) {
+                    column.setBits(size, store.getBits(column.name(), type));
+                } else {
+                    column.setRef(size, store.getRef(column.name(), type));
+                }
+            }
+
+            size++;
+            return this;
+        }
+
+        /**
+         * @return a batch of messages added so far. Builder can continue to add messages, which
+         *         does not affect batches built.
+         */
+        public MessageBatch build() {
+            return new MessageBatch(this);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Encodes messages to bytes, and decodes them back.
+ * 
+ * <p>
+ * Implementations are thread safe, and can be shared by all transports.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface MessageCodec {
+    /**
+     * @param message
+     *            message to encode
+     * @return number of bytes will be written by {@link #encode(MessageReader, ByteBuffer)}.
+     */
+    int encodedSize(MessageReader message);
+
+    /**
+     * Encodes <code>message</code> to <code>buffer</code>, starting from its current position.
+     * Position of <code>buffer</code> will be advanced by {@link #encodedSize(MessageReader)}.
+     * 
+     * @param message
+     *            message to encode
+     * @param buffer
+     *            buffer to write to
+     * 
+     * @throws BufferOverflowException
+     *             if not enough remaining space in <code>buffer</code>.
+     */
+    void encode(MessageReader message, ByteBuffer buffer) throws BufferOverflowException;
+
+    /**
+     * @param message
+     *            message to encode
+     * @return encoded bytes
+     */
+    default byte[] encode(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        byte[] bytes = new byte[encodedSize(message)];
+        encode(message, ByteBuffer.wrap(bytes));
+
+        return bytes;
+    }
+
+    /**
+     * Decodes one message from <code>buffer</code>, starting from its current position. Position
+     * of <code>buffer</code> will be advanced to the end of the message.
+     * 
+     * @param buffer
+     *            buffer to read from
+     * @return decoded message
+     * 
+     * @throws MalformedMessageException
+     *             if content of <code>buffer</code> is not a valid encoded message.
+     */
+    ImmutableMessage decode(ByteBuffer buffer) throws MalformedMessageException;
+
+    /**
+     * @param bytes
+     *            encoded bytes
+     * @return decoded message
+     * 
+     * @throws MalformedMessageException
+     *             if <code>bytes</code> is not a valid encoded message.
+     */
+    default ImmutableMessage decode(byte[] bytes) throws MalformedMessageException {
+        Objects.requireNonNull(bytes);
+
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Returns a message over remaining bytes of <code>buffer</code>, which should be exactly one
+     * encoded message. Implementations may decode fields only when they are accessed, so content of
+     * <code>buffer</code> should not be modified anymore, and a malformed message may only be
+     * reported when accessed. Position of <code>buffer</code> is not changed.
+     * 
+     * <p>
+     * Default implementation decodes all fields immediately.
+     * </p>
+     * 
+     * @param buffer
+     *            buffer to read from
+     * @return view of the encoded message
+     * 
+     * @throws MalformedMessageException
+     *             if content of <code>buffer</code> is not a valid encoded message.
+     */
+    default ImmutableMessage view(ByteBuffer buffer) throws MalformedMessageException {
+        Objects.requireNonNull(buffer);
+
+        return decode(buffer.duplicate());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * Computes and applies {@link MessagePatch} between versions of a message.
+ * 
+ * <p>
+ * Diff walks fields of new message once, looking up each in old message. Fields of old message
+ * are only walked again when some of them are missing from new message. Nested messages which
+ * exist in both are diffed recursively, and the same instance is skipped without comparing.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class MessageDiff {
+    private MessageDiff() {
+    }
+
+    /**
+     * @param from
+     *            old version
+     * @param to
+     *            new version
+     * @return patch which turns <code>from</code> into <code>to</code>.
+     */
+    public static MessagePatch diff(ImmutableMessage from, ImmutableMessage to) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+
+        if (from == to) {
+            return MessagePatch.EMPTY;
+        }
+
+        FieldStore fromStore = FieldCursorImpl.storeOf(from);
+        FieldStore toStore = FieldCursorImpl.storeOf(to);
+
+        SlotFieldStore puts = null;
+        List<String> removes = null;
+        Map<String, MessagePatch> patches = null;
+        int common = 0;
+
+        FieldCursorImpl cursor = new FieldCursorImpl();
+        cursor.reset(toStore);
+        while (cursor.next()) {
+            String name = cursor.name();
+            FieldType type = cursor.type();
+
+            FieldType fromType = fromStore.typeOf(name);
+            if (fromType == null) {
+                puts = put(puts, cursor);
+                continue;
+            }
+
+            common++;
+            if (fromType != type) {
+                removes = add(removes, name);
+                puts = put(puts, cursor);
+            } else if (Field.isPrimitive(type)) {
+                if (fromStore.getBits(name, type) != cursor.bits()) {
+                    puts = put(puts, cursor);
+                }
+            } else if (type == FieldType.MESSAGE) {
+                Object fromRef = fromStore.getRef(name, type);
+                MessagePatch patch = diff((ImmutableMessage) fromRef,
+                        (ImmutableMessage) cursor.ref());
+                if (!patch.isEmpty()) {
+                    if (patches == null) {
+                        patches = new LinkedHashMap<>();
+                    }
+
+                    patches.put(name, patch);
+                }
+            } else if (!FieldValues.equal(type, 0L, fromStore.getRef(name, type), 0L,
+                    cursor.ref())) {
+                puts = put(puts, cursor);
+            }
+        }
+
+        if (common < fromStore.size()) {
+            for (String name : fromStore.names()) {
+                if (!toStore.contains(name)) {
+                    removes = add(removes, name);
+                }
+            }
+        }
+
+        return MessagePatch.of(
+                puts == null ? MessagePatch.EMPTY.puts() : new ImmutableMessageImpl(puts),
+                removes == null ? Collections.emptyList() : Collections.unmodifiableList(removes),
+                patches == null ? Collections.emptyMap() : Collections.unmodifiableMap(patches));
+    }
+
+    private static SlotFieldStore put(@Nullable SlotFieldStore puts, FieldCursorImpl cursor) {
+        if (puts == null) {
+            puts = new SlotFieldStore();
+        }
+
+        FieldType type = cursor.type();
+        if (Field.isPrimitive(type)) {
+            puts.putBits(cursor.name(), type, cursor.bits());
+        } else {
+            puts.putRef(cursor.name(), type, cursor.ref());
+        }
+
+        return puts;
+    }
+
+    private static List<String> add(@Nullable List<String> removes, String name) {
+        if (removes == null) {
+            removes = new ArrayList<>();
+        }
+
+        removes.add(name);
+        return removes;
+    }
+
+    /**
+     * Fields not changed by <code>patch</code>, including nested messages not patched, are shared
+     * with <code>base</code> instead of copied.
+     * 
+     * @param base
+     *            message which <code>patch</code> was computed from
+     * @param patch
+     *            patch to apply
+     * @return a new message with <code>patch</code> applied, or <code>base</code> if
+     *         <code>patch</code> is empty.
+     * 
+     * @throws FieldNotFoundException
+     *             if a nested message to patch not found in <code>base</code>.
+     * @throws InvalidTypeException
+     *             if a field to put or patch exists in <code>base</code> but another type.
+     */
+    public static ImmutableMessage apply(ImmutableMessage base, MessagePatch patch)
+            throws FieldNotFoundException, InvalidTypeException {
+        Objects.requireNonNull(base);
+        Objects.requireNonNull(patch);
+
+        if (patch.isEmpty()) {
+            return base;
+        }
+
+        FieldStore store = FieldCursorImpl.storeOf(base).mutableCopy();
+
+        for (String name : patch.removes()) {
+            store.remove(name);
+        }
+
+        FieldCursorImpl cursor = new FieldCursorImpl();
+        cursor.reset(FieldCursorImpl.storeOf(patch.puts()));
+        while (cursor.next()) {
+            FieldType type = cursor.type();
+            if (Field.isPrimitive(type)) {
+                store.putBits(cursor.name(), type, cursor.bits());
+            } else {
+                store.putRef(cursor.name(), type, cursor.ref());
+            }
+        }
+
+        for (Map.Entry<String, MessagePatch> entry : patch.patches().entrySet()) {
+            String name = entry.getKey();
+            ImmutableMessage nested = (ImmutableMessage) store.getRef(name, FieldType.MESSAGE);
+            store.putRef(name, FieldType.MESSAGE, apply(nested, entry.getValue()));
+        }
+
+        return new ImmutableMessageImpl(store);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Changes from one message to another, computed by {@link MessageDiff#diff(ImmutableMessage,
+ * ImmutableMessage)}.
+ * 
+ * <p>
+ * A patch is applied by removing fields in {@link #removes()}, putting fields in {@link #puts()},
+ * and then applying {@link #patches()} to nested messages. A field changed to another type is
+ * both removed and put.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@Immutable
+public final class MessagePatch {
+    private static final String PUTS = "puts";
+    private static final String REMOVES = "removes";
+    private static final String PATCHES = "patches";
+
+    private static final ImmutableMessage NO_FIELDS = new ImmutableMessageImpl(
+            new SlotFieldStore(0));
+
+    /**
+     * Patch without any change.
+     */
+    public static final MessagePatch EMPTY = new MessagePatch(NO_FIELDS, ImmutableList.of(),
+            ImmutableMap.of());
+
+    private final ImmutableMessage puts;
+    private final List<String> removes;
+    private final Map<String, MessagePatch> patches;
+
+    MessagePatch(ImmutableMessage puts, List<String> removes, Map<String, MessagePatch> patches) {
+        this.puts = puts;
+        this.removes = removes;
+        this.patches = patches;
+    }
+
+    /**
+     * @param puts
+     * @param removes
+     * @param patches
+     * @return a patch, or {@link #EMPTY} if nothing changed.
+     */
+    static MessagePatch of(ImmutableMessage puts, List<String> removes,
+            Map<String, MessagePatch> patches) {
+        if (puts.size() == 0 && removes.isEmpty() && patches.isEmpty()) {
+            return EMPTY;
+        }
+
+        return new MessagePatch(puts, removes, patches);
+    }
+
+    /**
+     * @return <code>true</code> if this patch does not change anything.
+     */
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /**
+     * @return fields added, or changed to another value.
+     */
+    public ImmutableMessage puts() {
+        return puts;
+    }
+
+    /**
+     * @return names of fields removed.
+     */
+    public List<String> removes() {
+        return removes;
+    }
+
+    /**
+     * @return patches to {@link FieldType#MESSAGE} fields which exist in both messages, by name.
+     */
+    public Map<String, MessagePatch> patches() {
+        return patches;
+    }
+
+    /**
+     * Patch as a message, so it can be published and encoded as any other message.
+     * 
+     * @return message of this patch.
+     * 
+     * @see #fromMessage(ImmutableMessage)
+     */
+    public ImmutableMessage toMessage() {
+        ImmutableMessage.Builder builder = Messages.builder(3);
+
+        if (puts.size() > 0) {
+            builder.putMessage(PUTS, puts);
+        }
+
+        if (!removes.isEmpty()) {
+            ImmutableMessage.Builder removesBuilder = Messages.builder(removes.size());
+            for (String name : removes) {
+                removesBuilder.putBoolean(name, true);
+            }
+
+            builder.putMessage(REMOVES, removesBuilder.build());
+        }
+
+        if (!patches.isEmpty()) {
+            ImmutableMessage.Builder patchesBuilder = Messages.builder(patches.size());
+            for (Map.Entry<String, MessagePatch> entry : patches.entrySet()) {
+                patchesBuilder.putMessage(entry.getKey(), entry.getValue().toMessage());
+            }
+
+            builder.putMessage(PATCHES, patchesBuilder.build());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @param message
+     *            message created by {@link #toMessage()}
+     * @return patch of <code>message</code>
+     * 
+     * @throws InvalidTypeException
+     *             if <code>message</code> is not a patch.
+     */
+    public static MessagePatch fromMessage(ImmutableMessage message) throws InvalidTypeException {
+        Objects.requireNonNull(message);
+
+        ImmutableMessage puts = message.tryGetMessage(PUTS, NO_FIELDS);
+
+        ImmutableList.Builder<String> removes = ImmutableList.builder();
+        ImmutableMessage removesMessage = message.tryGetMessage(REMOVES, NO_FIELDS);
+        for (String name : removesMessage.fieldNames()) {
+            removes.add(name);
+        }
+
+        ImmutableMap.Builder<String, MessagePatch> patches = ImmutableMap.builder();
+        ImmutableMessage patchesMessage = message.tryGetMessage(PATCHES, NO_FIELDS);
+        for (String name : patchesMessage.fieldNames()) {
+            patches.put(name, fromMessage(patchesMessage.getMessage(name)));
+        }
+
+        return of(puts, removes.build(), patches.build());
+    }
+
+    @Override
+    public String toString() {
+        return "MessagePatch{puts=" + puts + ", removes=" + removes + ", patches=" + patches + "}";
+    }
+}
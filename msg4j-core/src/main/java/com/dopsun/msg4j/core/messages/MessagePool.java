@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Pool of {@link RecyclableWritableMessage}, to avoid allocating a message per publish.
+ * 
+ * @see Messages#threadLocalPool(int)
+ * @see Messages#sharedPool(int)
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+public interface MessagePool {
+    /**
+     * @return an empty message, reused if any released one is available.
+     */
+    RecyclableWritableMessage acquire();
+}
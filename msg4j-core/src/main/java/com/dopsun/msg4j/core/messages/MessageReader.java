@@ -16,6 +16,10 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -36,11 +40,59 @@ public interface MessageReader {
      */
     void accept(MessageVisitor visitor);
 
+    /**
+     * Callers iterating many messages should keep one cursor from {@link Messages#cursor()}, and
+     * {@link FieldCursor#reset(MessageReader) reset} it to each message instead.
+     * 
+     * @return a cursor before the first field of this message.
+     */
+    default FieldCursor cursor() {
+        FieldCursor cursor = new FieldCursorImpl();
+        cursor.reset(this);
+        return cursor;
+    }
+
     /**
      * @return number of field
      */
     int size();
 
+    /**
+     * Estimates bytes of heap retained by this message, including nested messages and message
+     * lists, for byte budgets of caches and queues. Messages of this library compute it in one
+     * pass without allocation.
+     * 
+     * <p>
+     * Estimate is of a 64 bits JVM with compressed references. Field names are not counted, even
+     * if decoded by a message, as they are shared by messages of same kind; neither are strings of
+     * a {@link MessageBatch} dictionary, shared by its rows. A message nested in more than one
+     * message is counted in each of them.
+     * </p>
+     * 
+     * <p>
+     * Default implementation visits fields, and counts each as an entry of a hash map.
+     * </p>
+     * 
+     * @return estimated retained size in bytes.
+     */
+    default long estimatedRetainedSize() {
+        return MessageSizes.visited(this);
+    }
+
+    /**
+     * Messages keeping encoded bytes of <code>codec</code>, such as views decoded by it, return
+     * size of the bytes without encoding again.
+     * 
+     * @param codec
+     *            codec to encode with
+     * @return number of bytes of this message encoded by <code>codec</code>.
+     */
+    default int encodedSize(MessageCodec codec) {
+        Objects.requireNonNull(codec);
+
+        return codec.encodedSize(this);
+    }
+
     /**
      * @return all field names in this message.
      */
@@ -579,4 +631,234 @@ public interface MessageReader {
 
         return Optional.empty();
     }
+
+    /**
+     * Gets value for field specified by <code>fieldName</code>.
+     * 
+     * @param fieldName
+     *            field name
+     * @return read only buffer over values, from position <code>0</code>, which is not shared
+     *         with other callers.
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found.
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    IntBuffer getIntArray(String fieldName) throws FieldNotFoundException, InvalidTypeException;
+
+    /**
+     * @param fieldName
+     *            field name
+     * @param defaultValue
+     *            value returned if field not exist
+     * @return value of field if exist, otherwise <code>defaultValue</code>.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default IntBuffer tryGetIntArray(String fieldName, IntBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        if (contains(fieldName)) {
+            return getIntArray(fieldName);
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Tries get the value if present.
+     * 
+     * @param fieldName
+     *            field name
+     * @return optional value if present; otherwise {@link Optional#empty()}
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default Optional<IntBuffer> tryGetIntArray(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        if (contains(fieldName)) {
+            return Optional.of(getIntArray(fieldName));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Gets value for field specified by <code>fieldName</code>.
+     * 
+     * @param fieldName
+     *            field name
+     * @return read only buffer over values, from position <code>0</code>, which is not shared
+     *         with other callers.
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found.
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    LongBuffer getLongArray(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException;
+
+    /**
+     * @param fieldName
+     *            field name
+     * @param defaultValue
+     *            value returned if field not exist
+     * @return value of field if exist, otherwise <code>defaultValue</code>.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default LongBuffer tryGetLongArray(String fieldName, LongBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        if (contains(fieldName)) {
+            return getLongArray(fieldName);
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Tries get the value if present.
+     * 
+     * @param fieldName
+     *            field name
+     * @return optional value if present; otherwise {@link Optional#empty()}
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default Optional<LongBuffer> tryGetLongArray(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        if (contains(fieldName)) {
+            return Optional.of(getLongArray(fieldName));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Gets value for field specified by <code>fieldName</code>.
+     * 
+     * @param fieldName
+     *            field name
+     * @return read only buffer over values, from position <code>0</code>, which is not shared
+     *         with other callers.
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found.
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    DoubleBuffer getDoubleArray(String fieldName)
+            throws FieldNotFoundException, InvalidTypeException;
+
+    /**
+     * @param fieldName
+     *            field name
+     * @param defaultValue
+     *            value returned if field not exist
+     * @return value of field if exist, otherwise <code>defaultValue</code>.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default DoubleBuffer tryGetDoubleArray(String fieldName, DoubleBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        if (contains(fieldName)) {
+            return getDoubleArray(fieldName);
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Tries get the value if present.
+     * 
+     * @param fieldName
+     *            field name
+     * @return optional value if present; otherwise {@link Optional#empty()}
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default Optional<DoubleBuffer> tryGetDoubleArray(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        if (contains(fieldName)) {
+            return Optional.of(getDoubleArray(fieldName));
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Gets value for field specified by <code>fieldName</code>.
+     * 
+     * @param fieldName
+     *            field name
+     * @return read only buffer over bytes, from position <code>0</code>, which is not shared with
+     *         other callers.
+     * 
+     * @throws FieldNotFoundException
+     *             if field not found.
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    ByteBuffer getBytes(String fieldName) throws FieldNotFoundException, InvalidTypeException;
+
+    /**
+     * @param fieldName
+     *            field name
+     * @param defaultValue
+     *            value returned if field not exist
+     * @return value of field if exist, otherwise <code>defaultValue</code>.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default ByteBuffer tryGetBytes(String fieldName, ByteBuffer defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(defaultValue);
+
+        if (contains(fieldName)) {
+            return getBytes(fieldName);
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * Tries get the value if present.
+     * 
+     * @param fieldName
+     *            field name
+     * @return optional value if present; otherwise {@link Optional#empty()}
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    default Optional<ByteBuffer> tryGetBytes(String fieldName) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+
+        if (contains(fieldName)) {
+            return Optional.of(getBytes(fieldName));
+        }
+
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Estimates of retained heap size, for {@link MessageReader#estimatedRetainedSize()}.
+ * 
+ * <p>
+ * Sizes are of a 64 bits JVM with compressed references: 12 bytes object header, 16 bytes array
+ * header, 4 bytes reference, and objects aligned to 8 bytes. Field names are not counted, as they
+ * are shared by messages of same kind, through constants, name tables and layouts.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class MessageSizes {
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+
+    /**
+     * Size of a <code>String</code> without its characters: value reference and hash.
+     */
+    static final long STRING = object(REFERENCE + 4);
+
+    /**
+     * Size of an NIO buffer without its content: mark, position, limit, capacity, address,
+     * backing array and offset, and flags.
+     */
+    static final long BUFFER = object(4 * 4 + 8 + REFERENCE + 4 + 2);
+
+    /**
+     * Size of an immutable list without its elements: reference to array of elements.
+     */
+    static final long LIST = object(REFERENCE);
+
+    /**
+     * Size of an immutable message without its store: store and encoded form references, and
+     * fingerprint.
+     */
+    static final long IMMUTABLE_MESSAGE = object(2 * REFERENCE + 8);
+
+    /**
+     * Size of other messages without their store: store reference.
+     */
+    static final long MESSAGE = object(REFERENCE);
+
+    /**
+     * Size of a hash map entry: hash, and key, value and next references.
+     */
+    static final long MAP_ENTRY = object(4 + 3 * REFERENCE);
+
+    private MessageSizes() {
+    }
+
+    /**
+     * Estimates a message by visiting its fields, for messages not backed by a
+     * {@link FieldStore}, as a hash map: a map with table of twice fields, and each field counted
+     * as a {@link #MAP_ENTRY}, with a boxed value for primitives.
+     * 
+     * @param message
+     *            message to estimate
+     * @return estimated retained size of <code>message</code>.
+     */
+    static long visited(MessageReader message) {
+        VisitedSize visitor = new VisitedSize();
+        message.accept(visitor);
+
+        return MESSAGE + object(4 * REFERENCE + 4 * 4) + array(message.size() * 2, REFERENCE)
+                + visitor.size;
+    }
+
+    static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * @param fieldBytes
+     *            bytes of all fields of object
+     * @return size of object.
+     */
+    static long object(int fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * @param length
+     *            length of array
+     * @param elementSize
+     *            size of element
+     * @return size of array.
+     */
+    static long array(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    static long string(String value) {
+        return STRING + array(value.length(), 2);
+    }
+
+    /**
+     * @param buffer
+     *            buffer owns its remaining elements
+     * @param elementSize
+     *            size of element
+     * @return size of buffer and its remaining elements.
+     */
+    static long buffer(Buffer buffer, int elementSize) {
+        return BUFFER + array(buffer.remaining(), elementSize);
+    }
+
+    /**
+     * @param field
+     *            field wraps a value
+     * @return size of field and its value.
+     */
+    static long field(Field field) {
+        FieldType type = field.type();
+        if (Field.isPrimitive(type)) {
+            return object(type == FieldType.LONG || type == FieldType.DOUBLE ? 8 : 4);
+        }
+
+        return object(REFERENCE) + value(type, field.ref());
+    }
+
+    /**
+     * @param type
+     *            type of field, should not be primitive
+     * @param ref
+     *            value of field
+     * @return size retained by value.
+     */
+    static long value(FieldType type, @Nullable Object ref) {
+        if (ref == null) {
+            return 0L;
+        }
+
+        switch (type) {
+        case STRING:
+            return string((String) ref);
+        case MESSAGE:
+            return ((MessageReader) ref).estimatedRetainedSize();
+        case MESSAGE_LIST:
+            List<?> list = (List<?>) ref;
+            long size = LIST + array(list.size(), REFERENCE);
+            for (int i = 0; i < list.size(); i++) {
+                size += ((MessageReader) list.get(i)).estimatedRetainedSize();
+            }
+            return size;
+        case INT_ARRAY:
+            return buffer((Buffer) ref, 4);
+        case LONG_ARRAY:
+        case DOUBLE_ARRAY:
+            return buffer((Buffer) ref, 8);
+        case BYTES:
+            return buffer((Buffer) ref, 1);
+        default:
+            return 0L;
+        }
+    }
+
+    private static final class VisitedSize implements MessageVisitor {
+        private long size;
+
+        private void primitive(int bytes) {
+            size += MAP_ENTRY + object(bytes);
+        }
+
+        private void ref(FieldType type, Object value) {
+            size += MAP_ENTRY + value(type, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, boolean value) {
+            primitive(1);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, byte value) {
+            primitive(1);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, char value) {
+            primitive(2);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, short value) {
+            primitive(2);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, int value) {
+            primitive(4);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, long value) {
+            primitive(8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, float value) {
+            primitive(4);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, double value) {
+            primitive(8);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, String value) {
+            ref(fieldType, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, ImmutableMessage value) {
+            ref(fieldType, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, List<ImmutableMessage> value) {
+            ref(fieldType, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, IntBuffer value) {
+            ref(fieldType, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, LongBuffer value) {
+            ref(fieldType, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, DoubleBuffer value) {
+            ref(fieldType, value);
+        }
+
+        @Override
+        public void visit(String fieldName, FieldType fieldType, ByteBuffer value) {
+            ref(fieldType, value);
+        }
+    }
+}
@@ -16,6 +16,10 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.List;
 
 /**
@@ -101,4 +105,36 @@ public interface MessageVisitor {
      * @param value
      */
     void visit(String fieldName, FieldType fieldType, List<ImmutableMessage> value);
+
+    /**
+     * @param fieldName
+     * @param fieldType
+     * @param value
+     *            read only buffer over values
+     */
+    void visit(String fieldName, FieldType fieldType, IntBuffer value);
+
+    /**
+     * @param fieldName
+     * @param fieldType
+     * @param value
+     *            read only buffer over values
+     */
+    void visit(String fieldName, FieldType fieldType, LongBuffer value);
+
+    /**
+     * @param fieldName
+     * @param fieldType
+     * @param value
+     *            read only buffer over values
+     */
+    void visit(String fieldName, FieldType fieldType, DoubleBuffer value);
+
+    /**
+     * @param fieldName
+     * @param fieldType
+     * @param value
+     *            read only buffer over bytes
+     */
+    void visit(String fieldName, FieldType fieldType, ByteBuffer value);
 }
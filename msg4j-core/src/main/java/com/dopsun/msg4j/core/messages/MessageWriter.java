@@ -16,6 +16,7 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -176,4 +177,61 @@ public interface MessageWriter {
      *             if field exists but not expected type.
      */
     void putMessageList(String fieldName, List<ImmutableMessage> value) throws InvalidTypeException;
+
+    /**
+     * Puts a copy of <code>value</code> to field specified by <code>fieldName</code>, so later
+     * changes to <code>value</code> are not seen by message.
+     * 
+     * @param fieldName
+     *            field name
+     * @param value
+     *            value to put
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    void putIntArray(String fieldName, int[] value) throws InvalidTypeException;
+
+    /**
+     * Puts a copy of <code>value</code> to field specified by <code>fieldName</code>, so later
+     * changes to <code>value</code> are not seen by message.
+     * 
+     * @param fieldName
+     *            field name
+     * @param value
+     *            value to put
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    void putLongArray(String fieldName, long[] value) throws InvalidTypeException;
+
+    /**
+     * Puts a copy of <code>value</code> to field specified by <code>fieldName</code>, so later
+     * changes to <code>value</code> are not seen by message.
+     * 
+     * @param fieldName
+     *            field name
+     * @param value
+     *            value to put
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    void putDoubleArray(String fieldName, double[] value) throws InvalidTypeException;
+
+    /**
+     * Puts remaining bytes of <code>value</code> to field specified by <code>fieldName</code>.
+     * Bytes are shared with <code>value</code> instead of copied, so they should not be modified
+     * anymore; position of <code>value</code> is not changed.
+     * 
+     * @param fieldName
+     *            field name
+     * @param value
+     *            value to put
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    void putBytes(String fieldName, ByteBuffer value) throws InvalidTypeException;
 }
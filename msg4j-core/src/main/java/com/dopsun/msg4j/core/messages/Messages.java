@@ -16,6 +16,8 @@
 
 package com.dopsun.msg4j.core.messages;
 
+import java.util.Objects;
+
 /**
  * Factory methods.
  * 
@@ -23,10 +25,97 @@ package com.dopsun.msg4j.core.messages;
  * @since 1.0.0
  */
 public final class Messages {
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+
     /**
      * @return a writable message
      */
     public static final WritableMessage create() {
         return new WritableMessageImpl();
     }
+
+    /**
+     * @param storage
+     *            how fields are stored.
+     * @return a writable message
+     */
+    public static final WritableMessage create(FieldStorage storage) {
+        Objects.requireNonNull(storage);
+
+        switch (storage) {
+        case HASH_MAP:
+            return new WritableMessageImpl(new MapFieldStore());
+        case PRIMITIVE_SLOTS:
+            return new WritableMessageImpl(new SlotFieldStore());
+        case PERSISTENT_TRIE:
+            return new WritableMessageImpl(new TrieFieldStore());
+        default:
+            throw new IllegalArgumentException("Unrecognized storage: " + storage);
+        }
+    }
+
+    /**
+     * @param layout
+     *            layout of fields, see {@link FieldLayout}.
+     * @return a writable message
+     */
+    public static final WritableMessage create(FieldLayout layout) {
+        Objects.requireNonNull(layout);
+
+        return new WritableMessageImpl(new SlotFieldStore(layout));
+    }
+
+    /**
+     * @return a builder of immutable message
+     */
+    public static final ImmutableMessage.Builder builder() {
+        return new ImmutableMessageBuilder(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize
+     *            expected number of fields, used to presize storage.
+     * @return a builder of immutable message
+     */
+    public static final ImmutableMessage.Builder builder(int expectedSize) {
+        return new ImmutableMessageBuilder(expectedSize);
+    }
+
+    /**
+     * @return a cursor not on any message yet, see {@link FieldCursor#reset(MessageReader)}.
+     */
+    public static final FieldCursor cursor() {
+        return new FieldCursorImpl();
+    }
+
+    /**
+     * Creates a pool keeping released messages per thread, which suits threads acquiring and
+     * releasing messages by themselves.
+     * 
+     * @param capacity
+     *            max number of released messages kept per thread.
+     * @return a message pool
+     */
+    public static final MessagePool threadLocalPool(int capacity) {
+        return new ThreadLocalMessagePool(capacity);
+    }
+
+    /**
+     * Creates a pool keeping released messages in a bounded queue, which suits messages released by
+     * threads other than the acquiring one.
+     * 
+     * @param capacity
+     *            max number of released messages kept.
+     * @return a message pool
+     */
+    public static final MessagePool sharedPool(int capacity) {
+        return new SharedMessagePool(capacity);
+    }
+
+    /**
+     * @return compact binary codec, see {@link MessageCodec}.
+     */
+    public static final MessageCodec binaryCodec() {
+        return BinaryMessageCodec.INSTANCE;
+    }
 }
@@ -0,0 +1,845 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Messages by key, kept encoded in slabs of direct or memory-mapped buffers outside of Java heap,
+ * so a cache of millions of messages does not add to garbage collection. Only keys and an index
+ * of <code>long</code> locations are kept on heap.
+ * 
+ * <p>
+ * Each message is one record in a slab. Space of replaced and removed records goes to free lists
+ * and is reused by later records of same or smaller size; fragments left behind are reclaimed by
+ * {@link #compact()}, which slides live records towards start of slabs and releases slabs no
+ * longer used.
+ * </p>
+ * 
+ * <p>
+ * Messages are read through {@link MessageCodec#view(ByteBuffer)}, so fields are decoded only
+ * when accessed if codec does so. {@link #get(Object)} and {@link #forEach(BiConsumer)} copy
+ * encoded bytes to heap first, and the messages can be kept as long as needed;
+ * {@link #read(Object, Function)} and {@link #forEachView(BiConsumer)} read slabs directly, and
+ * the messages are only valid inside of the callback.
+ * </p>
+ * 
+ * <p>
+ * All methods can be called concurrently. Reads share a lock, and writes are exclusive, so
+ * callbacks must not write to this store.
+ * </p>
+ * 
+ * @param <K>
+ *            type of key
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+public final class OffHeapMessageStore<K> implements AutoCloseable {
+    /**
+     * Default size of a slab, in bytes.
+     */
+    public static final int DEFAULT_SLAB_SIZE = 1 << 24;
+
+    /**
+     * Size of record header: size of record, and length of encoded bytes.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    /**
+     * Records are aligned to 8 bytes, and a free block should at least hold a header.
+     */
+    private static final int MIN_BLOCK_SIZE = 16;
+
+    private static final int COPY_CHUNK_SIZE = 8192;
+
+    /**
+     * @return a builder of store.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final MessageCodec codec;
+    private final int slabSize;
+    @Nullable
+    private final Path directory;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+
+    /**
+     * Locations of free blocks by block size.
+     */
+    private final TreeMap<Integer, ArrayDeque<Long>> freeBlocks = new TreeMap<>();
+
+    private Object[] keys = new Object[16];
+    private long[] locations = new long[16];
+    private int size;
+
+    private int tailSlab = -1;
+    private int tailOffset;
+
+    private long usedBytes;
+    private long freeBytes;
+    private boolean closed;
+
+    private OffHeapMessageStore(Builder builder) {
+        this.codec = builder.codec;
+        this.slabSize = builder.slabSize;
+        this.directory = builder.directory;
+    }
+
+    /**
+     * @return codec of encoded messages.
+     */
+    public MessageCodec codec() {
+        return codec;
+    }
+
+    /**
+     * @return number of messages.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of bytes of slabs allocated.
+     */
+    public long capacityBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) slabs.size() * slabSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of bytes of records of messages, including headers and alignment.
+     */
+    public long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of bytes in free lists, to be reused by new records or reclaimed by
+     *         {@link #compact()}.
+     */
+    public long freeBytes() {
+        lock.readLock().lock();
+        try {
+            return freeBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param key
+     *            key of message
+     * @return <code>true</code> if a message of <code>key</code> exists.
+     */
+    public boolean containsKey(K key) {
+        Objects.requireNonNull(key);
+
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            return slotOf(key) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a copy of all keys, in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<K> keys() {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+
+            List<K> result = new ArrayList<>(size);
+            for (Object key : keys) {
+                if (key != null) {
+                    result.add((K) key);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param key
+     *            key of message
+     * @return message of <code>key</code> over a heap copy of its encoded bytes, or
+     *         <code>null</code> if not exists.
+     */
+    @Nullable
+    public ImmutableMessage get(K key) {
+        Objects.requireNonNull(key);
+
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            checkOpen();
+
+            int slot = slotOf(key);
+            if (slot < 0) {
+                return null;
+            }
+
+            bytes = copyOf(recordOf(locations[slot]));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return codec.view(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads message of <code>key</code> without copying it out of slab.
+     * 
+     * @param key
+     *            key of message
+     * @param reader
+     *            called with message of <code>key</code>, which is only valid in this call
+     * @return result of <code>reader</code>, or <code>null</code> if message not exists.
+     */
+    @Nullable
+    public <R> R read(K key, Function<? super ImmutableMessage, ? extends R> reader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(reader);
+
+        lock.readLock().lock();
+        try {
+            checkOpen();
+
+            int slot = slotOf(key);
+            if (slot < 0) {
+                return null;
+            }
+
+            return reader.apply(codec.view(recordOf(locations[slot])));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits all messages over heap copies of their encoded bytes, in no particular order.
+     * 
+     * @param consumer
+     *            called with key and message
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super ImmutableMessage> consumer) {
+        Objects.requireNonNull(consumer);
+
+        lock.readLock().lock();
+        try {
+            checkOpen();
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    byte[] bytes = copyOf(recordOf(locations[i]));
+                    consumer.accept((K) keys[i], codec.view(ByteBuffer.wrap(bytes)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits all messages without copying them out of slabs, in no particular order.
+     * 
+     * @param consumer
+     *            called with key and message, which is only valid in this call
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachView(BiConsumer<? super K, ? super ImmutableMessage> consumer) {
+        Objects.requireNonNull(consumer);
+
+        lock.readLock().lock();
+        try {
+            checkOpen();
+
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    consumer.accept((K) keys[i], codec.view(recordOf(locations[i])));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts <code>message</code>, or replaces message of same key. A replaced record is
+     * overwritten in place if big enough, otherwise it goes to free lists. Space left in records
+     * by smaller replacements is reclaimed by {@link #compact()}.
+     * 
+     * @param key
+     *            key of message
+     * @param message
+     *            message to keep
+     * 
+     * @throws IllegalArgumentException
+     *             if encoded message and record header does not fit in a slab.
+     */
+    public void put(K key, MessageReader message) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(message);
+
+        ByteBuffer encoded = null;
+        int length;
+        if (message instanceof ImmutableMessage) {
+            encoded = ((ImmutableMessage) message).encoded(codec);
+            length = encoded.remaining();
+        } else {
+            length = codec.encodedSize(message);
+        }
+
+        int blockSize = blockSizeOf(length);
+        if (blockSize > slabSize) {
+            throw new IllegalArgumentException(
+                    "Message of " + length + " bytes does not fit in slab of " + slabSize);
+        }
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+
+            int slot = slotOf(key);
+            long location;
+            if (slot >= 0) {
+                location = locations[slot];
+                int currentSize = sizeAt(location);
+                if (currentSize >= blockSize) {
+                    // Block is kept whole, so message can grow back in place.
+                    blockSize = currentSize;
+                } else {
+                    release(location, currentSize);
+                    location = allocate(blockSize);
+                    blockSize = sizeAt(location);
+                    locations[slot] = location;
+                    usedBytes += blockSize;
+                }
+            } else {
+                location = allocate(blockSize);
+                blockSize = sizeAt(location);
+                insert(-slot - 1, key, location);
+                usedBytes += blockSize;
+            }
+
+            write(location, blockSize, length, encoded, message);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param key
+     *            key of message
+     * @return <code>true</code> if message removed.
+     */
+    public boolean remove(K key) {
+        Objects.requireNonNull(key);
+
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+
+            int slot = slotOf(key);
+            if (slot < 0) {
+                return false;
+            }
+
+            long location = locations[slot];
+            release(location, sizeAt(location));
+            removeSlot(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves live records towards start of slabs in their current order, so free space is
+     * reclaimed, and releases slabs not used anymore. Blocks writes and reads while running.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+
+            Integer[] slots = new Integer[size];
+            int count = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    slots[count++] = Integer.valueOf(i);
+                }
+            }
+
+            Arrays.sort(slots, (a, b) -> Long.compare(locations[a], locations[b]));
+
+            freeBlocks.clear();
+            freeBytes = 0;
+            usedBytes = 0;
+            tailSlab = slabs.isEmpty() ? -1 : 0;
+            tailOffset = 0;
+
+            byte[] chunk = new byte[COPY_CHUNK_SIZE];
+            for (Integer slot : slots) {
+                long from = locations[slot];
+                int length = lengthAt(from);
+                int blockSize = blockSizeOf(length);
+
+                // Target never passes source, as records are moved in order of location, and
+                // free blocks are only left at ends of slabs already compacted.
+                long to = allocate(blockSize);
+                blockSize = sizeAt(to);
+                move(from, to, HEADER_SIZE + length, chunk);
+                slabs.get(slabOf(to)).putInt(offsetOf(to), blockSize);
+
+                locations[slot] = to;
+                usedBytes += blockSize;
+            }
+
+            for (int i = slabs.size() - 1; i > Math.max(tailSlab, 0); i--) {
+                slabs.remove(i);
+                deleteFile(files.remove(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Releases all slabs, and deletes files of memory-mapped slabs. Mapped memory itself is
+     * unmapped when buffers are garbage collected, so on platforms where mapped files cannot be
+     * deleted, such as Windows, files are left in place and should be cleaned up by caller.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            slabs.clear();
+            freeBlocks.clear();
+            keys = new Object[0];
+            locations = new long[0];
+            size = 0;
+
+            for (Path file : files) {
+                deleteFile(file);
+            }
+            files.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Store closed.");
+        }
+    }
+
+    private static long locationOf(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+
+    private static int slabOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    private static int blockSizeOf(int length) {
+        return (HEADER_SIZE + length + 7) & ~7;
+    }
+
+    private int sizeAt(long location) {
+        return slabs.get(slabOf(location)).getInt(offsetOf(location));
+    }
+
+    private int lengthAt(long location) {
+        return slabs.get(slabOf(location)).getInt(offsetOf(location) + 4);
+    }
+
+    /**
+     * @return read only buffer over encoded bytes of record at <code>location</code>.
+     */
+    private ByteBuffer recordOf(long location) {
+        ByteBuffer buffer = slabs.get(slabOf(location)).asReadOnlyBuffer();
+
+        int start = offsetOf(location) + HEADER_SIZE;
+        buffer.limit(start + lengthAt(location));
+        buffer.position(start);
+        return buffer.slice();
+    }
+
+    private static byte[] copyOf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private void write(long location, int blockSize, int length, @Nullable ByteBuffer encoded,
+            MessageReader message) {
+        ByteBuffer slab = slabs.get(slabOf(location));
+        int offset = offsetOf(location);
+
+        slab.putInt(offset, blockSize);
+        slab.putInt(offset + 4, length);
+
+        ByteBuffer target = slab.duplicate();
+        target.limit(offset + HEADER_SIZE + length);
+        target.position(offset + HEADER_SIZE);
+
+        if (encoded != null) {
+            target.put(encoded.duplicate());
+        } else {
+            codec.encode(message, target);
+        }
+    }
+
+    /**
+     * Copies <code>length</code> bytes from <code>from</code> to <code>to</code>, forwards by
+     * chunks, so regions may overlap if <code>to</code> is before <code>from</code>.
+     */
+    private void move(long from, long to, int length, byte[] chunk) {
+        if (from == to) {
+            return;
+        }
+
+        ByteBuffer source = slabs.get(slabOf(from)).duplicate();
+        ByteBuffer target = slabs.get(slabOf(to)).duplicate();
+        source.position(offsetOf(from));
+        target.position(offsetOf(to));
+
+        int remaining = length;
+        while (remaining > 0) {
+            int count = Math.min(remaining, chunk.length);
+            source.get(chunk, 0, count);
+            target.put(chunk, 0, count);
+            remaining -= count;
+        }
+    }
+
+    /**
+     * @return location of a block of at least <code>blockSize</code>, from free lists if any
+     *         block is big enough, otherwise from tail of slabs. Space left too small to be a
+     *         block is kept in the block, and real size of block is written to its header.
+     */
+    private long allocate(int blockSize) {
+        Map.Entry<Integer, ArrayDeque<Long>> entry = freeBlocks.ceilingEntry(blockSize);
+        if (entry != null) {
+            int freeSize = entry.getKey().intValue();
+            long location = entry.getValue().pop().longValue();
+            if (entry.getValue().isEmpty()) {
+                freeBlocks.remove(entry.getKey());
+            }
+
+            freeBytes -= freeSize;
+            split(location, freeSize, blockSize);
+            return location;
+        }
+
+        if (tailSlab < 0 || tailOffset + blockSize > slabSize) {
+            if (tailSlab >= 0) {
+                addFree(locationOf(tailSlab, tailOffset), slabSize - tailOffset);
+            }
+
+            tailSlab++;
+            tailOffset = 0;
+            if (tailSlab == slabs.size()) {
+                addSlab();
+            }
+        }
+
+        if (slabSize - tailOffset - blockSize < MIN_BLOCK_SIZE) {
+            blockSize = slabSize - tailOffset;
+        }
+
+        long location = locationOf(tailSlab, tailOffset);
+        slabs.get(tailSlab).putInt(tailOffset, blockSize);
+        tailOffset += blockSize;
+        return location;
+    }
+
+    /**
+     * Shrinks block at <code>location</code> to <code>blockSize</code>, and frees the rest if
+     * big enough to be a block, otherwise keeps <code>currentSize</code>.
+     */
+    private void split(long location, int currentSize, int blockSize) {
+        int rest = currentSize - blockSize;
+        if (rest < MIN_BLOCK_SIZE) {
+            blockSize = currentSize;
+        } else {
+            addFree(location + blockSize, rest);
+        }
+
+        slabs.get(slabOf(location)).putInt(offsetOf(location), blockSize);
+    }
+
+    private void release(long location, int blockSize) {
+        usedBytes -= blockSize;
+        addFree(location, blockSize);
+    }
+
+    private void addFree(long location, int blockSize) {
+        if (blockSize < MIN_BLOCK_SIZE) {
+            return;
+        }
+
+        slabs.get(slabOf(location)).putInt(offsetOf(location), blockSize);
+        freeBlocks.computeIfAbsent(Integer.valueOf(blockSize), k -> new ArrayDeque<>())
+                .push(Long.valueOf(location));
+        freeBytes += blockSize;
+    }
+
+    private void addSlab() {
+        if (directory == null) {
+            slabs.add(ByteBuffer.allocateDirect(slabSize));
+            files.add(null);
+            return;
+        }
+
+        try {
+            Path file = Files.createTempFile(directory, "msg4j-", ".slab");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer slab = channel.map(FileChannel.MapMode.READ_WRITE, 0, slabSize);
+                slabs.add(slab);
+                files.add(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes <code>file</code> of a slab no longer referenced, or leaves it in place if it cannot
+     * be deleted while still mapped.
+     */
+    private static void deleteFile(@Nullable Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Still mapped until buffer garbage collected, see close().
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return slot of <code>key</code>, or <code>-(insertion slot) - 1</code> if not exists.
+     */
+    private int slotOf(Object key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            Object current = keys[slot];
+            if (current == null) {
+                return -slot - 1;
+            }
+            if (current.equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(int slot, Object key, long location) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+            slot = -slotOf(key) - 1;
+        }
+
+        keys[slot] = key;
+        locations[slot] = location;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        long[] oldLocations = locations;
+
+        keys = new Object[capacity];
+        locations = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = -slotOf(oldKeys[i]) - 1;
+                keys[slot] = oldKeys[i];
+                locations[slot] = oldLocations[i];
+            }
+        }
+    }
+
+    /**
+     * Removes key of <code>slot</code>, and shifts following keys of same probe sequence back, so
+     * lookups need no tombstones.
+     */
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            Object key = keys[next];
+            if (key == null) {
+                break;
+            }
+
+            int home = hash(key) & mask;
+            boolean movable = next > hole ? (home <= hole || home > next)
+                    : (home <= hole && home > next);
+            if (movable) {
+                keys[hole] = key;
+                locations[hole] = locations[next];
+                hole = next;
+            }
+        }
+
+        keys[hole] = null;
+        locations[hole] = 0L;
+        size--;
+    }
+
+    /**
+     * Builder of {@link OffHeapMessageStore}.
+     * 
+     * @author Dop Sun
+     * @since 1.0.0
+     */
+    public static class Builder {
+        private MessageCodec codec = Messages.binaryCodec();
+        private int slabSize = DEFAULT_SLAB_SIZE;
+        @Nullable
+        private Path directory;
+
+        Builder() {
+        }
+
+        /**
+         * @param codec
+         *            codec to encode messages with, {@link Messages#binaryCodec()} by default
+         * @return
+         */
+        public Builder codec(MessageCodec codec) {
+            this.codec = Objects.requireNonNull(codec);
+
+            return this;
+        }
+
+        /**
+         * @param slabSize
+         *            size of each slab in bytes, which limits size of a message
+         * @return
+         * 
+         * @throws IllegalArgumentException
+         *             if <code>slabSize</code> is less than <code>16</code> or not a multiple of
+         *             <code>8</code>.
+         */
+        public Builder slabSize(int slabSize) {
+            if (slabSize < MIN_BLOCK_SIZE || slabSize % 8 != 0) {
+                throw new IllegalArgumentException("Invalid slab size: " + slabSize);
+            }
+
+            this.slabSize = slabSize;
+
+            return this;
+        }
+
+        /**
+         * Keeps slabs in memory-mapped files of <code>directory</code> instead of direct buffers,
+         * so cache can be bigger than physical memory. Files are deleted when store closed, where
+         * platform allows deleting mapped files.
+         * 
+         * @param directory
+         *            directory of slab files
+         * @return
+         */
+        public Builder mappedFiles(Path directory) {
+            this.directory = Objects.requireNonNull(directory);
+
+            return this;
+        }
+
+        /**
+         * @return a new store.
+         */
+        public <K> OffHeapMessageStore<K> build() {
+            return new OffHeapMessageStore<>(this);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * Cached {@link OptionalInt} and {@link OptionalLong} of small values, such as flags, counts and
+ * enum ordinals, which are most of present values read from messages; and {@link Optional} of
+ * each {@link FieldType}, which is read per field when messages are filtered.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class OptionalValues {
+    private static final int LOW = -128;
+    private static final int HIGH = 1023;
+
+    private static final OptionalInt[] INTS = new OptionalInt[HIGH - LOW + 1];
+    private static final OptionalLong[] LONGS = new OptionalLong[HIGH - LOW + 1];
+
+    private static final FieldType[] FIELD_TYPE_VALUES = FieldType.values();
+    private static final Optional<FieldType>[] FIELD_TYPES = newFieldTypes();
+
+    static {
+        for (int i = 0; i < INTS.length; i++) {
+            INTS[i] = OptionalInt.of(LOW + i);
+            LONGS[i] = OptionalLong.of(LOW + i);
+        }
+
+        for (FieldType type : FIELD_TYPE_VALUES) {
+            FIELD_TYPES[type.ordinal()] = Optional.of(type);
+        }
+    }
+
+    private OptionalValues() {
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Optional<FieldType>[] newFieldTypes() {
+        Optional<FieldType>[] fieldTypes = new Optional[FIELD_TYPE_VALUES.length];
+        return fieldTypes;
+    }
+
+    /**
+     * @param value
+     * @return present optional of <code>value</code>, cached if <code>value</code> is small.
+     */
+    static OptionalInt ofInt(int value) {
+        if (value >= LOW && value <= HIGH) {
+            return INTS[value - LOW];
+        }
+
+        return OptionalInt.of(value);
+    }
+
+    /**
+     * @param value
+     * @return present optional of <code>value</code>, cached if <code>value</code> is small.
+     */
+    static OptionalLong ofLong(long value) {
+        if (value >= LOW && value <= HIGH) {
+            return LONGS[(int) value - LOW];
+        }
+
+        return OptionalLong.of(value);
+    }
+
+    /**
+     * @param type
+     * @return cached optional of <code>type</code>, or empty if <code>type</code> is
+     *         <code>null</code>.
+     */
+    static Optional<FieldType> ofFieldType(@Nullable FieldType type) {
+        return type == null ? Optional.empty() : FIELD_TYPES[type.ordinal()];
+    }
+}
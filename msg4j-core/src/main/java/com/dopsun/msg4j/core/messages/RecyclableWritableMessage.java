@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import com.dopsun.msg4j.core.delivery.transports.Transport;
+
+/**
+ * Writable message which can be reused, after being {@link #release() released} to the
+ * {@link MessagePool} it acquired from.
+ * 
+ * <p>
+ * A message can be released when nobody will access it anymore, which includes:
+ * </p>
+ * <ul>
+ * <li>after {@link Transport#publish} returns, as transports do not keep writable messages;</li>
+ * <li>immutable messages created by {@link #toImmutable()} are not affected, and can be kept.</li>
+ * </ul>
+ * <p>
+ * A message should not be used after released, and should not be released more than once.
+ * </p>
+ * 
+ * <pre>
+ * try (RecyclableWritableMessage message = pool.acquire()) {
+ *     message.putLong("price", price);
+ *     transport.publish(destination, message);
+ * }
+ * </pre>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public interface RecyclableWritableMessage extends WritableMessage, AutoCloseable {
+    /**
+     * Removes all fields, and keeps allocated storage for reuse.
+     */
+    void reset();
+
+    /**
+     * Resets this message, and returns it to its pool.
+     * 
+     * @throws IllegalStateException
+     *             if this message has been released.
+     */
+    void release() throws IllegalStateException;
+
+    /**
+     * Same as {@link #release()}.
+     */
+    @Override
+    default void close() {
+        release();
+    }
+}
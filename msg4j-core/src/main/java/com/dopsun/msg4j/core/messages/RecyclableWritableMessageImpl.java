@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.util.function.Consumer;
+
+/**
+ * Recyclable message, backed by {@link SlotFieldStore} which keeps its arrays and field names
+ * across reuse.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class RecyclableWritableMessageImpl extends WritableMessageImpl
+        implements RecyclableWritableMessage {
+    private final Consumer<RecyclableWritableMessageImpl> recycler;
+
+    private boolean released;
+
+    /**
+     * @param recycler
+     *            takes back released message
+     */
+    RecyclableWritableMessageImpl(Consumer<RecyclableWritableMessageImpl> recycler) {
+        super(new SlotFieldStore());
+
+        this.recycler = recycler;
+    }
+
+    /**
+     * Marks this message as acquired from pool.
+     */
+    void acquired() {
+        released = false;
+    }
+
+    @Override
+    public void reset() {
+        store().clear();
+    }
+
+    @Override
+    public void release() {
+        if (released) {
+            throw new IllegalStateException("Message has been released.");
+        }
+
+        released = true;
+        reset();
+        recycler.accept(this);
+    }
+}
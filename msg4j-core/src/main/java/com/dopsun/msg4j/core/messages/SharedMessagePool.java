@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps released messages in a bounded queue shared by all threads. Messages released when queue
+ * is full are left to garbage collector.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class SharedMessagePool implements MessagePool {
+    private final BlockingQueue<RecyclableWritableMessageImpl> pool;
+
+    /**
+     * @param capacity
+     *            max number of released messages kept.
+     */
+    SharedMessagePool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+
+        this.pool = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public RecyclableWritableMessage acquire() {
+        RecyclableWritableMessageImpl message = pool.poll();
+        if (message == null) {
+            return new RecyclableWritableMessageImpl(pool::offer);
+        }
+
+        message.acquired();
+        return message;
+    }
+}
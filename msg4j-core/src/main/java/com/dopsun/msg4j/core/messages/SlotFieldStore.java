@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * Field store keeps values in parallel arrays, indexed by slot from a {@link FieldNameTable}.
+ * Primitive values are kept in a <code>long[]</code>, so put and get of primitive values do not
+ * allocate.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class SlotFieldStore extends FieldStore {
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+
+    /**
+     * Layout this store created for, slots of which are valid in this store.
+     */
+    @Nullable
+    private final FieldLayout layout;
+
+    private FieldNameTable nameTable;
+
+    /**
+     * Type of field in slot, <code>null</code> if field not exists.
+     */
+    private FieldType[] types;
+    private long[] bits;
+    private Object[] refs;
+
+    private int size;
+
+    SlotFieldStore() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize
+     *            expected number of fields
+     */
+    SlotFieldStore(int expectedSize) {
+        this(new FieldNameTable(expectedSize), null);
+    }
+
+    /**
+     * @param layout
+     *            layout which names are placed in its slots
+     */
+    SlotFieldStore(FieldLayout layout) {
+        this(layout.nameTable(), Objects.requireNonNull(layout));
+    }
+
+    private SlotFieldStore(FieldNameTable nameTable, @Nullable FieldLayout layout) {
+        this.layout = layout;
+        this.nameTable = nameTable;
+
+        int capacity = nameTable.capacity();
+        this.types = new FieldType[capacity];
+        this.bits = new long[capacity];
+        this.refs = new Object[capacity];
+    }
+
+    private SlotFieldStore(SlotFieldStore source) {
+        source.nameTable.share();
+
+        int length = source.nameTable.size();
+
+        this.layout = source.layout;
+        this.nameTable = source.nameTable;
+        this.types = Arrays.copyOf(source.types, length);
+        this.bits = Arrays.copyOf(source.bits, length);
+        this.refs = Arrays.copyOf(source.refs, length);
+        this.size = source.size;
+    }
+
+    /**
+     * @param name
+     * @return slot of field, or <code>-1</code> if field not exists.
+     */
+    private int find(String name) {
+        int slot = nameTable.indexOf(name);
+        if (slot < 0 || types[slot] == null) {
+            return -1;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Names are never removed from name table, so slots of {@link #layout()} are valid for this
+     * store, and all copies of it.
+     * 
+     * @return layout this store created for, or <code>null</code>.
+     */
+    @Nullable
+    FieldLayout layout() {
+        return layout;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    Collection<String> names() {
+        return new AbstractCollection<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new NameIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return (o instanceof String) && find((String) o) >= 0;
+            }
+        };
+    }
+
+    @Override
+    boolean contains(String name) {
+        return find(name) >= 0;
+    }
+
+    @Override
+    @Nullable
+    FieldType typeOf(String name) {
+        int slot = nameTable.indexOf(name);
+        return slot < 0 ? null : types[slot];
+    }
+
+    @Override
+    long getBits(String name, FieldType type) {
+        return bits[checkedSlot(name, type)];
+    }
+
+    @Override
+    Object getRef(String name, FieldType type) {
+        return refs[checkedSlot(name, type)];
+    }
+
+    private int checkedSlot(String name, FieldType type) {
+        int slot = nameTable.indexOf(name);
+        if (slot < 0) {
+            throw new FieldNotFoundException(name);
+        }
+
+        return checkedSlot(slot, type);
+    }
+
+    private int checkedSlot(int slot, FieldType type) {
+        FieldType actual = types[slot];
+        if (actual == null) {
+            throw new FieldNotFoundException(nameTable.name(slot));
+        }
+
+        if (actual != type) {
+            throw new InvalidTypeException(nameTable.name(slot), type, actual);
+        }
+
+        return slot;
+    }
+
+    @Override
+    long tryGetBits(String name, FieldType type, long defaultBits) {
+        int slot = nameTable.indexOf(name);
+        return slot < 0 ? defaultBits : tryGetBits(slot, type, defaultBits);
+    }
+
+    @Override
+    @Nullable
+    Object tryGetRef(String name, FieldType type) {
+        int slot = nameTable.indexOf(name);
+        return slot < 0 ? null : tryGetRef(slot, type);
+    }
+
+    /**
+     * @param slot
+     * @param type
+     * @return <code>true</code> if field in <code>slot</code> exists.
+     * 
+     * @throws InvalidTypeException
+     *             if field exists but not expected type.
+     */
+    private boolean isPresent(int slot, FieldType type) {
+        FieldType actual = types[slot];
+        if (actual == null) {
+            return false;
+        }
+
+        if (actual != type) {
+            throw new InvalidTypeException(nameTable.name(slot), type, actual);
+        }
+
+        return true;
+    }
+
+    @Override
+    void putBits(String name, FieldType type, long value) {
+        int slot = slotForPut(name, type);
+        bits[slot] = value;
+    }
+
+    @Override
+    void putRef(String name, FieldType type, Object ref) {
+        int slot = slotForPut(name, type);
+        refs[slot] = ref;
+    }
+
+    private int slotForPut(String name, FieldType type) {
+        int slot = nameTable.indexOf(name);
+        if (slot < 0) {
+            if (nameTable.isShared()) {
+                nameTable = nameTable.copy();
+            }
+
+            slot = nameTable.add(name);
+            ensureCapacity(nameTable.capacity());
+        }
+
+        return slotForPut(slot, type);
+    }
+
+    private int slotForPut(int slot, FieldType type) {
+        FieldType actual = types[slot];
+        if (actual == null) {
+            types[slot] = type;
+            size++;
+        } else if (actual != type) {
+            throw new InvalidTypeException(nameTable.name(slot), type, actual);
+        }
+
+        return slot;
+    }
+
+    /**
+     * @param slot
+     *            slot of {@link #layout()}
+     * @return <code>true</code> if field exists.
+     */
+    boolean contains(int slot) {
+        return types[slot] != null;
+    }
+
+    /**
+     * @param slot
+     *            slot of {@link #layout()}
+     * @param type
+     *            expected primitive type
+     * @return value encoded as bits
+     */
+    long getBits(int slot, FieldType type) {
+        return bits[checkedSlot(slot, type)];
+    }
+
+    /**
+     * @param slot
+     *            slot of {@link #layout()}
+     * @param type
+     *            expected non-primitive type
+     * @return value of field
+     */
+    Object getRef(int slot, FieldType type) {
+        return refs[checkedSlot(slot, type)];
+    }
+
+    /**
+     * @param slot
+     *            slot of {@link #layout()}
+     * @param type
+     *            expected primitive type
+     * @param defaultBits
+     *            bits returned if field not exists
+     * @return value encoded as bits, or <code>defaultBits</code> if field not exists.
+     */
+    long tryGetBits(int slot, FieldType type, long defaultBits) {
+        return isPresent(slot, type) ? bits[slot] : defaultBits;
+    }
+
+    /**
+     * @param slot
+     *            slot of {@link #layout()}
+     * @param type
+     *            expected non-primitive type
+     * @return value of field, or <code>null</code> if field not exists.
+     */
+    @Nullable
+    Object tryGetRef(int slot, FieldType type) {
+        return isPresent(slot, type) ? refs[slot] : null;
+    }
+
+    /**
+     * @param slot
+     *            slot of {@link #layout()}
+     * @param type
+     *            primitive type
+     * @param value
+     *            value encoded as bits
+     */
+    void putBits(int slot, FieldType type, long value) {
+        bits[slotForPut(slot, type)] = value;
+    }
+
+    /**
+     * @param slot
+     *            slot of {@link #layout()}
+     * @param type
+     *            non-primitive type
+     * @param ref
+     *            value of field
+     */
+    void putRef(int slot, FieldType type, Object ref) {
+        refs[slotForPut(slot, type)] = ref;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (types.length < capacity) {
+            types = Arrays.copyOf(types, capacity);
+            bits = Arrays.copyOf(bits, capacity);
+            refs = Arrays.copyOf(refs, capacity);
+        }
+    }
+
+    @Override
+    boolean remove(String name) {
+        int slot = find(name);
+        if (slot < 0) {
+            return false;
+        }
+
+        types[slot] = null;
+        bits[slot] = 0L;
+        refs[slot] = null;
+        size--;
+
+        return true;
+    }
+
+    /**
+     * Name table is kept, so putting same names again does not add them to table.
+     */
+    @Override
+    void clear() {
+        int length = nameTable.size();
+        Arrays.fill(types, 0, length, null);
+        Arrays.fill(bits, 0, length, 0L);
+        Arrays.fill(refs, 0, length, null);
+        size = 0;
+    }
+
+    @Override
+    void accept(MessageVisitor visitor) {
+        int length = nameTable.size();
+        for (int slot = 0; slot < length; slot++) {
+            FieldType type = types[slot];
+            if (type != null) {
+                visit(visitor, nameTable.name(slot), type, bits[slot], refs[slot]);
+            }
+        }
+    }
+
+    @Override
+    boolean advance(FieldCursorImpl cursor) {
+        int length = nameTable.size();
+        for (int slot = cursor.position; slot < length; slot++) {
+            FieldType type = types[slot];
+            if (type != null) {
+                cursor.position = slot + 1;
+                cursor.set(nameTable.name(slot), type, bits[slot], refs[slot]);
+                return true;
+            }
+        }
+
+        cursor.position = length;
+        return false;
+    }
+
+    /**
+     * Name table is only counted if owned by this store.
+     */
+    @Override
+    long retainedSize() {
+        long size = MessageSizes.object(5 * MessageSizes.REFERENCE + 4)
+                + MessageSizes.array(types.length, MessageSizes.REFERENCE)
+                + MessageSizes.array(bits.length, 8)
+                + MessageSizes.array(refs.length, MessageSizes.REFERENCE);
+
+        if (layout == null && !nameTable.isShared()) {
+            size += nameTable.retainedSize();
+        }
+
+        int length = nameTable.size();
+        for (int slot = 0; slot < length; slot++) {
+            FieldType type = types[slot];
+            if (type != null && !Field.isPrimitive(type)) {
+                size += MessageSizes.value(type, refs[slot]);
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    FieldStore mutableCopy() {
+        return new SlotFieldStore(this);
+    }
+
+    @Override
+    FieldStore immutableCopy() {
+        return new SlotFieldStore(this);
+    }
+
+    private final class NameIterator implements Iterator<String> {
+        private int next = advance(0);
+
+        private int advance(int from) {
+            int length = nameTable.size();
+            for (int slot = from; slot < length; slot++) {
+                if (types[slot] != null) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public String next() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+
+            String name = nameTable.name(next);
+            next = advance(next + 1);
+
+            return Objects.requireNonNull(name);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.util.ArrayDeque;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Keeps released messages per thread, so acquiring and releasing do not synchronize. A message
+ * released by another thread goes to pool of that thread.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@ThreadSafe
+final class ThreadLocalMessagePool implements MessagePool {
+    private final int capacity;
+
+    private final ThreadLocal<ArrayDeque<RecyclableWritableMessageImpl>> pools = ThreadLocal
+            .withInitial(ArrayDeque::new);
+
+    /**
+     * @param capacity
+     *            max number of released messages kept per thread.
+     */
+    ThreadLocalMessagePool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+
+        this.capacity = capacity;
+    }
+
+    @Override
+    public RecyclableWritableMessage acquire() {
+        RecyclableWritableMessageImpl message = pools.get().pollLast();
+        if (message == null) {
+            return new RecyclableWritableMessageImpl(this::recycle);
+        }
+
+        message.acquired();
+        return message;
+    }
+
+    private void recycle(RecyclableWritableMessageImpl message) {
+        ArrayDeque<RecyclableWritableMessageImpl> pool = pools.get();
+        if (pool.size() < capacity) {
+            pool.addLast(message);
+        }
+    }
+}
@@ -0,0 +1,641 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dopsun.msg4j.core.messages;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
+
+/**
+ * Field store backed by a persistent hash array mapped trie of {@link Field}.
+ * 
+ * <p>
+ * Nodes are never modified once shared. Each writable store owns an edit token, and modifies in
+ * place only nodes created with its token. Copying a store gives up the token of this store, so
+ * both copies share all nodes, and any later put or remove copies nodes on path of the field
+ * first.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class TrieFieldStore extends FieldStore {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * 32 bits hash, 5 bits per level, plus collision level.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    @Nullable
+    private Node root;
+    private int size;
+
+    /**
+     * Token of nodes this store can modify in place, <code>null</code> if this store will not be
+     * modified.
+     */
+    @Nullable
+    private Object edit;
+
+    TrieFieldStore() {
+        this(null, 0, new Object());
+    }
+
+    private TrieFieldStore(@Nullable Node root, int size, @Nullable Object edit) {
+        this.root = root;
+        this.size = size;
+        this.edit = edit;
+    }
+
+    @Nullable
+    private Field find(String name) {
+        return root == null ? null : root.find(0, name.hashCode(), name);
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    Collection<String> names() {
+        return new AbstractCollection<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new NameIterator(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return (o instanceof String) && find((String) o) != null;
+            }
+        };
+    }
+
+    @Override
+    boolean contains(String name) {
+        return find(name) != null;
+    }
+
+    @Override
+    @Nullable
+    FieldType typeOf(String name) {
+        Field field = find(name);
+        return field == null ? null : field.type();
+    }
+
+    @Override
+    long getBits(String name, FieldType type) {
+        return getField(name, type).bits();
+    }
+
+    @Override
+    Object getRef(String name, FieldType type) {
+        return getField(name, type).ref();
+    }
+
+    private Field getField(String name, FieldType type) {
+        Field field = find(name);
+        if (field == null) {
+            throw new FieldNotFoundException(name);
+        }
+
+        if (field.type() != type) {
+            throw new InvalidTypeException(name, type, field.type());
+        }
+
+        return field;
+    }
+
+    @Override
+    long tryGetBits(String name, FieldType type, long defaultBits) {
+        Field field = tryGetField(name, type);
+        return field == null ? defaultBits : field.bits();
+    }
+
+    @Override
+    @Nullable
+    Object tryGetRef(String name, FieldType type) {
+        Field field = tryGetField(name, type);
+        return field == null ? null : field.ref();
+    }
+
+    @Nullable
+    private Field tryGetField(String name, FieldType type) {
+        Field field = find(name);
+        if (field != null && field.type() != type) {
+            throw new InvalidTypeException(name, type, field.type());
+        }
+
+        return field;
+    }
+
+    @Override
+    void putBits(String name, FieldType type, long bits) {
+        put(name, type, Field.ofBits(type, bits));
+    }
+
+    @Override
+    void putRef(String name, FieldType type, Object ref) {
+        put(name, type, Field.ofRef(type, ref));
+    }
+
+    private void put(String name, FieldType type, Field field) {
+        Field existing = find(name);
+        if (existing == null) {
+            size++;
+        } else if (existing.type() != type) {
+            throw new InvalidTypeException(name, type, existing.type());
+        }
+
+        Node node = root == null ? BitmapNode.EMPTY : root;
+        root = node.put(edit, 0, name.hashCode(), name, field);
+    }
+
+    @Override
+    boolean remove(String name) {
+        if (find(name) == null) {
+            return false;
+        }
+
+        root = root.remove(edit, 0, name.hashCode(), name);
+        size--;
+
+        return true;
+    }
+
+    @Override
+    void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    void accept(MessageVisitor visitor) {
+        if (root != null) {
+            accept(root, visitor);
+        }
+    }
+
+    private static void accept(Node node, MessageVisitor visitor) {
+        Object[] array = node.array();
+        for (int i = 0; i < array.length; i += 2) {
+            Object key = array[i];
+            if (key == null) {
+                accept((Node) array[i + 1], visitor);
+            } else {
+                visit(visitor, (String) key, (Field) array[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Walk of cursor is kept in {@link FieldCursorImpl#state}, and reused by later resets.
+     */
+    @Override
+    boolean advance(FieldCursorImpl cursor) {
+        Walk walk;
+        if (cursor.position == 0) {
+            walk = cursor.state instanceof Walk ? (Walk) cursor.state : new Walk();
+            walk.reset(root);
+            cursor.state = walk;
+        } else {
+            walk = (Walk) cursor.state;
+        }
+
+        if (!walk.next()) {
+            return false;
+        }
+
+        cursor.position++;
+        cursor.set(walk.name(), walk.field());
+        return true;
+    }
+
+    /**
+     * Nodes shared with other versions of a persistent store are counted as well.
+     */
+    @Override
+    long retainedSize() {
+        long size = MessageSizes.object(2 * MessageSizes.REFERENCE + 4);
+        if (root != null) {
+            size += retainedSize(root);
+        }
+
+        return size;
+    }
+
+    private static long retainedSize(Node node) {
+        Object[] array = node.array();
+
+        long size = MessageSizes.object(2 * MessageSizes.REFERENCE + 4)
+                + MessageSizes.array(array.length, MessageSizes.REFERENCE);
+        for (int i = 0; i < array.length; i += 2) {
+            if (array[i] == null) {
+                size += retainedSize((Node) array[i + 1]);
+            } else {
+                size += MessageSizes.field((Field) array[i + 1]);
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    FieldStore mutableCopy() {
+        share();
+        return new TrieFieldStore(root, size, new Object());
+    }
+
+    @Override
+    FieldStore immutableCopy() {
+        share();
+        return new TrieFieldStore(root, size, null);
+    }
+
+    /**
+     * Gives up current edit token, so nodes created so far will not be modified by this store.
+     */
+    private void share() {
+        if (edit != null) {
+            edit = new Object();
+        }
+    }
+
+    private static int bitOf(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * A trie node, {@link #array()} of which are pairs of name and {@link Field}, or
+     * <code>null</code> and child {@link Node}.
+     */
+    private abstract static class Node {
+        @Nullable
+        final Object edit;
+
+        Node(@Nullable Object edit) {
+            this.edit = edit;
+        }
+
+        final boolean isEditable(@Nullable Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        abstract Object[] array();
+
+        @Nullable
+        abstract Field find(int shift, int hash, String name);
+
+        abstract Node put(@Nullable Object edit, int shift, int hash, String name, Field field);
+
+        /**
+         * @return node without <code>name</code>, or <code>null</code> if it becomes empty.
+         */
+        @Nullable
+        abstract Node remove(@Nullable Object edit, int shift, int hash, String name);
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+        private int bitmap;
+        private Object[] array;
+
+        BitmapNode(@Nullable Object edit, int bitmap, Object[] array) {
+            super(edit);
+
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int indexOf(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private BitmapNode editable(@Nullable Object edit) {
+            return isEditable(edit) ? this : new BitmapNode(edit, bitmap, array.clone());
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        @Nullable
+        Field find(int shift, int hash, String name) {
+            int bit = bitOf(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            int index = indexOf(bit) * 2;
+            Object key = array[index];
+            if (key == null) {
+                return ((Node) array[index + 1]).find(shift + BITS, hash, name);
+            }
+
+            return (key == name || key.equals(name)) ? (Field) array[index + 1] : null;
+        }
+
+        @Override
+        Node put(@Nullable Object edit, int shift, int hash, String name, Field field) {
+            int bit = bitOf(hash, shift);
+            int index = indexOf(bit) * 2;
+
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, index);
+                newArray[index] = name;
+                newArray[index + 1] = field;
+                System.arraycopy(array, index, newArray, index + 2, array.length - index);
+
+                BitmapNode node = editable(edit);
+                node.bitmap |= bit;
+                node.array = newArray;
+                return node;
+            }
+
+            Object key = array[index];
+            Object value = array[index + 1];
+
+            if (key == null) {
+                Node child = ((Node) value).put(edit, shift + BITS, hash, name, field);
+                return child == value ? this : set(edit, index, null, child);
+            }
+
+            if (key.equals(name)) {
+                return set(edit, index, key, field);
+            }
+
+            Node child = createNode(edit, shift + BITS, (String) key, (Field) value, hash, name,
+                    field);
+            return set(edit, index, null, child);
+        }
+
+        private BitmapNode set(@Nullable Object edit, int index, @Nullable Object key,
+                Object value) {
+            BitmapNode node = editable(edit);
+            node.array[index] = key;
+            node.array[index + 1] = value;
+            return node;
+        }
+
+        @Override
+        @Nullable
+        Node remove(@Nullable Object edit, int shift, int hash, String name) {
+            int bit = bitOf(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int index = indexOf(bit) * 2;
+            Object key = array[index];
+            Object value = array[index + 1];
+
+            if (key == null) {
+                Node child = ((Node) value).remove(edit, shift + BITS, hash, name);
+                if (child == value) {
+                    return this;
+                }
+
+                if (child != null) {
+                    return set(edit, index, null, child);
+                }
+            } else if (!key.equals(name)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, newArray.length - index);
+
+            BitmapNode node = editable(edit);
+            node.bitmap ^= bit;
+            node.array = newArray;
+            return node;
+        }
+
+        private static Node createNode(@Nullable Object edit, int shift, String name1,
+                Field field1, int hash2, String name2, Field field2) {
+            int hash1 = name1.hashCode();
+            if (hash1 == hash2) {
+                return new CollisionNode(edit, hash1,
+                        new Object[] { name1, field1, name2, field2 });
+            }
+
+            return EMPTY.put(edit, shift, hash1, name1, field1).put(edit, shift, hash2, name2,
+                    field2);
+        }
+    }
+
+    /**
+     * Names with same hash.
+     */
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private Object[] array;
+
+        CollisionNode(@Nullable Object edit, int hash, Object[] array) {
+            super(edit);
+
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(String name) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (name.equals(array[i])) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+
+        private CollisionNode editable(@Nullable Object edit, Object[] newArray) {
+            if (isEditable(edit)) {
+                array = newArray;
+                return this;
+            }
+
+            return new CollisionNode(edit, hash, newArray);
+        }
+
+        @Override
+        Object[] array() {
+            return array;
+        }
+
+        @Override
+        @Nullable
+        Field find(int shift, int hash, String name) {
+            int index = indexOf(name);
+            return index < 0 ? null : (Field) array[index + 1];
+        }
+
+        @Override
+        Node put(@Nullable Object edit, int shift, int hash, String name, Field field) {
+            if (hash != this.hash) {
+                BitmapNode parent = new BitmapNode(edit, bitOf(this.hash, shift),
+                        new Object[] { null, this });
+                return parent.put(edit, shift, hash, name, field);
+            }
+
+            int index = indexOf(name);
+            Object[] newArray;
+            if (index < 0) {
+                newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, array.length);
+                newArray[array.length] = name;
+                newArray[array.length + 1] = field;
+            } else {
+                newArray = isEditable(edit) ? array : array.clone();
+                newArray[index + 1] = field;
+            }
+
+            return editable(edit, newArray);
+        }
+
+        @Override
+        @Nullable
+        Node remove(@Nullable Object edit, int shift, int hash, String name) {
+            int index = indexOf(name);
+            if (index < 0) {
+                return this;
+            }
+
+            if (array.length == 2) {
+                return null;
+            }
+
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, newArray.length - index);
+
+            return editable(edit, newArray);
+        }
+    }
+
+    /**
+     * Depth first walk over fields of a trie, which can be reset and reused.
+     */
+    private static final class Walk {
+        private final Object[][] arrays = new Object[MAX_DEPTH][];
+        private final int[] positions = new int[MAX_DEPTH];
+        private int depth = -1;
+
+        /**
+         * Array of current field, name of which is at {@link #index}.
+         */
+        @Nullable
+        private Object[] array;
+        private int index;
+
+        void reset(@Nullable Node root) {
+            while (depth >= 0) {
+                arrays[depth--] = null;
+            }
+            array = null;
+
+            if (root != null) {
+                push(root);
+            }
+        }
+
+        private void push(Node node) {
+            depth++;
+            arrays[depth] = node.array();
+            positions[depth] = 0;
+        }
+
+        /**
+         * @return <code>true</code> if moved to next field.
+         */
+        boolean next() {
+            while (depth >= 0) {
+                Object[] current = arrays[depth];
+                int position = positions[depth];
+                if (position >= current.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+
+                positions[depth] = position + 2;
+
+                if (current[position] != null) {
+                    array = current;
+                    index = position;
+                    return true;
+                }
+
+                push((Node) current[position + 1]);
+            }
+
+            array = null;
+            return false;
+        }
+
+        String name() {
+            return (String) array[index];
+        }
+
+        Field field() {
+            return (Field) array[index + 1];
+        }
+    }
+
+    private static final class NameIterator implements Iterator<String> {
+        private final Walk walk = new Walk();
+        private boolean hasNext;
+
+        NameIterator(@Nullable Node root) {
+            walk.reset(root);
+            hasNext = walk.next();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+
+            String name = walk.name();
+            hasNext = walk.next();
+            return name;
+        }
+    }
+}
@@ -16,13 +16,11 @@
 
 package com.dopsun.msg4j.core.messages;
 
-import java.util.HashMap;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 
 /**
  * Writable message implementation.
@@ -30,119 +28,79 @@ import com.google.common.collect.ImmutableMap;
  * @author Dop Sun
  * @since 1.0.0
  */
-final class WritableMessageImpl extends AbstractMessage implements WritableMessage {
+class WritableMessageImpl extends AbstractMessage implements WritableMessage {
     WritableMessageImpl() {
-        super(new HashMap<>());
+        super(new MapFieldStore());
     }
 
     /**
-     * @param fields
+     * @param store
      */
-    WritableMessageImpl(Map<String, Field> fields) {
-        super(fields);
+    WritableMessageImpl(FieldStore store) {
+        super(store);
     }
 
     @Override
     public boolean remove(String fieldName) {
         Objects.requireNonNull(fieldName);
 
-        return fields().remove(fieldName) != null;
+        return store().remove(fieldName);
     }
 
     @Override
     public void putBoolean(String fieldName, boolean value) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.ByteField)) {
-            throw new InvalidTypeException(fieldName, FieldType.BYTE, field.type());
-        }
-
-        fields().put(fieldName, new Field.BooleanField(value));
+        store().putBits(fieldName, FieldType.BOOLEAN, value ? 1L : 0L);
     }
 
     @Override
     public void putByte(String fieldName, byte value) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.ByteField)) {
-            throw new InvalidTypeException(fieldName, FieldType.BYTE, field.type());
-        }
-
-        fields().put(fieldName, new Field.ByteField(value));
+        store().putBits(fieldName, FieldType.BYTE, value);
     }
 
     @Override
     public void putChar(String fieldName, char value) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.CharField)) {
-            throw new InvalidTypeException(fieldName, FieldType.CHAR, field.type());
-        }
-
-        fields().put(fieldName, new Field.CharField(value));
+        store().putBits(fieldName, FieldType.CHAR, value);
     }
 
     @Override
     public void putShort(String fieldName, short value) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.ShortField)) {
-            throw new InvalidTypeException(fieldName, FieldType.SHORT, field.type());
-        }
-
-        fields().put(fieldName, new Field.ShortField(value));
+        store().putBits(fieldName, FieldType.SHORT, value);
     }
 
     @Override
     public void putInt(String fieldName, int value) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.IntField)) {
-            throw new InvalidTypeException(fieldName, FieldType.INT, field.type());
-        }
-
-        fields().put(fieldName, new Field.IntField(value));
+        store().putBits(fieldName, FieldType.INT, value);
     }
 
     @Override
     public void putLong(String fieldName, long value) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.LongField)) {
-            throw new InvalidTypeException(fieldName, FieldType.LONG, field.type());
-        }
-
-        fields().put(fieldName, new Field.LongField(value));
+        store().putBits(fieldName, FieldType.LONG, value);
     }
 
     @Override
     public void putFloat(String fieldName, float value) throws InvalidTypeException {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.FloatField)) {
-            throw new InvalidTypeException(fieldName, FieldType.FLOAT, field.type());
-        }
-
-        fields().put(fieldName, new Field.FloatField(value));
+        store().putBits(fieldName, FieldType.FLOAT, Float.floatToRawIntBits(value));
     }
 
     @Override
     public void putDouble(String fieldName, double value) {
         Objects.requireNonNull(fieldName);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.DoubleField)) {
-            throw new InvalidTypeException(fieldName, FieldType.DOUBLE, field.type());
-        }
-
-        fields().put(fieldName, new Field.DoubleField(value));
+        store().putBits(fieldName, FieldType.DOUBLE, Double.doubleToRawLongBits(value));
     }
 
     @Override
@@ -150,12 +108,7 @@ final class WritableMessageImpl extends AbstractMessage implements WritableMessa
         Objects.requireNonNull(fieldName);
         Objects.requireNonNull(value);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.StringField)) {
-            throw new InvalidTypeException(fieldName, FieldType.STRING, field.type());
-        }
-
-        fields().put(fieldName, new Field.StringField(value));
+        store().putRef(fieldName, FieldType.STRING, value);
     }
 
     @Override
@@ -163,12 +116,7 @@ final class WritableMessageImpl extends AbstractMessage implements WritableMessa
         Objects.requireNonNull(fieldName);
         Objects.requireNonNull(value);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.MessageField)) {
-            throw new InvalidTypeException(fieldName, FieldType.MESSAGE, field.type());
-        }
-
-        fields().put(fieldName, new Field.MessageField(value));
+        store().putRef(fieldName, FieldType.MESSAGE, value);
     }
 
     @Override
@@ -177,17 +125,44 @@ final class WritableMessageImpl extends AbstractMessage implements WritableMessa
         Objects.requireNonNull(fieldName);
         Objects.requireNonNull(value);
 
-        Field field = fields().get(fieldName);
-        if (field != null && !(field instanceof Field.MessageListField)) {
-            throw new InvalidTypeException(fieldName, FieldType.MESSAGE_LIST, field.type());
-        }
+        store().putRef(fieldName, FieldType.MESSAGE_LIST, ImmutableList.copyOf(value));
+    }
+
+    @Override
+    public void putIntArray(String fieldName, int[] value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.INT_ARRAY, Field.readOnlyCopy(value));
+    }
+
+    @Override
+    public void putLongArray(String fieldName, long[] value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.LONG_ARRAY, Field.readOnlyCopy(value));
+    }
+
+    @Override
+    public void putDoubleArray(String fieldName, double[] value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
+
+        store().putRef(fieldName, FieldType.DOUBLE_ARRAY, Field.readOnlyCopy(value));
+    }
+
+    @Override
+    public void putBytes(String fieldName, ByteBuffer value) throws InvalidTypeException {
+        Objects.requireNonNull(fieldName);
+        Objects.requireNonNull(value);
 
-        fields().put(fieldName, new Field.MessageListField(ImmutableList.copyOf(value)));
+        store().putRef(fieldName, FieldType.BYTES, Field.readOnlySlice(value));
     }
 
     @Override
     public ImmutableMessage toImmutable() {
-        return new ImmutableMessageImpl(ImmutableMap.copyOf(fields()));
+        return new ImmutableMessageImpl(store().immutableCopy());
     }
 
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.index;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.dopsun.msg4j.core.messages.FieldType;
+import com.dopsun.msg4j.core.messages.MessageReader;
+import com.dopsun.msg4j.core.messages.schema.FieldInfo;
+
+/**
+ * Keys of {@link MessageIndex}: value of field boxed as type of field, e.g. {@link Integer} for
+ * {@link FieldType#INT}, for one field; and {@link java.util.List} of values for more fields.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class IndexKeys {
+    private static final EnumSet<FieldType> INDEXABLE_TYPES = EnumSet.of(FieldType.BOOLEAN,
+            FieldType.BYTE, FieldType.CHAR, FieldType.SHORT, FieldType.INT, FieldType.LONG,
+            FieldType.FLOAT, FieldType.DOUBLE, FieldType.STRING);
+
+    private IndexKeys() {
+    }
+
+    /**
+     * @param fields
+     *            fields of key
+     * @throws IllegalArgumentException
+     *             if no field, or a field cannot be indexed.
+     */
+    static void checkIndexable(FieldInfo[] fields) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("No field to index");
+        }
+
+        for (FieldInfo field : fields) {
+            if (!INDEXABLE_TYPES.contains(field.type())) {
+                throw new IllegalArgumentException(
+                        "Field cannot be indexed: " + field.name() + " of " + field.type());
+            }
+        }
+    }
+
+    /**
+     * @param message
+     * @param fields
+     * @return key of <code>message</code>, or <code>null</code> if a field is absent or not of
+     *         its declared type.
+     */
+    @Nullable
+    static Object keyOf(MessageReader message, FieldInfo[] fields) {
+        if (fields.length == 1) {
+            return valueOf(message, fields[0]);
+        }
+
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = valueOf(message, fields[i]);
+            if (values[i] == null) {
+                return null;
+            }
+        }
+
+        return Arrays.asList(values);
+    }
+
+    @Nullable
+    private static Object valueOf(MessageReader message, FieldInfo field) {
+        String name = field.name();
+        FieldType type = field.type();
+        if (message.tryGetFieldType(name).orElse(null) != type) {
+            return null;
+        }
+
+        switch (type) {
+        case BOOLEAN:
+            return Boolean.valueOf(message.getBoolean(name));
+        case BYTE:
+            return Byte.valueOf(message.getByte(name));
+        case CHAR:
+            return Character.valueOf(message.getChar(name));
+        case SHORT:
+            return Short.valueOf(message.getShort(name));
+        case INT:
+            return Integer.valueOf(message.getInt(name));
+        case LONG:
+            return Long.valueOf(message.getLong(name));
+        case FLOAT:
+            return Float.valueOf(message.getFloat(name));
+        case DOUBLE:
+            return Double.valueOf(message.getDouble(name));
+        default:
+            return message.getString(name);
+        }
+    }
+
+    /**
+     * @param fields
+     * @param values
+     *            values of <code>fields</code>
+     * @return key of <code>values</code>
+     * @throws IllegalArgumentException
+     *             if number of values is not same as fields, or a value is not boxed type of its
+     *             field.
+     */
+    static Object keyOf(FieldInfo[] fields, Object[] values) {
+        if (fields.length != values.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + fields.length + " values, but was " + values.length);
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            checkValue(fields[i], values[i]);
+        }
+
+        return fields.length == 1 ? values[0] : Arrays.asList(values.clone());
+    }
+
+    /**
+     * @param field
+     * @param value
+     * @throws IllegalArgumentException
+     *             if <code>value</code> is not boxed type of <code>field</code>.
+     */
+    static void checkValue(FieldInfo field, Object value) {
+        Objects.requireNonNull(value);
+
+        if (value.getClass() != boxedType(field.type())) {
+            throw new IllegalArgumentException("Value of " + field.name() + " must be "
+                    + boxedType(field.type()).getSimpleName() + ": " + value.getClass().getName());
+        }
+    }
+
+    private static Class<?> boxedType(FieldType type) {
+        switch (type) {
+        case BOOLEAN:
+            return Boolean.class;
+        case BYTE:
+            return Byte.class;
+        case CHAR:
+            return Character.class;
+        case SHORT:
+            return Short.class;
+        case INT:
+            return Integer.class;
+        case LONG:
+            return Long.class;
+        case FLOAT:
+            return Float.class;
+        case DOUBLE:
+            return Double.class;
+        default:
+            return String.class;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.annotation.Nullable;
+
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.schema.FieldInfo;
+
+/**
+ * Collection of {@link ImmutableMessage}s by primary key, with secondary indexes on fields, so
+ * messages are found by equality or range of field values without scanning whole collection.
+ * 
+ * <p>
+ * Keys and values of lookups are boxed as type of field, e.g. {@link Integer} for
+ * {@link com.dopsun.msg4j.core.messages.FieldType#INT}. Fields of primitive types and
+ * {@link com.dopsun.msg4j.core.messages.FieldType#STRING} can be indexed. A message without any
+ * field of a secondary index, or with a field not of its declared type, is not in that index.
+ * </p>
+ * 
+ * <p>
+ * {@link #put(ImmutableMessage)} and {@link #remove(Object...)} must be called by one writer at a
+ * time, which updates indexes incrementally; other methods can be called by many readers, even
+ * concurrently with the writer. Lookups are weakly consistent: each message found matches the
+ * lookup, and is either current, or replaced or removed while looking up.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class MessageIndex {
+    /**
+     * @param keyFields
+     *            fields of primary key, must exist in all messages
+     * @return
+     */
+    public static Builder builder(FieldInfo... keyFields) {
+        return new Builder(keyFields);
+    }
+
+    private final FieldInfo[] keyFields;
+    private final ConcurrentMap<Object, ImmutableMessage> messages = new ConcurrentHashMap<>();
+
+    /**
+     * Hash indexes by names of their fields.
+     */
+    private final Map<List<String>, Index> hashIndexes = new HashMap<>();
+
+    /**
+     * Sorted indexes by name of their field.
+     */
+    private final Map<String, Index> sortedIndexes = new HashMap<>();
+
+    private final Index[] indexes;
+
+    private MessageIndex(Builder builder) {
+        this.keyFields = builder.keyFields;
+
+        List<Index> allIndexes = new ArrayList<>();
+        for (FieldInfo[] fields : builder.hashIndexes) {
+            Index index = new Index(fields, new ConcurrentHashMap<>());
+            hashIndexes.put(namesOf(fields), index);
+            allIndexes.add(index);
+        }
+
+        for (FieldInfo field : builder.sortedIndexes) {
+            Index index = new Index(new FieldInfo[] { field }, new ConcurrentSkipListMap<>());
+            sortedIndexes.put(field.name(), index);
+            allIndexes.add(index);
+        }
+
+        this.indexes = allIndexes.toArray(new Index[allIndexes.size()]);
+    }
+
+    private static List<String> namesOf(FieldInfo[] fields) {
+        String[] names = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = fields[i].name();
+        }
+
+        return Arrays.asList(names);
+    }
+
+    /**
+     * @return number of messages.
+     */
+    public int size() {
+        return messages.size();
+    }
+
+    /**
+     * @return unmodifiable view of all messages.
+     */
+    public Collection<ImmutableMessage> values() {
+        return Collections.unmodifiableCollection(messages.values());
+    }
+
+    /**
+     * @param key
+     *            values of primary key fields
+     * @return message of <code>key</code>, or <code>null</code> if not exists.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>key</code> is not values of primary key fields.
+     */
+    @Nullable
+    public ImmutableMessage get(Object... key) {
+        return messages.get(IndexKeys.keyOf(keyFields, key));
+    }
+
+    /**
+     * Inserts <code>message</code>, or replaces message of same primary key.
+     * 
+     * @param message
+     * @return message replaced, or <code>null</code> if inserted.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>message</code> has no primary key.
+     */
+    @Nullable
+    public ImmutableMessage put(ImmutableMessage message) {
+        Objects.requireNonNull(message);
+
+        Object key = IndexKeys.keyOf(message, keyFields);
+        if (key == null) {
+            throw new IllegalArgumentException("No primary key in message: " + message);
+        }
+
+        ImmutableMessage previous = messages.put(key, message);
+        for (Index index : indexes) {
+            index.add(key, message);
+
+            if (previous != null && previous != message) {
+                index.remove(key, previous);
+            }
+        }
+
+        return previous;
+    }
+
+    /**
+     * @param key
+     *            values of primary key fields
+     * @return message removed, or <code>null</code> if not exists.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>key</code> is not values of primary key fields.
+     */
+    @Nullable
+    public ImmutableMessage remove(Object... key) {
+        Object primaryKey = IndexKeys.keyOf(keyFields, key);
+
+        ImmutableMessage previous = messages.remove(primaryKey);
+        if (previous != null) {
+            for (Index index : indexes) {
+                index.remove(primaryKey, previous);
+            }
+        }
+
+        return previous;
+    }
+
+    /**
+     * Finds by hash index of <code>field</code>, or by its sorted index if no hash index.
+     * 
+     * @param field
+     * @param value
+     * @return messages of which <code>field</code> equals to <code>value</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if no index of <code>field</code>, or <code>value</code> is not of its type.
+     */
+    public List<ImmutableMessage> findEqual(FieldInfo field, Object value) {
+        Objects.requireNonNull(field);
+        IndexKeys.checkValue(field, value);
+
+        Index index = hashIndexes.get(Collections.singletonList(field.name()));
+        if (index == null) {
+            index = sortedIndexes.get(field.name());
+        }
+
+        if (index == null) {
+            throw new IllegalArgumentException("No index on " + field.name());
+        }
+
+        return index.find(value);
+    }
+
+    /**
+     * @param fields
+     *            fields of a hash index
+     * @param values
+     *            values of <code>fields</code>
+     * @return messages of which <code>fields</code> equal to <code>values</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if no hash index of <code>fields</code>, or <code>values</code> are not of their
+     *             types.
+     */
+    public List<ImmutableMessage> findEqual(List<? extends FieldInfo> fields, Object... values) {
+        FieldInfo[] fieldArray = fields.toArray(new FieldInfo[fields.size()]);
+
+        Index index = hashIndexes.get(namesOf(fieldArray));
+        if (index == null) {
+            throw new IllegalArgumentException("No hash index on " + namesOf(fieldArray));
+        }
+
+        return index.find(IndexKeys.keyOf(fieldArray, values));
+    }
+
+    /**
+     * @param field
+     *            field of a sorted index
+     * @param from
+     *            low bound, or <code>null</code> if no low bound
+     * @param fromInclusive
+     *            <code>true</code> if low bound is included
+     * @param to
+     *            high bound, or <code>null</code> if no high bound
+     * @param toInclusive
+     *            <code>true</code> if high bound is included
+     * @return messages of which <code>field</code> is in range, ordered by <code>field</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if no sorted index of <code>field</code>, bounds are not of its type, or
+     *             <code>from</code> is greater than <code>to</code>.
+     */
+    public List<ImmutableMessage> findRange(FieldInfo field, @Nullable Object from,
+            boolean fromInclusive, @Nullable Object to, boolean toInclusive) {
+        Objects.requireNonNull(field);
+
+        Index index = sortedIndexes.get(field.name());
+        if (index == null) {
+            throw new IllegalArgumentException("No sorted index on " + field.name());
+        }
+
+        ConcurrentNavigableMap<Object, ConcurrentMap<Object, ImmutableMessage>> buckets = index
+                .sortedBuckets();
+        if (from != null) {
+            IndexKeys.checkValue(field, from);
+            buckets = buckets.tailMap(from, fromInclusive);
+        }
+
+        if (to != null) {
+            IndexKeys.checkValue(field, to);
+            buckets = buckets.headMap(to, toInclusive);
+        }
+
+        List<ImmutableMessage> found = new ArrayList<>();
+        for (ConcurrentMap<Object, ImmutableMessage> bucket : buckets.values()) {
+            found.addAll(bucket.values());
+        }
+
+        return found;
+    }
+
+    /**
+     * Index of messages by values of fields. Messages of same values are kept in a bucket by
+     * primary key.
+     */
+    private static final class Index {
+        private final FieldInfo[] fields;
+        private final ConcurrentMap<Object, ConcurrentMap<Object, ImmutableMessage>> buckets;
+
+        Index(FieldInfo[] fields,
+                ConcurrentMap<Object, ConcurrentMap<Object, ImmutableMessage>> buckets) {
+            this.fields = fields;
+            this.buckets = buckets;
+        }
+
+        ConcurrentNavigableMap<Object, ConcurrentMap<Object, ImmutableMessage>> sortedBuckets() {
+            return (ConcurrentNavigableMap<Object, ConcurrentMap<Object, ImmutableMessage>>)
+                    buckets;
+        }
+
+        /**
+         * Adds before previous message removed, so equality lookups always find one of them.
+         */
+        void add(Object primaryKey, ImmutableMessage message) {
+            Object key = IndexKeys.keyOf(message, fields);
+            if (key != null) {
+                buckets.computeIfAbsent(key, k -> new ConcurrentHashMap<>(4)).put(primaryKey,
+                        message);
+            }
+        }
+
+        /**
+         * Removes <code>message</code> only if it is still in its bucket, as it is replaced in
+         * place if key of index not changed.
+         */
+        void remove(Object primaryKey, ImmutableMessage message) {
+            Object key = IndexKeys.keyOf(message, fields);
+            if (key == null) {
+                return;
+            }
+
+            ConcurrentMap<Object, ImmutableMessage> bucket = buckets.get(key);
+            if (bucket == null || bucket.get(primaryKey) != message) {
+                return;
+            }
+
+            bucket.remove(primaryKey);
+            if (bucket.isEmpty()) {
+                buckets.remove(key, bucket);
+            }
+        }
+
+        List<ImmutableMessage> find(Object key) {
+            ConcurrentMap<Object, ImmutableMessage> bucket = buckets.get(key);
+            return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket.values());
+        }
+    }
+
+    /**
+     * @author Dop Sun
+     * @since 1.0.0
+     */
+    public static class Builder {
+        private final FieldInfo[] keyFields;
+        private final List<FieldInfo[]> hashIndexes = new ArrayList<>();
+        private final List<FieldInfo> sortedIndexes = new ArrayList<>();
+
+        Builder(FieldInfo[] keyFields) {
+            IndexKeys.checkIndexable(keyFields);
+
+            this.keyFields = keyFields.clone();
+        }
+
+        /**
+         * @param fields
+         *            fields to index, equality lookups are by values of all of them
+         * @return
+         * 
+         * @throws IllegalArgumentException
+         *             if a field cannot be indexed.
+         */
+        public Builder hashIndex(FieldInfo... fields) {
+            IndexKeys.checkIndexable(fields);
+            hashIndexes.add(fields.clone());
+
+            return this;
+        }
+
+        /**
+         * @param field
+         *            field to index, for range and equality lookups
+         * @return
+         * 
+         * @throws IllegalArgumentException
+         *             if field cannot be indexed.
+         */
+        public Builder sortedIndex(FieldInfo field) {
+            IndexKeys.checkIndexable(new FieldInfo[] { field });
+            sortedIndexes.add(field);
+
+            return this;
+        }
+
+        /**
+         * @return
+         */
+        public MessageIndex build() {
+            return new MessageIndex(this);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.dopsun.msg4j.core.messages.schema;
 
 import java.util.Objects;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -48,6 +49,11 @@ public final class BooleanFieldInfo extends FieldInfo {
     public boolean get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return layout.getBits(message, slot(), FieldType.BOOLEAN) != 0;
+        }
+
         return message.getBoolean(name());
     }
 
@@ -61,6 +67,13 @@ public final class BooleanFieldInfo extends FieldInfo {
     public boolean tryGet(MessageReader message, boolean defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.BOOLEAN,
+                    defaultValue ? 1L : 0L);
+            return bits != 0;
+        }
+
         return message.tryGetBoolean(name(), defaultValue);
     }
 
@@ -73,6 +86,12 @@ public final class BooleanFieldInfo extends FieldInfo {
     public void put(MessageWriter message, boolean value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.BOOLEAN, value ? 1L : 0L);
+            return;
+        }
+
         message.putBoolean(name(), value);
     }
 }
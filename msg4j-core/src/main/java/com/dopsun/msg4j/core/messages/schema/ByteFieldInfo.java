@@ -18,6 +18,7 @@ package com.dopsun.msg4j.core.messages.schema;
 
 import java.util.Objects;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -48,6 +49,11 @@ public final class ByteFieldInfo extends FieldInfo {
     public byte get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (byte) layout.getBits(message, slot(), FieldType.BYTE);
+        }
+
         return message.getByte(name());
     }
 
@@ -61,6 +67,12 @@ public final class ByteFieldInfo extends FieldInfo {
     public byte tryGet(MessageReader message, byte defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.BYTE, defaultValue);
+            return (byte) bits;
+        }
+
         return message.tryGetByte(name(), defaultValue);
     }
 
@@ -73,6 +85,12 @@ public final class ByteFieldInfo extends FieldInfo {
     public void put(MessageWriter message, byte value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.BYTE, value);
+            return;
+        }
+
         message.putByte(name(), value);
     }
 }
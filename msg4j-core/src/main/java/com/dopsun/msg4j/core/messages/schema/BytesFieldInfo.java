@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.schema;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.dopsun.msg4j.core.messages.FieldLayout;
+import com.dopsun.msg4j.core.messages.FieldType;
+import com.dopsun.msg4j.core.messages.MessageReader;
+import com.dopsun.msg4j.core.messages.MessageWriter;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class BytesFieldInfo extends FieldInfo {
+    /**
+     * @param name
+     */
+    public BytesFieldInfo(String name) {
+        super(name);
+    }
+
+    @Override
+    public final FieldType type() {
+        return FieldType.BYTES;
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getBytes(String)
+     */
+    public ByteBuffer get(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (ByteBuffer) layout.getRef(message, slot(), FieldType.BYTES);
+        }
+
+        return message.getBytes(name());
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetBytes(String)
+     */
+    public ByteBuffer tryGet(MessageReader message, ByteBuffer defaultValue) {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(defaultValue);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            Object value = layout.tryGetRef(message, slot(), FieldType.BYTES);
+            return value == null ? defaultValue : (ByteBuffer) value;
+        }
+
+        return message.tryGetBytes(name(), defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#tryGetBytes(String)
+     */
+    public Optional<ByteBuffer> tryGet(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return Optional.ofNullable((ByteBuffer) layout.tryGetRef(message, slot(),
+                    FieldType.BYTES));
+        }
+
+        return message.tryGetBytes(name());
+    }
+
+    /**
+     * @param message
+     * @param value
+     * 
+     * @see MessageWriter#putBytes(String, ByteBuffer)
+     */
+    public void put(MessageWriter message, ByteBuffer value) {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(value);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putRef(message, slot(), FieldType.BYTES, value);
+            return;
+        }
+
+        message.putBytes(name(), value);
+    }
+}
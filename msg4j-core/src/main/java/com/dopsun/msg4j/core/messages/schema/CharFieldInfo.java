@@ -18,6 +18,7 @@ package com.dopsun.msg4j.core.messages.schema;
 
 import java.util.Objects;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -48,6 +49,11 @@ public final class CharFieldInfo extends FieldInfo {
     public char get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (char) layout.getBits(message, slot(), FieldType.CHAR);
+        }
+
         return message.getChar(name());
     }
 
@@ -61,6 +67,12 @@ public final class CharFieldInfo extends FieldInfo {
     public char tryGet(MessageReader message, char defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.CHAR, defaultValue);
+            return (char) bits;
+        }
+
         return message.tryGetChar(name(), defaultValue);
     }
 
@@ -73,6 +85,12 @@ public final class CharFieldInfo extends FieldInfo {
     public void put(MessageWriter message, char value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.CHAR, value);
+            return;
+        }
+
         message.putChar(name(), value);
     }
 }
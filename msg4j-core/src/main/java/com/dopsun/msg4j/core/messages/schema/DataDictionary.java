@@ -17,14 +17,26 @@
 package com.dopsun.msg4j.core.messages.schema;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
 import javax.annotation.concurrent.Immutable;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
 import com.google.common.collect.ImmutableMap;
 
 /**
+ * Fields and messages of a data model.
+ * 
+ * <p>
+ * Fields are compiled into a {@link FieldLayout}, and each {@link FieldInfo} is bound to its slot
+ * (if not bound by another dictionary yet). Messages created by {@link #createMessage()} keep these
+ * fields in arrays, which <code>FieldInfo</code> accesses by slot instead of by name.
+ * </p>
+ * 
  * @author Dop Sun
  * @since 1.0.0
  */
@@ -39,12 +51,18 @@ public final class DataDictionary {
 
     private final Map<String, FieldInfo> fields;
     private final Map<String, MessageInfo> messages;
+    private final FieldLayout layout;
 
     DataDictionary(Builder builder) {
         Objects.requireNonNull(builder);
 
         this.fields = ImmutableMap.copyOf(builder.fields);
         this.messages = ImmutableMap.copyOf(builder.messages);
+        this.layout = FieldLayout.of(fields.keySet());
+
+        for (FieldInfo fieldInfo : fields.values()) {
+            fieldInfo.bind(layout, layout.slotOf(fieldInfo.name()));
+        }
     }
 
     /**
@@ -61,13 +79,29 @@ public final class DataDictionary {
         return messages;
     }
 
+    /**
+     * @return layout of all fields, with slots in order of being added.
+     */
+    public FieldLayout layout() {
+        return layout;
+    }
+
+    /**
+     * @return a writable message, which keeps fields of this dictionary by slot.
+     * 
+     * @see Messages#create(FieldLayout)
+     */
+    public WritableMessage createMessage() {
+        return Messages.create(layout);
+    }
+
     /**
      * @author Dop Sun
      * @since 1.0.0
      */
     public static class Builder {
 
-        private final Map<String, FieldInfo> fields = new HashMap<>();
+        private final Map<String, FieldInfo> fields = new LinkedHashMap<>();
         private final Map<String, MessageInfo> messages = new HashMap<>();
 
         Builder() {
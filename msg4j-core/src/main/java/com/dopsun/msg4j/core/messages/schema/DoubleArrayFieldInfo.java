@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.schema;
+
+import java.nio.DoubleBuffer;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.dopsun.msg4j.core.messages.FieldLayout;
+import com.dopsun.msg4j.core.messages.FieldType;
+import com.dopsun.msg4j.core.messages.MessageReader;
+import com.dopsun.msg4j.core.messages.MessageWriter;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class DoubleArrayFieldInfo extends FieldInfo {
+    /**
+     * @param name
+     */
+    public DoubleArrayFieldInfo(String name) {
+        super(name);
+    }
+
+    @Override
+    public final FieldType type() {
+        return FieldType.DOUBLE_ARRAY;
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getDoubleArray(String)
+     */
+    public DoubleBuffer get(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (DoubleBuffer) layout.getRef(message, slot(), FieldType.DOUBLE_ARRAY);
+        }
+
+        return message.getDoubleArray(name());
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetDoubleArray(String)
+     */
+    public DoubleBuffer tryGet(MessageReader message, DoubleBuffer defaultValue) {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(defaultValue);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            Object value = layout.tryGetRef(message, slot(), FieldType.DOUBLE_ARRAY);
+            return value == null ? defaultValue : (DoubleBuffer) value;
+        }
+
+        return message.tryGetDoubleArray(name(), defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#tryGetDoubleArray(String)
+     */
+    public Optional<DoubleBuffer> tryGet(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return Optional.ofNullable((DoubleBuffer) layout.tryGetRef(message, slot(),
+                    FieldType.DOUBLE_ARRAY));
+        }
+
+        return message.tryGetDoubleArray(name());
+    }
+
+    /**
+     * @param message
+     * @param value
+     * 
+     * @see MessageWriter#putDoubleArray(String, double[])
+     */
+    public void put(MessageWriter message, double[] value) {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(value);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putRef(message, slot(), FieldType.DOUBLE_ARRAY, value);
+            return;
+        }
+
+        message.putDoubleArray(name(), value);
+    }
+}
@@ -19,6 +19,7 @@ package com.dopsun.msg4j.core.messages.schema;
 import java.util.Objects;
 import java.util.OptionalDouble;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -49,6 +50,11 @@ public final class DoubleFieldInfo extends FieldInfo {
     public double get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return Double.longBitsToDouble(layout.getBits(message, slot(), FieldType.DOUBLE));
+        }
+
         return message.getDouble(name());
     }
 
@@ -62,6 +68,13 @@ public final class DoubleFieldInfo extends FieldInfo {
     public double tryGet(MessageReader message, double defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.DOUBLE,
+                    Double.doubleToRawLongBits(defaultValue));
+            return Double.longBitsToDouble(bits);
+        }
+
         return message.tryGetDouble(name(), defaultValue);
     }
 
@@ -74,6 +87,17 @@ public final class DoubleFieldInfo extends FieldInfo {
     public OptionalDouble tryGet(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.DOUBLE,
+                    FieldLayout.ABSENT_BITS);
+            if (bits == FieldLayout.ABSENT_BITS && !layout.contains(message, slot())) {
+                return OptionalDouble.empty();
+            }
+
+            return OptionalDouble.of(Double.longBitsToDouble(bits));
+        }
+
         return message.tryGetDouble(name());
     }
 
@@ -86,6 +110,12 @@ public final class DoubleFieldInfo extends FieldInfo {
     public void put(MessageWriter message, double value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.DOUBLE, Double.doubleToRawLongBits(value));
+            return;
+        }
+
         message.putDouble(name(), value);
     }
 }
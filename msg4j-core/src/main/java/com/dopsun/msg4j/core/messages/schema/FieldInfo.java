@@ -18,8 +18,10 @@ package com.dopsun.msg4j.core.messages.schema;
 
 import java.util.Objects;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 
 /**
@@ -30,6 +32,13 @@ import com.dopsun.msg4j.core.messages.FieldType;
 public abstract class FieldInfo {
     private final String name;
 
+    /**
+     * Written after {@link #slot}, so reading it first makes {@link #slot} visible.
+     */
+    @Nullable
+    private volatile FieldLayout layout;
+    private int slot;
+
     /**
      * @param name
      */
@@ -50,4 +59,35 @@ public abstract class FieldInfo {
      * @return type of this field.
      */
     public abstract FieldType type();
+
+    /**
+     * Binds this field to <code>slot</code> of <code>layout</code>, so messages created with
+     * <code>layout</code> are accessed by slot. Only the first binding is kept.
+     * 
+     * @param layout
+     * @param slot
+     */
+    final synchronized void bind(FieldLayout layout, int slot) {
+        Objects.requireNonNull(layout);
+
+        if (this.layout == null) {
+            this.slot = slot;
+            this.layout = layout;
+        }
+    }
+
+    /**
+     * @return layout this field bound to, or <code>null</code>.
+     */
+    @Nullable
+    final FieldLayout layout() {
+        return layout;
+    }
+
+    /**
+     * @return slot of this field in {@link #layout()}.
+     */
+    final int slot() {
+        return slot;
+    }
 }
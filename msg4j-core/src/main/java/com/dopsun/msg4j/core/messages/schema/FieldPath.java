@@ -0,0 +1,814 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.schema;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.dopsun.msg4j.core.messages.FieldNotFoundException;
+import com.dopsun.msg4j.core.messages.FieldType;
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.InvalidTypeException;
+import com.dopsun.msg4j.core.messages.MessageReader;
+import com.dopsun.msg4j.core.messages.Messages;
+
+/**
+ * Path of a field in nested messages, e.g. <code>leg[2].instrument.symbol</code> for field
+ * <code>symbol</code> of message in field <code>instrument</code> of third message in list of
+ * field <code>leg</code>.
+ * 
+ * <p>
+ * Path is parsed once, and resolved against messages with one lookup per segment. Same as
+ * {@link MessageReader}, <code>get</code> methods throw {@link FieldNotFoundException} if a
+ * segment is absent, or a list is shorter than index, and {@link InvalidTypeException} if a
+ * segment is not of expected type; <code>tryGet</code> methods return default value if a segment
+ * is absent, and throw {@link InvalidTypeException} if a segment is not of expected type.
+ * </p>
+ * 
+ * <p>
+ * A path ends with index, e.g. <code>leg[2]</code>, is path of a {@link FieldType#MESSAGE} in the
+ * list.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@Immutable
+public final class FieldPath {
+    private static final int NO_INDEX = -1;
+
+    /**
+     * Returned by {@link MessageReader#tryGetMessage(String, ImmutableMessage)} if absent.
+     */
+    private static final ImmutableMessage ABSENT = Messages.builder().build();
+
+    /**
+     * @param path
+     *            names separated by <code>.</code>, each can be followed by an index in
+     *            <code>[]</code>
+     * @return
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>path</code> is invalid.
+     */
+    public static FieldPath parse(String path) {
+        Objects.requireNonNull(path);
+
+        FieldPath fieldPath = null;
+        int start = 0;
+        while (true) {
+            int end = start;
+            while (end < path.length() && ".[]".indexOf(path.charAt(end)) < 0) {
+                end++;
+            }
+
+            if (end == start) {
+                throw new IllegalArgumentException("Invalid field path: " + path);
+            }
+
+            String name = path.substring(start, end);
+            fieldPath = fieldPath == null ? of(name) : fieldPath.child(name);
+
+            if (end < path.length() && path.charAt(end) == '[') {
+                int close = path.indexOf(']', end);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Invalid field path: " + path);
+                }
+
+                try {
+                    fieldPath = fieldPath.element(Integer.parseInt(path.substring(end + 1, close)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid field path: " + path, e);
+                }
+
+                end = close + 1;
+            }
+
+            if (end == path.length()) {
+                return fieldPath;
+            }
+
+            if (path.charAt(end) != '.') {
+                throw new IllegalArgumentException("Invalid field path: " + path);
+            }
+
+            start = end + 1;
+        }
+    }
+
+    /**
+     * @param name
+     *            name of field in top message
+     * @return
+     */
+    public static FieldPath of(String name) {
+        Objects.requireNonNull(name);
+
+        return new FieldPath(new String[] { name }, new int[] { NO_INDEX });
+    }
+
+    private final String[] names;
+
+    /**
+     * Index of message in list of each segment, or {@link #NO_INDEX}.
+     */
+    private final int[] indexes;
+
+    private final String name;
+    private final int last;
+
+    private FieldPath(String[] names, int[] indexes) {
+        this.names = names;
+        this.indexes = indexes;
+
+        this.last = names.length - 1;
+        this.name = names[last];
+    }
+
+    /**
+     * @param childName
+     * @return path of field <code>childName</code> in message of this path.
+     */
+    public FieldPath child(String childName) {
+        Objects.requireNonNull(childName);
+
+        String[] childNames = Arrays.copyOf(names, names.length + 1);
+        int[] childIndexes = Arrays.copyOf(indexes, indexes.length + 1);
+        childNames[names.length] = childName;
+        childIndexes[names.length] = NO_INDEX;
+
+        return new FieldPath(childNames, childIndexes);
+    }
+
+    /**
+     * @param index
+     * @return path of message at <code>index</code> in list of this path.
+     * 
+     * @throws IllegalArgumentException
+     *             if <code>index</code> is negative, or this path ends with index already.
+     */
+    public FieldPath element(int index) {
+        if (index < 0 || indexes[last] != NO_INDEX) {
+            throw new IllegalArgumentException("Invalid index of " + this + ": " + index);
+        }
+
+        int[] elementIndexes = indexes.clone();
+        elementIndexes[last] = index;
+
+        return new FieldPath(names, elementIndexes);
+    }
+
+    /**
+     * @return name of last field in path.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return number of messages to walk through before last field.
+     */
+    public int depth() {
+        return last;
+    }
+
+    /**
+     * @return <code>true</code> if path ends with index.
+     */
+    public boolean isElement() {
+        return indexes[last] != NO_INDEX;
+    }
+
+    /**
+     * Resolves parent without exceptions, for callers treat missing and wrong type same.
+     * 
+     * @param message
+     * @return message contains last field, or <code>null</code> if a segment before last field is
+     *         absent or not of expected type.
+     */
+    @Nullable
+    public MessageReader parentOf(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        MessageReader parent = message;
+        for (int i = 0; i < last; i++) {
+            parent = elementOf(parent, i);
+            if (parent == null) {
+                return null;
+            }
+        }
+
+        return parent;
+    }
+
+    /**
+     * @return message of <code>segment</code>, or <code>null</code> if absent or not of expected
+     *         type, which is rare, so it is looked up once and wrong type caught.
+     */
+    @Nullable
+    private ImmutableMessage elementOf(MessageReader parent, int segment) {
+        try {
+            return tryStep(parent, segment);
+        } catch (InvalidTypeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param message
+     * @return <code>true</code> if field of this path exists; <code>false</code> if a segment is
+     *         absent or not of expected type.
+     */
+    public boolean contains(MessageReader message) {
+        MessageReader parent = parentOf(message);
+        if (parent == null) {
+            return false;
+        }
+
+        return isElement() ? elementOf(parent, last) != null : parent.contains(name);
+    }
+
+    private MessageReader parent(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        MessageReader parent = message;
+        for (int i = 0; i < last; i++) {
+            parent = step(parent, i);
+        }
+
+        return parent;
+    }
+
+    private ImmutableMessage step(MessageReader parent, int segment) {
+        String segmentName = names[segment];
+        int index = indexes[segment];
+        if (index == NO_INDEX) {
+            return parent.getMessage(segmentName);
+        }
+
+        List<ImmutableMessage> list = parent.getMessageList(segmentName);
+        if (index >= list.size()) {
+            throw new FieldNotFoundException(segmentName + "[" + index + "]");
+        }
+
+        return list.get(index);
+    }
+
+    @Nullable
+    private MessageReader tryParent(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        MessageReader parent = message;
+        for (int i = 0; i < last; i++) {
+            parent = tryStep(parent, i);
+            if (parent == null) {
+                return null;
+            }
+        }
+
+        return parent;
+    }
+
+    @Nullable
+    private ImmutableMessage tryStep(MessageReader parent, int segment) {
+        String segmentName = names[segment];
+        int index = indexes[segment];
+        if (index == NO_INDEX) {
+            ImmutableMessage value = parent.tryGetMessage(segmentName, ABSENT);
+            return value == ABSENT ? null : value;
+        }
+
+        List<ImmutableMessage> list = parent.tryGetMessageList(segmentName,
+                Collections.emptyList());
+        return index < list.size() ? list.get(index) : null;
+    }
+
+    /**
+     * @param expected
+     *            type of last field
+     * @throws InvalidTypeException
+     *             if path ends with index, which is a {@link FieldType#MESSAGE}.
+     */
+    private void checkNotElement(FieldType expected) {
+        if (isElement()) {
+            throw new InvalidTypeException(toString(), expected, FieldType.MESSAGE);
+        }
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getFieldType(String)
+     */
+    public FieldType getFieldType(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        MessageReader parent = parent(message);
+        if (isElement()) {
+            step(parent, last);
+            return FieldType.MESSAGE;
+        }
+
+        return parent.getFieldType(name);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#tryGetFieldType(String)
+     */
+    public Optional<FieldType> tryGetFieldType(MessageReader message) throws InvalidTypeException {
+        MessageReader parent = tryParent(message);
+        if (parent == null) {
+            return Optional.empty();
+        }
+
+        if (isElement()) {
+            return tryStep(parent, last) == null ? Optional.empty()
+                    : Optional.of(FieldType.MESSAGE);
+        }
+
+        return parent.tryGetFieldType(name);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getBoolean(String)
+     */
+    public boolean getBoolean(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.BOOLEAN);
+
+        return parent(message).getBoolean(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetBoolean(String, boolean)
+     */
+    public boolean tryGetBoolean(MessageReader message, boolean defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.BOOLEAN);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetBoolean(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getByte(String)
+     */
+    public byte getByte(MessageReader message) throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.BYTE);
+
+        return parent(message).getByte(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetByte(String, byte)
+     */
+    public byte tryGetByte(MessageReader message, byte defaultValue) throws InvalidTypeException {
+        checkNotElement(FieldType.BYTE);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetByte(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getChar(String)
+     */
+    public char getChar(MessageReader message) throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.CHAR);
+
+        return parent(message).getChar(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetChar(String, char)
+     */
+    public char tryGetChar(MessageReader message, char defaultValue) throws InvalidTypeException {
+        checkNotElement(FieldType.CHAR);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetChar(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getShort(String)
+     */
+    public short getShort(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.SHORT);
+
+        return parent(message).getShort(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetShort(String, short)
+     */
+    public short tryGetShort(MessageReader message, short defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.SHORT);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetShort(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getInt(String)
+     */
+    public int getInt(MessageReader message) throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.INT);
+
+        return parent(message).getInt(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetInt(String, int)
+     */
+    public int tryGetInt(MessageReader message, int defaultValue) throws InvalidTypeException {
+        checkNotElement(FieldType.INT);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetInt(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getLong(String)
+     */
+    public long getLong(MessageReader message) throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.LONG);
+
+        return parent(message).getLong(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetLong(String, long)
+     */
+    public long tryGetLong(MessageReader message, long defaultValue) throws InvalidTypeException {
+        checkNotElement(FieldType.LONG);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetLong(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getFloat(String)
+     */
+    public float getFloat(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.FLOAT);
+
+        return parent(message).getFloat(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetFloat(String, float)
+     */
+    public float tryGetFloat(MessageReader message, float defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.FLOAT);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetFloat(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getDouble(String)
+     */
+    public double getDouble(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.DOUBLE);
+
+        return parent(message).getDouble(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetDouble(String, double)
+     */
+    public double tryGetDouble(MessageReader message, double defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.DOUBLE);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetDouble(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getString(String)
+     */
+    public String getString(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.STRING);
+
+        return parent(message).getString(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetString(String, String)
+     */
+    public String tryGetString(MessageReader message, String defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.STRING);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetString(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getMessageList(String)
+     */
+    public List<ImmutableMessage> getMessageList(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.MESSAGE_LIST);
+
+        return parent(message).getMessageList(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetMessageList(String, List)
+     */
+    public List<ImmutableMessage> tryGetMessageList(MessageReader message,
+            List<ImmutableMessage> defaultValue) throws InvalidTypeException {
+        checkNotElement(FieldType.MESSAGE_LIST);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetMessageList(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getMessage(String)
+     */
+    public ImmutableMessage getMessage(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        MessageReader parent = parent(message);
+        return isElement() ? step(parent, last) : parent.getMessage(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetMessage(String, ImmutableMessage)
+     */
+    public ImmutableMessage tryGetMessage(MessageReader message, ImmutableMessage defaultValue)
+            throws InvalidTypeException {
+        Objects.requireNonNull(defaultValue);
+
+        MessageReader parent = tryParent(message);
+        if (parent == null) {
+            return defaultValue;
+        }
+
+        if (isElement()) {
+            ImmutableMessage value = tryStep(parent, last);
+            return value == null ? defaultValue : value;
+        }
+
+        return parent.tryGetMessage(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getIntArray(String)
+     */
+    public IntBuffer getIntArray(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.INT_ARRAY);
+
+        return parent(message).getIntArray(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetIntArray(String, IntBuffer)
+     */
+    public IntBuffer tryGetIntArray(MessageReader message, IntBuffer defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.INT_ARRAY);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetIntArray(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getLongArray(String)
+     */
+    public LongBuffer getLongArray(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.LONG_ARRAY);
+
+        return parent(message).getLongArray(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetLongArray(String, LongBuffer)
+     */
+    public LongBuffer tryGetLongArray(MessageReader message, LongBuffer defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.LONG_ARRAY);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetLongArray(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getDoubleArray(String)
+     */
+    public DoubleBuffer getDoubleArray(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.DOUBLE_ARRAY);
+
+        return parent(message).getDoubleArray(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetDoubleArray(String, DoubleBuffer)
+     */
+    public DoubleBuffer tryGetDoubleArray(MessageReader message, DoubleBuffer defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.DOUBLE_ARRAY);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetDoubleArray(name, defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getBytes(String)
+     */
+    public ByteBuffer getBytes(MessageReader message)
+            throws FieldNotFoundException, InvalidTypeException {
+        checkNotElement(FieldType.BYTES);
+
+        return parent(message).getBytes(name);
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetBytes(String, ByteBuffer)
+     */
+    public ByteBuffer tryGetBytes(MessageReader message, ByteBuffer defaultValue)
+            throws InvalidTypeException {
+        checkNotElement(FieldType.BYTES);
+
+        MessageReader parent = tryParent(message);
+        return parent == null ? defaultValue : parent.tryGetBytes(name, defaultValue);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof FieldPath)) {
+            return false;
+        }
+
+        FieldPath other = (FieldPath) obj;
+        return Arrays.equals(names, other.names) && Arrays.equals(indexes, other.indexes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(names) + Arrays.hashCode(indexes);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= last; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+
+            sb.append(names[i]);
+            if (indexes[i] != NO_INDEX) {
+                sb.append('[').append(indexes[i]).append(']');
+            }
+        }
+
+        return sb.toString();
+    }
+}
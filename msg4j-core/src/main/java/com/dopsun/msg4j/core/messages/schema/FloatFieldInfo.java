@@ -18,6 +18,7 @@ package com.dopsun.msg4j.core.messages.schema;
 
 import java.util.Objects;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -48,6 +49,11 @@ public final class FloatFieldInfo extends FieldInfo {
     public float get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return Float.intBitsToFloat((int) layout.getBits(message, slot(), FieldType.FLOAT));
+        }
+
         return message.getFloat(name());
     }
 
@@ -61,6 +67,13 @@ public final class FloatFieldInfo extends FieldInfo {
     public float tryGet(MessageReader message, float defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.FLOAT,
+                    Float.floatToRawIntBits(defaultValue));
+            return Float.intBitsToFloat((int) bits);
+        }
+
         return message.tryGetFloat(name(), defaultValue);
     }
 
@@ -73,6 +86,12 @@ public final class FloatFieldInfo extends FieldInfo {
     public void put(MessageWriter message, float value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.FLOAT, Float.floatToRawIntBits(value));
+            return;
+        }
+
         message.putFloat(name(), value);
     }
 }
@@ -19,6 +19,7 @@ package com.dopsun.msg4j.core.messages.schema;
 import java.util.Objects;
 import java.util.OptionalInt;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -49,6 +50,11 @@ public final class IntFieldInfo extends FieldInfo {
     public int get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (int) layout.getBits(message, slot(), FieldType.INT);
+        }
+
         return message.getInt(name());
     }
 
@@ -62,6 +68,12 @@ public final class IntFieldInfo extends FieldInfo {
     public int tryGet(MessageReader message, int defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.INT, defaultValue);
+            return (int) bits;
+        }
+
         return message.tryGetInt(name(), defaultValue);
     }
 
@@ -74,6 +86,16 @@ public final class IntFieldInfo extends FieldInfo {
     public OptionalInt tryGet(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.INT, FieldLayout.ABSENT_BITS);
+            if (bits == FieldLayout.ABSENT_BITS) {
+                return OptionalInt.empty();
+            }
+
+            return OptionalInt.of((int) bits);
+        }
+
         return message.tryGetInt(name());
     }
 
@@ -86,6 +108,12 @@ public final class IntFieldInfo extends FieldInfo {
     public void put(MessageWriter message, int value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.INT, value);
+            return;
+        }
+
         message.putInt(name(), value);
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.schema;
+
+import java.nio.LongBuffer;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.dopsun.msg4j.core.messages.FieldLayout;
+import com.dopsun.msg4j.core.messages.FieldType;
+import com.dopsun.msg4j.core.messages.MessageReader;
+import com.dopsun.msg4j.core.messages.MessageWriter;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class LongArrayFieldInfo extends FieldInfo {
+    /**
+     * @param name
+     */
+    public LongArrayFieldInfo(String name) {
+        super(name);
+    }
+
+    @Override
+    public final FieldType type() {
+        return FieldType.LONG_ARRAY;
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#getLongArray(String)
+     */
+    public LongBuffer get(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (LongBuffer) layout.getRef(message, slot(), FieldType.LONG_ARRAY);
+        }
+
+        return message.getLongArray(name());
+    }
+
+    /**
+     * @param message
+     * @param defaultValue
+     * @return
+     * 
+     * @see MessageReader#tryGetLongArray(String)
+     */
+    public LongBuffer tryGet(MessageReader message, LongBuffer defaultValue) {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(defaultValue);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            Object value = layout.tryGetRef(message, slot(), FieldType.LONG_ARRAY);
+            return value == null ? defaultValue : (LongBuffer) value;
+        }
+
+        return message.tryGetLongArray(name(), defaultValue);
+    }
+
+    /**
+     * @param message
+     * @return
+     * 
+     * @see MessageReader#tryGetLongArray(String)
+     */
+    public Optional<LongBuffer> tryGet(MessageReader message) {
+        Objects.requireNonNull(message);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return Optional.ofNullable((LongBuffer) layout.tryGetRef(message, slot(),
+                    FieldType.LONG_ARRAY));
+        }
+
+        return message.tryGetLongArray(name());
+    }
+
+    /**
+     * @param message
+     * @param value
+     * 
+     * @see MessageWriter#putLongArray(String, long[])
+     */
+    public void put(MessageWriter message, long[] value) {
+        Objects.requireNonNull(message);
+        Objects.requireNonNull(value);
+
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putRef(message, slot(), FieldType.LONG_ARRAY, value);
+            return;
+        }
+
+        message.putLongArray(name(), value);
+    }
+}
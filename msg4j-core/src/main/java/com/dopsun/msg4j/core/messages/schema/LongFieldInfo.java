@@ -19,6 +19,7 @@ package com.dopsun.msg4j.core.messages.schema;
 import java.util.Objects;
 import java.util.OptionalLong;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -49,6 +50,11 @@ public final class LongFieldInfo extends FieldInfo {
     public long get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return layout.getBits(message, slot(), FieldType.LONG);
+        }
+
         return message.getLong(name());
     }
 
@@ -62,6 +68,12 @@ public final class LongFieldInfo extends FieldInfo {
     public long tryGet(MessageReader message, long defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.LONG, defaultValue);
+            return bits;
+        }
+
         return message.tryGetLong(name(), defaultValue);
     }
 
@@ -74,6 +86,16 @@ public final class LongFieldInfo extends FieldInfo {
     public OptionalLong tryGet(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.LONG, FieldLayout.ABSENT_BITS);
+            if (bits == FieldLayout.ABSENT_BITS && !layout.contains(message, slot())) {
+                return OptionalLong.empty();
+            }
+
+            return OptionalLong.of(bits);
+        }
+
         return message.tryGetLong(name());
     }
 
@@ -86,6 +108,12 @@ public final class LongFieldInfo extends FieldInfo {
     public void put(MessageWriter message, long value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.LONG, value);
+            return;
+        }
+
         message.putLong(name(), value);
     }
 }
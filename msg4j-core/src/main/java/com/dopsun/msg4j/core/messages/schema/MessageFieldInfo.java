@@ -19,6 +19,7 @@ package com.dopsun.msg4j.core.messages.schema;
 import java.util.Objects;
 import java.util.Optional;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.ImmutableMessage;
 import com.dopsun.msg4j.core.messages.MessageReader;
@@ -50,6 +51,11 @@ public final class MessageFieldInfo extends FieldInfo {
     public ImmutableMessage get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (ImmutableMessage) layout.getRef(message, slot(), FieldType.MESSAGE);
+        }
+
         return message.getMessage(name());
     }
 
@@ -64,6 +70,12 @@ public final class MessageFieldInfo extends FieldInfo {
         Objects.requireNonNull(message);
         Objects.requireNonNull(defaultValue);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            Object value = layout.tryGetRef(message, slot(), FieldType.MESSAGE);
+            return value == null ? defaultValue : (ImmutableMessage) value;
+        }
+
         return message.tryGetMessage(name(), defaultValue);
     }
 
@@ -76,6 +88,12 @@ public final class MessageFieldInfo extends FieldInfo {
     public Optional<ImmutableMessage> tryGet(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return Optional.ofNullable((ImmutableMessage) layout.tryGetRef(message, slot(),
+                    FieldType.MESSAGE));
+        }
+
         return message.tryGetMessage(name());
     }
 
@@ -89,6 +107,12 @@ public final class MessageFieldInfo extends FieldInfo {
         Objects.requireNonNull(message);
         Objects.requireNonNull(value);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putRef(message, slot(), FieldType.MESSAGE, value);
+            return;
+        }
+
         message.putMessage(name(), value);
     }
 }
@@ -16,12 +16,17 @@
 
 package com.dopsun.msg4j.core.messages.schema;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
 import javax.annotation.concurrent.Immutable;
 
+import com.dopsun.msg4j.core.messages.MessageBatch;
+
 /**
  * @author Dop Sun
  * @since 1.0.0
@@ -39,11 +44,13 @@ public final class MessageInfo {
     }
 
     private final String messageType;
+    private final Collection<FieldInfo> fields;
 
     MessageInfo(Builder builder) {
         Objects.requireNonNull(builder);
 
         this.messageType = Objects.requireNonNull(builder.messageType);
+        this.fields = Collections.unmodifiableList(new ArrayList<>(builder.fields.values()));
     }
 
     /**
@@ -53,6 +60,25 @@ public final class MessageInfo {
         return messageType;
     }
 
+    /**
+     * @return fields of the message, in order added.
+     */
+    public Collection<FieldInfo> fields() {
+        return fields;
+    }
+
+    /**
+     * @return builder of batch with a column per field of the message.
+     */
+    public MessageBatch.Builder batchBuilder() {
+        MessageBatch.Builder builder = MessageBatch.builder();
+        for (FieldInfo field : fields) {
+            builder.column(field.name(), field.type());
+        }
+
+        return builder;
+    }
+
     /**
      * @author Dop Sun
      * @since 1.0.0
@@ -60,7 +86,7 @@ public final class MessageInfo {
     public static class Builder {
         private final String messageType;
 
-        private Map<String, FieldInfo> fields = new HashMap<>();
+        private Map<String, FieldInfo> fields = new LinkedHashMap<>();
 
         Builder(String messageType) {
             Objects.requireNonNull(messageType);
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.ImmutableMessage;
 import com.dopsun.msg4j.core.messages.MessageReader;
@@ -48,9 +49,15 @@ public final class MessageListFieldInfo extends FieldInfo {
      * 
      * @see MessageReader#getMessageList(String)
      */
+    @SuppressWarnings("unchecked")
     public List<ImmutableMessage> get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (List<ImmutableMessage>) layout.getRef(message, slot(), FieldType.MESSAGE_LIST);
+        }
+
         return message.getMessageList(name());
     }
 
@@ -61,11 +68,18 @@ public final class MessageListFieldInfo extends FieldInfo {
      * 
      * @see MessageReader#tryGetMessageList(String)
      */
+    @SuppressWarnings("unchecked")
     public List<ImmutableMessage> tryGet(MessageReader message,
             List<ImmutableMessage> defaultValue) {
         Objects.requireNonNull(message);
         Objects.requireNonNull(defaultValue);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            Object value = layout.tryGetRef(message, slot(), FieldType.MESSAGE_LIST);
+            return value == null ? defaultValue : (List<ImmutableMessage>) value;
+        }
+
         return message.tryGetMessageList(name(), defaultValue);
     }
 
@@ -75,9 +89,16 @@ public final class MessageListFieldInfo extends FieldInfo {
      * 
      * @see MessageReader#tryGetMessageList(String)
      */
+    @SuppressWarnings("unchecked")
     public Optional<List<ImmutableMessage>> tryGet(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            Object value = layout.tryGetRef(message, slot(), FieldType.MESSAGE_LIST);
+            return Optional.ofNullable((List<ImmutableMessage>) value);
+        }
+
         return message.tryGetMessageList(name());
     }
 
@@ -91,6 +112,12 @@ public final class MessageListFieldInfo extends FieldInfo {
         Objects.requireNonNull(message);
         Objects.requireNonNull(value);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putRef(message, slot(), FieldType.MESSAGE_LIST, value);
+            return;
+        }
+
         message.putMessageList(name(), value);
     }
 }
@@ -18,6 +18,7 @@ package com.dopsun.msg4j.core.messages.schema;
 
 import java.util.Objects;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -48,6 +49,11 @@ public final class ShortFieldInfo extends FieldInfo {
     public short get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (short) layout.getBits(message, slot(), FieldType.SHORT);
+        }
+
         return message.getShort(name());
     }
 
@@ -61,6 +67,12 @@ public final class ShortFieldInfo extends FieldInfo {
     public short tryGet(MessageReader message, short defaultValue) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            long bits = layout.tryGetBits(message, slot(), FieldType.SHORT, defaultValue);
+            return (short) bits;
+        }
+
         return message.tryGetShort(name(), defaultValue);
     }
 
@@ -73,6 +85,12 @@ public final class ShortFieldInfo extends FieldInfo {
     public void put(MessageWriter message, short value) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putBits(message, slot(), FieldType.SHORT, value);
+            return;
+        }
+
         message.putShort(name(), value);
     }
 }
@@ -19,6 +19,7 @@ package com.dopsun.msg4j.core.messages.schema;
 import java.util.Objects;
 import java.util.Optional;
 
+import com.dopsun.msg4j.core.messages.FieldLayout;
 import com.dopsun.msg4j.core.messages.FieldType;
 import com.dopsun.msg4j.core.messages.MessageReader;
 import com.dopsun.msg4j.core.messages.MessageWriter;
@@ -49,6 +50,11 @@ public final class StringFieldInfo extends FieldInfo {
     public String get(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return (String) layout.getRef(message, slot(), FieldType.STRING);
+        }
+
         return message.getString(name());
     }
 
@@ -63,6 +69,12 @@ public final class StringFieldInfo extends FieldInfo {
         Objects.requireNonNull(message);
         Objects.requireNonNull(defaultValue);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            Object value = layout.tryGetRef(message, slot(), FieldType.STRING);
+            return value == null ? defaultValue : (String) value;
+        }
+
         return message.tryGetString(name(), defaultValue);
     }
 
@@ -75,6 +87,12 @@ public final class StringFieldInfo extends FieldInfo {
     public Optional<String> tryGet(MessageReader message) {
         Objects.requireNonNull(message);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            return Optional.ofNullable((String) layout.tryGetRef(message, slot(),
+                    FieldType.STRING));
+        }
+
         return message.tryGetString(name());
     }
 
@@ -88,6 +106,12 @@ public final class StringFieldInfo extends FieldInfo {
         Objects.requireNonNull(message);
         Objects.requireNonNull(value);
 
+        FieldLayout layout = layout();
+        if (layout != null) {
+            layout.putRef(message, slot(), FieldType.STRING, value);
+            return;
+        }
+
         message.putString(name(), value);
     }
 }
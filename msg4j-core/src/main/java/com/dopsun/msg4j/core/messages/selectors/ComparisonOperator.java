@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+import javax.annotation.Nullable;
+
+/**
+ * Comparison operators.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+enum ComparisonOperator {
+    EQ("="), NE("<>"), LT("<"), LE("<="), GT(">"), GE(">=");
+
+    private final String symbol;
+
+    private ComparisonOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @param symbol
+     * @return operator of <code>symbol</code>, or <code>null</code> if not an operator.
+     */
+    @Nullable
+    static ComparisonOperator of(String symbol) {
+        for (ComparisonOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return operator which is <code>true</code> when this is <code>false</code>, for comparable
+     *         values.
+     */
+    ComparisonOperator complement() {
+        switch (this) {
+        case EQ:
+            return NE;
+        case NE:
+            return EQ;
+        case LT:
+            return GE;
+        case LE:
+            return GT;
+        case GT:
+            return LE;
+        default:
+            return LT;
+        }
+    }
+
+    /**
+     * @return operator with operands swapped, e.g. <code>&gt;</code> for <code>&lt;</code>.
+     */
+    ComparisonOperator swap() {
+        switch (this) {
+        case LT:
+            return GT;
+        case LE:
+            return GE;
+        case GT:
+            return LT;
+        case GE:
+            return LE;
+        default:
+            return this;
+        }
+    }
+
+    /**
+     * @param comparison
+     *            result of comparison of left operand to right operand
+     * @return <code>true</code> if operator holds.
+     */
+    boolean test(int comparison) {
+        switch (this) {
+        case EQ:
+            return comparison == 0;
+        case NE:
+            return comparison != 0;
+        case LT:
+            return comparison < 0;
+        case LE:
+            return comparison <= 0;
+        case GT:
+            return comparison > 0;
+        default:
+            return comparison >= 0;
+        }
+    }
+
+    /**
+     * Compares as Java does, so <code>NaN</code> is not equal to anything.
+     * 
+     * @param left
+     * @param right
+     * @return <code>true</code> if operator holds.
+     */
+    boolean test(double left, double right) {
+        switch (this) {
+        case EQ:
+            return left == right;
+        case NE:
+            return left != right;
+        case LT:
+            return left < right;
+        case LE:
+            return left <= right;
+        case GT:
+            return left > right;
+        default:
+            return left >= right;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
@@ -0,0 +1,771 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import com.dopsun.msg4j.core.messages.FieldType;
+import com.dopsun.msg4j.core.messages.MessageReader;
+import com.dopsun.msg4j.core.messages.schema.FieldPath;
+
+/**
+ * Condition in selector expression.
+ * 
+ * <p>
+ * Conditions are kept in negation normal form: <code>NOT</code> is pushed down to comparisons by
+ * {@link #negate()} when parsed, so each comparison is tested once, without tracking unknown
+ * values of SQL three-valued logic.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+abstract class Condition {
+    static final Condition TRUE = new Constant(Boolean.TRUE);
+    static final Condition FALSE = new Constant(Boolean.FALSE);
+    static final Condition UNKNOWN = new Constant(null);
+
+    /**
+     * @return condition which is <code>true</code> when this is <code>false</code>, and unknown
+     *         when this is unknown.
+     */
+    abstract Condition negate();
+
+    /**
+     * Folds constants, flattens nested <code>AND</code> and <code>OR</code>, and orders their
+     * operands by {@link #cost()}. As all negations are pushed down, unknown is folded as
+     * <code>false</code>.
+     * 
+     * @return simplified condition
+     */
+    Condition simplify() {
+        return this;
+    }
+
+    /**
+     * @return estimated cost to test this condition.
+     */
+    abstract int cost();
+
+    /**
+     * @return selector which is <code>true</code> when this condition is <code>true</code>.
+     */
+    abstract MessageSelector compile();
+
+    static Condition and(Condition left, Condition right) {
+        return new Junction(true, Arrays.asList(left, right));
+    }
+
+    static Condition or(Condition left, Condition right) {
+        return new Junction(false, Arrays.asList(left, right));
+    }
+
+    /**
+     * @param left
+     * @param operator
+     * @param right
+     * @return constant of comparison, unknown if literals are not comparable.
+     */
+    static Condition compare(Literal left, ComparisonOperator operator, Literal right) {
+        Integer comparison = left.compareTo(right);
+        if (comparison == null) {
+            return UNKNOWN;
+        }
+
+        return operator.test(comparison.intValue()) ? TRUE : FALSE;
+    }
+
+    /**
+     * <code>TRUE</code>, <code>FALSE</code> or unknown.
+     */
+    static final class Constant extends Condition {
+        @Nullable
+        private final Boolean value;
+
+        private Constant(@Nullable Boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        Condition negate() {
+            if (value == null) {
+                return this;
+            }
+
+            return value.booleanValue() ? FALSE : TRUE;
+        }
+
+        @Override
+        Condition simplify() {
+            return value == null ? FALSE : this;
+        }
+
+        @Override
+        int cost() {
+            return 0;
+        }
+
+        @Override
+        MessageSelector compile() {
+            if (value != null && value.booleanValue()) {
+                return message -> true;
+            }
+
+            return message -> false;
+        }
+
+        @Override
+        public String toString() {
+            return value == null ? "UNKNOWN" : (value.booleanValue() ? "TRUE" : "FALSE");
+        }
+    }
+
+    /**
+     * <code>AND</code> or <code>OR</code> of operands.
+     */
+    static final class Junction extends Condition {
+        private final boolean and;
+        private final List<Condition> operands;
+
+        Junction(boolean and, List<Condition> operands) {
+            this.and = and;
+            this.operands = Objects.requireNonNull(operands);
+        }
+
+        @Override
+        Condition negate() {
+            List<Condition> negated = operands.stream().map(Condition::negate)
+                    .collect(Collectors.toList());
+
+            return new Junction(!and, negated);
+        }
+
+        @Override
+        Condition simplify() {
+            Condition absorbing = and ? FALSE : TRUE;
+
+            List<Condition> simplified = new ArrayList<>();
+            for (Condition operand : operands) {
+                Condition condition = operand.simplify();
+                if (condition == absorbing) {
+                    return absorbing;
+                }
+
+                if (condition instanceof Constant) {
+                    continue;
+                }
+
+                if (condition instanceof Junction && ((Junction) condition).and == and) {
+                    simplified.addAll(((Junction) condition).operands);
+                } else {
+                    simplified.add(condition);
+                }
+            }
+
+            if (simplified.isEmpty()) {
+                return and ? TRUE : FALSE;
+            }
+
+            if (simplified.size() == 1) {
+                return simplified.get(0);
+            }
+
+            simplified.sort(Comparator.comparingInt(Condition::cost));
+            return new Junction(and, simplified);
+        }
+
+        @Override
+        int cost() {
+            int cost = 0;
+            for (Condition operand : operands) {
+                cost += operand.cost();
+            }
+
+            return cost;
+        }
+
+        @Override
+        MessageSelector compile() {
+            MessageSelector[] selectors = operands.stream().map(Condition::compile)
+                    .toArray(MessageSelector[]::new);
+
+            if (selectors.length == 2) {
+                MessageSelector first = selectors[0];
+                MessageSelector second = selectors[1];
+
+                if (and) {
+                    return message -> first.test(message) && second.test(message);
+                }
+
+                return message -> first.test(message) || second.test(message);
+            }
+
+            if (and) {
+                return message -> {
+                    for (MessageSelector selector : selectors) {
+                        if (!selector.test(message)) {
+                            return false;
+                        }
+                    }
+
+                    return true;
+                };
+            }
+
+            return message -> {
+                for (MessageSelector selector : selectors) {
+                    if (selector.test(message)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            };
+        }
+
+        @Override
+        public String toString() {
+            return operands.stream().map(Object::toString)
+                    .collect(Collectors.joining(and ? " AND " : " OR ", "(", ")"));
+        }
+    }
+
+    /**
+     * <code>IS NULL</code> or <code>IS NOT NULL</code>.
+     */
+    static final class Presence extends Condition {
+        private final FieldPath path;
+        private final boolean present;
+
+        Presence(FieldPath path, boolean present) {
+            this.path = Objects.requireNonNull(path);
+            this.present = present;
+        }
+
+        @Override
+        Condition negate() {
+            return new Presence(path, !present);
+        }
+
+        @Override
+        int cost() {
+            return 1 + path.depth();
+        }
+
+        @Override
+        MessageSelector compile() {
+            return message -> path.contains(message) == present;
+        }
+
+        @Override
+        public String toString() {
+            return path + (present ? " IS NOT NULL" : " IS NULL");
+        }
+    }
+
+    /**
+     * Comparison of field with a literal.
+     */
+    static final class Comparison extends Condition {
+        private final FieldPath path;
+        private final ComparisonOperator operator;
+        private final Literal literal;
+
+        Comparison(FieldPath path, ComparisonOperator operator, Literal literal) {
+            this.path = Objects.requireNonNull(path);
+            this.operator = Objects.requireNonNull(operator);
+            this.literal = Objects.requireNonNull(literal);
+        }
+
+        @Override
+        Condition negate() {
+            return new Comparison(path, operator.complement(), literal);
+        }
+
+        @Override
+        int cost() {
+            return (literal.kind() == Literal.Kind.STRING ? 3 : 2) + path.depth();
+        }
+
+        @Override
+        MessageSelector compile() {
+            switch (literal.kind()) {
+            case BOOLEAN:
+                return new BooleanSelector(path,
+                        literal.booleanValue() == (operator == ComparisonOperator.EQ));
+            case LONG:
+                return new LongSelector(path, operator, literal.longValue());
+            case DOUBLE:
+                return new DoubleSelector(path, operator, literal.doubleValue());
+            default:
+                return new StringSelector(path, operator, literal.stringValue());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return path + " " + operator + " " + literal;
+        }
+    }
+
+    /**
+     * <code>IN</code> or <code>NOT IN</code> a list of literals, all numbers or all strings.
+     */
+    static final class InList extends Condition {
+        private final FieldPath path;
+        private final List<Literal> literals;
+        private final boolean negated;
+
+        InList(FieldPath path, List<Literal> literals, boolean negated) {
+            this.path = Objects.requireNonNull(path);
+            this.literals = Objects.requireNonNull(literals);
+            this.negated = negated;
+        }
+
+        @Override
+        Condition negate() {
+            return new InList(path, literals, !negated);
+        }
+
+        @Override
+        int cost() {
+            return 3 + path.depth();
+        }
+
+        @Override
+        MessageSelector compile() {
+            if (literals.get(0).kind() == Literal.Kind.STRING) {
+                Set<String> values = new HashSet<>();
+                for (Literal literal : literals) {
+                    values.add(literal.stringValue());
+                }
+
+                return new StringInSelector(path, values, negated);
+            }
+
+            boolean allLongs = true;
+            long[] longs = new long[literals.size()];
+            double[] doubles = new double[literals.size()];
+            for (int i = 0; i < longs.length; i++) {
+                Literal literal = literals.get(i);
+                allLongs &= literal.kind() == Literal.Kind.LONG;
+                longs[i] = literal.longValue();
+                doubles[i] = literal.doubleValue();
+            }
+
+            Arrays.sort(longs);
+            Arrays.sort(doubles);
+            return new NumberInSelector(path, allLongs ? longs : null, doubles, negated);
+        }
+
+        @Override
+        public String toString() {
+            return path + (negated ? " NOT IN " : " IN ") + literals.stream()
+                    .map(Object::toString).collect(Collectors.joining(", ", "(", ")"));
+        }
+    }
+
+    /**
+     * <code>LIKE</code> or <code>NOT LIKE</code> a pattern.
+     */
+    static final class Like extends Condition {
+        /**
+         * Element of pattern matches any one character.
+         */
+        static final int ANY_ONE = -1;
+
+        /**
+         * Element of pattern matches any sequence of characters.
+         */
+        static final int ANY_MANY = -2;
+
+        private final FieldPath path;
+        private final String pattern;
+        @Nullable
+        private final Character escape;
+        private final boolean negated;
+
+        /**
+         * Characters of pattern, or {@link #ANY_ONE} or {@link #ANY_MANY} for wildcards.
+         */
+        private final int[] elements;
+
+        Like(FieldPath path, String pattern, @Nullable Character escape, boolean negated) {
+            this.path = Objects.requireNonNull(path);
+            this.pattern = Objects.requireNonNull(pattern);
+            this.escape = escape;
+            this.negated = negated;
+
+            int[] elements = new int[pattern.length()];
+            int length = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (escape != null && c == escape.charValue() && i + 1 < pattern.length()) {
+                    elements[length++] = pattern.charAt(++i);
+                } else if (c == '_') {
+                    elements[length++] = ANY_ONE;
+                } else if (c == '%') {
+                    elements[length++] = ANY_MANY;
+                } else {
+                    elements[length++] = c;
+                }
+            }
+
+            this.elements = Arrays.copyOf(elements, length);
+        }
+
+        @Override
+        Condition negate() {
+            return new Like(path, pattern, escape, !negated);
+        }
+
+        @Override
+        int cost() {
+            return 4 + path.depth();
+        }
+
+        @Override
+        MessageSelector compile() {
+            return new LikeSelector(path, matcher(elements), negated);
+        }
+
+        /**
+         * @param elements
+         * @return matcher specialized for common patterns: exact, prefix, suffix and infix.
+         */
+        static Predicate<String> matcher(int[] elements) {
+            int length = elements.length;
+            boolean leading = length > 0 && elements[0] == ANY_MANY;
+            boolean trailing = length > (leading ? 1 : 0) && elements[length - 1] == ANY_MANY;
+
+            int from = leading ? 1 : 0;
+            int to = trailing ? length - 1 : length;
+
+            StringBuilder literal = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                if (elements[i] < 0) {
+                    return value -> matches(elements, value);
+                }
+
+                literal.append((char) elements[i]);
+            }
+
+            String text = literal.toString();
+            if (leading && trailing) {
+                return value -> value.contains(text);
+            } else if (leading) {
+                return value -> value.endsWith(text);
+            } else if (trailing) {
+                return value -> value.startsWith(text);
+            } else {
+                return value -> value.equals(text);
+            }
+        }
+
+        /**
+         * Matches with backtracking to last {@link #ANY_MANY} only, which is enough as a later
+         * {@link #ANY_MANY} can match whatever an earlier one can.
+         * 
+         * @param elements
+         * @param value
+         * @return <code>true</code> if <code>value</code> matches <code>elements</code>.
+         */
+        static boolean matches(int[] elements, String value) {
+            int element = 0;
+            int index = 0;
+            int lastMany = -1;
+            int lastManyIndex = 0;
+
+            while (index < value.length()) {
+                if (element < elements.length && (elements[element] == ANY_ONE
+                        || elements[element] == value.charAt(index))) {
+                    element++;
+                    index++;
+                } else if (element < elements.length && elements[element] == ANY_MANY) {
+                    lastMany = element++;
+                    lastManyIndex = index;
+                } else if (lastMany >= 0) {
+                    element = lastMany + 1;
+                    index = ++lastManyIndex;
+                } else {
+                    return false;
+                }
+            }
+
+            while (element < elements.length && elements[element] == ANY_MANY) {
+                element++;
+            }
+
+            return element == elements.length;
+        }
+
+        @Override
+        public String toString() {
+            String like = path + (negated ? " NOT LIKE " : " LIKE ") + Literal.of(pattern);
+            return escape == null ? like : like + " ESCAPE " + Literal.of(escape.toString());
+        }
+    }
+
+    /**
+     * Selector on a field, which is not selected if field is absent.
+     */
+    abstract static class FieldSelector implements MessageSelector {
+        private final FieldPath path;
+        final String name;
+
+        FieldSelector(FieldPath path) {
+            this.path = path;
+            this.name = path.name();
+        }
+
+        @Override
+        public final boolean test(MessageReader message) {
+            MessageReader parent = path.parentOf(message);
+            if (parent == null) {
+                return false;
+            }
+
+            FieldType type = parent.tryGetFieldType(name).orElse(null);
+            return type != null && test(parent, type);
+        }
+
+        /**
+         * @param parent
+         *            message contains field
+         * @param type
+         *            type of field
+         * @return <code>true</code> if selected.
+         */
+        abstract boolean test(MessageReader parent, FieldType type);
+    }
+
+    static final class BooleanSelector extends FieldSelector {
+        private final boolean expected;
+
+        BooleanSelector(FieldPath path, boolean expected) {
+            super(path);
+            this.expected = expected;
+        }
+
+        @Override
+        boolean test(MessageReader parent, FieldType type) {
+            return type == FieldType.BOOLEAN && parent.getBoolean(name) == expected;
+        }
+    }
+
+    static final class LongSelector extends FieldSelector {
+        private final ComparisonOperator operator;
+        private final long value;
+
+        LongSelector(FieldPath path, ComparisonOperator operator, long value) {
+            super(path);
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        boolean test(MessageReader parent, FieldType type) {
+            switch (type) {
+            case BYTE:
+                return operator.test(Long.compare(parent.getByte(name), value));
+            case SHORT:
+                return operator.test(Long.compare(parent.getShort(name), value));
+            case INT:
+                return operator.test(Long.compare(parent.getInt(name), value));
+            case LONG:
+                return operator.test(Long.compare(parent.getLong(name), value));
+            case FLOAT:
+                return operator.test(parent.getFloat(name), value);
+            case DOUBLE:
+                return operator.test(parent.getDouble(name), value);
+            default:
+                return false;
+            }
+        }
+    }
+
+    static final class DoubleSelector extends FieldSelector {
+        private final ComparisonOperator operator;
+        private final double value;
+
+        DoubleSelector(FieldPath path, ComparisonOperator operator, double value) {
+            super(path);
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        boolean test(MessageReader parent, FieldType type) {
+            switch (type) {
+            case BYTE:
+                return operator.test(parent.getByte(name), value);
+            case SHORT:
+                return operator.test(parent.getShort(name), value);
+            case INT:
+                return operator.test(parent.getInt(name), value);
+            case LONG:
+                return operator.test(parent.getLong(name), value);
+            case FLOAT:
+                return operator.test(parent.getFloat(name), value);
+            case DOUBLE:
+                return operator.test(parent.getDouble(name), value);
+            default:
+                return false;
+            }
+        }
+    }
+
+    static final class StringSelector extends FieldSelector {
+        private final ComparisonOperator operator;
+        private final String value;
+
+        StringSelector(FieldPath path, ComparisonOperator operator, String value) {
+            super(path);
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        boolean test(MessageReader parent, FieldType type) {
+            switch (type) {
+            case STRING:
+                return operator.test(parent.getString(name).compareTo(value));
+            case CHAR:
+                return operator.test(compare(parent.getChar(name), value));
+            default:
+                return false;
+            }
+        }
+
+        /**
+         * @return same as comparing string of <code>c</code> to <code>value</code>, without
+         *         creating the string.
+         */
+        private static int compare(char c, String value) {
+            if (value.isEmpty()) {
+                return 1;
+            }
+
+            int comparison = Character.compare(c, value.charAt(0));
+            return comparison != 0 ? comparison : 1 - value.length();
+        }
+    }
+
+    static final class NumberInSelector extends FieldSelector {
+        @Nullable
+        private final long[] longs;
+        private final double[] doubles;
+        private final boolean negated;
+
+        /**
+         * @param path
+         * @param longs
+         *            sorted values if all are integers, or <code>null</code>
+         * @param doubles
+         *            sorted values
+         * @param negated
+         */
+        NumberInSelector(FieldPath path, @Nullable long[] longs, double[] doubles,
+                boolean negated) {
+            super(path);
+            this.longs = longs;
+            this.doubles = doubles;
+            this.negated = negated;
+        }
+
+        @Override
+        boolean test(MessageReader parent, FieldType type) {
+            switch (type) {
+            case BYTE:
+                return contains(parent.getByte(name)) != negated;
+            case SHORT:
+                return contains(parent.getShort(name)) != negated;
+            case INT:
+                return contains(parent.getInt(name)) != negated;
+            case LONG:
+                return contains(parent.getLong(name)) != negated;
+            case FLOAT:
+                return contains((double) parent.getFloat(name)) != negated;
+            case DOUBLE:
+                return contains(parent.getDouble(name)) != negated;
+            default:
+                return false;
+            }
+        }
+
+        private boolean contains(long value) {
+            if (longs != null) {
+                return Arrays.binarySearch(longs, value) >= 0;
+            }
+
+            return contains((double) value);
+        }
+
+        private boolean contains(double value) {
+            return Arrays.binarySearch(doubles, value + 0.0) >= 0;
+        }
+    }
+
+    static final class StringInSelector extends FieldSelector {
+        private final Set<String> values;
+        private final boolean negated;
+
+        StringInSelector(FieldPath path, Set<String> values, boolean negated) {
+            super(path);
+            this.values = values;
+            this.negated = negated;
+        }
+
+        @Override
+        boolean test(MessageReader parent, FieldType type) {
+            switch (type) {
+            case STRING:
+                return values.contains(parent.getString(name)) != negated;
+            case CHAR:
+                return values.contains(String.valueOf(parent.getChar(name))) != negated;
+            default:
+                return false;
+            }
+        }
+    }
+
+    static final class LikeSelector extends FieldSelector {
+        private final Predicate<String> matcher;
+        private final boolean negated;
+
+        LikeSelector(FieldPath path, Predicate<String> matcher, boolean negated) {
+            super(path);
+            this.matcher = matcher;
+            this.negated = negated;
+        }
+
+        @Override
+        boolean test(MessageReader parent, FieldType type) {
+            return type == FieldType.STRING && matcher.test(parent.getString(name)) != negated;
+        }
+    }
+}
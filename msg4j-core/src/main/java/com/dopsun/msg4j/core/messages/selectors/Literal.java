@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+/**
+ * Literal in selector expression.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class Literal {
+    static final Literal TRUE = new Literal(Kind.BOOLEAN, 1L, 1.0, null);
+    static final Literal FALSE = new Literal(Kind.BOOLEAN, 0L, 0.0, null);
+
+    /**
+     * Kind of literal.
+     */
+    enum Kind {
+        BOOLEAN, LONG, DOUBLE, STRING
+    }
+
+    private final Kind kind;
+    private final long longValue;
+    private final double doubleValue;
+    @Nullable
+    private final String stringValue;
+
+    private Literal(Kind kind, long longValue, double doubleValue, @Nullable String stringValue) {
+        this.kind = kind;
+        this.longValue = longValue;
+        this.doubleValue = doubleValue;
+        this.stringValue = stringValue;
+    }
+
+    static Literal of(long value) {
+        return new Literal(Kind.LONG, value, value, null);
+    }
+
+    static Literal of(double value) {
+        return new Literal(Kind.DOUBLE, (long) value, value, null);
+    }
+
+    static Literal of(String value) {
+        return new Literal(Kind.STRING, 0L, 0.0, Objects.requireNonNull(value));
+    }
+
+    Kind kind() {
+        return kind;
+    }
+
+    boolean isNumber() {
+        return kind == Kind.LONG || kind == Kind.DOUBLE;
+    }
+
+    boolean booleanValue() {
+        return longValue != 0L;
+    }
+
+    long longValue() {
+        return longValue;
+    }
+
+    /**
+     * @return value of number; <code>+0.0</code> for zero, so it can be searched by
+     *         {@link java.util.Arrays#binarySearch(double[], double)}.
+     */
+    double doubleValue() {
+        return doubleValue + 0.0;
+    }
+
+    String stringValue() {
+        return Objects.requireNonNull(stringValue);
+    }
+
+    /**
+     * @return negative of this number
+     */
+    Literal negate() {
+        return kind == Kind.LONG ? of(-longValue) : of(-doubleValue);
+    }
+
+    /**
+     * @param other
+     * @return result of comparison, or <code>null</code> if not comparable.
+     */
+    @Nullable
+    Integer compareTo(Literal other) {
+        if (isNumber() && other.isNumber()) {
+            if (kind == Kind.LONG && other.kind == Kind.LONG) {
+                return Long.compare(longValue, other.longValue);
+            }
+
+            return Double.compare(doubleValue(), other.doubleValue());
+        }
+
+        if (kind != other.kind) {
+            return null;
+        }
+
+        if (kind == Kind.STRING) {
+            return stringValue().compareTo(other.stringValue());
+        }
+
+        return Long.compare(longValue, other.longValue);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+        case BOOLEAN:
+            return booleanValue() ? "TRUE" : "FALSE";
+        case LONG:
+            return Long.toString(longValue);
+        case DOUBLE:
+            return Double.toString(doubleValue);
+        default:
+            return "'" + stringValue().replace("'", "''") + "'";
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+import java.util.function.Predicate;
+
+import com.dopsun.msg4j.core.messages.MessageReader;
+
+/**
+ * Compiled selector of messages.
+ * 
+ * <p>
+ * Same as SQL, a condition on an absent field, or on a field of a type not comparable with the
+ * literal, is unknown, and message is not selected, even if the condition is negated by
+ * <code>NOT</code>.
+ * </p>
+ * 
+ * <p>
+ * A selector has no state, and can be shared by threads.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ * 
+ * @see MessageSelectors#compile(String)
+ */
+@FunctionalInterface
+public interface MessageSelector extends Predicate<MessageReader> {
+    /**
+     * @param message
+     *            message to test
+     * @return <code>true</code> if <code>message</code> is selected.
+     */
+    @Override
+    boolean test(MessageReader message);
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+import java.util.Objects;
+
+/**
+ * Compiles selectors of messages.
+ * 
+ * <p>
+ * Syntax is a subset of SQL-92 conditional expressions, as selectors of JMS:
+ * </p>
+ * <ul>
+ * <li>Fields are referred by name, nested messages by path of names, and messages in lists by
+ * index, e.g. <code>legs[1].quote.bid</code>, same as
+ * {@link com.dopsun.msg4j.core.messages.schema.FieldPath}. Names which are not identifiers, or
+ * are keywords, can be quoted, e.g. <code>"order-id"</code>.</li>
+ * <li>Literals are integers, decimals, strings in single quotes, <code>TRUE</code> and
+ * <code>FALSE</code>.</li>
+ * <li>Comparisons are <code>=</code>, <code>&lt;&gt;</code>, <code>&lt;</code>,
+ * <code>&lt;=</code>, <code>&gt;</code> and <code>&gt;=</code>, between a field and a literal;
+ * <code>[NOT] BETWEEN</code>, <code>[NOT] IN</code>, <code>[NOT] LIKE ... [ESCAPE ...]</code> and
+ * <code>IS [NOT] NULL</code>.</li>
+ * <li>A boolean field itself is a condition.</li>
+ * <li>Conditions are combined with <code>NOT</code>, <code>AND</code>, <code>OR</code> and
+ * parentheses. Keywords are case insensitive.</li>
+ * </ul>
+ * 
+ * <p>
+ * Numeric fields, of {@link com.dopsun.msg4j.core.messages.FieldType#BYTE} to
+ * {@link com.dopsun.msg4j.core.messages.FieldType#DOUBLE}, except
+ * {@link com.dopsun.msg4j.core.messages.FieldType#CHAR}, are compared with numeric literals;
+ * string and char fields with string literals; and boolean fields with boolean literals.
+ * </p>
+ * 
+ * <p>
+ * Expression is compiled once to a tree of selectors specialized by operator and literal.
+ * Conditions of literals only are folded; and operands of <code>AND</code> and <code>OR</code>
+ * are ordered by estimated cost, so cheap conditions short circuit expensive ones.
+ * </p>
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public final class MessageSelectors {
+    private MessageSelectors() {
+    }
+
+    /**
+     * @param expression
+     *            selector expression
+     * @return compiled selector
+     * 
+     * @throws SelectorSyntaxException
+     *             if <code>expression</code> cannot be parsed.
+     */
+    public static MessageSelector compile(String expression) throws SelectorSyntaxException {
+        Objects.requireNonNull(expression);
+
+        return new SelectorParser(expression).parse().simplify().compile();
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.dopsun.msg4j.core.messages.schema.FieldPath;
+
+/**
+ * Recursive descent parser of selector expression, see {@link MessageSelectors} for syntax.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+final class SelectorParser {
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("AND", "OR", "NOT",
+            "BETWEEN", "IN", "LIKE", "ESCAPE", "IS", "NULL", "TRUE", "FALSE"));
+
+    private enum TokenType {
+        IDENTIFIER, QUOTED_IDENTIFIER, STRING, LONG, DOUBLE, OPERATOR, LEFT, RIGHT, COMMA, DOT,
+        LEFT_BRACKET, RIGHT_BRACKET, MINUS, PLUS, END
+    }
+
+    private final String expression;
+
+    /**
+     * Position of next token to be read.
+     */
+    private int position;
+
+    private TokenType type = TokenType.END;
+    private String text = "";
+    private int start;
+
+    SelectorParser(String expression) {
+        this.expression = expression;
+
+        next();
+    }
+
+    /**
+     * @return condition of whole expression, in negation normal form.
+     * 
+     * @throws SelectorSyntaxException
+     *             if expression cannot be parsed.
+     */
+    Condition parse() throws SelectorSyntaxException {
+        Condition condition = parseOr();
+        if (type != TokenType.END) {
+            throw error("Unexpected '" + text + "'", start);
+        }
+
+        return condition;
+    }
+
+    private Condition parseOr() {
+        Condition condition = parseAnd();
+        while (acceptKeyword("OR")) {
+            condition = Condition.or(condition, parseAnd());
+        }
+
+        return condition;
+    }
+
+    private Condition parseAnd() {
+        Condition condition = parseNot();
+        while (acceptKeyword("AND")) {
+            condition = Condition.and(condition, parseNot());
+        }
+
+        return condition;
+    }
+
+    private Condition parseNot() {
+        if (acceptKeyword("NOT")) {
+            return parseNot().negate();
+        }
+
+        return parsePredicate();
+    }
+
+    private Condition parsePredicate() {
+        if (type == TokenType.LEFT) {
+            next();
+            Condition condition = parseOr();
+            expect(TokenType.RIGHT, "')' expected");
+            return condition;
+        }
+
+        int operandStart = start;
+        Object left = parseOperand();
+
+        if (type == TokenType.OPERATOR) {
+            ComparisonOperator operator = ComparisonOperator.of(text);
+            int operatorStart = start;
+            next();
+
+            return compare(left, operator, parseOperand(), operatorStart);
+        }
+
+        boolean negated = acceptKeyword("NOT");
+
+        Condition condition;
+        if (acceptKeyword("BETWEEN")) {
+            int lowStart = start;
+            Object low = parseOperand();
+            expectKeyword("AND");
+            int highStart = start;
+            Object high = parseOperand();
+
+            condition = Condition.and(compare(left, ComparisonOperator.GE, low, lowStart),
+                    compare(left, ComparisonOperator.LE, high, highStart));
+        } else if (acceptKeyword("IN")) {
+            condition = new Condition.InList(field(left, operandStart), parseList(), false);
+        } else if (acceptKeyword("LIKE")) {
+            FieldPath path = field(left, operandStart);
+            String pattern = parseString();
+
+            Character escape = null;
+            if (acceptKeyword("ESCAPE")) {
+                int escapeStart = start;
+                String value = parseString();
+                if (value.length() != 1) {
+                    throw error("Escape must be one character", escapeStart);
+                }
+
+                escape = Character.valueOf(value.charAt(0));
+            }
+
+            condition = new Condition.Like(path, pattern, escape, false);
+        } else if (negated) {
+            throw error("BETWEEN, IN or LIKE expected", start);
+        } else if (acceptKeyword("IS")) {
+            boolean notNull = acceptKeyword("NOT");
+            expectKeyword("NULL");
+
+            if (left instanceof Literal) {
+                return notNull ? Condition.TRUE : Condition.FALSE;
+            }
+
+            return new Condition.Presence((FieldPath) left, notNull);
+        } else if (left instanceof FieldPath) {
+            return new Condition.Comparison(field(left, operandStart), ComparisonOperator.EQ,
+                    Literal.TRUE);
+        } else if (((Literal) left).kind() == Literal.Kind.BOOLEAN) {
+            return ((Literal) left).booleanValue() ? Condition.TRUE : Condition.FALSE;
+        } else {
+            throw error("Condition expected", operandStart);
+        }
+
+        return negated ? condition.negate() : condition;
+    }
+
+    private Condition compare(Object left, @Nullable ComparisonOperator operator, Object right,
+            int operatorStart) {
+        if (operator == null) {
+            throw error("Unknown operator", operatorStart);
+        }
+
+        if (left instanceof FieldPath && right instanceof FieldPath) {
+            throw error("Field can only be compared with a literal", operatorStart);
+        }
+
+        Literal literal = (Literal) (left instanceof Literal ? left : right);
+        if (literal.kind() == Literal.Kind.BOOLEAN && operator != ComparisonOperator.EQ
+                && operator != ComparisonOperator.NE) {
+            throw error("Boolean can only be compared by = or <>", operatorStart);
+        }
+
+        if (left instanceof FieldPath) {
+            return new Condition.Comparison(field(left, operatorStart), operator, literal);
+        }
+
+        if (right instanceof FieldPath) {
+            return new Condition.Comparison(field(right, operatorStart), operator.swap(),
+                    literal);
+        }
+
+        return Condition.compare(literal, operator, (Literal) right);
+    }
+
+    private FieldPath field(Object operand, int operandStart) {
+        if (!(operand instanceof FieldPath) || ((FieldPath) operand).isElement()) {
+            throw error("Field expected", operandStart);
+        }
+
+        return (FieldPath) operand;
+    }
+
+    /**
+     * @return list of numbers, or list of strings.
+     */
+    private List<Literal> parseList() {
+        expect(TokenType.LEFT, "'(' expected");
+
+        List<Literal> literals = new ArrayList<>();
+        do {
+            int literalStart = start;
+            Object operand = parseOperand();
+            if (!(operand instanceof Literal)) {
+                throw error("Literal expected", literalStart);
+            }
+
+            Literal literal = (Literal) operand;
+            if (literal.kind() == Literal.Kind.BOOLEAN || (!literals.isEmpty()
+                    && literal.isNumber() != literals.get(0).isNumber())) {
+                throw error("Numbers or strings expected", literalStart);
+            }
+
+            literals.add(literal);
+        } while (accept(TokenType.COMMA));
+
+        expect(TokenType.RIGHT, "')' expected");
+        return literals;
+    }
+
+    private String parseString() {
+        if (type != TokenType.STRING) {
+            throw error("String expected", start);
+        }
+
+        String value = text;
+        next();
+        return value;
+    }
+
+    /**
+     * @return {@link FieldPath} or {@link Literal}.
+     */
+    private Object parseOperand() {
+        switch (type) {
+        case STRING:
+            return Literal.of(parseString());
+        case LONG:
+        case DOUBLE:
+            return parseNumber(false);
+        case MINUS:
+            next();
+            return parseNumber(true);
+        case PLUS:
+            next();
+            return parseNumber(false);
+        case IDENTIFIER:
+            if (isKeyword("TRUE") || isKeyword("FALSE")) {
+                Literal literal = isKeyword("TRUE") ? Literal.TRUE : Literal.FALSE;
+                next();
+                return literal;
+            }
+
+            return parsePath();
+        case QUOTED_IDENTIFIER:
+            return parsePath();
+        default:
+            throw error("Operand expected", start);
+        }
+    }
+
+    private Literal parseNumber(boolean negative) {
+        int numberStart = start;
+        String number = negative ? "-" + text : text;
+
+        try {
+            if (accept(TokenType.LONG)) {
+                return Literal.of(Long.parseLong(number));
+            }
+
+            if (accept(TokenType.DOUBLE)) {
+                return Literal.of(Double.parseDouble(number));
+            }
+        } catch (NumberFormatException e) {
+            throw error("Number out of range", numberStart);
+        }
+
+        throw error("Number expected", numberStart);
+    }
+
+    private FieldPath parsePath() {
+        FieldPath path = FieldPath.of(parseName());
+        while (true) {
+            if (type == TokenType.LEFT_BRACKET) {
+                next();
+
+                int indexStart = start;
+                if (type != TokenType.LONG) {
+                    throw error("Index expected", indexStart);
+                }
+
+                try {
+                    path = path.element(Integer.parseInt(text));
+                } catch (NumberFormatException e) {
+                    throw error("Index out of range", indexStart);
+                }
+
+                next();
+                expect(TokenType.RIGHT_BRACKET, "']' expected");
+            }
+
+            if (!accept(TokenType.DOT)) {
+                return path;
+            }
+
+            path = path.child(parseName());
+        }
+    }
+
+    private String parseName() {
+        boolean name = type == TokenType.QUOTED_IDENTIFIER || (type == TokenType.IDENTIFIER
+                && !KEYWORDS.contains(text.toUpperCase(Locale.ROOT)));
+        if (!name) {
+            throw error("Field name expected", start);
+        }
+
+        String value = text;
+        next();
+        return value;
+    }
+
+    private boolean isKeyword(String keyword) {
+        return type == TokenType.IDENTIFIER && text.equalsIgnoreCase(keyword);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (!isKeyword(keyword)) {
+            return false;
+        }
+
+        next();
+        return true;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw error(keyword + " expected", start);
+        }
+    }
+
+    private boolean accept(TokenType tokenType) {
+        if (type != tokenType) {
+            return false;
+        }
+
+        next();
+        return true;
+    }
+
+    private void expect(TokenType tokenType, String message) {
+        if (!accept(tokenType)) {
+            throw error(message, start);
+        }
+    }
+
+    private SelectorSyntaxException error(String message, int errorPosition) {
+        return new SelectorSyntaxException(message, expression, errorPosition);
+    }
+
+    /**
+     * Reads next token to {@link #type}, {@link #text} and {@link #start}.
+     */
+    private void next() {
+        int length = expression.length();
+        while (position < length && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+
+        start = position;
+        if (position == length) {
+            type = TokenType.END;
+            text = "end of expression";
+            return;
+        }
+
+        char c = expression.charAt(position++);
+        if (Character.isJavaIdentifierStart(c)) {
+            while (position < length
+                    && Character.isJavaIdentifierPart(expression.charAt(position))) {
+                position++;
+            }
+
+            type = TokenType.IDENTIFIER;
+        } else if (isDigit(c)) {
+            type = readNumber();
+        } else if (c == '\'' || c == '"') {
+            type = c == '\'' ? TokenType.STRING : TokenType.QUOTED_IDENTIFIER;
+            text = readQuoted(c);
+            return;
+        } else if (c == '<') {
+            if (position < length && (expression.charAt(position) == '='
+                    || expression.charAt(position) == '>')) {
+                position++;
+            }
+
+            type = TokenType.OPERATOR;
+        } else if (c == '>') {
+            if (position < length && expression.charAt(position) == '=') {
+                position++;
+            }
+
+            type = TokenType.OPERATOR;
+        } else if (c == '=') {
+            type = TokenType.OPERATOR;
+        } else if (c == '(') {
+            type = TokenType.LEFT;
+        } else if (c == ')') {
+            type = TokenType.RIGHT;
+        } else if (c == ',') {
+            type = TokenType.COMMA;
+        } else if (c == '.') {
+            type = TokenType.DOT;
+        } else if (c == '[') {
+            type = TokenType.LEFT_BRACKET;
+        } else if (c == ']') {
+            type = TokenType.RIGHT_BRACKET;
+        } else if (c == '-') {
+            type = TokenType.MINUS;
+        } else if (c == '+') {
+            type = TokenType.PLUS;
+        } else {
+            throw error("Unexpected character '" + c + "'", start);
+        }
+
+        text = expression.substring(start, position);
+    }
+
+    private TokenType readNumber() {
+        TokenType numberType = TokenType.LONG;
+
+        skipDigits();
+        if (position + 1 < expression.length() && expression.charAt(position) == '.'
+                && isDigit(expression.charAt(position + 1))) {
+            position++;
+            skipDigits();
+            numberType = TokenType.DOUBLE;
+        }
+
+        if (position < expression.length() && (expression.charAt(position) == 'e'
+                || expression.charAt(position) == 'E')) {
+            position++;
+            if (position < expression.length() && (expression.charAt(position) == '+'
+                    || expression.charAt(position) == '-')) {
+                position++;
+            }
+
+            if (position == expression.length() || !isDigit(expression.charAt(position))) {
+                throw error("Exponent expected", position);
+            }
+
+            skipDigits();
+            numberType = TokenType.DOUBLE;
+        }
+
+        return numberType;
+    }
+
+    private void skipDigits() {
+        while (position < expression.length() && isDigit(expression.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @param quote
+     *            quote character, which is escaped by doubling it
+     * @return value between quotes
+     */
+    private String readQuoted(char quote) {
+        StringBuilder value = new StringBuilder();
+        while (position < expression.length()) {
+            char c = expression.charAt(position++);
+            if (c != quote) {
+                value.append(c);
+            } else if (position < expression.length() && expression.charAt(position) == quote) {
+                value.append(quote);
+                position++;
+            } else {
+                return value.toString();
+            }
+        }
+
+        throw error("Unterminated quote", start);
+    }
+}
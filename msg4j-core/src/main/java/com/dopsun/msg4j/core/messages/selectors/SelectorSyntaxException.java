@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+/**
+ * Selector expression cannot be parsed.
+ * 
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+public class SelectorSyntaxException extends RuntimeException {
+    private static final long serialVersionUID = -2215430658402367740L;
+
+    private final String expression;
+    private final int position;
+
+    /**
+     * @param message
+     * @param expression
+     * @param position
+     */
+    public SelectorSyntaxException(String message, String expression, int position) {
+        super(message + " at " + position + ": " + expression);
+
+        this.expression = expression;
+        this.position = position;
+    }
+
+    /**
+     * @return expression cannot be parsed.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return position of error in {@link #getExpression()}.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
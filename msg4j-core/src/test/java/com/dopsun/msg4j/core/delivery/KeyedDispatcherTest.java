@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.delivery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.messages.InvalidTypeException;
+import com.dopsun.msg4j.core.messages.Message;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
+import com.dopsun.msg4j.core.messages.schema.LongFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.StringFieldInfo;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class KeyedDispatcherTest {
+    private static final StringFieldInfo SYMBOL = new StringFieldInfo("symbol");
+    private static final LongFieldInfo SEQ = new LongFieldInfo("seq");
+
+    private static Message message(String symbol, long seq) {
+        WritableMessage message = Messages.create();
+        SYMBOL.put(message, symbol);
+        SEQ.put(message, seq);
+        return message.toImmutable();
+    }
+
+    @Test
+    public void givenManyKeysWhenDispatchThenOrderedPerKey() throws Exception {
+        Map<String, List<Long>> received = new HashMap<>();
+        Map<String, Thread> threads = new HashMap<>();
+
+        KeyedDispatcher dispatcher = KeyedDispatcher.builder(message -> {
+            String symbol = SYMBOL.get(message);
+            synchronized (received) {
+                received.computeIfAbsent(symbol, key -> new ArrayList<>()).add(SEQ.get(message));
+                threads.put(symbol, Thread.currentThread());
+            }
+        }).key(SYMBOL).stripes(4).queueCapacity(16).build();
+
+        for (long seq = 0; seq < 500; seq++) {
+            for (int key = 0; key < 20; key++) {
+                dispatcher.accept(message("S" + key, seq));
+            }
+        }
+        dispatcher.close();
+
+        Assert.assertEquals(20, received.size());
+        for (List<Long> seqs : received.values()) {
+            Assert.assertEquals(500, seqs.size());
+            for (int seq = 0; seq < 500; seq++) {
+                Assert.assertEquals(seq, seqs.get(seq).longValue());
+            }
+        }
+        Assert.assertTrue(threads.values().stream().distinct().count() > 1);
+    }
+
+    @Test
+    public void givenFullStripeWhenOfferThenRejectedAndDepthReported() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        KeyedDispatcher dispatcher = KeyedDispatcher.builder(message -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }).key(message -> SYMBOL.get(message)).stripes(2).queueCapacity(2).build();
+
+        Message message = message("A", 0);
+        int stripe = dispatcher.stripeOf(message);
+
+        dispatcher.accept(message);
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        dispatcher.accept(message);
+        dispatcher.accept(message);
+
+        Assert.assertFalse(dispatcher.offer(message, 10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, dispatcher.queueDepth(stripe));
+        Assert.assertEquals(0, dispatcher.queueDepths()[1 - stripe]);
+
+        release.countDown();
+        dispatcher.close();
+        Assert.assertEquals(0, dispatcher.queueDepth(stripe));
+
+        try {
+            dispatcher.accept(message);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(2, dispatcher.stripes());
+        }
+    }
+
+    @Test
+    public void givenErrorOrInterruptInConsumerWhenDispatchThenWorkerKeepsDelivering() {
+        List<Long> received = new ArrayList<>();
+        List<Throwable> reported = new ArrayList<>();
+
+        try (KeyedDispatcher dispatcher = KeyedDispatcher.builder(message -> {
+            Thread.currentThread().setUncaughtExceptionHandler((thread, e) -> {
+                synchronized (reported) {
+                    reported.add(e);
+                }
+            });
+
+            long seq = SEQ.get(message);
+            if (seq == 0) {
+                throw new AssertionError("Expected error.");
+            } else if (seq == 1) {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized (received) {
+                received.add(seq);
+            }
+        }).key(SYMBOL).stripes(1).build()) {
+            for (long seq = 0; seq < 4; seq++) {
+                dispatcher.accept(message("A", seq));
+            }
+        }
+
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L), received);
+        Assert.assertEquals(1, reported.size());
+        Assert.assertTrue(reported.get(0) instanceof AssertionError);
+    }
+
+    @Test
+    public void givenMistypedKeyFieldWhenDispatchThenReportedAndDeliveredOnFirstStripe() {
+        List<Long> received = new ArrayList<>();
+        List<Throwable> reported = new ArrayList<>();
+
+        WritableMessage mistyped = Messages.create();
+        mistyped.putLong("symbol", 1L);
+        SEQ.put(mistyped, 7L);
+
+        Thread.UncaughtExceptionHandler handler = Thread.currentThread()
+                .getUncaughtExceptionHandler();
+        Thread.currentThread().setUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        try (KeyedDispatcher dispatcher = KeyedDispatcher.builder(message -> {
+            synchronized (received) {
+                received.add(SEQ.get(message));
+            }
+        }).key(SYMBOL).stripes(2).build()) {
+            Assert.assertEquals(0, dispatcher.stripeOf(mistyped));
+            dispatcher.accept(mistyped.toImmutable());
+        } finally {
+            Thread.currentThread().setUncaughtExceptionHandler(handler);
+        }
+
+        Assert.assertEquals(Arrays.asList(7L), received);
+        Assert.assertEquals(2, reported.size());
+        Assert.assertTrue(reported.get(0) instanceof InvalidTypeException);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.delivery.transports;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class DeliveryExecutorTest {
+    @Test
+    public void givenDefaultSettingsWhenExecuteThenRunOnCallerThread() {
+        DeliveryExecutor executor = DeliveryExecutor.of(TransportSubscriberSettings.create(),
+                ConsumerMode.AUTO, "x");
+        Consumer<Thread> consumer = thread -> Assert.assertSame(Thread.currentThread(), thread);
+
+        Assert.assertTrue(executor.isCallerThread());
+        Assert.assertSame(consumer, executor.wrap(consumer));
+
+        try {
+            executor.execute(() -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void givenSharedPoolWhenExecuteThenInOrderAndOneAtATimePerSubscription()
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            int subscriptions = 3;
+            int deliveries = 1000;
+            CountDownLatch done = new CountDownLatch(subscriptions);
+            List<List<Integer>> received = new ArrayList<>();
+            AtomicInteger overlaps = new AtomicInteger();
+
+            List<Consumer<Integer>> consumers = new ArrayList<>();
+            for (int i = 0; i < subscriptions; i++) {
+                List<Integer> list = new ArrayList<>();
+                AtomicInteger running = new AtomicInteger();
+                received.add(list);
+
+                DeliveryExecutor executor = DeliveryExecutor.of(
+                        TransportSubscriberSettings.create().deliverOn(pool), ConsumerMode.NO_ACK,
+                        "s" + i);
+                consumers.add(executor.wrap(value -> {
+                    if (running.incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+
+                    list.add(value);
+                    if (value == deliveries - 1) {
+                        done.countDown();
+                    }
+
+                    running.decrementAndGet();
+                }));
+            }
+
+            for (int value = 0; value < deliveries; value++) {
+                for (Consumer<Integer> consumer : consumers) {
+                    consumer.accept(value);
+                }
+            }
+
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(0, overlaps.get());
+            for (List<Integer> list : received) {
+                Assert.assertEquals(deliveries, list.size());
+                for (int value = 0; value < deliveries; value++) {
+                    Assert.assertEquals(value, list.get(value).intValue());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void givenDedicatedThreadWhenDeliveryFailsThenNextDelivered() throws Exception {
+        DeliveryExecutor executor = DeliveryExecutor
+                .of(TransportSubscriberSettings.create().deliverOnDedicatedThread(),
+                        ConsumerMode.NO_ACK, "x");
+        Assert.assertFalse(executor.isCallerThread());
+
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> threadNames = new ArrayList<>();
+        executor.execute(() -> {
+            throw new IllegalStateException();
+        });
+        executor.execute(() -> {
+            threadNames.add(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("msg4j-delivery-x", threadNames.get(0));
+
+        executor.close();
+        executor.execute(() -> threadNames.add("closed"));
+        Assert.assertEquals(0, executor.pending());
+        Assert.assertEquals(1, threadNames.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void givenAcknowledgingModeWhenDeliverOnDedicatedThreadThenUnsupported() {
+        DeliveryExecutor.of(TransportSubscriberSettings.create().deliverOnDedicatedThread(),
+                ConsumerMode.AUTO, "x");
+    }
+
+    @Test
+    public void givenMaxPendingWhenFullThenExecuteWaitsAndCloseCountsDropped() throws Exception {
+        DeliveryExecutor executor = DeliveryExecutor.of(TransportSubscriberSettings.create()
+                .deliverOnDedicatedThread().maxPendingDeliveries(2), ConsumerMode.NO_ACK, "x");
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        executor.execute(() -> {
+        });
+        executor.execute(() -> {
+        });
+        Assert.assertEquals(2, executor.pending());
+
+        Thread producer = new Thread(() -> executor.execute(() -> {
+        }));
+        producer.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (producer.getState() != Thread.State.WAITING
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Thread.State.WAITING, producer.getState());
+
+        executor.close();
+        producer.join(5000);
+        release.countDown();
+
+        Assert.assertFalse(producer.isAlive());
+        Assert.assertEquals(0, executor.pending());
+        Assert.assertEquals(3, executor.dropped());
+    }
+
+    @Test
+    public void givenSharedPoolWhenDeliveryThrowsErrorThenNextDelivered() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) -> {
+            });
+            return thread;
+        });
+        try {
+            DeliveryExecutor executor = DeliveryExecutor.of(
+                    TransportSubscriberSettings.create().deliverOn(pool).maxPendingDeliveries(1),
+                    ConsumerMode.NO_ACK, "x");
+
+            List<Throwable> reported = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(3);
+            executor.execute(() -> {
+                Thread.currentThread().setUncaughtExceptionHandler((thread, e) -> {
+                    synchronized (reported) {
+                        reported.add(e);
+                    }
+                });
+                throw new AssertionError("Expected error.");
+            });
+            for (int i = 0; i < 3; i++) {
+                executor.execute(done::countDown);
+            }
+
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            synchronized (reported) {
+                Assert.assertEquals(1, reported.size());
+                Assert.assertTrue(reported.get(0) instanceof AssertionError);
+            }
+
+            executor.close();
+            Assert.assertEquals(0, executor.dropped());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
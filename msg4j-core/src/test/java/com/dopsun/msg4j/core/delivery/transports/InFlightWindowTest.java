@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.delivery.transports;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class InFlightWindowTest {
+    @Test
+    public void givenFailFastWindowWhenFullThenTransportException() throws Exception {
+        InFlightWindow window = new InFlightWindow(2, 100, false);
+
+        window.acquire(60);
+        try {
+            window.acquire(60);
+            Assert.fail();
+        } catch (TransportException e) {
+            Assert.assertEquals(1, window.inFlightMessages());
+        }
+
+        window.acquire(40);
+        try {
+            window.acquire(0);
+            Assert.fail();
+        } catch (TransportException e) {
+            Assert.assertEquals(100, window.inFlightBytes());
+        }
+
+        window.release(60);
+        window.release(40);
+        window.acquire(500);
+        Assert.assertEquals(500, window.inFlightBytes());
+    }
+
+    @Test
+    public void givenBlockingWindowWhenReleasedThenWaiterAcquires() throws Exception {
+        InFlightWindow window = new InFlightWindow(1, Long.MAX_VALUE, true);
+        window.acquire(10);
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                window.acquire(20);
+                acquired.countDown();
+            } catch (TransportException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        waiter.start();
+
+        Assert.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        window.release(10);
+        Assert.assertTrue(acquired.await(3, TimeUnit.SECONDS));
+        Assert.assertEquals(20, window.inFlightBytes());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.messages.schema.DoubleArrayFieldInfo;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class ArrayFieldTest {
+    private static final FieldLayout LAYOUT = FieldLayout
+            .of(Arrays.asList("ints", "longs", "doubles"));
+
+    private static final int[] INTS = { 1, -2, Integer.MAX_VALUE };
+    private static final long[] LONGS = { Long.MIN_VALUE, 0L };
+    private static final double[] DOUBLES = { 1.5, -0.0, Double.NaN, 99.25 };
+
+    private static List<ImmutableMessage> messages() {
+        List<WritableMessage> writables = new ArrayList<>();
+        for (FieldStorage storage : FieldStorage.values()) {
+            writables.add(Messages.create(storage));
+        }
+        writables.add(Messages.create(LAYOUT));
+
+        List<ImmutableMessage> messages = new ArrayList<>();
+        for (WritableMessage message : writables) {
+            message.putIntArray("ints", INTS);
+            message.putLongArray("longs", LONGS);
+            message.putDoubleArray("doubles", DOUBLES);
+            messages.add(message.toImmutable());
+        }
+
+        MessageCodec codec = Messages.binaryCodec();
+        byte[] encoded = codec.encode(messages.get(0));
+        messages.add(codec.decode(ByteBuffer.wrap(encoded)));
+        messages.add(codec.view(ByteBuffer.wrap(encoded)));
+        return messages;
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        int[] values = new int[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+    private static long[] toArray(LongBuffer buffer) {
+        long[] values = new long[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+    private static double[] toArray(DoubleBuffer buffer) {
+        double[] values = new double[buffer.remaining()];
+        buffer.get(values);
+        return values;
+    }
+
+    @Test
+    public void givenAllStoragesWhenGetArrayThenSameValues() {
+        for (ImmutableMessage message : messages()) {
+            Assert.assertEquals(FieldType.INT_ARRAY, message.getFieldType("ints"));
+            Assert.assertArrayEquals(INTS, toArray(message.getIntArray("ints")));
+            Assert.assertArrayEquals(LONGS, toArray(message.getLongArray("longs")));
+            Assert.assertArrayEquals(DOUBLES, toArray(message.getDoubleArray("doubles")), 0.0);
+
+            IntBuffer bySlot = (IntBuffer) LAYOUT.getRef(message, 0, FieldType.INT_ARRAY);
+            Assert.assertArrayEquals(INTS, toArray(bySlot));
+            Assert.assertTrue(message.tryGetLongArray("longs").isPresent());
+            Assert.assertFalse(message.tryGetDoubleArray("absent").isPresent());
+        }
+    }
+
+    @Test
+    public void givenArrayPutWhenSourceChangedThenMessageNotChanged() {
+        int[] values = INTS.clone();
+
+        WritableMessage message = Messages.create();
+        message.putIntArray("ints", values);
+        values[0] = 100;
+
+        Assert.assertEquals(INTS[0], message.getIntArray("ints").get(0));
+    }
+
+    @Test
+    public void givenArrayWhenReadThenReadOnlyAndPositionNotShared() {
+        for (ImmutableMessage message : messages()) {
+            IntBuffer first = message.getIntArray("ints");
+            Assert.assertTrue(first.isReadOnly());
+
+            first.get();
+            Assert.assertEquals(0, message.getIntArray("ints").position());
+
+            try {
+                first.put(0, 100);
+                Assert.fail();
+            } catch (ReadOnlyBufferException e) {
+                Assert.assertEquals(INTS[0], message.getIntArray("ints").get(0));
+            }
+        }
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenIntArrayWhenGetLongArrayThenInvalidType() {
+        WritableMessage message = Messages.create();
+        message.putIntArray("ints", INTS);
+
+        message.getLongArray("ints");
+    }
+
+    @Test
+    public void givenArraysWhenCursorThenArrayValues() {
+        FieldCursor cursor = Messages.cursor();
+        for (ImmutableMessage message : messages()) {
+            cursor.reset(message);
+
+            int count = 0;
+            while (cursor.next()) {
+                count++;
+                if (cursor.type() == FieldType.DOUBLE_ARRAY) {
+                    Assert.assertArrayEquals(DOUBLES, toArray(cursor.doubleArrayValue()), 0.0);
+                }
+            }
+
+            Assert.assertEquals(3, count);
+        }
+    }
+
+    @Test
+    public void givenFieldInfoWhenPutThenGet() {
+        DoubleArrayFieldInfo fieldInfo = new DoubleArrayFieldInfo("doubles");
+
+        WritableMessage message = Messages.create();
+        fieldInfo.put(message, DOUBLES);
+
+        Assert.assertArrayEquals(DOUBLES, toArray(fieldInfo.get(message)), 0.0);
+        Assert.assertEquals(4, fieldInfo.tryGet(message).get().remaining());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class BytesFieldTest {
+    private static final byte[] PAYLOAD = "8=FIX.4.4|35=D|".getBytes(StandardCharsets.US_ASCII);
+
+    private static List<ImmutableMessage> messages() {
+        List<WritableMessage> writables = new ArrayList<>();
+        for (FieldStorage storage : FieldStorage.values()) {
+            writables.add(Messages.create(storage));
+        }
+
+        List<ImmutableMessage> messages = new ArrayList<>();
+        for (WritableMessage message : writables) {
+            message.putBytes("payload", ByteBuffer.wrap(PAYLOAD));
+            messages.add(message.toImmutable());
+        }
+
+        MessageCodec codec = Messages.binaryCodec();
+        byte[] encoded = codec.encode(messages.get(0));
+        messages.add(codec.decode(ByteBuffer.wrap(encoded)));
+        messages.add(codec.view(ByteBuffer.wrap(encoded)));
+        return messages;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void givenAllStoragesWhenGetBytesThenSameBytes() {
+        for (ImmutableMessage message : messages()) {
+            ByteBuffer bytes = message.getBytes("payload");
+
+            Assert.assertTrue(bytes.isReadOnly());
+            Assert.assertArrayEquals(PAYLOAD, toArray(bytes));
+            Assert.assertEquals(0, message.getBytes("payload").position());
+            Assert.assertFalse(message.tryGetBytes("absent").isPresent());
+        }
+    }
+
+    @Test
+    public void givenBufferWhenPutBytesThenRemainingBytesSharedAndPositionKept() {
+        byte[] source = PAYLOAD.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(source);
+        buffer.position(2);
+
+        WritableMessage message = Messages.create();
+        message.putBytes("payload", buffer);
+        source[2] = 'X';
+
+        Assert.assertEquals(2, buffer.position());
+        Assert.assertEquals(PAYLOAD.length - 2, message.getBytes("payload").remaining());
+        Assert.assertEquals('X', message.getBytes("payload").get(0));
+    }
+
+    @Test
+    public void givenViewWhenGetBytesThenSlicedFromEncodedBuffer() {
+        WritableMessage message = Messages.create();
+        message.putBytes("payload", ByteBuffer.wrap(PAYLOAD));
+
+        MessageCodec codec = Messages.binaryCodec();
+        byte[] encoded = codec.encode(message);
+        ImmutableMessage view = codec.view(ByteBuffer.wrap(encoded));
+        ImmutableMessage decoded = codec.decode(ByteBuffer.wrap(encoded));
+
+        encoded[encoded.length - 1] = 'X';
+
+        ByteBuffer viewBytes = view.getBytes("payload");
+        Assert.assertEquals('X', viewBytes.get(viewBytes.limit() - 1));
+
+        ByteBuffer decodedBytes = decoded.getBytes("payload");
+        Assert.assertEquals('|', decodedBytes.get(decodedBytes.limit() - 1));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class FieldCursorTest {
+    private static WritableMessage populate(WritableMessage message) {
+        for (int i = 0; i < 100; i++) {
+            message.putInt("int" + i, i);
+        }
+
+        message.putBoolean("boolean", true);
+        message.putDouble("double", 1.5);
+        message.putString("string", "value");
+        message.putMessage("message", Messages.create().toImmutable());
+        message.putMessageList("list", Arrays.asList(Messages.create().toImmutable()));
+        return message;
+    }
+
+    private static Map<String, Object> read(FieldCursor cursor) {
+        Map<String, Object> values = new HashMap<>();
+        while (cursor.next()) {
+            switch (cursor.type()) {
+            case INT:
+                values.put(cursor.name(), cursor.intValue());
+                break;
+            case BOOLEAN:
+                values.put(cursor.name(), cursor.booleanValue());
+                break;
+            case DOUBLE:
+                values.put(cursor.name(), cursor.doubleValue());
+                break;
+            case STRING:
+                values.put(cursor.name(), cursor.stringValue());
+                break;
+            case MESSAGE:
+                values.put(cursor.name(), cursor.messageValue().size());
+                break;
+            case MESSAGE_LIST:
+                values.put(cursor.name(), cursor.messageListValue().size());
+                break;
+            default:
+                Assert.fail("Unexpected type: " + cursor.type());
+            }
+        }
+
+        Assert.assertFalse(cursor.next());
+        return values;
+    }
+
+    private static void assertValues(Map<String, Object> values) {
+        Assert.assertEquals(105, values.size());
+        Assert.assertEquals(42, values.get("int42"));
+        Assert.assertEquals(true, values.get("boolean"));
+        Assert.assertEquals(1.5, values.get("double"));
+        Assert.assertEquals("value", values.get("string"));
+        Assert.assertEquals(0, values.get("message"));
+        Assert.assertEquals(1, values.get("list"));
+    }
+
+    @Test
+    public void givenAllStoragesWhenCursorResetThenAllFieldsRead() {
+        FieldCursor cursor = Messages.cursor();
+
+        for (FieldStorage storage : FieldStorage.values()) {
+            WritableMessage message = populate(Messages.create(storage));
+
+            cursor.reset(message);
+            assertValues(read(cursor));
+
+            cursor.reset(message.toImmutable());
+            assertValues(read(cursor));
+        }
+    }
+
+    @Test
+    public void givenBinaryViewWhenCursorThenAllFieldsRead() {
+        MessageCodec codec = Messages.binaryCodec();
+        byte[] bytes = codec.encode(populate(Messages.create()));
+
+        assertValues(read(codec.decode(bytes).cursor()));
+        assertValues(read(codec.view(ByteBuffer.wrap(bytes)).cursor()));
+    }
+
+    @Test
+    public void givenRemovedFieldsWhenCursorThenSkipped() {
+        WritableMessage message = Messages.create(FieldStorage.PRIMITIVE_SLOTS);
+        message.putInt("a", 1);
+        message.putInt("b", 2);
+        message.putInt("c", 3);
+        message.remove("b");
+
+        FieldCursor cursor = message.cursor();
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals("a", cursor.name());
+        Assert.assertTrue(cursor.next());
+        Assert.assertEquals("c", cursor.name());
+        Assert.assertFalse(cursor.next());
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenIntFieldWhenLongValueThenThrows() {
+        WritableMessage message = Messages.create();
+        message.putInt("a", 1);
+
+        FieldCursor cursor = message.cursor();
+        cursor.next();
+        cursor.longValue();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenCursorNotOnFieldWhenNameThenThrows() {
+        Messages.create().cursor().name();
+    }
+}
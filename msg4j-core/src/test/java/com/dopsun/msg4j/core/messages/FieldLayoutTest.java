@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.messages.schema.DataDictionary;
+import com.dopsun.msg4j.core.messages.schema.IntFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.StringFieldInfo;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class FieldLayoutTest {
+    private final FieldLayout layout = FieldLayout.of(Arrays.asList("a", "b", "c"));
+
+    @Test
+    public void givenLayoutMessageWhenPutBySlotThenGetByName() {
+        WritableMessage message = Messages.create(layout);
+        layout.putBits(message, 0, FieldType.INT, 1);
+        layout.putRef(message, 2, FieldType.STRING, "c");
+
+        Assert.assertEquals(2, message.size());
+        Assert.assertEquals(1, message.getInt("a"));
+        Assert.assertFalse(message.contains("b"));
+        Assert.assertFalse(layout.contains(message, 1));
+        Assert.assertEquals("c", message.getString("c"));
+    }
+
+    @Test
+    public void givenLayoutMessageWhenExtraFieldsAndCopiesThenSlotsStillWork() {
+        WritableMessage message = Messages.create(layout);
+        message.putInt("a", 1);
+        message.putInt("extra", 2);
+
+        ImmutableMessage immutable = message.toImmutable();
+        WritableMessage writable = immutable.toWritable();
+        layout.putBits(writable, 0, FieldType.INT, 3);
+
+        Assert.assertEquals(1, layout.getBits(immutable, 0, FieldType.INT));
+        Assert.assertEquals(3, layout.getBits(writable, 0, FieldType.INT));
+        Assert.assertEquals(2, writable.getInt("extra"));
+    }
+
+    @Test
+    public void givenOtherMessageWhenAccessBySlotThenByName() {
+        WritableMessage message = Messages.create();
+        layout.putBits(message, 1, FieldType.LONG, 5L);
+
+        Assert.assertEquals(5L, message.getLong("b"));
+        Assert.assertEquals(5L, layout.getBits(message, 1, FieldType.LONG));
+        Assert.assertTrue(layout.contains(message, 1));
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenLayoutMessageWhenGetAnotherTypeBySlotThenThrows() {
+        WritableMessage message = Messages.create(layout);
+        message.putInt("a", 1);
+
+        layout.getBits(message, 0, FieldType.LONG);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void givenLayoutMessageWhenSlotOutOfLayoutThenThrows() {
+        WritableMessage message = Messages.create(layout);
+        message.putInt("extra", 1);
+
+        layout.getBits(message, 3, FieldType.INT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenBitsOutOfRangeOfTypeWhenPutBySlotThenIllegalArgument() {
+        WritableMessage message = Messages.create(layout);
+
+        layout.putBits(message, 0, FieldType.SHORT, 1L << 16);
+    }
+
+    @Test
+    public void givenArrayWhenPutBySlotThenCopiedAndReadBuffersNotShared() {
+        int[] values = { 1, 2 };
+        for (WritableMessage message : Arrays.asList(Messages.create(layout), Messages.create())) {
+            layout.putRef(message, 0, FieldType.INT_ARRAY, values);
+            values[0] = 9;
+
+            IntBuffer first = (IntBuffer) layout.getRef(message, 0, FieldType.INT_ARRAY);
+            first.get();
+            IntBuffer second = (IntBuffer) layout.getRef(message, 0, FieldType.INT_ARRAY);
+
+            Assert.assertEquals(1, second.get(0));
+            Assert.assertEquals(0, second.position());
+            values[0] = 1;
+        }
+    }
+
+    @Test
+    public void givenDictionaryWhenCreateMessageThenFieldInfoAccessBySlot() {
+        IntFieldInfo id = new IntFieldInfo("id");
+        StringFieldInfo name = new StringFieldInfo("name");
+        DataDictionary dictionary = DataDictionary.builder().addField(id).addField(name).build();
+
+        Assert.assertEquals(0, dictionary.layout().slotOf("id"));
+        Assert.assertEquals(1, dictionary.layout().slotOf("name"));
+
+        WritableMessage message = dictionary.createMessage();
+        id.put(message, 7);
+
+        Assert.assertEquals(7, id.get(message));
+        Assert.assertEquals(7, message.getInt("id"));
+        Assert.assertEquals(7, id.tryGet(message).getAsInt());
+        Assert.assertFalse(name.tryGet(message).isPresent());
+        Assert.assertEquals("none", name.tryGet(message, "none"));
+
+        WritableMessage other = Messages.create();
+        other.putInt("id", 8);
+        Assert.assertEquals(8, id.get(other));
+    }
+}
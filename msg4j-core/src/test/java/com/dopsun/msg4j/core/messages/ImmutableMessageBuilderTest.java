@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class ImmutableMessageBuilderTest {
+    @Test
+    public void givenBuilderWhenBuiltThenFieldsKept() {
+        ImmutableMessage inner = Messages.builder(1).build();
+
+        ImmutableMessage.Builder builder = Messages.builder(2);
+        builder.putInt("int", 1);
+        builder.putDouble("double", 1.5);
+        builder.putString("string", "value");
+        builder.putMessage("message", inner);
+        builder.putMessageList("list", Arrays.asList(inner, inner));
+        builder.remove("double");
+
+        ImmutableMessage message = builder.build();
+        Assert.assertEquals(4, message.size());
+        Assert.assertFalse(message.contains("double"));
+        Assert.assertEquals(1, message.getInt("int"));
+        Assert.assertEquals("value", message.getString("string"));
+        Assert.assertSame(inner, message.getMessage("message"));
+        Assert.assertEquals(2, message.getMessageList("list").size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenBuiltWhenPutThenThrows() {
+        ImmutableMessage.Builder builder = Messages.builder();
+        builder.build();
+
+        builder.putInt("int", 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenBuiltWhenBuildAgainThenThrows() {
+        ImmutableMessage.Builder builder = Messages.builder();
+        builder.build();
+        builder.build();
+    }
+
+    @Test
+    public void givenBuiltWhenToWritableThenNotAffected() {
+        ImmutableMessage.Builder builder = Messages.builder();
+        builder.putInt("int", 1);
+        ImmutableMessage message = builder.build();
+
+        WritableMessage writable = message.toWritable();
+        writable.putInt("int", 2);
+        writable.putLong("long", 3L);
+
+        Assert.assertEquals(1, message.getInt("int"));
+        Assert.assertFalse(message.contains("long"));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.messages.schema.BooleanFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.DoubleFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.IntFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.LongArrayFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.MessageInfo;
+import com.dopsun.msg4j.core.messages.schema.StringFieldInfo;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessageBatchTest {
+    private static final String[] SYMBOLS = { "ABC", "DEF", "GHI" };
+
+    private static final MessageInfo QUOTE = MessageInfo.builder("Quote")
+            .addField(new StringFieldInfo("symbol")).addField(new IntFieldInfo("qty"))
+            .addField(new DoubleFieldInfo("price")).addField(new BooleanFieldInfo("firm"))
+            .addField(new LongArrayFieldInfo("ids")).build();
+
+    private static ImmutableMessage quote(int i) {
+        WritableMessage message = Messages.create();
+        message.putString("symbol", SYMBOLS[i % SYMBOLS.length]);
+        message.putDouble("price", i * 0.5);
+        message.putBoolean("firm", i % 2 == 0);
+        if (i % 3 != 0) {
+            message.putInt("qty", i);
+        }
+        if (i == 7) {
+            message.putLongArray("ids", new long[] { 7L, 8L });
+        }
+        return message.toImmutable();
+    }
+
+    private static MessageBatch batch(int size) {
+        MessageBatch.Builder builder = QUOTE.batchBuilder();
+        for (int i = 0; i < size; i++) {
+            builder.add(quote(i));
+        }
+
+        return builder.build();
+    }
+
+    @Test
+    public void givenMessagesWhenBatchedThenRowsEqualToMessages() {
+        MessageBatch batch = batch(200);
+
+        Assert.assertEquals(200, batch.size());
+        Assert.assertEquals(Arrays.asList("symbol", "qty", "price", "firm", "ids"),
+                batch.columnNames());
+
+        List<ImmutableMessage> rows = batch.rows();
+        for (int i = 0; i < 200; i++) {
+            ImmutableMessage row = rows.get(i);
+            Assert.assertEquals(quote(i), row);
+            Assert.assertEquals(quote(i).fingerprint(), row.fingerprint());
+            Assert.assertEquals(quote(i).size(), row.size());
+            Assert.assertEquals(i % 3 != 0, row.contains("qty"));
+        }
+
+        ImmutableMessage row = batch.row(7);
+        Assert.assertEquals(8L, row.getLongArray("ids").get(1));
+        Assert.assertEquals("DEF", row.getString("symbol"));
+        Assert.assertEquals(-1, row.tryGetInt("absent", -1));
+        Assert.assertEquals(7, row.toWritable().getInt("qty"));
+
+        MessageCodec codec = Messages.binaryCodec();
+        Assert.assertEquals(quote(7), codec.decode(row.encoded(codec)));
+    }
+
+    @Test
+    public void givenBatchWhenReadColumnsThenAllRows() {
+        MessageBatch batch = batch(100);
+
+        IntBuffer qty = batch.intColumn("qty");
+        BitSet present = batch.presence("qty");
+        long sum = 0;
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            sum += qty.get(i);
+        }
+        Assert.assertEquals(100, qty.remaining());
+        Assert.assertEquals(66, present.cardinality());
+        Assert.assertEquals(4950 - 1683, sum);
+
+        DoubleBuffer price = batch.doubleColumn("price");
+        Assert.assertEquals(49.5, price.get(99), 0.0);
+        Assert.assertEquals(50, batch.booleanColumn("firm").cardinality());
+
+        Assert.assertEquals(Arrays.asList(SYMBOLS), batch.stringDictionary("symbol"));
+        Assert.assertEquals(2, batch.stringCodes("symbol").get(5));
+        Assert.assertTrue(batch.isPresent("ids", 7));
+        Assert.assertFalse(batch.isPresent("ids", 8));
+    }
+
+    @Test
+    public void givenInvalidMessageWhenAddThenRowNotAdded() {
+        MessageBatch.Builder builder = QUOTE.batchBuilder();
+        builder.add(quote(1));
+
+        WritableMessage wrongType = quote(2).toWritable();
+        wrongType.remove("qty");
+        wrongType.putLong("qty", 2L);
+        try {
+            builder.add(wrongType);
+            Assert.fail();
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+
+        WritableMessage extra = quote(2).toWritable();
+        extra.putString("venue", "X");
+        try {
+            builder.add(extra);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        builder.add(Messages.create());
+        MessageBatch batch = builder.build();
+
+        Assert.assertEquals(2, batch.size());
+        Assert.assertEquals(0, batch.row(1).size());
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenIntColumnWhenReadAsLongThenInvalidType() {
+        batch(1).longColumn("qty");
+    }
+}
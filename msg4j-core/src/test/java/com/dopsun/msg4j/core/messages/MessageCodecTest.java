@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessageCodecTest {
+    private final MessageCodec codec = Messages.binaryCodec();
+
+    private static ImmutableMessage createMessage() {
+        WritableMessage child = Messages.create();
+        child.putString("name", "child");
+        child.putInt("id", 7);
+
+        WritableMessage item = Messages.create();
+        item.putDouble("price", 1.25);
+
+        WritableMessage message = Messages.create();
+        message.putBoolean("bool", true);
+        message.putByte("byte", Byte.MIN_VALUE);
+        message.putChar("char", '中');
+        message.putShort("short", Short.MIN_VALUE);
+        message.putInt("int", -1);
+        message.putLong("long", Long.MAX_VALUE);
+        message.putFloat("float", Float.MIN_VALUE);
+        message.putDouble("double", -Double.MAX_VALUE);
+        message.putString("string", "aé中😀");
+        message.putMessage("message", child.toImmutable());
+        message.putMessageList("messageList",
+                Arrays.asList(item.toImmutable(), Messages.create().toImmutable()));
+
+        return message.toImmutable();
+    }
+
+    private static void assertMessage(MessageReader message) {
+        Assert.assertEquals(11, message.size());
+
+        Assert.assertEquals(true, message.getBoolean("bool"));
+        Assert.assertEquals(Byte.MIN_VALUE, message.getByte("byte"));
+        Assert.assertEquals('中', message.getChar("char"));
+        Assert.assertEquals(Short.MIN_VALUE, message.getShort("short"));
+        Assert.assertEquals(-1, message.getInt("int"));
+        Assert.assertEquals(Long.MAX_VALUE, message.getLong("long"));
+        Assert.assertEquals(Float.MIN_VALUE, message.getFloat("float"), 0f);
+        Assert.assertEquals(-Double.MAX_VALUE, message.getDouble("double"), 0d);
+        Assert.assertEquals("aé中😀", message.getString("string"));
+
+        ImmutableMessage child = message.getMessage("message");
+        Assert.assertEquals(2, child.size());
+        Assert.assertEquals("child", child.getString("name"));
+        Assert.assertEquals(7, child.getInt("id"));
+
+        List<ImmutableMessage> list = message.getMessageList("messageList");
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals(1.25, list.get(0).getDouble("price"), 0d);
+        Assert.assertEquals(0, list.get(1).size());
+    }
+
+    @Test
+    public void givenAllFieldTypesWhenEncodeBytesThenDecodeSame() {
+        ImmutableMessage message = createMessage();
+
+        byte[] bytes = codec.encode(message);
+        Assert.assertEquals(codec.encodedSize(message), bytes.length);
+
+        assertMessage(codec.decode(bytes));
+    }
+
+    @Test
+    public void givenDirectLittleEndianBufferWhenEncodeThenDecodeSameAndOrderKept() {
+        ImmutableMessage message = createMessage();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(3);
+        codec.encode(message, buffer);
+        Assert.assertEquals(3 + codec.encodedSize(message), buffer.position());
+        Assert.assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+
+        buffer.flip();
+        buffer.position(3);
+        assertMessage(codec.decode(buffer));
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void givenSequenceOfMessagesWhenDecodeThenEachDecoded() {
+        WritableMessage first = Messages.create();
+        first.putInt("seq", 1);
+        WritableMessage second = Messages.create();
+        second.putInt("seq", 2);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        codec.encode(first, buffer);
+        codec.encode(second, buffer);
+        buffer.flip();
+
+        Assert.assertEquals(1, codec.decode(buffer).getInt("seq"));
+        Assert.assertEquals(2, codec.decode(buffer).getInt("seq"));
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void givenDecodedWhenToWritableThenCanBeModified() {
+        WritableMessage writable = codec.decode(codec.encode(createMessage())).toWritable();
+        writable.putInt("int", 2);
+        writable.putString("extra", "value");
+
+        Assert.assertEquals(2, writable.getInt("int"));
+        Assert.assertEquals(12, writable.size());
+    }
+
+    @Test(expected = MalformedMessageException.class)
+    public void givenTruncatedBytesWhenDecodeThenThrows() {
+        byte[] bytes = codec.encode(createMessage());
+        codec.decode(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected = MalformedMessageException.class)
+    public void givenUnknownTypeTagWhenDecodeThenThrows() {
+        codec.decode(new byte[] { 1, (byte) 0x7F, 1, 'a', 0 });
+    }
+
+    @Test
+    public void givenEncodedWhenViewThenSameAsDecoded() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        codec.encode(createMessage(), buffer);
+        buffer.flip();
+
+        ImmutableMessage view = codec.view(buffer);
+        assertMessage(view);
+        Assert.assertEquals(0, buffer.position());
+
+        assertMessage(view.toWritable());
+        assertMessage(codec.decode(codec.encode(view)));
+    }
+
+    @Test
+    public void givenViewWhenReadByThreadsThenSameDecodedValues() throws Exception {
+        ImmutableMessage view = codec.view(ByteBuffer.wrap(codec.encode(createMessage())));
+
+        int threadCount = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<ImmutableMessage> children = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                assertMessage(view);
+                children.add(view.getMessage("message"));
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(threadCount, children.size());
+        for (ImmutableMessage child : children) {
+            Assert.assertSame(children.get(0), child);
+        }
+    }
+
+    @Test
+    public void givenViewWhenToWritableThenCanBeModified() {
+        ImmutableMessage view = codec.view(ByteBuffer.wrap(codec.encode(createMessage())));
+
+        WritableMessage writable = view.toWritable();
+        writable.putInt("int", 2);
+        writable.remove("string");
+
+        Assert.assertEquals(-1, view.getInt("int"));
+        Assert.assertTrue(view.contains("string"));
+        Assert.assertEquals(2, writable.getInt("int"));
+        Assert.assertFalse(writable.contains("string"));
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenViewWhenGetAnotherTypeThenThrows() {
+        codec.view(ByteBuffer.wrap(codec.encode(createMessage()))).getLong("int");
+    }
+
+    @Test(expected = MalformedMessageException.class)
+    public void givenTruncatedBytesWhenViewAccessedThenThrows() {
+        byte[] bytes = codec.encode(createMessage());
+        codec.view(ByteBuffer.wrap(bytes, 0, bytes.length - 1)).contains("int");
+    }
+
+    private static byte[] bytesOf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void givenMessageWhenEncodedTwiceThenSameBytesAndReadOnly() {
+        ImmutableMessage message = createMessage();
+
+        ByteBuffer first = message.encoded(codec);
+        Assert.assertTrue(first.isReadOnly());
+        Assert.assertArrayEquals(codec.encode(message), bytesOf(first));
+        Assert.assertArrayEquals(codec.encode(message), bytesOf(message.encoded(codec)));
+    }
+
+    @Test
+    public void givenViewWhenEncodedThenOriginalBytes() {
+        byte[] bytes = codec.encode(createMessage());
+        ImmutableMessage view = codec.view(ByteBuffer.wrap(bytes));
+
+        Assert.assertArrayEquals(bytes, bytesOf(view.encoded(codec)));
+        Assert.assertArrayEquals(bytes, codec.encode(view));
+    }
+
+    @Test
+    public void givenEncodedChildWhenEncodeParentThenSameAsFresh() {
+        ImmutableMessage child = createMessage();
+        child.encoded(codec);
+
+        WritableMessage parent = Messages.create();
+        parent.putMessage("child", child);
+        parent.putMessageList("children", Arrays.asList(child, child));
+
+        WritableMessage fresh = Messages.create();
+        fresh.putMessage("child", createMessage());
+        fresh.putMessageList("children", Arrays.asList(createMessage(), createMessage()));
+
+        Assert.assertEquals(codec.encodedSize(fresh), codec.encodedSize(parent));
+        Assert.assertArrayEquals(codec.encode(fresh), codec.encode(parent));
+        assertMessage(codec.decode(codec.encode(parent)).getMessage("child"));
+    }
+
+    @Test
+    public void givenDeeplyNestedMessagesWhenEncodeThenDecodeSame() {
+        ImmutableMessage encodedChild = createMessage();
+        encodedChild.encoded(codec);
+
+        ImmutableMessage message = createMessage();
+        for (int depth = 1; depth <= 100; depth++) {
+            WritableMessage parent = Messages.create();
+            parent.putInt("depth", depth);
+            parent.putMessage("inner", message);
+            parent.putMessageList("siblings", Arrays.asList(createMessage(), encodedChild));
+            message = parent.toImmutable();
+        }
+
+        byte[] bytes = codec.encode(message);
+        Assert.assertEquals(codec.encodedSize(message), bytes.length);
+
+        ImmutableMessage decoded = codec.decode(ByteBuffer.wrap(bytes));
+        for (int depth = 100; depth >= 1; depth--) {
+            Assert.assertEquals(depth, decoded.getInt("depth"));
+            assertMessage(decoded.getMessageList("siblings").get(0));
+            assertMessage(decoded.getMessageList("siblings").get(1));
+            decoded = decoded.getMessage("inner");
+        }
+        assertMessage(decoded);
+    }
+
+    @Test
+    public void givenTwoCodecsWhenEncodedAlternatelyThenEachEncodedOnce() throws Exception {
+        ImmutableMessage message = createMessage();
+        CountingCodec first = new CountingCodec();
+        CountingCodec second = new CountingCodec();
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertArrayEquals(codec.encode(message), bytesOf(message.encoded(first)));
+            Assert.assertArrayEquals(codec.encode(message), bytesOf(message.encoded(second)));
+        }
+        Assert.assertEquals(1, first.encodes);
+        Assert.assertEquals(1, second.encodes);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeEncoded(first, out::write);
+        Assert.assertArrayEquals(codec.encode(message), out.toByteArray());
+        Assert.assertEquals(1, first.encodes);
+    }
+
+    private static final class CountingCodec implements MessageCodec {
+        private int encodes;
+
+        @Override
+        public int encodedSize(MessageReader message) {
+            return Messages.binaryCodec().encodedSize(message);
+        }
+
+        @Override
+        public void encode(MessageReader message, ByteBuffer buffer) {
+            encodes++;
+            Messages.binaryCodec().encode(message, buffer);
+        }
+
+        @Override
+        public ImmutableMessage decode(ByteBuffer buffer) {
+            return Messages.binaryCodec().decode(buffer);
+        }
+    }
+}
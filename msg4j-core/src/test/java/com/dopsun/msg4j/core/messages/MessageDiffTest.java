@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessageDiffTest {
+    private static ImmutableMessage quote(double bid, double ask) {
+        WritableMessage message = Messages.create();
+        message.putDouble("bid", bid);
+        message.putDouble("ask", ask);
+        return message.toImmutable();
+    }
+
+    private static WritableMessage record() {
+        WritableMessage message = Messages.create();
+        message.putString("symbol", "ABC");
+        message.putLong("seq", 1L);
+        message.putInt("status", 1);
+        message.putMessage("quote", quote(1.0, 1.5));
+        message.putMessageList("legs", Collections.singletonList(quote(2.0, 2.5)));
+        message.putDoubleArray("curve", new double[] { 0.1, 0.2 });
+        return message;
+    }
+
+    @Test
+    public void givenSameMessageWhenDiffThenEmpty() {
+        ImmutableMessage from = record().toImmutable();
+
+        Assert.assertTrue(MessageDiff.diff(from, from).isEmpty());
+        Assert.assertTrue(MessageDiff.diff(from, record().toImmutable()).isEmpty());
+        Assert.assertSame(from, MessageDiff.apply(from, MessagePatch.EMPTY));
+    }
+
+    @Test
+    public void givenChangesWhenDiffThenOnlyChangesInPatch() {
+        ImmutableMessage from = record().toImmutable();
+
+        WritableMessage to = record();
+        to.putLong("seq", 2L);
+        to.remove("status");
+        to.putString("venue", "X");
+        to.putMessage("quote", quote(1.0, 1.75));
+        to.remove("curve");
+        to.putString("curve", "flat");
+
+        MessagePatch patch = MessageDiff.diff(from, to.toImmutable());
+
+        Assert.assertEquals(3, patch.puts().size());
+        Assert.assertEquals(2L, patch.puts().getLong("seq"));
+        Assert.assertEquals("X", patch.puts().getString("venue"));
+        Assert.assertEquals("flat", patch.puts().getString("curve"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("status", "curve")),
+                new HashSet<>(patch.removes()));
+
+        MessagePatch quotePatch = patch.patches().get("quote");
+        Assert.assertEquals(1, patch.patches().size());
+        Assert.assertEquals(1, quotePatch.puts().size());
+        Assert.assertEquals(1.75, quotePatch.puts().getDouble("ask"), 0.0);
+
+        ImmutableMessage applied = MessageDiff.apply(from, patch);
+        Assert.assertTrue(FieldValues.equal(to, applied));
+        Assert.assertSame(from.getMessageList("legs"), applied.getMessageList("legs"));
+    }
+
+    @Test
+    public void givenPatchMessageWhenEncodedThenSamePatch() {
+        ImmutableMessage from = record().toImmutable();
+
+        WritableMessage to = record();
+        to.remove("symbol");
+        to.putBytes("raw", ByteBuffer.wrap(new byte[] { 1, 2 }));
+        to.putMessage("quote", quote(0.5, 1.5));
+
+        MessagePatch patch = MessageDiff.diff(from, to.toImmutable());
+
+        MessageCodec codec = Messages.binaryCodec();
+        ImmutableMessage encoded = codec.view(ByteBuffer.wrap(codec.encode(patch.toMessage())));
+        MessagePatch received = MessagePatch.fromMessage(encoded);
+
+        Assert.assertEquals(patch.removes(), received.removes());
+        Assert.assertTrue(FieldValues.equal(to, MessageDiff.apply(from, received)));
+    }
+
+    @Test
+    public void givenTrieStorageWhenApplyThenBaseNotChanged() {
+        WritableMessage base = Messages.create(FieldStorage.PERSISTENT_TRIE);
+        base.putInt("a", 1);
+        base.putInt("b", 2);
+        ImmutableMessage from = base.toImmutable();
+
+        WritableMessage to = from.toWritable();
+        to.putInt("a", 10);
+
+        MessagePatch patch = MessageDiff.diff(from, to.toImmutable());
+        ImmutableMessage applied = MessageDiff.apply(from, patch);
+
+        Assert.assertEquals(1, from.getInt("a"));
+        Assert.assertEquals(10, applied.getInt("a"));
+        Assert.assertEquals(2, applied.getInt("b"));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessageEqualityTest {
+    private static void putFields(WritableMessage message, boolean reversed) {
+        WritableMessage nested = Messages.create();
+        nested.putDouble("px", Double.NaN);
+
+        List<Runnable> puts = new ArrayList<>();
+        puts.add(() -> message.putString("symbol", "ABC"));
+        puts.add(() -> message.putLong("seq", 42L));
+        puts.add(() -> message.putMessage("nested", nested.toImmutable()));
+        puts.add(() -> message.putMessageList("list",
+                Collections.singletonList(nested.toImmutable())));
+        puts.add(() -> message.putIntArray("ints", new int[] { 1, 2, 3 }));
+        puts.add(() -> message.putBytes("raw", ByteBuffer.wrap(new byte[] { 4, 5 })));
+        if (reversed) {
+            Collections.reverse(puts);
+        }
+
+        puts.forEach(Runnable::run);
+    }
+
+    private static List<ImmutableMessage> messages() {
+        List<ImmutableMessage> messages = new ArrayList<>();
+        for (FieldStorage storage : FieldStorage.values()) {
+            for (boolean reversed : new boolean[] { false, true }) {
+                WritableMessage message = Messages.create(storage);
+                putFields(message, reversed);
+                messages.add(message.toImmutable());
+            }
+        }
+
+        MessageCodec codec = Messages.binaryCodec();
+        byte[] encoded = codec.encode(messages.get(0));
+        messages.add(codec.decode(ByteBuffer.wrap(encoded)));
+        messages.add(codec.view(ByteBuffer.wrap(encoded)));
+        return messages;
+    }
+
+    @Test
+    public void givenSameContentWhenCompareThenEqualWithSameFingerprint() {
+        List<ImmutableMessage> messages = messages();
+        ImmutableMessage first = messages.get(0);
+
+        for (ImmutableMessage message : messages) {
+            Assert.assertEquals(first, message);
+            Assert.assertEquals(first.hashCode(), message.hashCode());
+            Assert.assertEquals(first.fingerprint(), message.fingerprint());
+        }
+
+        Set<ImmutableMessage> set = new HashSet<>(messages);
+        Assert.assertEquals(1, set.size());
+    }
+
+    @Test
+    public void givenDifferentContentWhenCompareThenNotEqual() {
+        ImmutableMessage first = messages().get(0);
+
+        WritableMessage changed = first.toWritable();
+        changed.putLong("seq", 43L);
+        Assert.assertNotEquals(first, changed.toImmutable());
+        Assert.assertNotEquals(first.fingerprint(), changed.toImmutable().fingerprint());
+
+        WritableMessage renamed = Messages.create();
+        renamed.putLong("a", 1L);
+        renamed.putLong("b", 2L);
+        WritableMessage swapped = Messages.create();
+        swapped.putLong("a", 2L);
+        swapped.putLong("b", 1L);
+        Assert.assertNotEquals(renamed.toImmutable().fingerprint(),
+                swapped.toImmutable().fingerprint());
+
+        WritableMessage zero = Messages.create();
+        zero.putDouble("px", 0.0);
+        WritableMessage negativeZero = Messages.create();
+        negativeZero.putDouble("px", -0.0);
+        Assert.assertNotEquals(zero.toImmutable(), negativeZero.toImmutable());
+    }
+
+    @Test
+    public void givenWritableWhenCompareThenNotEqualToImmutable() {
+        ImmutableMessage message = messages().get(0);
+
+        Assert.assertNotEquals(message, message.toWritable());
+    }
+
+    @Test
+    public void givenReaderWithoutStoreWhenCompareThenComparedByContent() {
+        ImmutableMessage message = messages().get(0);
+        MessageReader reader = (MessageReader) Proxy.newProxyInstance(
+                MessageReader.class.getClassLoader(), new Class<?>[] { MessageReader.class },
+                (proxy, method, args) -> method.invoke(message, args));
+
+        Assert.assertTrue(FieldValues.equal(message, reader));
+        Assert.assertTrue(FieldValues.equal(reader, message));
+        Assert.assertEquals(message.fingerprint(), FieldValues.fingerprint(reader));
+
+        WritableMessage changed = message.toWritable();
+        changed.putIntArray("ints", new int[] { 1, 2, 4 });
+        Assert.assertFalse(FieldValues.equal(changed, reader));
+        Assert.assertFalse(FieldValues.equal(reader, changed));
+
+        WritableMessage retyped = message.toWritable();
+        retyped.remove("seq");
+        retyped.putInt("seq", 42);
+        Assert.assertFalse(FieldValues.equal(reader, retyped));
+    }
+}
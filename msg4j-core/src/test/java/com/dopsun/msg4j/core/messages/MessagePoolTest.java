@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessagePoolTest {
+    @Test
+    public void givenThreadLocalPoolWhenReleasedThenReusedEmpty() {
+        MessagePool pool = Messages.threadLocalPool(4);
+
+        RecyclableWritableMessage message = pool.acquire();
+        message.putInt("a", 1);
+        ImmutableMessage immutable = message.toImmutable();
+        message.release();
+
+        RecyclableWritableMessage reused = pool.acquire();
+        Assert.assertSame(message, reused);
+        Assert.assertEquals(0, reused.size());
+        Assert.assertFalse(reused.contains("a"));
+
+        reused.putString("a", "changed type");
+        Assert.assertEquals("changed type", reused.getString("a"));
+        Assert.assertEquals(1, immutable.getInt("a"));
+    }
+
+    @Test
+    public void givenSharedPoolWhenFullThenReleasedDropped() {
+        MessagePool pool = Messages.sharedPool(1);
+
+        RecyclableWritableMessage first = pool.acquire();
+        RecyclableWritableMessage second = pool.acquire();
+        first.release();
+        second.release();
+
+        Assert.assertSame(first, pool.acquire());
+        Assert.assertNotSame(second, pool.acquire());
+    }
+
+    @Test
+    public void givenTryWithResourcesWhenClosedThenReleased() {
+        MessagePool pool = Messages.threadLocalPool(1);
+
+        RecyclableWritableMessage acquired;
+        try (RecyclableWritableMessage message = pool.acquire()) {
+            message.putLong("seq", 1L);
+            acquired = message;
+        }
+
+        Assert.assertSame(acquired, pool.acquire());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void givenReleasedWhenReleaseAgainThenThrows() {
+        RecyclableWritableMessage message = Messages.sharedPool(2).acquire();
+        message.release();
+        message.release();
+    }
+}
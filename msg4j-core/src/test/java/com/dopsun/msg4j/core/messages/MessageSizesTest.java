@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessageSizesTest {
+    private static ImmutableMessage quote(FieldStorage storage, String symbol) {
+        WritableMessage message = Messages.create(storage);
+        message.putString("symbol", symbol);
+        message.putDouble("bid", 1.5);
+        message.putLong("seq", 1L);
+        return message.toImmutable();
+    }
+
+    @Test
+    public void givenAllStoragesWhenEstimateThenGrowsWithValues() {
+        for (FieldStorage storage : FieldStorage.values()) {
+            ImmutableMessage small = quote(storage, "A");
+            ImmutableMessage large = quote(storage, new String(new char[1000]));
+
+            long difference = large.estimatedRetainedSize() - small.estimatedRetainedSize();
+            Assert.assertTrue(storage.name(), difference >= 1990 && difference < 2100);
+
+            WritableMessage parent = Messages.create(storage);
+            parent.putMessage("quote", large);
+            parent.putMessageList("quotes", Arrays.asList(small, small));
+
+            Assert.assertTrue(storage.name(), parent.estimatedRetainedSize() > large
+                    .estimatedRetainedSize() + 2 * small.estimatedRetainedSize());
+        }
+    }
+
+    @Test
+    public void givenViewWhenFieldsDecodedThenEstimateIncludesDecodedValues() {
+        MessageCodec codec = Messages.binaryCodec();
+
+        WritableMessage message = Messages.create();
+        message.putString("symbol", new String(new char[100]));
+        message.putMessage("quote", quote(FieldStorage.PRIMITIVE_SLOTS, "A"));
+        byte[] encoded = codec.encode(message);
+
+        ImmutableMessage view = codec.view(ByteBuffer.wrap(encoded));
+        long undecoded = view.estimatedRetainedSize();
+        Assert.assertTrue(undecoded > encoded.length);
+
+        view.getString("symbol");
+        view.getMessage("quote").getString("symbol");
+        Assert.assertTrue(view.estimatedRetainedSize() > undecoded + 200);
+    }
+
+    @Test
+    public void givenViewsWhenDecodedThenFieldNamesNotCounted() {
+        MessageCodec codec = Messages.binaryCodec();
+
+        long[] decodedSizes = new long[2];
+        String[] names = { "s", new String(new char[100]) };
+        for (int i = 0; i < names.length; i++) {
+            WritableMessage message = Messages.create();
+            message.putLong(names[i], 1L);
+
+            ImmutableMessage view = codec.view(ByteBuffer.wrap(codec.encode(message)));
+            long undecoded = view.estimatedRetainedSize();
+            view.getLong(names[i]);
+            decodedSizes[i] = view.estimatedRetainedSize() - undecoded;
+        }
+
+        Assert.assertEquals(decodedSizes[0], decodedSizes[1]);
+    }
+
+    @Test
+    public void givenVisitedMessageWhenEstimateThenGrowsWithValues() {
+        long small = MessageSizes.visited(quote(FieldStorage.HASH_MAP, "A"));
+        long large = MessageSizes.visited(quote(FieldStorage.HASH_MAP, new String(new char[1000])));
+
+        Assert.assertTrue(small > 3 * MessageSizes.MAP_ENTRY);
+        Assert.assertEquals(large - small, MessageSizes.string(new String(new char[1000]))
+                - MessageSizes.string("A"));
+    }
+
+    @Test
+    public void givenMessagesWhenEncodedSizeThenSameAsEncodedLength() {
+        MessageCodec codec = Messages.binaryCodec();
+
+        for (FieldStorage storage : FieldStorage.values()) {
+            WritableMessage message = Messages.create(storage);
+            message.putMessage("quote", quote(storage, "ABC"));
+            message.putMessageList("quotes", Arrays.asList(quote(storage, "X")));
+            message.putIntArray("levels", new int[] { 1, 2 });
+
+            byte[] encoded = codec.encode(message);
+            Assert.assertEquals(encoded.length, message.encodedSize(codec));
+            Assert.assertEquals(encoded.length, message.toImmutable().encodedSize(codec));
+            Assert.assertEquals(encoded.length,
+                    codec.view(ByteBuffer.wrap(encoded)).encodedSize(codec));
+        }
+    }
+
+    @Test
+    public void givenBatchRowWhenEstimateThenValuesNotCounted() {
+        MessageBatch.Builder builder = MessageBatch.builder().column("symbol", FieldType.STRING)
+                .column("bid", FieldType.DOUBLE).column("seq", FieldType.LONG);
+        builder.add(quote(FieldStorage.PRIMITIVE_SLOTS, new String(new char[1000])));
+        ImmutableMessage row = builder.build().row(0);
+
+        Assert.assertTrue(row.estimatedRetainedSize() < 100);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class OffHeapMessageStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ImmutableMessage quote(String symbol, int levels) {
+        WritableMessage message = Messages.create();
+        message.putString("symbol", symbol);
+        message.putInt("levels", levels);
+        message.putDoubleArray("prices", new double[levels]);
+        return message.toImmutable();
+    }
+
+    @Test
+    public void givenMessagesWhenPutThenGetByKey() {
+        try (OffHeapMessageStore<String> store = OffHeapMessageStore.builder().build()) {
+            store.put("A", quote("A", 1));
+            store.put("B", quote("B", 2));
+
+            WritableMessage writable = Messages.create();
+            writable.putString("symbol", "C");
+            store.put("C", writable);
+
+            Assert.assertEquals(3, store.size());
+            Assert.assertEquals(2, store.get("B").getInt("levels"));
+            Assert.assertEquals("C", store.get("C").getString("symbol"));
+            Assert.assertNull(store.get("D"));
+            Assert.assertEquals("A", store.read("A", m -> m.getString("symbol")));
+            Assert.assertNull(store.read("D", m -> m.getString("symbol")));
+
+            Assert.assertTrue(store.remove("A"));
+            Assert.assertFalse(store.remove("A"));
+            Assert.assertFalse(store.containsKey("A"));
+            Assert.assertEquals(2, store.keys().size());
+        }
+    }
+
+    @Test
+    public void givenReplacesWhenPutThenFreeSpaceReused() {
+        try (OffHeapMessageStore<Integer> store = OffHeapMessageStore.builder().slabSize(4096)
+                .build()) {
+            for (int i = 0; i < 20; i++) {
+                store.put(i, quote("S" + i, 10));
+            }
+            long capacity = store.capacityBytes();
+
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 20; i++) {
+                    store.put(i, quote("S" + i, (round + i) % 2 == 0 ? 4 : 10));
+                }
+            }
+
+            Assert.assertEquals(capacity, store.capacityBytes());
+            for (int i = 0; i < 20; i++) {
+                Assert.assertEquals("S" + i, store.get(i).getString("symbol"));
+            }
+        }
+    }
+
+    @Test
+    public void givenFreeBlocksSlightlyBiggerWhenPutThenWholeBlocksAccounted() {
+        try (OffHeapMessageStore<Integer> store = OffHeapMessageStore.builder().slabSize(4096)
+                .build()) {
+            for (int i = 0; i < 10; i++) {
+                store.put(i, quote("S" + i, 5));
+            }
+            long used = store.usedBytes();
+            Assert.assertEquals(0, store.freeBytes());
+
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 10; i++) {
+                    store.remove(i);
+                }
+                Assert.assertEquals(0, store.usedBytes());
+                Assert.assertEquals(used, store.freeBytes());
+
+                // Each block is 8 bytes smaller than free blocks, too small to be split.
+                for (int i = 0; i < 10; i++) {
+                    store.put(i, quote("S" + i, round % 2 == 0 ? 4 : 5));
+                }
+                Assert.assertEquals(used, store.usedBytes());
+                Assert.assertEquals(0, store.freeBytes());
+            }
+
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(4, store.get(i).getDoubleArray("prices").remaining());
+            }
+        }
+    }
+
+    @Test
+    public void givenRemovedMessagesWhenCompactThenSlabsReleased() {
+        try (OffHeapMessageStore<Integer> store = OffHeapMessageStore.builder().slabSize(1024)
+                .build()) {
+            Map<Integer, Integer> levels = new HashMap<>();
+            for (int i = 0; i < 200; i++) {
+                store.put(i, quote("S" + i, i % 7));
+                levels.put(i, i % 7);
+            }
+            for (int i = 0; i < 200; i++) {
+                if (i % 3 != 0) {
+                    store.remove(i);
+                    levels.remove(i);
+                }
+            }
+
+            long capacity = store.capacityBytes();
+            Assert.assertTrue(store.freeBytes() > 0);
+
+            store.compact();
+
+            Assert.assertTrue(store.capacityBytes() < capacity);
+            Assert.assertEquals(levels.size(), store.size());
+
+            Map<Integer, Integer> actual = new HashMap<>();
+            store.forEachView((key, message) -> actual.put(key, message.getInt("levels")));
+            Assert.assertEquals(levels, actual);
+
+            store.put(1, quote("S1", 3));
+            Assert.assertEquals(3, store.get(1).getInt("levels"));
+        }
+    }
+
+    @Test
+    public void givenMappedFilesWhenCloseThenFilesDeleted() throws Exception {
+        File directory = folder.newFolder();
+        try (OffHeapMessageStore<String> store = OffHeapMessageStore.builder().slabSize(1024)
+                .mappedFiles(directory.toPath()).build()) {
+            for (int i = 0; i < 50; i++) {
+                store.put("K" + i, quote("K" + i, 5));
+            }
+
+            Assert.assertTrue(directory.list().length > 1);
+            Assert.assertEquals(5, store.get("K49").getDoubleArray("prices").remaining());
+        }
+
+        Assert.assertEquals(0, directory.list().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void givenMessageBiggerThanSlabWhenPutThenIllegalArgument() {
+        try (OffHeapMessageStore<String> store = OffHeapMessageStore.builder().slabSize(64)
+                .build()) {
+            store.put("A", quote("A", 100));
+        }
+    }
+}
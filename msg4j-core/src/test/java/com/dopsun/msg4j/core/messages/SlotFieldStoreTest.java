@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class SlotFieldStoreTest {
+    @Test
+    public void givenSlotStorageWhenPutPrimitivesThenGetSameValues() {
+        WritableMessage message = Messages.create(FieldStorage.PRIMITIVE_SLOTS);
+
+        message.putBoolean("bool", true);
+        message.putByte("byte", (byte) -1);
+        message.putChar("char", 'c');
+        message.putShort("short", (short) -2);
+        message.putInt("int", -3);
+        message.putLong("long", Long.MIN_VALUE);
+        message.putFloat("float", -1.5f);
+        message.putDouble("double", Double.NaN);
+        message.putString("string", "text");
+
+        Assert.assertEquals(9, message.size());
+        Assert.assertTrue(message.getBoolean("bool"));
+        Assert.assertEquals((byte) -1, message.getByte("byte"));
+        Assert.assertEquals('c', message.getChar("char"));
+        Assert.assertEquals((short) -2, message.getShort("short"));
+        Assert.assertEquals(-3, message.getInt("int"));
+        Assert.assertEquals(Long.MIN_VALUE, message.getLong("long"));
+        Assert.assertEquals(-1.5f, message.getFloat("float"), 0f);
+        Assert.assertTrue(Double.isNaN(message.getDouble("double")));
+        Assert.assertEquals("text", message.getString("string"));
+    }
+
+    @Test
+    public void givenSlotStorageWhenManyFieldsThenTableGrows() {
+        WritableMessage message = Messages.create(FieldStorage.PRIMITIVE_SLOTS);
+
+        for (int i = 0; i < 100; i++) {
+            message.putInt("f" + i, i);
+        }
+
+        Assert.assertEquals(100, message.size());
+        Assert.assertEquals(100, message.fieldNames().size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i, message.getInt("f" + i));
+        }
+    }
+
+    @Test
+    public void givenSlotStorageWhenRemoveThenFieldNotExist() {
+        WritableMessage message = Messages.create(FieldStorage.PRIMITIVE_SLOTS);
+        message.putInt("a", 1);
+        message.putInt("b", 2);
+
+        Assert.assertTrue(message.remove("a"));
+        Assert.assertFalse(message.remove("a"));
+        Assert.assertFalse(message.contains("a"));
+        Assert.assertEquals(1, message.size());
+
+        message.putString("a", "again");
+        Assert.assertEquals("again", message.getString("a"));
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenSlotStorageWhenPutAnotherTypeThenThrows() {
+        WritableMessage message = Messages.create(FieldStorage.PRIMITIVE_SLOTS);
+        message.putInt("a", 1);
+        message.putLong("a", 1L);
+    }
+
+    @Test
+    public void givenImmutableWhenWritableChangedThenImmutableNotChanged() {
+        WritableMessage message = Messages.create(FieldStorage.PRIMITIVE_SLOTS);
+        message.putInt("a", 1);
+
+        ImmutableMessage immutable = message.toImmutable();
+
+        message.putInt("a", 2);
+        message.putInt("b", 3);
+
+        Assert.assertEquals(1, immutable.getInt("a"));
+        Assert.assertFalse(immutable.contains("b"));
+        Assert.assertEquals(1, immutable.size());
+
+        WritableMessage writable = immutable.toWritable();
+        writable.putInt("c", 4);
+
+        Assert.assertFalse(immutable.contains("c"));
+        Assert.assertEquals(2, writable.size());
+    }
+}
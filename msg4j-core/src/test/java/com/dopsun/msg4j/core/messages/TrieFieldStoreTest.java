@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class TrieFieldStoreTest {
+    private static WritableMessage create(int fieldCount) {
+        WritableMessage message = Messages.create(FieldStorage.PERSISTENT_TRIE);
+        for (int i = 0; i < fieldCount; i++) {
+            message.putInt("f" + i, i);
+        }
+
+        return message;
+    }
+
+    @Test
+    public void givenManyFieldsWhenGetThenSameValues() {
+        WritableMessage message = create(1000);
+
+        Assert.assertEquals(1000, message.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i, message.getInt("f" + i));
+        }
+
+        Set<String> names = new HashSet<>(message.fieldNames());
+        Assert.assertEquals(1000, names.size());
+        Assert.assertTrue(names.contains("f999"));
+    }
+
+    @Test
+    public void givenSameHashNamesWhenPutAndRemoveThenKeptSeparately() {
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        WritableMessage message = create(100);
+        message.putString("Aa", "a");
+        message.putString("BB", "b");
+
+        ImmutableMessage immutable = message.toImmutable();
+
+        Assert.assertTrue(message.remove("Aa"));
+        Assert.assertFalse(message.remove("Aa"));
+
+        Assert.assertFalse(message.contains("Aa"));
+        Assert.assertEquals("b", message.getString("BB"));
+        Assert.assertEquals("a", immutable.getString("Aa"));
+        Assert.assertEquals("b", immutable.getString("BB"));
+        Assert.assertEquals(102, immutable.fieldNames().size());
+    }
+
+    @Test
+    public void givenCopiesWhenModifiedThenOthersNotChanged() {
+        WritableMessage message = create(200);
+
+        ImmutableMessage first = message.toImmutable();
+        message.putInt("f1", -1);
+        message.remove("f2");
+
+        ImmutableMessage second = message.toImmutable();
+        message.putInt("f3", -3);
+
+        WritableMessage writable = first.toWritable();
+        writable.putInt("f4", -4);
+
+        Assert.assertEquals(1, first.getInt("f1"));
+        Assert.assertEquals(2, first.getInt("f2"));
+        Assert.assertEquals(4, first.getInt("f4"));
+        Assert.assertEquals(200, first.size());
+
+        Assert.assertEquals(-1, second.getInt("f1"));
+        Assert.assertFalse(second.contains("f2"));
+        Assert.assertEquals(3, second.getInt("f3"));
+        Assert.assertEquals(199, second.size());
+
+        Assert.assertEquals(-3, message.getInt("f3"));
+        Assert.assertEquals(-4, writable.getInt("f4"));
+        Assert.assertEquals(1, writable.getInt("f1"));
+    }
+
+    @Test
+    public void givenRemoveAllWhenPutAgainThenWorks() {
+        WritableMessage message = create(50);
+        for (int i = 0; i < 50; i++) {
+            Assert.assertTrue(message.remove("f" + i));
+        }
+
+        Assert.assertEquals(0, message.size());
+        Assert.assertFalse(message.fieldNames().iterator().hasNext());
+
+        message.putLong("f0", 1L);
+        Assert.assertEquals(1L, message.getLong("f0"));
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenTriePutAnotherTypeThenThrows() {
+        WritableMessage message = create(1);
+        message.putLong("f0", 1L);
+    }
+}
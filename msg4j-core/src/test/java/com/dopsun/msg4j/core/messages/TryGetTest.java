@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class TryGetTest {
+    private static final FieldLayout LAYOUT = FieldLayout
+            .of(Arrays.asList("int", "long", "double", "string", "absent"));
+
+    private static List<ImmutableMessage> messages() {
+        List<WritableMessage> writables = new ArrayList<>();
+        for (FieldStorage storage : FieldStorage.values()) {
+            writables.add(Messages.create(storage));
+        }
+        writables.add(Messages.create(LAYOUT));
+
+        List<ImmutableMessage> messages = new ArrayList<>();
+        for (WritableMessage message : writables) {
+            message.putInt("int", 7);
+            message.putLong("long", Long.MIN_VALUE);
+            message.putDouble("double", -0.0);
+            message.putString("string", "value");
+            messages.add(message.toImmutable());
+        }
+
+        MessageCodec codec = Messages.binaryCodec();
+        messages.add(codec.view(ByteBuffer.wrap(codec.encode(messages.get(0)))));
+        return messages;
+    }
+
+    @Test
+    public void givenAllStoragesWhenTryGetThenPresentAndAbsentDistinguished() {
+        for (ImmutableMessage message : messages()) {
+            Assert.assertEquals(7, message.tryGetInt("int", 0));
+            Assert.assertEquals(7, message.tryGetInt("int").getAsInt());
+            Assert.assertEquals(-1, message.tryGetInt("absent", -1));
+            Assert.assertFalse(message.tryGetInt("absent").isPresent());
+
+            Assert.assertEquals(Long.MIN_VALUE, message.tryGetLong("long", 0L));
+            Assert.assertEquals(OptionalLong.of(Long.MIN_VALUE), message.tryGetLong("long"));
+            Assert.assertFalse(message.tryGetLong("absent").isPresent());
+
+            Assert.assertEquals(Double.doubleToRawLongBits(-0.0),
+                    Double.doubleToRawLongBits(message.tryGetDouble("double").getAsDouble()));
+            Assert.assertFalse(message.tryGetDouble("absent").isPresent());
+            Assert.assertEquals(1.5, message.tryGetDouble("absent", 1.5), 0.0);
+
+            Assert.assertEquals("value", message.tryGetString("string", "default"));
+            Assert.assertEquals("default", message.tryGetString("absent", "default"));
+            Assert.assertFalse(message.tryGetString("absent").isPresent());
+            Assert.assertFalse(message.tryGetFieldType("absent").isPresent());
+        }
+    }
+
+    @Test
+    public void givenLayoutWhenTryGetBySlotThenSameAsByName() {
+        for (ImmutableMessage message : messages()) {
+            Assert.assertEquals(7, LAYOUT.tryGetBits(message, 0, FieldType.INT, 0L));
+            Assert.assertEquals(Long.MIN_VALUE,
+                    LAYOUT.tryGetBits(message, 1, FieldType.LONG, FieldLayout.ABSENT_BITS));
+            Assert.assertTrue(LAYOUT.contains(message, 1));
+            Assert.assertEquals(Double.doubleToRawLongBits(-0.0),
+                    LAYOUT.tryGetBits(message, 2, FieldType.DOUBLE, FieldLayout.ABSENT_BITS));
+            Assert.assertEquals("value", LAYOUT.tryGetRef(message, 3, FieldType.STRING));
+            Assert.assertEquals(FieldLayout.ABSENT_BITS,
+                    LAYOUT.tryGetBits(message, 4, FieldType.LONG, FieldLayout.ABSENT_BITS));
+            Assert.assertFalse(LAYOUT.contains(message, 4));
+            Assert.assertNull(LAYOUT.tryGetRef(message, 4, FieldType.STRING));
+        }
+    }
+
+    @Test
+    public void givenSmallValueWhenTryGetOptionalThenCached() {
+        WritableMessage message = Messages.create();
+        message.putInt("int", 1);
+        message.putLong("long", 1L);
+
+        Assert.assertSame(message.tryGetInt("int"), message.tryGetInt("int"));
+        Assert.assertSame(message.tryGetLong("long"), message.tryGetLong("long"));
+    }
+
+    @Test(expected = InvalidTypeException.class)
+    public void givenWrongTypeWhenTryGetThenThrows() {
+        WritableMessage message = Messages.create();
+        message.putInt("int", 1);
+
+        message.tryGetLong("int", 0L);
+    }
+}
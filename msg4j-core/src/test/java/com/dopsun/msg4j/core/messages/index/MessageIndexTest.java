@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages.index;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
+import com.dopsun.msg4j.core.messages.schema.BytesFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.DoubleFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.IntArrayFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.LongFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.MessageFieldInfo;
+import com.dopsun.msg4j.core.messages.schema.StringFieldInfo;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessageIndexTest {
+    private static final LongFieldInfo ID = new LongFieldInfo("id");
+    private static final StringFieldInfo SYMBOL = new StringFieldInfo("symbol");
+    private static final StringFieldInfo VENUE = new StringFieldInfo("venue");
+    private static final DoubleFieldInfo PRICE = new DoubleFieldInfo("price");
+
+    private static ImmutableMessage order(long id, String symbol, String venue, double price) {
+        WritableMessage message = Messages.create();
+        ID.put(message, id);
+        SYMBOL.put(message, symbol);
+        VENUE.put(message, venue);
+        PRICE.put(message, price);
+        return message.toImmutable();
+    }
+
+    private static MessageIndex index() {
+        MessageIndex index = MessageIndex.builder(ID).hashIndex(SYMBOL)
+                .hashIndex(SYMBOL, VENUE).sortedIndex(PRICE).build();
+
+        index.put(order(1L, "ABC", "X", 10.0));
+        index.put(order(2L, "ABC", "Y", 11.0));
+        index.put(order(3L, "DEF", "X", 12.0));
+        return index;
+    }
+
+    private static Set<Long> ids(List<ImmutableMessage> messages) {
+        Set<Long> ids = new HashSet<>();
+        for (ImmutableMessage message : messages) {
+            ids.add(Long.valueOf(ID.get(message)));
+        }
+
+        return ids;
+    }
+
+    private static Set<Long> ids(Long... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    @Test
+    public void givenMessagesWhenFindThenFoundByIndexes() {
+        MessageIndex index = index();
+
+        Assert.assertEquals(3, index.size());
+        Assert.assertEquals("DEF", SYMBOL.get(index.get(3L)));
+        Assert.assertNull(index.get(4L));
+
+        Assert.assertEquals(ids(1L, 2L), ids(index.findEqual(SYMBOL, "ABC")));
+        Assert.assertEquals(ids(2L),
+                ids(index.findEqual(Arrays.asList(SYMBOL, VENUE), "ABC", "Y")));
+        Assert.assertEquals(ids(3L), ids(index.findEqual(PRICE, 12.0)));
+        Assert.assertTrue(index.findEqual(SYMBOL, "XYZ").isEmpty());
+
+        Assert.assertEquals(ids(2L, 3L), ids(index.findRange(PRICE, 10.0, false, null, false)));
+        Assert.assertEquals(ids(1L, 2L), ids(index.findRange(PRICE, 10.0, true, 11.0, true)));
+        Assert.assertEquals(3, index.findRange(PRICE, null, false, null, false).size());
+    }
+
+    @Test
+    public void givenReplaceAndRemoveWhenFindThenIndexesUpdated() {
+        MessageIndex index = index();
+
+        ImmutableMessage previous = index.put(order(1L, "DEF", "X", 20.0));
+        Assert.assertEquals("ABC", SYMBOL.get(previous));
+        Assert.assertEquals(3, index.size());
+
+        Assert.assertEquals(ids(2L), ids(index.findEqual(SYMBOL, "ABC")));
+        Assert.assertEquals(ids(1L, 3L),
+                ids(index.findEqual(Arrays.asList(SYMBOL, VENUE), "DEF", "X")));
+        Assert.assertTrue(index.findEqual(PRICE, 10.0).isEmpty());
+
+        index.put(order(2L, "ABC", "Y", 21.0));
+        Assert.assertEquals(ids(2L), ids(index.findEqual(SYMBOL, "ABC")));
+
+        Assert.assertEquals("DEF", SYMBOL.get(index.remove(3L)));
+        Assert.assertNull(index.remove(3L));
+        Assert.assertEquals(ids(1L), ids(index.findEqual(SYMBOL, "DEF")));
+        Assert.assertEquals(ids(1L, 2L), ids(index.findRange(PRICE, 20.0, true, null, false)));
+    }
+
+    @Test
+    public void givenSameMessagePutAgainWhenFindThenStillFound() {
+        MessageIndex index = index();
+
+        ImmutableMessage message = index.get(1L);
+        index.put(message);
+
+        Assert.assertEquals(ids(1L, 2L), ids(index.findEqual(SYMBOL, "ABC")));
+    }
+
+    @Test
+    public void givenInvalidLookupsWhenFindThenIllegalArgument() {
+        MessageIndex index = index();
+
+        Runnable[] lookups = { () -> index.get(1), () -> index.findEqual(VENUE, "X"),
+                () -> index.findEqual(SYMBOL, 1),
+                () -> index.findRange(SYMBOL, "A", true, null, true),
+                () -> MessageIndex.builder(new IntArrayFieldInfo("ids")),
+                () -> MessageIndex.builder(ID).hashIndex(new MessageFieldInfo("leg")),
+                () -> MessageIndex.builder(ID).sortedIndex(new BytesFieldInfo("raw")),
+                () -> index.put(Messages.builder().build()) };
+
+        for (Runnable lookup : lookups) {
+            try {
+                lookup.run();
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void givenWriterWhenReadersFindThenFoundMatched() throws InterruptedException {
+        MessageIndex index = index();
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (ImmutableMessage message : index.findEqual(SYMBOL, "ABC")) {
+                    if (!"ABC".equals(SYMBOL.get(message))) {
+                        failure.set("Not matched: " + message);
+                    }
+                }
+
+                for (ImmutableMessage message : index.findRange(PRICE, 100.0, true, null, false)) {
+                    if (PRICE.get(message) < 100.0) {
+                        failure.set("Not in range: " + message);
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < 20000; i++) {
+            index.put(order(1L, i % 2 == 0 ? "ABC" : "DEF", "X", i));
+        }
+
+        done.set(true);
+        reader.join();
+
+        Assert.assertNull(failure.get());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages.schema;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.messages.FieldNotFoundException;
+import com.dopsun.msg4j.core.messages.FieldType;
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.InvalidTypeException;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class FieldPathTest {
+    private static ImmutableMessage leg(String symbol, double qty) {
+        WritableMessage instrument = Messages.create();
+        instrument.putString("symbol", symbol);
+
+        WritableMessage leg = Messages.create();
+        leg.putMessage("instrument", instrument.toImmutable());
+        leg.putDouble("qty", qty);
+        return leg.toImmutable();
+    }
+
+    private static ImmutableMessage order() {
+        WritableMessage order = Messages.create();
+        order.putMessageList("leg", Arrays.asList(leg("A", 1.0), leg("B", 2.0), leg("C", 3.0)));
+        order.putInt("count", 3);
+        return order.toImmutable();
+    }
+
+    @Test
+    public void givenPathWhenParseThenSameAsBuilt() {
+        FieldPath path = FieldPath.parse("leg[2].instrument.symbol");
+
+        Assert.assertEquals(FieldPath.of("leg").element(2).child("instrument").child("symbol"),
+                path);
+        Assert.assertEquals("leg[2].instrument.symbol", path.toString());
+        Assert.assertEquals("symbol", path.name());
+        Assert.assertEquals(2, path.depth());
+        Assert.assertTrue(FieldPath.parse("leg[0]").isElement());
+
+        for (String invalid : new String[] { "", "a.", ".a", "a[", "a[x]", "a[-1]", "a[1][2]",
+                "a[1]b", "a..b" }) {
+            try {
+                FieldPath.parse(invalid);
+                Assert.fail(invalid);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void givenNestedMessageWhenGetThenResolved() {
+        ImmutableMessage order = order();
+
+        Assert.assertEquals("C", FieldPath.parse("leg[2].instrument.symbol").getString(order));
+        Assert.assertEquals(2.0, FieldPath.parse("leg[1].qty").getDouble(order), 0.0);
+        Assert.assertEquals(3, FieldPath.parse("count").getInt(order));
+        Assert.assertEquals("A",
+                FieldPath.parse("leg[0]").getMessage(order).getMessage("instrument")
+                        .getString("symbol"));
+        Assert.assertEquals(FieldType.MESSAGE, FieldPath.parse("leg[0]").getFieldType(order));
+        Assert.assertEquals(FieldType.STRING,
+                FieldPath.parse("leg[0].instrument.symbol").tryGetFieldType(order).get());
+    }
+
+    @Test
+    public void givenMissingSegmentWhenGetThenFieldNotFoundAndTryGetDefault() {
+        ImmutableMessage order = order();
+
+        for (String path : new String[] { "leg[3].qty", "legs[0].qty", "leg[0].instrument.x" }) {
+            try {
+                FieldPath.parse(path).getDouble(order);
+                Assert.fail(path);
+            } catch (FieldNotFoundException e) {
+                // expected
+            }
+
+            Assert.assertEquals(-1.0, FieldPath.parse(path).tryGetDouble(order, -1.0), 0.0);
+            Assert.assertFalse(FieldPath.parse(path).contains(order));
+        }
+
+        Assert.assertSame(Collections.emptyList(),
+                FieldPath.parse("leg[5].legs").tryGetMessageList(order, Collections.emptyList()));
+        Assert.assertFalse(FieldPath.parse("leg[3]").tryGetFieldType(order).isPresent());
+    }
+
+    @Test
+    public void givenWrongTypeSegmentWhenGetThenInvalidType() {
+        ImmutableMessage order = order();
+
+        for (String path : new String[] { "count.qty", "leg.qty", "leg[0].qty", "leg[0]" }) {
+            try {
+                FieldPath.parse(path).tryGetString(order, "");
+                Assert.fail(path);
+            } catch (InvalidTypeException e) {
+                // expected
+            }
+        }
+
+        Assert.assertNull(FieldPath.parse("count.qty").parentOf(order));
+        Assert.assertFalse(FieldPath.parse("count.qty").contains(order));
+        Assert.assertFalse(FieldPath.parse("count[0].qty").contains(order));
+        Assert.assertNotNull(FieldPath.parse("leg[1].qty").parentOf(order));
+    }
+
+    @Test
+    public void givenNestedArraysAndBytesWhenGetThenResolved() {
+        WritableMessage data = Messages.create();
+        data.putIntArray("ints", new int[] { 1, 2 });
+        data.putLongArray("longs", new long[] { 3L });
+        data.putDoubleArray("doubles", new double[] { 4.5 });
+        data.putBytes("bytes", ByteBuffer.wrap(new byte[] { 6, 7, 8 }));
+
+        WritableMessage message = Messages.create();
+        message.putMessageList("data", Collections.singletonList(data.toImmutable()));
+        ImmutableMessage immutable = message.toImmutable();
+
+        Assert.assertEquals(2, FieldPath.parse("data[0].ints").getIntArray(immutable).get(1));
+        Assert.assertEquals(3L, FieldPath.parse("data[0].longs").getLongArray(immutable).get(0));
+        Assert.assertEquals(4.5,
+                FieldPath.parse("data[0].doubles").getDoubleArray(immutable).get(0), 0.0);
+        Assert.assertEquals(3, FieldPath.parse("data[0].bytes").getBytes(immutable).remaining());
+
+        IntBuffer noInts = IntBuffer.allocate(0);
+        LongBuffer noLongs = LongBuffer.allocate(0);
+        DoubleBuffer noDoubles = DoubleBuffer.allocate(0);
+        ByteBuffer noBytes = ByteBuffer.allocate(0);
+        Assert.assertSame(noInts,
+                FieldPath.parse("data[1].ints").tryGetIntArray(immutable, noInts));
+        Assert.assertSame(noLongs,
+                FieldPath.parse("data[0].absent").tryGetLongArray(immutable, noLongs));
+        Assert.assertSame(noDoubles,
+                FieldPath.parse("none[0].doubles").tryGetDoubleArray(immutable, noDoubles));
+        Assert.assertEquals(8,
+                FieldPath.parse("data[0].bytes").tryGetBytes(immutable, noBytes).get(2));
+
+        try {
+            FieldPath.parse("data[0].ints").getLongArray(immutable);
+            Assert.fail();
+        } catch (InvalidTypeException e) {
+            // expected
+        }
+
+        try {
+            FieldPath.parse("data[1].bytes").getBytes(immutable);
+            Assert.fail();
+        } catch (FieldNotFoundException e) {
+            // expected
+        }
+    }
+}
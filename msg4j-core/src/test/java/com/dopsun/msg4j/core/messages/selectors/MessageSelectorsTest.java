@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ */
+
+package com.dopsun.msg4j.core.messages.selectors;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class MessageSelectorsTest {
+    private static ImmutableMessage order() {
+        WritableMessage quote = Messages.create();
+        quote.putDouble("bid", 99.5);
+        quote.putFloat("ask", 100.25f);
+
+        WritableMessage message = Messages.create();
+        message.putString("symbol", "ABC.N");
+        message.putChar("side", 'B');
+        message.putByte("priority", (byte) 3);
+        message.putInt("qty", 500);
+        message.putLong("seq", 12345678901L);
+        message.putBoolean("active", true);
+        message.putString("order-id", "O_1%");
+        message.putMessage("quote", quote.toImmutable());
+        message.putMessageList("fills", Collections.singletonList(quote.toImmutable()));
+        return message.toImmutable();
+    }
+
+    private static boolean select(String expression) {
+        return MessageSelectors.compile(expression).test(order());
+    }
+
+    private static String simplify(String expression) {
+        return new SelectorParser(expression).parse().simplify().toString();
+    }
+
+    @Test
+    public void givenComparisonsWhenTestThenComparedByFieldType() {
+        Assert.assertTrue(select("qty = 500 AND qty >= 500.0 AND qty <> 501"));
+        Assert.assertTrue(select("priority < 4 and seq > 12345678900"));
+        Assert.assertTrue(select("quote.bid < 100 AND quote.bid <= 99.5"));
+        Assert.assertTrue(select("quote.ask > 100 AND 100.3 > quote.ask"));
+        Assert.assertTrue(select("symbol = 'ABC.N' AND symbol > 'AB' AND side = 'B'"));
+        Assert.assertTrue(select("side < 'C' AND side > '' AND side < 'BA'"));
+        Assert.assertTrue(select("active AND active = TRUE AND NOT active = FALSE"));
+
+        Assert.assertFalse(select("qty = '500'"));
+        Assert.assertFalse(select("symbol = 1"));
+        Assert.assertFalse(select("active = 1"));
+    }
+
+    @Test
+    public void givenAbsentFieldWhenTestThenUnknown() {
+        Assert.assertFalse(select("absent = 1"));
+        Assert.assertFalse(select("NOT absent = 1"));
+        Assert.assertFalse(select("NOT (absent = 1 AND qty = 500)"));
+        Assert.assertTrue(select("NOT (absent = 1 AND qty = 1)"));
+        Assert.assertFalse(select("NOT quote.absent.bid > 1"));
+        Assert.assertFalse(select("NOT symbol.bid > 1"));
+
+        Assert.assertTrue(select("absent IS NULL AND quote.absent IS NULL AND symbol.x IS NULL"));
+        Assert.assertTrue(select("quote.bid IS NOT NULL AND NOT quote IS NULL"));
+        Assert.assertTrue(select("fills[0].bid = 99.5 AND fills[0] IS NOT NULL"));
+        Assert.assertTrue(select("fills[1] IS NULL AND NOT fills[0].bid = 1"));
+    }
+
+    @Test
+    public void givenInBetweenAndLikeWhenTestThenSelected() {
+        Assert.assertTrue(select("qty IN (100, 500) AND priority IN (3.0) AND seq NOT IN (1)"));
+        Assert.assertTrue(select("quote.bid IN (99.5, 1) AND symbol IN ('X', 'ABC.N')"));
+        Assert.assertTrue(select("side IN ('B') AND side NOT IN ('S', 'BB')"));
+        Assert.assertFalse(select("qty IN ('500')"));
+
+        Assert.assertTrue(select("qty BETWEEN 100 AND 500 AND qty NOT BETWEEN 501 AND 1000"));
+        Assert.assertTrue(select("quote.ask BETWEEN 100 AND 101"));
+
+        Assert.assertTrue(select("symbol LIKE 'ABC%' AND symbol LIKE '%.N'"));
+        Assert.assertTrue(select("symbol LIKE '%C.%' AND symbol LIKE 'A_C._'"));
+        Assert.assertTrue(select("symbol LIKE 'A%.%N' AND symbol NOT LIKE 'A%.%X'"));
+        Assert.assertTrue(select("\"order-id\" LIKE 'O\\_1\\%' ESCAPE '\\'"));
+        Assert.assertFalse(select("\"order-id\" LIKE 'O\\_2%' ESCAPE '\\'"));
+        Assert.assertFalse(select("qty LIKE '5%'"));
+    }
+
+    @Test
+    public void givenPatternsWhenLikeThenMatched() {
+        String[][] matches = { { "", "" }, { "%", "" }, { "%", "abc" }, { "a%c", "abbc" },
+                { "a%b%c", "aXbYbc" }, { "_%_", "ab" }, { "%ab", "aab" }, { "%a%", "bab" } };
+        String[][] mismatches = { { "", "a" }, { "_", "" }, { "a%c", "abcd" }, { "a%b%c", "acb" },
+                { "_%_", "a" }, { "%ab", "aba" }, { "%a%", "bbb" } };
+
+        WritableMessage message = Messages.create();
+        for (String[] match : matches) {
+            message.putString("x", match[1]);
+            String expression = "x LIKE '" + match[0] + "'";
+            Assert.assertTrue(expression, MessageSelectors.compile(expression).test(message));
+        }
+
+        for (String[] mismatch : mismatches) {
+            message.putString("x", mismatch[1]);
+            String expression = "x LIKE '" + mismatch[0] + "'";
+            Assert.assertFalse(expression, MessageSelectors.compile(expression).test(message));
+        }
+    }
+
+    @Test
+    public void givenLiteralsWhenSimplifyThenFolded() {
+        Assert.assertEquals("qty > 2", simplify("1 = 1 AND qty > 2"));
+        Assert.assertEquals("qty > 2", simplify("1 = 'a' OR qty > 2"));
+        Assert.assertEquals("FALSE", simplify("NOT 1 = 'a'"));
+        Assert.assertEquals("TRUE", simplify("qty > 2 OR 2 BETWEEN 1 AND 3"));
+        Assert.assertEquals("qty <= 2", simplify("NOT (qty > 2 OR FALSE)"));
+    }
+
+    @Test
+    public void givenJunctionsWhenSimplifyThenFlattenedAndOrderedByCost() {
+        Assert.assertEquals("(y IS NULL AND q.x = 1 AND s LIKE 'a%b' AND (u < 1 OR t = 'a'))",
+                simplify("s LIKE 'a%b' AND (q.x = 1 AND y IS NULL) AND (t = 'a' OR u < 1)"));
+        Assert.assertEquals("(q.x <> 1 OR s NOT LIKE 'a%')",
+                simplify("NOT (s LIKE 'a%' AND q.x = 1)"));
+    }
+
+    @Test
+    public void givenInvalidExpressionWhenCompileThenSyntaxException() {
+        String[] expressions = { "", "qty =", "qty = 1 qty", "(qty = 1", "qty = 'a", "qty == 1",
+                "qty NOT 1", "qty IN ()", "qty IN (1, 'a')", "1 LIKE 'a'", "qty = other",
+                "active < TRUE", "and = 1", "qty = 1e", "seq = 99999999999999999999",
+                "fills[0] = 1", "fills[x].bid = 1", "fills[0.bid = 1" };
+
+        for (String expression : expressions) {
+            try {
+                MessageSelectors.compile(expression);
+                Assert.fail(expression);
+            } catch (SelectorSyntaxException e) {
+                Assert.assertEquals(expression, e.getExpression());
+            }
+        }
+    }
+
+    @Test
+    public void givenUnexpectedTokenWhenCompileThenPositionOfToken() {
+        try {
+            MessageSelectors.compile("qty = 1 AND ) ");
+            Assert.fail();
+        } catch (SelectorSyntaxException e) {
+            Assert.assertEquals(12, e.getPosition());
+        }
+    }
+}
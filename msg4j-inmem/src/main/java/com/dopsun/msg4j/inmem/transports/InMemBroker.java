@@ -4,17 +4,25 @@
 
 package com.dopsun.msg4j.inmem.transports;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TransferQueue;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
 
 import com.dopsun.msg4j.core.delivery.transports.ConsumerMode;
+import com.dopsun.msg4j.core.delivery.transports.DeliveryExecutor;
 import com.dopsun.msg4j.core.delivery.transports.TransportException;
 import com.dopsun.msg4j.core.delivery.transports.TransportQueue;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscriberSettings;
@@ -30,15 +38,28 @@ import com.google.common.util.concurrent.Service;
  * @since 1.0.0
  */
 public final class InMemBroker implements AutoCloseable {
-    private final ConcurrentHashMap<String, TransferQueue<ImmutableMessage>> queueMessages = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, TransferQueue<ImmutableMessage>> topicMessages = new ConcurrentHashMap<>();
+    /**
+     * Most messages drained from topic spool in one go.
+     */
+    private static final int DRAIN_LIMIT = 256;
+
+    private static final long POLL_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ConcurrentHashMap<String, TransferQueue<Spooled>> queueMessages = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TransferQueue<Spooled>> topicMessages = new ConcurrentHashMap<>();
 
     private final ConcurrentHashMap<String, Set<SubscriptionImpl>> queueSubscriptions = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, Set<SubscriptionImpl>> topicSubscriptions = new ConcurrentHashMap<>();
 
-    private final ConcurrentHashMap<InMemTransportDestination, TransferQueue<ImmutableMessage>> destinationSpool = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<InMemTransportDestination, TransferQueue<Spooled>> destinationSpool = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<InMemTransportDestination, Service> destinationService = new ConcurrentHashMap<>();
 
+    /**
+     * Dispatcher threads of queues, which may hold messages not acknowledged yet, so are parked
+     * and unparked by publishers instead of waiting on spools.
+     */
+    private final ConcurrentHashMap<String, Thread> queueDispatchers = new ConcurrentHashMap<>();
+
     /**
      * 
      */
@@ -48,9 +69,16 @@ public final class InMemBroker implements AutoCloseable {
     @Override
     public void close() throws Exception {
         for (Service service : destinationService.values()) {
-            service.stopAsync().awaitTerminated();
+            service.stopAsync();
+        }
+        for (Thread dispatcher : queueDispatchers.values()) {
+            LockSupport.unpark(dispatcher);
+        }
+        for (Service service : destinationService.values()) {
+            service.awaitTerminated();
         }
 
+        queueDispatchers.clear();
         destinationService.clear();
         destinationSpool.clear();
     }
@@ -72,18 +100,75 @@ public final class InMemBroker implements AutoCloseable {
         Objects.requireNonNull(destination);
         Objects.requireNonNull(message);
 
-        TransferQueue<ImmutableMessage> spool = ensureDestination(destination);
+        TransferQueue<Spooled> spool = ensureDestination(destination);
 
-        ImmutableMessage immutableMessage;
+        Spooled spooled = new Spooled(toImmutable(message), null);
 
-        if (message.isImmutable()) {
-            immutableMessage = message.asImmutable().get();
-        } else {
-            immutableMessage = message.asWritable().get().toImmutable();
+        if (!spool.tryTransfer(spooled)) {
+            spool.add(spooled);
+            wakeQueueDispatcher(destination);
         }
+    }
+
+    /**
+     * Publishes message without waiting for it delivered.
+     * 
+     * @param destination
+     * @param message
+     * @return future completes when message has been delivered to subscribers of destination, or
+     *         exceptionally if a subscriber of topic failed.
+     */
+    public CompletableFuture<Void> publishAsync(InMemTransportDestination destination,
+            Message message) {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(message);
 
-        if (!spool.tryTransfer(immutableMessage)) {
-            spool.add(immutableMessage);
+        TransferQueue<Spooled> spool = ensureDestination(destination);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        spool.add(new Spooled(toImmutable(message), future));
+        wakeQueueDispatcher(destination);
+
+        return future;
+    }
+
+    /**
+     * Publishes messages, which are enqueued together, so dispatcher of destination is woken up
+     * once for the batch.
+     * 
+     * @param destination
+     * @param messages
+     */
+    public void publishBatch(InMemTransportDestination destination,
+            List<? extends Message> messages) {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(messages);
+
+        TransferQueue<Spooled> spool = ensureDestination(destination);
+
+        List<Spooled> spooledMessages = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            spooledMessages.add(new Spooled(toImmutable(message), null));
+        }
+
+        spool.addAll(spooledMessages);
+        wakeQueueDispatcher(destination);
+    }
+
+    private void wakeQueueDispatcher(InMemTransportDestination destination) {
+        if (destination instanceof TransportQueue) {
+            Thread dispatcher = queueDispatchers.get(destination.getSubject());
+            if (dispatcher != null) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+    }
+
+    private static ImmutableMessage toImmutable(Message message) {
+        if (message.isImmutable()) {
+            return message.asImmutable().get();
+        } else {
+            return message.asWritable().get().toImmutable();
         }
     }
 
@@ -98,12 +183,38 @@ public final class InMemBroker implements AutoCloseable {
     public TransportSubscription subscribe(InMemTransportDestination destination,
             TransportSubscriberSettings settings, Consumer<Message> consumer)
             throws TransportException, UnsupportedOperationException {
-        SubscriptionImpl subscription = new SubscriptionImpl(destination, settings, consumer);
+        Objects.requireNonNull(consumer);
+
+        return addSubscription(new SubscriptionImpl(destination, settings, consumer, null));
+    }
+
+    /**
+     * Subscribes with batches drained from spool of destination, on dispatcher thread of
+     * destination.
+     * 
+     * @param destination
+     * @param settings
+     * @param consumer
+     * @return
+     * @throws TransportException
+     * @throws UnsupportedOperationException
+     */
+    public TransportSubscription subscribeBatch(InMemTransportDestination destination,
+            TransportSubscriberSettings settings, Consumer<List<Message>> consumer)
+            throws TransportException, UnsupportedOperationException {
+        Objects.requireNonNull(consumer);
+
+        return addSubscription(new SubscriptionImpl(destination, settings, null, consumer));
+    }
+
+    private TransportSubscription addSubscription(SubscriptionImpl subscription) {
+        InMemTransportDestination destination = subscription.destination;
 
         if (destination instanceof TransportQueue) {
             Set<SubscriptionImpl> set = queueSubscriptions.computeIfAbsent(destination.getSubject(),
                     subject -> Sets.newConcurrentHashSet());
             set.add(subscription);
+            wakeQueueDispatcher(destination);
         } else {
             Set<SubscriptionImpl> set = topicSubscriptions.computeIfAbsent(destination.getSubject(),
                     subject -> Sets.newConcurrentHashSet());
@@ -113,9 +224,9 @@ public final class InMemBroker implements AutoCloseable {
         return subscription;
     }
 
-    private TransferQueue<ImmutableMessage> ensureDestination(
+    private TransferQueue<Spooled> ensureDestination(
             InMemTransportDestination destination) {
-        ConcurrentHashMap<String, TransferQueue<ImmutableMessage>> destMessages;
+        ConcurrentHashMap<String, TransferQueue<Spooled>> destMessages;
 
         if (destination instanceof TransportQueue) {
             destMessages = queueMessages;
@@ -123,14 +234,22 @@ public final class InMemBroker implements AutoCloseable {
             destMessages = topicMessages;
         }
 
-        final TransferQueue<ImmutableMessage> spool = destMessages
+        final TransferQueue<Spooled> spool = destMessages
                 .computeIfAbsent(destination.getSubject(), dest -> new LinkedTransferQueue<>());
         destinationService.computeIfAbsent(destination, dest -> {
             Service service = new AbstractExecutionThreadService() {
+                @Override
+                protected void startUp() throws Exception {
+                    if (dest instanceof TransportQueue) {
+                        queueDispatchers.put(dest.getSubject(), Thread.currentThread());
+                    }
+                }
+
                 @Override
                 protected void run() throws Exception {
+                    ArrayDeque<Spooled> ready = new ArrayDeque<>();
                     while (this.isRunning()) {
-                        dispatchQueue(dest, spool);
+                        dispatchQueue(dest, spool, ready);
                     }
                 }
             };
@@ -143,24 +262,45 @@ public final class InMemBroker implements AutoCloseable {
         return spool;
     }
 
+    /**
+     * @param ready
+     *            messages of queue taken from spool but not acknowledged yet, in order, which are
+     *            delivered before spool. Only used by dispatcher thread.
+     */
     private void dispatchQueue(InMemTransportDestination destination,
-            TransferQueue<ImmutableMessage> spool) {
+            TransferQueue<Spooled> spool, ArrayDeque<Spooled> ready) {
         try {
             if (destination instanceof TransportQueue) {
-                ImmutableMessage message = spool.peek();
+                Spooled spooled = ready.peekFirst();
+                if (spooled == null) {
+                    spooled = spool.poll();
+                    if (spooled != null) {
+                        ready.addLast(spooled);
+                    }
+                }
 
-                if (message != null) {
+                if (spooled != null) {
+                    ImmutableMessage message = spooled.message;
                     Set<SubscriptionImpl> subscriptionSet = queueSubscriptions
-                            .get(destination.getSubject());
+                            .getOrDefault(destination.getSubject(), Collections.emptySet());
+                    if (subscriptionSet.isEmpty()) {
+                        LockSupport.parkNanos(spool, POLL_TIMEOUT_NANOS); // until subscribed
+                    }
+
                     for (SubscriptionImpl subscription : subscriptionSet) {
+                        if (subscription.batchConsumer != null) {
+                            dispatchQueueBatch(spool, ready, subscription);
+                            break;
+                        }
+
                         try {
                             subscription.consumer.accept(message);
 
-                            spool.take(); // acknowledged
+                            ready.removeFirst().onDelivered(); // acknowledged
                         } catch (Throwable ex) {
                             if (subscription.destination.getConsumerMode()
                                     .equals(ConsumerMode.NO_ACK)) {
-                                spool.take(); // acknowledged
+                                ready.removeFirst().onDelivered(); // acknowledged
                             } else {
                                 Thread.sleep(1000); // will be delivered again in 1 second.
                             }
@@ -168,15 +308,40 @@ public final class InMemBroker implements AutoCloseable {
 
                         break; // Only first consumer to be triggered.
                     }
+                } else {
+                    LockSupport.parkNanos(spool, POLL_TIMEOUT_NANOS); // until published
                 }
             } else {
-                ImmutableMessage message = spool.poll(100, TimeUnit.MILLISECONDS);
-                if (message != null) {
-                    Set<SubscriptionImpl> subscriptionSet = topicSubscriptions
-                            .get(destination.getSubject());
-                    if (subscriptionSet != null) {
-                        for (SubscriptionImpl subscription : subscriptionSet) {
-                            subscription.consumer.accept(message);
+                long timeoutNanos = POLL_TIMEOUT_NANOS;
+                Set<SubscriptionImpl> subscriptionSet = topicSubscriptions
+                        .get(destination.getSubject());
+                if (subscriptionSet != null) {
+                    long now = System.nanoTime();
+                    for (SubscriptionImpl subscription : subscriptionSet) {
+                        timeoutNanos = Math.min(timeoutNanos, subscription.nanosToFlush(now));
+                    }
+                }
+
+                Spooled spooled = spool.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+                if (spooled != null) {
+                    List<Spooled> drained = new ArrayList<>();
+                    drained.add(spooled);
+                    spool.drainTo(drained, DRAIN_LIMIT - 1);
+
+                    subscriptionSet = topicSubscriptions.get(destination.getSubject());
+                    long now = System.nanoTime();
+                    for (Spooled next : drained) {
+                        dispatchTopicMessage(next, subscriptionSet, now);
+                    }
+                }
+
+                if (subscriptionSet != null) {
+                    long now = System.nanoTime();
+                    for (SubscriptionImpl subscription : subscriptionSet) {
+                        try {
+                            subscription.flushIfDue(now);
+                        } catch (RuntimeException e) {
+                            report(e);
                         }
                     }
                 }
@@ -187,23 +352,215 @@ public final class InMemBroker implements AutoCloseable {
         }
     }
 
+    /**
+     * Delivers a topic message to every subscription, even if some of them fail. Asynchronous
+     * publishing completes exceptionally with first failure, if any.
+     */
+    private static void dispatchTopicMessage(Spooled spooled,
+            @Nullable Set<SubscriptionImpl> subscriptionSet, long now) {
+        RuntimeException failure = null;
+        if (subscriptionSet != null) {
+            for (SubscriptionImpl subscription : subscriptionSet) {
+                try {
+                    subscription.deliver(spooled.message, now);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+
+        if (failure == null) {
+            spooled.onDelivered();
+        } else {
+            spooled.onFailed(failure);
+            report(failure);
+        }
+    }
+
+    /**
+     * Passes failure of a subscriber to uncaught exception handler of dispatcher thread, without
+     * stopping the thread.
+     */
+    private static void report(RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * Delivers messages at head of queue as one batch, and removes them once acknowledged. While
+     * lingering, only messages newly spooled are moved to <code>ready</code>, so a batch is built
+     * once; a failed batch stays in <code>ready</code> and is delivered again.
+     */
+    private void dispatchQueueBatch(TransferQueue<Spooled> spool, ArrayDeque<Spooled> ready,
+            SubscriptionImpl subscription) throws InterruptedException {
+        int maxBatchSize = subscription.settings.maxBatchSize;
+
+        if (ready.size() < maxBatchSize) {
+            spool.drainTo(ready, maxBatchSize - ready.size());
+        }
+
+        if (ready.size() < maxBatchSize) {
+            long lingerNanos = subscription.nanosToLinger(System.nanoTime());
+            if (lingerNanos > 0) {
+                LockSupport.parkNanos(spool, lingerNanos); // until deadline or published
+                return;
+            }
+        }
+        subscription.lingering = false;
+
+        int batchSize = Math.min(maxBatchSize, ready.size());
+        List<Message> batch = new ArrayList<>(batchSize);
+        Iterator<Spooled> iterator = ready.iterator();
+        while (batch.size() < batchSize) {
+            batch.add(iterator.next().message);
+        }
+
+        try {
+            subscription.batchConsumer.accept(Collections.unmodifiableList(batch));
+
+            acknowledge(ready, batchSize);
+        } catch (Throwable ex) {
+            if (subscription.destination.getConsumerMode().equals(ConsumerMode.NO_ACK)) {
+                acknowledge(ready, batchSize);
+            } else {
+                Thread.sleep(1000); // will be delivered again in 1 second.
+            }
+        }
+    }
+
+    private static void acknowledge(ArrayDeque<Spooled> ready, int count) {
+        for (int i = 0; i < count; i++) {
+            ready.removeFirst().onDelivered();
+        }
+    }
+
+    /**
+     * Message in spool, with completion of asynchronous publishing if any.
+     */
+    private static final class Spooled {
+        private final ImmutableMessage message;
+
+        @Nullable
+        private final CompletableFuture<Void> delivered;
+
+        Spooled(ImmutableMessage message, @Nullable CompletableFuture<Void> delivered) {
+            this.message = message;
+            this.delivered = delivered;
+        }
+
+        void onDelivered() {
+            if (delivered != null) {
+                delivered.complete(null);
+            }
+        }
+
+        void onFailed(Throwable e) {
+            if (delivered != null) {
+                delivered.completeExceptionally(e);
+            }
+        }
+    }
+
     private class SubscriptionImpl implements TransportSubscription {
         private final InMemTransportDestination destination;
 
-        @SuppressWarnings("unused")
         private final SubscriptionSettings settings;
 
+        /**
+         * Exactly one of <code>consumer</code> and <code>batchConsumer</code> is not
+         * <code>null</code>.
+         */
+        @Nullable
         private final Consumer<Message> consumer;
 
+        @Nullable
+        private final Consumer<List<Message>> batchConsumer;
+
+        private final DeliveryExecutor deliveryExecutor;
+
+        /*
+         * Batching state below is only accessed by dispatcher thread of destination. Topic
+         * batches are collected in pending; queue batches are collected in ready messages of
+         * dispatcher while lingering.
+         */
+        private List<Message> pending = new ArrayList<>();
+        private boolean lingering;
+        private long lingerDeadline;
+
         public SubscriptionImpl(InMemTransportDestination destination,
-                TransportSubscriberSettings settings, Consumer<Message> consumer) {
+                TransportSubscriberSettings settings, @Nullable Consumer<Message> consumer,
+                @Nullable Consumer<List<Message>> batchConsumer) {
             Objects.requireNonNull(destination);
             Objects.requireNonNull(settings);
-            Objects.requireNonNull(consumer);
 
             this.destination = destination;
             this.settings = new SubscriptionSettings(settings);
-            this.consumer = consumer;
+            this.deliveryExecutor = DeliveryExecutor.of(settings, destination.getConsumerMode(),
+                    destination.getSubject());
+            this.consumer = consumer == null ? null : deliveryExecutor.wrap(consumer);
+            this.batchConsumer = batchConsumer == null ? null
+                    : deliveryExecutor.wrap(batchConsumer);
+        }
+
+        /**
+         * Delivers a topic message, or adds it to pending batch.
+         */
+        void deliver(ImmutableMessage message, long now) {
+            if (batchConsumer == null) {
+                consumer.accept(message);
+                return;
+            }
+
+            if (pending.isEmpty()) {
+                lingerDeadline = now + settings.maxLingerNanos;
+            }
+
+            pending.add(message);
+            if (pending.size() >= settings.maxBatchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * @return nanoseconds before pending batch to be flushed, or {@link Long#MAX_VALUE} if
+         *         nothing pending.
+         */
+        long nanosToFlush(long now) {
+            if (pending.isEmpty()) {
+                return Long.MAX_VALUE;
+            }
+
+            return Math.max(0L, lingerDeadline - now);
+        }
+
+        void flushIfDue(long now) {
+            if (!pending.isEmpty() && now - lingerDeadline >= 0) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            List<Message> batch = pending;
+            pending = new ArrayList<>();
+
+            batchConsumer.accept(Collections.unmodifiableList(batch));
+        }
+
+        /**
+         * @return nanoseconds queue batch still to linger since first checked, or zero or less if
+         *         lingered long enough.
+         */
+        long nanosToLinger(long now) {
+            if (!lingering) {
+                lingering = true;
+                lingerDeadline = now + settings.maxLingerNanos;
+            }
+
+            return lingerDeadline - now;
         }
 
         @Override
@@ -219,6 +576,8 @@ public final class InMemBroker implements AutoCloseable {
                     set.remove(this);
                 }
             }
+
+            deliveryExecutor.close();
         }
     }
 
@@ -235,12 +594,18 @@ public final class InMemBroker implements AutoCloseable {
         @Nullable
         private final String selector;
 
+        private final int maxBatchSize;
+
+        private final long maxLingerNanos;
+
         public SubscriptionSettings(TransportSubscriberSettings settings) {
             Objects.requireNonNull(settings);
             this.browsingOnly = settings.isBrowsingOnly();
             this.durable = settings.isDurable();
             this.name = settings.getName();
             this.selector = settings.getSelector();
+            this.maxBatchSize = settings.getMaxBatchSize();
+            this.maxLingerNanos = settings.getMaxLinger(TimeUnit.NANOSECONDS);
         }
 
     }
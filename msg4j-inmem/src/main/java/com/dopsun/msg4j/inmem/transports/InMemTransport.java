@@ -4,11 +4,17 @@
 
 package com.dopsun.msg4j.inmem.transports;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 import com.dopsun.msg4j.core.delivery.transports.ConsumerMode;
+import com.dopsun.msg4j.core.delivery.transports.InFlightWindow;
 import com.dopsun.msg4j.core.delivery.transports.ProducerMode;
 import com.dopsun.msg4j.core.delivery.transports.Transport;
 import com.dopsun.msg4j.core.delivery.transports.TransportCapability;
@@ -19,6 +25,7 @@ import com.dopsun.msg4j.core.delivery.transports.TransportQueue;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscriberSettings;
 import com.dopsun.msg4j.core.delivery.transports.TransportSubscription;
 import com.dopsun.msg4j.core.delivery.transports.TransportTopic;
+import com.dopsun.msg4j.core.delivery.transports.Transports;
 import com.dopsun.msg4j.core.messages.Message;
 
 /**
@@ -27,14 +34,36 @@ import com.dopsun.msg4j.core.messages.Message;
  */
 public class InMemTransport implements Transport {
     private final InMemBroker broker;
+    private final InFlightWindow inFlightWindow;
+    private final boolean completeOnDelivery;
 
     /**
      * @param broker
      */
     public InMemTransport(InMemBroker broker) {
+        this(broker, InFlightWindow.unbounded(), false);
+    }
+
+    /**
+     * @param broker
+     * @param inFlightWindow
+     *            bounds messages published asynchronously but not yet delivered, in number and
+     *            estimated retained size, if <code>completeOnDelivery</code>.
+     * @param completeOnDelivery
+     *            <code>false</code> to complete asynchronous publishing when message accepted by
+     *            broker, which is before it returns, so window is not used; <code>true</code> to
+     *            complete it when message delivered to subscribers, so window bounds messages
+     *            waiting in destinations. With <code>true</code>, messages to a queue without
+     *            subscriber hold the window until one subscribes.
+     */
+    public InMemTransport(InMemBroker broker, InFlightWindow inFlightWindow,
+            boolean completeOnDelivery) {
         Objects.requireNonNull(broker);
+        Objects.requireNonNull(inFlightWindow);
 
-        this.broker = Objects.requireNonNull(broker);
+        this.broker = broker;
+        this.inFlightWindow = inFlightWindow;
+        this.completeOnDelivery = completeOnDelivery;
     }
 
     @Override
@@ -83,6 +112,72 @@ public class InMemTransport implements Transport {
         broker.publish(inMemDestination, message);
     }
 
+    /**
+     * Message is accepted when it is spooled by broker, or when delivered to subscribers if this
+     * transport is created to complete on delivery.
+     */
+    @Override
+    public CompletableFuture<Void> publishAsync(TransportDestination destination,
+            Message message) throws TransportException {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(message);
+
+        InMemTransportDestination inMemDestination = (InMemTransportDestination) destination;
+        if (!completeOnDelivery) {
+            broker.publish(inMemDestination, message);
+
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (inFlightWindow.isUnbounded()) {
+            return broker.publishAsync(inMemDestination, message);
+        }
+
+        long bytes = inFlightWindow.isBytesBounded() ? message.estimatedRetainedSize() : 0L;
+        inFlightWindow.acquire(bytes);
+
+        CompletableFuture<Void> future;
+        try {
+            future = broker.publishAsync(inMemDestination, message);
+        } catch (RuntimeException e) {
+            inFlightWindow.release(bytes);
+            throw e;
+        }
+
+        return future.whenComplete((result, exception) -> inFlightWindow.release(bytes));
+    }
+
+    @Override
+    public void publishBatch(TransportDestination destination, List<? extends Message> messages)
+            throws TransportException {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(messages);
+
+        InMemTransportDestination inMemDestination = (InMemTransportDestination) destination;
+        broker.publishBatch(inMemDestination, messages);
+    }
+
+    /**
+     * Messages are grouped by destination, so each destination is woken up once.
+     */
+    @Override
+    public void publishBatch(List<? extends TransportDestination> destinations,
+            List<? extends Message> messages) throws TransportException {
+        Transports.checkBatch(destinations, messages);
+
+        Map<InMemTransportDestination, List<Message>> batches = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            InMemTransportDestination inMemDestination = (InMemTransportDestination) destinations
+                    .get(i);
+            batches.computeIfAbsent(inMemDestination, dest -> new ArrayList<>())
+                    .add(messages.get(i));
+        }
+
+        for (Map.Entry<InMemTransportDestination, List<Message>> batch : batches.entrySet()) {
+            broker.publishBatch(batch.getKey(), batch.getValue());
+        }
+    }
+
     @Override
     public TransportSubscription subscribe(TransportDestination destination,
             TransportSubscriberSettings settings, Consumer<Message> consumer)
@@ -95,6 +190,22 @@ public class InMemTransport implements Transport {
         return broker.subscribe(inMemDestination, settings, consumer);
     }
 
+    /**
+     * Batches are drained from spool by dispatcher thread of destination, and delivered on that
+     * thread.
+     */
+    @Override
+    public TransportSubscription subscribeBatch(TransportDestination destination,
+            TransportSubscriberSettings settings, Consumer<List<Message>> consumer)
+            throws TransportException, UnsupportedOperationException {
+        Objects.requireNonNull(destination);
+        Objects.requireNonNull(settings);
+        Objects.requireNonNull(consumer);
+
+        InMemTransportDestination inMemDestination = (InMemTransportDestination) destination;
+        return broker.subscribeBatch(inMemDestination, settings, consumer);
+    }
+
     @Override
     public void commit() throws TransportException, UnsupportedOperationException {
         // TODO Auto-generated method stub
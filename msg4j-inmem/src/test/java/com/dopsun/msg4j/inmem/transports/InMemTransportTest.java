@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2017 Dop Sun. All rights reserved.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dopsun.msg4j.inmem.transports;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dopsun.msg4j.core.delivery.KeyedDispatcher;
+import com.dopsun.msg4j.core.delivery.transports.ConsumerMode;
+import com.dopsun.msg4j.core.delivery.transports.InFlightWindow;
+import com.dopsun.msg4j.core.delivery.transports.ProducerMode;
+import com.dopsun.msg4j.core.delivery.transports.TransportException;
+import com.dopsun.msg4j.core.delivery.transports.TransportQueue;
+import com.dopsun.msg4j.core.delivery.transports.TransportSubscriberSettings;
+import com.dopsun.msg4j.core.delivery.transports.TransportSubscription;
+import com.dopsun.msg4j.core.delivery.transports.TransportDestination;
+import com.dopsun.msg4j.core.delivery.transports.TransportTopic;
+import com.dopsun.msg4j.core.messages.Message;
+import com.dopsun.msg4j.core.messages.Messages;
+import com.dopsun.msg4j.core.messages.WritableMessage;
+import com.google.common.collect.Lists;
+
+/**
+ * @author Dop Sun
+ * @since 1.0.0
+ */
+@SuppressWarnings("javadoc")
+public class InMemTransportTest {
+    private static InMemBroker broker;
+
+    /**
+     * @throws Exception
+     */
+    @BeforeClass
+    public static void onBeforeClass() throws Exception {
+        broker = new InMemBroker();
+    }
+
+    /**
+     * @throws Exception
+     */
+    @AfterClass
+    public static void onAfterClass() throws Exception {
+        broker.close();
+    }
+
+    @Test
+    public void givenQueueWithoutSubscriberWhenPublishAsyncThenCompletedOnAcceptance()
+            throws Exception {
+        InFlightWindow window = new InFlightWindow(1, Long.MAX_VALUE, false);
+        try (InMemTransport transport = new InMemTransport(broker, window, false)) {
+            TransportQueue queue = transport.createQueue("TEST.ASYNC.ACCEPT",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+
+            for (long i = 0; i < 3; i++) {
+                CompletableFuture<Void> future = transport.publishAsync(queue, message(i));
+                future.get(1, TimeUnit.SECONDS);
+            }
+
+            Assert.assertEquals(0, window.inFlightMessages());
+        }
+    }
+
+    @Test(expected = TransportException.class)
+    public void givenCompleteOnDeliveryWhenQueueWithoutSubscriberThenWindowHeld()
+            throws Exception {
+        InFlightWindow window = new InFlightWindow(1, Long.MAX_VALUE, false);
+        try (InMemTransport transport = new InMemTransport(broker, window, true)) {
+            TransportQueue queue = transport.createQueue("TEST.ASYNC.DELIVERY",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+
+            CompletableFuture<Void> future = transport.publishAsync(queue, message(0));
+            Assert.assertFalse(future.isDone());
+            Assert.assertEquals(1, window.inFlightMessages());
+
+            transport.publishAsync(queue, message(1));
+        }
+    }
+
+    @Test
+    public void givenCompleteOnDeliveryWhenWindowFullThenPublishWaitsForDelivery()
+            throws Exception {
+        final List<Message> list = Lists.newArrayList();
+
+        InFlightWindow window = new InFlightWindow(2, Long.MAX_VALUE, true);
+        try (InMemTransport transport = new InMemTransport(broker, window, true)) {
+            TransportQueue queue = transport.createQueue("TEST.ASYNC.BLOCK",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+
+            transport.publishAsync(queue, message(0));
+            transport.publishAsync(queue, message(1));
+
+            CompletableFuture<Void> third = new CompletableFuture<>();
+            Thread publisher = new Thread(() -> {
+                try {
+                    transport.publishAsync(queue, message(2)).get();
+                    third.complete(null);
+                } catch (Exception e) {
+                    third.completeExceptionally(e);
+                }
+            });
+            publisher.start();
+
+            long deadline = System.currentTimeMillis() + 3000;
+            while (publisher.getState() != Thread.State.WAITING
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(Thread.State.WAITING, publisher.getState());
+            Assert.assertEquals(2, window.inFlightMessages());
+            Assert.assertFalse(third.isDone());
+
+            try (TransportSubscription subscription = transport.subscribe(queue,
+                    TransportSubscriberSettings.create(), (m) -> add(list, m))) {
+                third.get(3, TimeUnit.SECONDS);
+                awaitSize(list, 3);
+            }
+
+            Assert.assertEquals(0, window.inFlightMessages());
+            synchronized (list) {
+                Assert.assertEquals(3, list.size());
+            }
+        }
+    }
+
+    @Test
+    public void givenFailingSubscriberWhenPublishAsyncToTopicThenOthersStillDelivered()
+            throws Exception {
+        final List<Message> list = Lists.newArrayList();
+
+        try (InMemTransport transport = new InMemTransport(broker, InFlightWindow.unbounded(),
+                true)) {
+            TransportTopic topic = transport.createTopic("TEST.ASYNC.FAILURE",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create();
+
+            TransportSubscription failing = transport.subscribe(topic, settings, (m) -> {
+                if (m.getLong("SEQ") == 0L) {
+                    throw new IllegalStateException("Expected failure.");
+                }
+            });
+            TransportSubscription subscription = transport.subscribe(topic, settings, (m) -> {
+                synchronized (list) {
+                    list.add(m);
+                }
+            });
+
+            try {
+                CompletableFuture<Void> first = transport.publishAsync(topic, message(0));
+                CompletableFuture<Void> second = transport.publishAsync(topic, message(1));
+
+                try {
+                    first.get(3, TimeUnit.SECONDS);
+                    Assert.fail("Failure of subscriber not reported.");
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+                second.get(3, TimeUnit.SECONDS);
+
+                synchronized (list) {
+                    Assert.assertEquals(2, list.size());
+                    Assert.assertEquals(0L, list.get(0).getLong("SEQ"));
+                    Assert.assertEquals(1L, list.get(1).getLong("SEQ"));
+                }
+            } finally {
+                failing.close();
+                subscription.close();
+            }
+        }
+    }
+
+    @Test
+    public void givenPublishBatchWhenSubscribedThenDeliveredInOrder() throws Exception {
+        final List<Message> list = Lists.newArrayList();
+
+        try (InMemTransport transport = broker.createTransport()) {
+            TransportQueue queue = transport.createQueue("TEST.BATCH.QUEUE",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+            TransportTopic topic = transport.createTopic("TEST.BATCH.TOPIC",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create();
+
+            TransportSubscription queueSubscription = transport.subscribe(queue, settings,
+                    (m) -> add(list, m));
+            TransportSubscription topicSubscription = transport.subscribe(topic, settings,
+                    (m) -> add(list, m));
+
+            try {
+                List<Message> batch = Lists.newArrayList();
+                for (long i = 0; i < 10; i++) {
+                    batch.add(message(i));
+                }
+
+                transport.publishBatch(queue, batch);
+                awaitSize(list, 10);
+
+                List<TransportDestination> destinations = Arrays.asList(topic, topic);
+                transport.publishBatch(destinations, batch.subList(0, 2));
+                awaitSize(list, 12);
+
+                synchronized (list) {
+                    Assert.assertEquals(12, list.size());
+                    for (int i = 0; i < 12; i++) {
+                        Assert.assertEquals(i % 10, list.get(i).getLong("SEQ"));
+                    }
+                }
+            } finally {
+                queueSubscription.close();
+                topicSubscription.close();
+            }
+        }
+    }
+
+    @Test
+    public void givenQueueSubscribeBatchWhenFewerThanMaxThenDeliveredAfterLinger()
+            throws Exception {
+        givenSubscribeBatchWhenFewerThanMaxThenDeliveredAfterLinger(true);
+    }
+
+    @Test
+    public void givenTopicSubscribeBatchWhenFewerThanMaxThenDeliveredAfterLinger()
+            throws Exception {
+        givenSubscribeBatchWhenFewerThanMaxThenDeliveredAfterLinger(false);
+    }
+
+    private void givenSubscribeBatchWhenFewerThanMaxThenDeliveredAfterLinger(boolean queue)
+            throws Exception {
+        final List<List<Message>> batches = Lists.newArrayList();
+
+        try (InMemTransport transport = broker.createTransport()) {
+            TransportDestination destination = queue
+                    ? transport.createQueue("TEST.LINGER.QUEUE", ProducerMode.NON_PERSISTENT,
+                            ConsumerMode.NO_ACK)
+                    : transport.createTopic("TEST.LINGER.TOPIC", ProducerMode.NON_PERSISTENT,
+                            ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create()
+                    .maxBatchSize(4).maxLinger(200, TimeUnit.MILLISECONDS);
+
+            TransportSubscription subscription = transport.subscribeBatch(destination, settings,
+                    (batch) -> add(batches, batch));
+
+            try {
+                List<Message> messages = Lists.newArrayList();
+                for (long i = 0; i < 10; i++) {
+                    messages.add(message(i));
+                }
+
+                long started = System.nanoTime();
+                transport.publishBatch(destination, messages);
+
+                int received = 0;
+                long deadline = System.currentTimeMillis() + 3000;
+                synchronized (batches) {
+                    while (received < 10 && System.currentTimeMillis() < deadline) {
+                        batches.wait(100);
+                        received = batches.stream().mapToInt(List::size).sum();
+                    }
+                }
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+                Assert.assertEquals(10, received);
+                Assert.assertTrue("Last batch flushed before linger: " + elapsedMillis,
+                        elapsedMillis >= 150);
+
+                synchronized (batches) {
+                    long seq = 0;
+                    for (List<Message> batch : batches) {
+                        Assert.assertTrue(batch.size() > 0 && batch.size() <= 4);
+                        for (Message message : batch) {
+                            Assert.assertEquals(seq++, message.getLong("SEQ"));
+                        }
+                    }
+                    Assert.assertEquals(2, batches.get(batches.size() - 1).size());
+                }
+            } finally {
+                subscription.close();
+            }
+        }
+    }
+
+    @Test
+    public void givenKeyedDispatcherWhenSubscribeThenOnlyNoAckSupported() throws Exception {
+        final List<Message> list = Lists.newArrayList();
+
+        try (InMemTransport transport = broker.createTransport();
+                KeyedDispatcher dispatcher = KeyedDispatcher.builder(m -> add(list, m))
+                        .key(m -> m.getLong("SEQ")).stripes(2).build()) {
+            TransportQueue acknowledged = transport.createQueue("TEST.KEYED.AUTO",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.AUTO);
+            TransportTopic topic = transport.createTopic("TEST.KEYED.NO_ACK",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.NO_ACK);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create();
+
+            try {
+                dispatcher.subscribe(transport, acknowledged, settings);
+                Assert.fail("Acknowledging destination subscribed.");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+
+            try (TransportSubscription subscription = dispatcher.subscribe(transport, topic,
+                    settings)) {
+                transport.publish(topic, message(0));
+                awaitSize(list, 1);
+            }
+
+            synchronized (list) {
+                Assert.assertEquals(1, list.size());
+            }
+        }
+    }
+
+    @Test
+    public void givenFailingQueueBatchConsumerWhenAcknowledgingThenSameBatchDeliveredAgain()
+            throws Exception {
+        final List<List<Message>> batches = Lists.newArrayList();
+
+        try (InMemTransport transport = broker.createTransport()) {
+            TransportQueue queue = transport.createQueue("TEST.BATCH.REDELIVERY",
+                    ProducerMode.NON_PERSISTENT, ConsumerMode.AUTO);
+            TransportSubscriberSettings settings = TransportSubscriberSettings.create()
+                    .maxBatchSize(3).maxLinger(100, TimeUnit.MILLISECONDS);
+
+            TransportSubscription subscription = transport.subscribeBatch(queue, settings,
+                    (batch) -> {
+                        add(batches, batch);
+                        synchronized (batches) {
+                            if (batches.size() == 1) {
+                                throw new IllegalStateException("Expected failure.");
+                            }
+                        }
+                    });
+
+            try {
+                for (long i = 0; i < 5; i++) {
+                    transport.publish(queue, message(i));
+                }
+                awaitSize(batches, 3);
+
+                synchronized (batches) {
+                    Assert.assertEquals(3, batches.size());
+                    Assert.assertEquals(batches.get(0), batches.get(1));
+                    Assert.assertEquals(3, batches.get(1).size());
+                    Assert.assertEquals(2, batches.get(2).size());
+                    Assert.assertEquals(3L, batches.get(2).get(0).getLong("SEQ"));
+                }
+            } finally {
+                subscription.close();
+            }
+        }
+    }
+
+    private static <T> void add(List<T> list, T element) {
+        synchronized (list) {
+            list.add(element);
+            list.notifyAll();
+        }
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        synchronized (list) {
+            while (list.size() < size && System.currentTimeMillis() < deadline) {
+                list.wait(100);
+            }
+        }
+    }
+
+    private static Message message(long seq) {
+        WritableMessage msg = Messages.create();
+        msg.putLong("SEQ", seq);
+        return msg;
+    }
+}
@@ -18,9 +18,11 @@ package com.dopsun.msg4j.o2m;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.function.BiConsumer;
 
 import com.dopsun.msg4j.core.messages.ImmutableMessage;
+import com.dopsun.msg4j.core.messages.OffHeapMessageStore;
 
 /**
  * This is a trim down version of the {@link Collection}. Reason to define a new interface, is to
@@ -61,6 +63,44 @@ public interface O2mServerSnapshot {
         };
     }
 
+    /**
+     * Creates a snapshot of messages in <code>store</code> when it runs. Messages are read one by
+     * one, so writers of <code>store</code> are not blocked while snapshot is sent; a message
+     * replaced or removed meanwhile is sent as current or skipped.
+     * 
+     * @param store
+     *            store of snapshot messages.
+     * @return
+     */
+    public static <K> O2mServerSnapshot fromStore(final OffHeapMessageStore<K> store) {
+        Objects.requireNonNull(store);
+
+        return (consumer) -> {
+            int count = 0;
+            ImmutableMessage previous = null;
+
+            for (K key : store.keys()) {
+                ImmutableMessage next = store.get(key);
+                if (next == null) {
+                    continue;
+                }
+
+                if (previous != null) {
+                    count++;
+                    consumer.accept(previous, Boolean.TRUE);
+                }
+                previous = next;
+            }
+
+            if (previous != null) {
+                count++;
+                consumer.accept(previous, Boolean.FALSE);
+            }
+
+            return count;
+        };
+    }
+
     /**
      * Empty snapshot.
      */
@@ -48,7 +48,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ServerStartedNotificationWriter newServerStartedNotification() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.SERVER_STARTED_NOTIFICATION);
         
         return new Messages.ServerStartedNotificationWriter(message);
@@ -63,7 +63,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ServerStoppedNotificationWriter newServerStoppedNotification() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.SERVER_STOPPED_NOTIFICATION);
         
         return new Messages.ServerStoppedNotificationWriter(message);
@@ -78,7 +78,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ClientConnectRequestWriter newClientConnectRequest() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.CLIENT_CONNECT_REQUEST);
         
         return new Messages.ClientConnectRequestWriter(message);
@@ -93,7 +93,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ClientConnectReplyWriter newClientConnectReply() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.CLIENT_CONNECT_REPLY);
         
         return new Messages.ClientConnectReplyWriter(message);
@@ -108,7 +108,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ClientDisconnectRequestWriter newClientDisconnectRequest() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.CLIENT_DISCONNECT_REQUEST);
         
         return new Messages.ClientDisconnectRequestWriter(message);
@@ -123,7 +123,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ClientDisconnectReplyWriter newClientDisconnectReply() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.CLIENT_DISCONNECT_REPLY);
         
         return new Messages.ClientDisconnectReplyWriter(message);
@@ -138,7 +138,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.SubscribeRequestWriter newSubscribeRequest() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.SUBSCRIBE_REQUEST);
         
         return new Messages.SubscribeRequestWriter(message);
@@ -153,7 +153,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.SubscribeReplyWriter newSubscribeReply() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.SUBSCRIBE_REPLY);
         
         return new Messages.SubscribeReplyWriter(message);
@@ -168,7 +168,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.UnsubscribeRequestWriter newUnsubscribeRequest() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.UNSUBSCRIBE_REQUEST);
         
         return new Messages.UnsubscribeRequestWriter(message);
@@ -183,7 +183,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.UnsubscribeReplyWriter newUnsubscribeReply() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.UNSUBSCRIBE_REPLY);
         
         return new Messages.UnsubscribeReplyWriter(message);
@@ -198,7 +198,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ChannelSnapshotWriter newChannelSnapshot() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.CHANNEL_SNAPSHOT);
         
         return new Messages.ChannelSnapshotWriter(message);
@@ -213,7 +213,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ChannelUpdateWriter newChannelUpdate() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.CHANNEL_UPDATE);
         
         return new Messages.ChannelUpdateWriter(message);
@@ -228,7 +228,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ServerClientHeartbeatWriter newServerClientHeartbeat() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.SERVER_CLIENT_HEARTBEAT);
         
         return new Messages.ServerClientHeartbeatWriter(message);
@@ -243,7 +243,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.ClientSessionReplacedReplyWriter newClientSessionReplacedReply() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.CLIENT_SESSION_REPLACED_REPLY);
         
         return new Messages.ClientSessionReplacedReplyWriter(message);
@@ -258,7 +258,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.UserRequestWriter newUserRequest() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.USER_REQUEST);
         
         return new Messages.UserRequestWriter(message);
@@ -273,7 +273,7 @@ public final class O2mMessages {
     }
 
     public static final Messages.UserReplyWriter newUserReply() {
-        WritableMessage message = com.dopsun.msg4j.core.messages.Messages.create();
+        WritableMessage message = DICTIONARY.createMessage();
         Fields.MessageType.put(message, Messages.USER_REPLY);
         
         return new Messages.UserReplyWriter(message);
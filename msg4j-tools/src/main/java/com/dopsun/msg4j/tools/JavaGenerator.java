@@ -97,6 +97,10 @@ public class JavaGenerator implements Generator {
         case STRING:
         case MESSAGE:
         case MESSAGE_LIST:
+        case INT_ARRAY:
+        case LONG_ARRAY:
+        case DOUBLE_ARRAY:
+        case BYTES:
             return true;
         default:
             return false;
@@ -188,11 +192,38 @@ public class JavaGenerator implements Generator {
             return optional ? "Optional<ImmutableMessage>" : "ImmutableMessage";
         case MESSAGE_LIST:
             return optional ? "Optional<List<ImmutableMessage>>" : "List<ImmutableMessage>";
+        case INT_ARRAY:
+            return optional ? "Optional<IntBuffer>" : "IntBuffer";
+        case LONG_ARRAY:
+            return optional ? "Optional<LongBuffer>" : "LongBuffer";
+        case DOUBLE_ARRAY:
+            return optional ? "Optional<DoubleBuffer>" : "DoubleBuffer";
+        case BYTES:
+            return optional ? "Optional<ByteBuffer>" : "ByteBuffer";
         default:
             throw new RuntimeException("Unrecognized type: " + fieldInfo.getType());
         }
     }
 
+    /**
+     * Arrays are read as buffers, but put as arrays.
+     * 
+     * @param fieldInfo
+     * @return
+     */
+    public String getFieldPutValueTypeString(FieldInfo fieldInfo) {
+        switch (fieldInfo.getType()) {
+        case INT_ARRAY:
+            return "int[]";
+        case LONG_ARRAY:
+            return "long[]";
+        case DOUBLE_ARRAY:
+            return "double[]";
+        default:
+            return getFieldValueTypeString(fieldInfo, false);
+        }
+    }
+
     private StringBuffer mergeTemplate(VelocityContext context, Template javaProxyTemplate) {
         StringWriter sw = new StringWriter();
 
@@ -75,5 +75,25 @@ public enum FieldType {
     /**
      * @see List
      */
-    MESSAGE_LIST
+    MESSAGE_LIST,
+
+    /**
+     * Array of <code>int</code>
+     */
+    INT_ARRAY,
+
+    /**
+     * Array of <code>long</code>
+     */
+    LONG_ARRAY,
+
+    /**
+     * Array of <code>double</code>
+     */
+    DOUBLE_ARRAY,
+
+    /**
+     * Opaque bytes
+     */
+    BYTES
 }